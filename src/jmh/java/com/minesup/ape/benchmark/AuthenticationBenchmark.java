@@ -0,0 +1,62 @@
+package com.minesup.ape.benchmark;
+
+import com.minesup.ape.security.AuthoritiesConstants;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+/**
+ * Benchmarks the logins handled by {@link com.minesup.ape.web.rest.UserJWTController} for several BCrypt strengths, to choose
+ * {@code application.authentication.password-strength} and size the authentication executor.
+ * <p>
+ * The users are kept in memory so that only the password checks are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class AuthenticationBenchmark {
+
+    @Param({ "8", "10", "12" })
+    private int strength;
+
+    private AuthenticationManager authenticationManager;
+
+    @Setup
+    public void setup() {
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(strength);
+        InMemoryUserDetailsManager userDetailsService = new InMemoryUserDetailsManager(
+            User.withUsername("user").password(passwordEncoder.encode("user")).authorities(AuthoritiesConstants.STUDENT).build()
+        );
+        DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        authenticationProvider.setUserDetailsService(userDetailsService);
+        authenticationManager = new ProviderManager(authenticationProvider);
+    }
+
+    @Benchmark
+    public Authentication authenticate() {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("user", "user"));
+    }
+
+    @Benchmark
+    public boolean authenticateWithWrongPassword() {
+        try {
+            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken("user", "wrong password"));
+            return true;
+        } catch (BadCredentialsException e) {
+            return false;
+        }
+    }
+}
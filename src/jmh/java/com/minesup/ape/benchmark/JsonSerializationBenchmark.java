@@ -0,0 +1,73 @@
+package com.minesup.ape.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the serialization of a page of courses and exercises, as returned by the entity list endpoints.
+ * <p>
+ * The {@link ObjectMapper} registers the same modules as {@link com.minesup.ape.config.JacksonConfiguration}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({ "20", "100" })
+    private int size;
+
+    @Param({ "200", "5000" })
+    private int contentLength;
+
+    private ObjectMapper objectMapper;
+
+    private List<Course> courses;
+
+    private List<Exercise> exercises;
+
+    @Setup
+    public void setup() {
+        objectMapper =
+            new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new Jdk8Module())
+                .registerModule(new Hibernate5Module())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        String content = "a".repeat(contentLength);
+        courses = new ArrayList<>(size);
+        exercises = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            Course course = new Course().id(i).title("course " + i).content(content);
+            Exercise exercise = new Exercise().id(i).title("exercise " + i).content(content).mark(10).course(course);
+            exercise.correction(new Correction().id(i).content(content));
+            course.addExercise(exercise);
+            courses.add(course);
+            exercises.add(exercise);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeCourses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(courses);
+    }
+
+    @Benchmark
+    public byte[] serializeExercises() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(exercises);
+    }
+}
@@ -0,0 +1,94 @@
+package com.minesup.ape.benchmark;
+
+import com.minesup.ape.ApeApp;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.repository.ExerciseSummary;
+import com.minesup.ape.service.ExerciseService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Benchmarks the pages of exercises read from tables of up to a million rows, against the embedded H2 database configured
+ * for the integration tests.
+ * <p>
+ * The rows are inserted with {@code insert ... select} statements, ten exercises per course and a correction for every other
+ * exercise, which Hibernate would take far longer to persist one at a time. Run with {@code -prof gc}: the memory allocated
+ * by each operation ({@code gc.alloc.rate.norm}) must not grow with {@code rowCount}, as only one page of rows is ever read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LargeTableBenchmark {
+
+    @Param({ "100000", "1000000" })
+    private int rowCount;
+
+    private ConfigurableApplicationContext context;
+
+    private ExerciseService exerciseService;
+
+    private final Pageable pageable = PageRequest.of(0, 20, Sort.by("id"));
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ApeApp.class).properties("server.port=0").run();
+        exerciseService = context.getBean(ExerciseService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+            .executeWithoutResult(status -> {
+                jdbcTemplate.update(
+                    "insert into course (id, title, content) select x, concat('course ', x), concat('content ', x) from system_range(1, ?)",
+                    (rowCount + 9) / 10
+                );
+                jdbcTemplate.update(
+                    "insert into exercise (id, title, content, mark, course_id)" +
+                    " select x, concat('exercise ', x), concat('content ', x), mod(x, 20), (x - 1) / 10 + 1 from system_range(1, ?)",
+                    rowCount
+                );
+                jdbcTemplate.update(
+                    "insert into correction (id, content, exercise_id)" +
+                    " select x, concat('correction ', x), x from system_range(1, ?) where mod(x, 2) = 1",
+                    rowCount
+                );
+            });
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Exercise> findAllExercisesWhereCorrectionIsNull() {
+        return exerciseService.findAllWhereCorrectionIsNull(pageable);
+    }
+
+    @Benchmark
+    public Page<Exercise> findAllExercisesWithEagerRelationships() {
+        return exerciseService.findAllWithEagerRelationships(pageable);
+    }
+
+    @Benchmark
+    public Page<ExerciseSummary> findAllExerciseSummaries() {
+        return exerciseService.findAllSummaries(pageable);
+    }
+
+    @Benchmark
+    public Slice<Exercise> findAllExercisesAfterTheMiddleOne() {
+        return exerciseService.findAllAfter((long) rowCount / 2, pageable.getPageSize());
+    }
+}
@@ -0,0 +1,91 @@
+package com.minesup.ape.benchmark;
+
+import com.minesup.ape.domain.User;
+import com.minesup.ape.service.MailTemplateRenderer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import tech.jhipster.config.JHipsterProperties;
+import tech.jhipster.security.RandomUtil;
+
+/**
+ * Benchmarks the rendering of the activation email for a batch of recipients, by Thymeleaf for each of them as done before
+ * {@link MailTemplateRenderer}, and by the {@link MailTemplateRenderer}. The scores are per email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MailTemplateBenchmark {
+
+    private static final int RECIPIENTS = 10_000;
+
+    private static final String TEMPLATE = "mail/activationEmail";
+
+    private SpringTemplateEngine templateEngine;
+
+    private JHipsterProperties jHipsterProperties;
+
+    private MailTemplateRenderer mailTemplateRenderer;
+
+    private List<User> users;
+
+    @Setup
+    public void setup() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("i18n/messages");
+        messageSource.setDefaultEncoding(StandardCharsets.UTF_8.name());
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setTemplateEngineMessageSource(messageSource);
+        jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getMail().setBaseUrl("http://127.0.0.1:8080");
+        mailTemplateRenderer = new MailTemplateRenderer(templateEngine, messageSource, jHipsterProperties, new ThymeleafProperties());
+
+        users = new ArrayList<>(RECIPIENTS);
+        for (int i = 0; i < RECIPIENTS; i++) {
+            User user = new User();
+            user.setLogin("user" + i);
+            user.setEmail("user" + i + "@localhost");
+            user.setLangKey(i % 2 == 0 ? "fr" : "en");
+            user.setActivationKey(RandomUtil.generateActivationKey());
+            users.add(user);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public void thymeleaf(Blackhole blackhole) {
+        for (User user : users) {
+            Context context = new Context(Locale.forLanguageTag(user.getLangKey()));
+            context.setVariable("user", user);
+            context.setVariable("baseUrl", jHipsterProperties.getMail().getBaseUrl());
+            blackhole.consume(templateEngine.process(TEMPLATE, context));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public void compiled(Blackhole blackhole) {
+        for (User user : users) {
+            blackhole.consume(mailTemplateRenderer.renderContent(TEMPLATE, user));
+        }
+    }
+}
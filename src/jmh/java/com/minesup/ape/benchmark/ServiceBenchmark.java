@@ -0,0 +1,115 @@
+package com.minesup.ape.benchmark;
+
+import com.minesup.ape.ApeApp;
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.repository.CorrectionRepository;
+import com.minesup.ape.repository.CourseRepository;
+import com.minesup.ape.repository.ExerciseRepository;
+import com.minesup.ape.repository.ExerciseSummary;
+import com.minesup.ape.service.CourseService;
+import com.minesup.ape.service.ExerciseService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Benchmarks the service-layer read paths against the embedded H2 database configured for the integration tests.
+ * <p>
+ * Every other exercise is given a correction, so that {@code findAllWhereCorrectionIsNull} filters out half of the rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({ "10000" })
+    private int exerciseCount;
+
+    private ConfigurableApplicationContext context;
+
+    private CourseService courseService;
+
+    private ExerciseService exerciseService;
+
+    private List<Long> exerciseIds;
+
+    private final Pageable pageable = PageRequest.of(0, 20, Sort.by("id"));
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(ApeApp.class).properties("server.port=0").run();
+        courseService = context.getBean(CourseService.class);
+        exerciseService = context.getBean(ExerciseService.class);
+
+        CourseRepository courseRepository = context.getBean(CourseRepository.class);
+        ExerciseRepository exerciseRepository = context.getBean(ExerciseRepository.class);
+        CorrectionRepository correctionRepository = context.getBean(CorrectionRepository.class);
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < exerciseCount / 10; i++) {
+            courses.add(new Course().title("course " + i).content("content " + i));
+        }
+        courseRepository.saveAll(courses);
+        List<Exercise> exercises = new ArrayList<>(exerciseCount);
+        for (int i = 0; i < exerciseCount; i++) {
+            exercises.add(new Exercise().title("exercise " + i).content("content " + i).mark(i % 20).course(courses.get(i / 10)));
+        }
+        exerciseRepository.saveAll(exercises);
+        List<Correction> corrections = new ArrayList<>(exerciseCount / 2);
+        for (int i = 0; i < exerciseCount; i += 2) {
+            corrections.add(new Correction().content("correction " + i).exercise(exercises.get(i)));
+        }
+        correctionRepository.saveAll(corrections);
+
+        exerciseIds = new ArrayList<>(exerciseCount);
+        exercises.forEach(exercise -> exerciseIds.add(exercise.getId()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Course> findAllCourses() {
+        return courseService.findAll(pageable);
+    }
+
+    @Benchmark
+    public Page<Exercise> findAllExercises() {
+        return exerciseService.findAll(pageable);
+    }
+
+    @Benchmark
+    public Page<Exercise> findAllExercisesWithEagerRelationships() {
+        return exerciseService.findAllWithEagerRelationships(pageable);
+    }
+
+    @Benchmark
+    public Page<Exercise> findAllExercisesWhereCorrectionIsNull() {
+        return exerciseService.findAllWhereCorrectionIsNull(pageable);
+    }
+
+    @Benchmark
+    public Page<ExerciseSummary> findAllExerciseSummaries() {
+        return exerciseService.findAllSummaries(pageable);
+    }
+
+    @Benchmark
+    public Optional<Exercise> findOneExercise() {
+        return exerciseService.findOne(exerciseIds.get(ThreadLocalRandom.current().nextInt(exerciseIds.size())));
+    }
+}
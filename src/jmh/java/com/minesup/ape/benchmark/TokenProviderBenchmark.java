@@ -0,0 +1,69 @@
+package com.minesup.ape.benchmark;
+
+import com.minesup.ape.management.SecurityMetersService;
+import com.minesup.ape.security.AuthoritiesConstants;
+import com.minesup.ape.security.jwt.TokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Benchmarks the JWT validation done by the {@link com.minesup.ape.security.jwt.JWTFilter} on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    private static final String BASE64_SECRET =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
+    private TokenProvider tokenProvider;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setTokenValidityInSeconds(3600);
+        tokenProvider =
+            new TokenProvider(
+                jHipsterProperties,
+                new SecurityMetersService(new SimpleMeterRegistry()),
+                new ConcurrentMapCacheManager(TokenProvider.AUTHENTICATIONS_BY_TOKEN_CACHE)
+            );
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+            "user",
+            "user",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.STUDENT))
+        );
+        token = tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+
+    @Benchmark
+    public Optional<Authentication> getValidAuthentication() {
+        return tokenProvider.getValidAuthentication(token);
+    }
+}
@@ -1,5 +1,9 @@
 package com.minesup.ape.config;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,4 +13,584 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Cache cache = new Cache();
+
+    private final QueryMetrics queryMetrics = new QueryMetrics();
+
+    private final BulkImport bulkImport = new BulkImport();
+
+    private final BulkRequests bulkRequests = new BulkRequests();
+
+    private final Search search = new Search();
+
+    private final UserProvisioning userProvisioning = new UserProvisioning();
+
+    private final Authentication authentication = new Authentication();
+
+    private final MailOutbox mailOutbox = new MailOutbox();
+
+    private final UserCleanup userCleanup = new UserCleanup();
+
+    private final Executors executors = new Executors();
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    public BulkImport getBulkImport() {
+        return bulkImport;
+    }
+
+    public BulkRequests getBulkRequests() {
+        return bulkRequests;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public UserProvisioning getUserProvisioning() {
+        return userProvisioning;
+    }
+
+    public Authentication getAuthentication() {
+        return authentication;
+    }
+
+    public MailOutbox getMailOutbox() {
+        return mailOutbox;
+    }
+
+    public UserCleanup getUserCleanup() {
+        return userCleanup;
+    }
+
+    public Executors getExecutors() {
+        return executors;
+    }
+
+    public static class Cache {
+
+        private int timeToLiveSeconds = 3600;
+
+        private long maxEntries = 100;
+
+        /**
+         * Per-region overrides, keyed by cache region name (e.g. {@code com.minesup.ape.domain.Course}).
+         */
+        private final Map<String, Region> regions = new HashMap<>();
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        /**
+         * Returns the settings of the given region, falling back to the cache-wide defaults for unset values.
+         */
+        public Region getRegion(String name) {
+            Region region = regions.getOrDefault(name, new Region());
+            Region resolved = new Region();
+            resolved.setTimeToLiveSeconds(region.getTimeToLiveSeconds() != null ? region.getTimeToLiveSeconds() : timeToLiveSeconds);
+            resolved.setMaxEntries(region.getMaxEntries() != null ? region.getMaxEntries() : maxEntries);
+            return resolved;
+        }
+
+        public static class Region {
+
+            /**
+             * Time to live of an entry, {@code 0} meaning entries never expire.
+             */
+            private Integer timeToLiveSeconds;
+
+            private Long maxEntries;
+
+            public Integer getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(Long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+    }
+
+    public static class QueryMetrics {
+
+        private boolean enabled = true;
+
+        /**
+         * Whether the statement count of each request is returned in the {@code X-DB-Queries} header, not meant for production.
+         */
+        private boolean responseHeaderEnabled = false;
+
+        private int statementBudget = 20;
+
+        /**
+         * Per-endpoint overrides of the statement budget, keyed by HTTP method and URI template (e.g. {@code GET /api/exercises}).
+         */
+        private final Map<String, Integer> statementBudgets = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isResponseHeaderEnabled() {
+            return responseHeaderEnabled;
+        }
+
+        public void setResponseHeaderEnabled(boolean responseHeaderEnabled) {
+            this.responseHeaderEnabled = responseHeaderEnabled;
+        }
+
+        public int getStatementBudget() {
+            return statementBudget;
+        }
+
+        public void setStatementBudget(int statementBudget) {
+            this.statementBudget = statementBudget;
+        }
+
+        public Map<String, Integer> getStatementBudgets() {
+            return statementBudgets;
+        }
+
+        /**
+         * Returns the statement budget of the given endpoint, falling back to the default budget.
+         */
+        public int getStatementBudget(String endpoint) {
+            return statementBudgets.getOrDefault(endpoint, statementBudget);
+        }
+    }
+
+    public static class BulkImport {
+
+        /**
+         * Number of records parsed, validated, resolved and loaded together.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Number of rejected records after which a job stops reading its file.
+         */
+        private int maxRejectedRecords = 100;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxRejectedRecords() {
+            return maxRejectedRecords;
+        }
+
+        public void setMaxRejectedRecords(int maxRejectedRecords) {
+            this.maxRejectedRecords = maxRejectedRecords;
+        }
+    }
+
+    public static class BulkRequests {
+
+        /**
+         * Number of items a request to the bulk endpoints may create, update or delete, all of them in one transaction.
+         */
+        private int maxItems = 1000;
+
+        public int getMaxItems() {
+            return maxItems;
+        }
+
+        public void setMaxItems(int maxItems) {
+            this.maxItems = maxItems;
+        }
+    }
+
+    public static class UserProvisioning {
+
+        /**
+         * Number of users checked for conflicts and inserted together.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Number of passwords hashed at the same time, {@code 0} for as many as there are processors.
+         */
+        private int hashingParallelism = 0;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getHashingParallelism() {
+            return hashingParallelism;
+        }
+
+        public void setHashingParallelism(int hashingParallelism) {
+            this.hashingParallelism = hashingParallelism;
+        }
+    }
+
+    /**
+     * The executors of the background workloads, each of them sized apart so that one never starves the others.
+     */
+    public static class Executors {
+
+        /**
+         * Checks the passwords of the logins.
+         */
+        private final Pool authentication = new Pool(0, 100);
+
+        /**
+         * Runs the bulk import jobs, each of them holding a database connection.
+         */
+        private final Pool bulkImport = new Pool(1, 10);
+
+        /**
+         * Sends the emails, those of the outbox a batch at a time.
+         */
+        private final Pool mail = new Pool(1, 100);
+
+        /**
+         * Migrates the database schema at startup, when Liquibase runs asynchronously.
+         */
+        private final Pool migration = new Pool(1, 1);
+
+        public Pool getAuthentication() {
+            return authentication;
+        }
+
+        public Pool getBulkImport() {
+            return bulkImport;
+        }
+
+        public Pool getMail() {
+            return mail;
+        }
+
+        public Pool getMigration() {
+            return migration;
+        }
+
+        public enum RejectionPolicy {
+            /**
+             * The task is refused with an exception.
+             */
+            ABORT,
+            /**
+             * The task runs on the thread submitting it.
+             */
+            CALLER_RUNS,
+        }
+
+        public static class Pool {
+
+            /**
+             * Number of tasks running at the same time, {@code 0} for as many as there are processors.
+             */
+            private int poolSize;
+
+            /**
+             * Number of tasks waiting for a thread, beyond which new tasks are rejected.
+             */
+            private int queueCapacity;
+
+            /**
+             * What happens to the rejected tasks.
+             */
+            private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+            Pool(int poolSize, int queueCapacity) {
+                this.poolSize = poolSize;
+                this.queueCapacity = queueCapacity;
+            }
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public RejectionPolicy getRejectionPolicy() {
+                return rejectionPolicy;
+            }
+
+            public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+                this.rejectionPolicy = rejectionPolicy;
+            }
+        }
+    }
+
+    public static class UserCleanup {
+
+        /**
+         * Delay after which the users who did not activate their account are removed.
+         */
+        private Duration retention = Duration.ofDays(3);
+
+        /**
+         * Number of users removed by each transaction.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Delay after which another instance may run the cleanup, should the one running it stop, renewed after every chunk.
+         */
+        private Duration lockLease = Duration.ofMinutes(10);
+
+        /**
+         * Delay after the start of the cleanup before which no other instance may run it, even if it ended sooner.
+         */
+        private Duration lockAtLeastFor = Duration.ofMinutes(5);
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public Duration getLockLease() {
+            return lockLease;
+        }
+
+        public void setLockLease(Duration lockLease) {
+            this.lockLease = lockLease;
+        }
+
+        public Duration getLockAtLeastFor() {
+            return lockAtLeastFor;
+        }
+
+        public void setLockAtLeastFor(Duration lockAtLeastFor) {
+            this.lockAtLeastFor = lockAtLeastFor;
+        }
+    }
+
+    public static class Authentication {
+
+        /**
+         * BCrypt cost of the new password hashes, each increment doubling the time to hash and check a password.
+         */
+        private int passwordStrength = 10;
+
+        /**
+         * Delay after which the refused clients are advised to try again.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public int getPasswordStrength() {
+            return passwordStrength;
+        }
+
+        public void setPasswordStrength(int passwordStrength) {
+            this.passwordStrength = passwordStrength;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    public static class MailOutbox {
+
+        /**
+         * Number of emails sent through one connection to the mail server.
+         */
+        private int batchSize = 50;
+
+        /**
+         * Delay between two checks of the outbox for the emails to retry, the new ones being sent once they are committed.
+         */
+        private Duration pollInterval = Duration.ofSeconds(30);
+
+        /**
+         * Number of attempts to send an email before it is abandoned.
+         */
+        private int maxAttempts = 8;
+
+        /**
+         * Delay before the first retry, doubled after each failed attempt.
+         */
+        private Duration initialBackoff = Duration.ofMinutes(1);
+
+        /**
+         * Longest delay between two attempts.
+         */
+        private Duration maxBackoff = Duration.ofHours(1);
+
+        /**
+         * Delay after which the emails claimed by an instance that stopped before sending them are sent again.
+         */
+        private Duration claimTimeout = Duration.ofMinutes(5);
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public Duration getClaimTimeout() {
+            return claimTimeout;
+        }
+
+        public void setClaimTimeout(Duration claimTimeout) {
+            this.claimTimeout = claimTimeout;
+        }
+    }
+
+    public static class Search {
+
+        public enum Engine {
+            /**
+             * Full-text search of PostgreSQL, substring search elsewhere.
+             */
+            DATABASE,
+            /**
+             * In-process inverted index, for the deployments without PostgreSQL.
+             */
+            INDEX,
+        }
+
+        private Engine engine = Engine.DATABASE;
+
+        private final Index index = new Index();
+
+        public Engine getEngine() {
+            return engine;
+        }
+
+        public void setEngine(Engine engine) {
+            this.engine = engine;
+        }
+
+        public Index getIndex() {
+            return index;
+        }
+
+        public static class Index {
+
+            /**
+             * File the index is saved to, and loaded from at startup instead of reindexing everything.
+             */
+            private Path snapshotFile = Path.of(System.getProperty("java.io.tmpdir"), "ape-search-index.bin");
+
+            /**
+             * Interval between two saves of the index, skipped when it has not changed.
+             */
+            private Duration snapshotInterval = Duration.ofMinutes(5);
+
+            public Path getSnapshotFile() {
+                return snapshotFile;
+            }
+
+            public void setSnapshotFile(Path snapshotFile) {
+                this.snapshotFile = snapshotFile;
+            }
+
+            public Duration getSnapshotInterval() {
+                return snapshotInterval;
+            }
+
+            public void setSnapshotInterval(Duration snapshotInterval) {
+                this.snapshotInterval = snapshotInterval;
+            }
+        }
+    }
+}
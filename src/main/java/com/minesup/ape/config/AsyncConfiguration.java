@@ -1,6 +1,17 @@
 package com.minesup.ape.config;
 
+import com.minesup.ape.config.ApplicationProperties.Executors.RejectionPolicy;
+import com.minesup.ape.management.ExecutorMetersService;
+import com.minesup.ape.management.SchedulerMetersService;
+import com.minesup.ape.service.scheduling.JobLockService;
+import com.minesup.ape.service.scheduling.SchedulerLockAspect;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
@@ -27,6 +38,9 @@ public class AsyncConfiguration implements AsyncConfigurer {
         this.taskExecutionProperties = taskExecutionProperties;
     }
 
+    /**
+     * Runs the {@code @Async} methods naming no other executor.
+     */
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
@@ -39,6 +53,148 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Runs the bulk import jobs, apart from the other executors so that a long import never delays the mails and other
+     * asynchronous tasks.
+     */
+    @Bean(name = "importTaskExecutor")
+    public ThreadPoolTaskExecutor importTaskExecutor(
+        ApplicationProperties applicationProperties,
+        ExecutorMetersService executorMetersService
+    ) {
+        log.debug("Creating Import Task Executor");
+        return instrumentedExecutor(
+            "importTaskExecutor",
+            applicationProperties.getExecutors().getBulkImport(),
+            "ape-import-",
+            executorMetersService,
+            EnumSet.of(RejectionPolicy.ABORT)
+        );
+    }
+
+    /**
+     * Checks the passwords of the logins, apart from the web server threads so that a burst of logins never delays the other
+     * requests. Once the queue is full new logins are refused rather than waiting.
+     */
+    @Bean(name = "authenticationTaskExecutor")
+    public ThreadPoolTaskExecutor authenticationTaskExecutor(
+        ApplicationProperties applicationProperties,
+        ExecutorMetersService executorMetersService
+    ) {
+        log.debug("Creating Authentication Task Executor");
+        return instrumentedExecutor(
+            "authenticationTaskExecutor",
+            applicationProperties.getExecutors().getAuthentication(),
+            "ape-authentication-",
+            executorMetersService,
+            EnumSet.of(RejectionPolicy.ABORT)
+        );
+    }
+
+    /**
+     * Sends the emails, apart from the other executors so that a wave of emails never delays the other asynchronous tasks.
+     * The dispatches of the outbox are coalesced, so that one at most waits for a thread.
+     */
+    @Bean(name = "mailTaskExecutor")
+    public ThreadPoolTaskExecutor mailTaskExecutor(
+        ApplicationProperties applicationProperties,
+        ExecutorMetersService executorMetersService
+    ) {
+        log.debug("Creating Mail Task Executor");
+        return instrumentedExecutor(
+            "mailTaskExecutor",
+            applicationProperties.getExecutors().getMail(),
+            "ape-mail-",
+            executorMetersService,
+            EnumSet.of(RejectionPolicy.ABORT)
+        );
+    }
+
+    /**
+     * Migrates the database schema when Liquibase runs asynchronously, apart from the other executors so that the migration
+     * never waits behind, nor delays, the tasks submitted at startup.
+     */
+    @Bean(name = "migrationTaskExecutor")
+    public ThreadPoolTaskExecutor migrationTaskExecutor(
+        ApplicationProperties applicationProperties,
+        ExecutorMetersService executorMetersService
+    ) {
+        log.debug("Creating Migration Task Executor");
+        return instrumentedExecutor(
+            "migrationTaskExecutor",
+            applicationProperties.getExecutors().getMigration(),
+            "ape-migration-",
+            executorMetersService,
+            EnumSet.of(RejectionPolicy.ABORT, RejectionPolicy.CALLER_RUNS)
+        );
+    }
+
+    /**
+     * An executor of a fixed number of threads, whose wait times and rejections are metered under its bean name, as Spring
+     * Boot actuator meters its active, queued and completed tasks.
+     * <p>
+     * Its callers decide which rejection policies it supports: most of them handle the {@code TaskRejectedException} of the
+     * abort policy, and must not run what they submit on their own thread.
+     */
+    private static ThreadPoolTaskExecutor instrumentedExecutor(
+        String name,
+        ApplicationProperties.Executors.Pool pool,
+        String threadNamePrefix,
+        ExecutorMetersService executorMetersService,
+        Set<RejectionPolicy> supportedRejectionPolicies
+    ) {
+        if (!supportedRejectionPolicies.contains(pool.getRejectionPolicy())) {
+            throw new IllegalStateException(
+                "The " + pool.getRejectionPolicy() + " rejection policy is not supported by " + name + ", only " +
+                supportedRejectionPolicies
+            );
+        }
+        int poolSize = pool.getPoolSize() > 0 ? pool.getPoolSize() : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setTaskDecorator(executorMetersService.waitTimer(name));
+        executor.setRejectedExecutionHandler(executorMetersService.rejectionCounter(name, rejectionPolicy(pool.getRejectionPolicy())));
+        return executor;
+    }
+
+    private static RejectedExecutionHandler rejectionPolicy(RejectionPolicy rejectionPolicy) {
+        return rejectionPolicy == RejectionPolicy.CALLER_RUNS
+            ? new ThreadPoolExecutor.CallerRunsPolicy()
+            : new ThreadPoolExecutor.AbortPolicy();
+    }
+
+    /**
+     * Hashes the passwords of the users created in bulk, apart from the common pool so that the parallel streams of the
+     * application are not starved by a large provisioning.
+     */
+    @Bean(name = "passwordHashingPool", destroyMethod = "shutdown")
+    public ForkJoinPool passwordHashingPool(ApplicationProperties applicationProperties) {
+        log.debug("Creating Password Hashing Pool");
+        int parallelism = applicationProperties.getUserProvisioning().getHashingParallelism();
+        return new ForkJoinPool(
+            parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("ape-password-hashing-" + thread.getPoolIndex());
+                return thread;
+            },
+            null,
+            false
+        );
+    }
+
+    /**
+     * Runs the scheduled methods annotated with {@code SchedulerLock} on one instance at a time. The scheduled methods
+     * themselves run on the {@code taskScheduler} configured by the {@code spring.task.scheduling} properties.
+     */
+    @Bean
+    public SchedulerLockAspect schedulerLockAspect(JobLockService jobLockService, SchedulerMetersService schedulerMetersService) {
+        return new SchedulerLockAspect(jobLockService, schedulerMetersService);
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
@@ -11,5 +11,8 @@ public final class Constants {
     public static final String SYSTEM = "system";
     public static final String DEFAULT_LANGUAGE = "fr";
 
+    // Rows fetched per round trip by the export cursors, which also clear the persistence context at this interval
+    public static final int EXPORT_FETCH_SIZE = 500;
+
     private Constants() {}
 }
@@ -30,7 +30,8 @@ public class JacksonConfiguration {
      */
     @Bean
     public Hibernate5Module hibernate5Module() {
-        return new Hibernate5Module();
+        // Lazy to-ones that were not fetched are written as {"id": ...} rather than null, so clients still see the link
+        return new Hibernate5Module().enable(Hibernate5Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
     }
 
     /*
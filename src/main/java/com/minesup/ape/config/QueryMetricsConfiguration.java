@@ -0,0 +1,57 @@
+package com.minesup.ape.config;
+
+import com.minesup.ape.management.QueryMetricsFilter;
+import com.minesup.ape.management.QueryStatisticsListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Counts the statements, rows and database time of every HTTP request, by proxying the Hikari {@link DataSource}.
+ * <p>
+ * Disabled with {@code application.query-metrics.enabled: false}, which leaves the {@link DataSource} unproxied.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.query-metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryMetricsConfiguration {
+
+    @Bean
+    public static BeanPostProcessor queryStatisticsDataSourceProxy() {
+        QueryStatisticsListener listener = new QueryStatisticsListener();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                // Result sets are proxied too, so that the rows fetched can be counted
+                return ProxyDataSourceBuilder
+                    .create(beanName, (DataSource) bean)
+                    .listener(listener)
+                    .methodListener(listener)
+                    .proxyResultSet()
+                    .build();
+            }
+        };
+    }
+
+    /**
+     * Runs right after the {@code http.server.requests} metrics filter, so that the statements issued during the
+     * authentication are counted too.
+     */
+    @Bean
+    public FilterRegistrationBean<QueryMetricsFilter> queryMetricsFilter(MeterRegistry registry, ApplicationProperties applicationProperties) {
+        FilterRegistrationBean<QueryMetricsFilter> registration = new FilterRegistrationBean<>(
+            new QueryMetricsFilter(registry, applicationProperties.getQueryMetrics())
+        );
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -1,5 +1,6 @@
 package com.minesup.ape.config;
 
+import com.minesup.ape.management.SecurityMetersService;
 import com.minesup.ape.security.*;
 import com.minesup.ape.security.jwt.*;
 import org.springframework.context.annotation.Bean;
@@ -45,8 +46,11 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(ApplicationProperties applicationProperties, SecurityMetersService securityMetersService) {
+        return new TimedPasswordEncoder(
+            new BCryptPasswordEncoder(applicationProperties.getAuthentication().getPasswordStrength()),
+            securityMetersService
+        );
     }
 
     @Bean
@@ -5,6 +5,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import java.io.Serializable;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
 
 /**
@@ -13,6 +15,7 @@ import org.hibernate.annotations.Type;
 @Schema(description = "The Correction entity.\n@author APE")
 @Entity
 @Table(name = "correction")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Correction implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -23,6 +26,13 @@ public class Correction implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    /**
+     * Optimistic locking version, incremented by every update.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * content
      */
@@ -33,7 +43,7 @@ public class Correction implements Serializable {
     private String content;
 
     @JsonIgnoreProperties(value = { "course", "correction" }, allowSetters = true)
-    @OneToOne(optional = false)
+    @OneToOne(optional = false, fetch = FetchType.LAZY)
     @NotNull
     @JoinColumn(unique = true)
     private Exercise exercise;
@@ -53,6 +63,19 @@ public class Correction implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Correction version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getContent() {
         return this.content;
     }
@@ -89,13 +112,13 @@ public class Correction implements Serializable {
         if (!(o instanceof Correction)) {
             return false;
         }
-        return id != null && id.equals(((Correction) o).id);
+        return id != null && id.equals(((Correction) o).getId());
     }
 
     @Override
     public int hashCode() {
         // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
-        return getClass().hashCode();
+        return Correction.class.hashCode();
     }
 
     // prettier-ignore
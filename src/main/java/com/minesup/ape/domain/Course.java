@@ -7,6 +7,8 @@ import java.util.HashSet;
 import java.util.Set;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
 
 /**
@@ -15,6 +17,7 @@ import org.hibernate.annotations.Type;
 @Schema(description = "The Course entity.\n@author APE")
 @Entity
 @Table(name = "course")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Course implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -25,6 +28,13 @@ public class Course implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    /**
+     * Optimistic locking version, incremented by every update.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * title
      */
@@ -43,6 +53,7 @@ public class Course implements Serializable {
     private String content;
 
     @OneToMany(mappedBy = "course")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonIgnoreProperties(value = { "course", "correction" }, allowSetters = true)
     private Set<Exercise> exercises = new HashSet<>();
 
@@ -61,6 +72,19 @@ public class Course implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Course version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTitle() {
         return this.title;
     }
@@ -128,13 +152,14 @@ public class Course implements Serializable {
         if (!(o instanceof Course)) {
             return false;
         }
-        return id != null && id.equals(((Course) o).id);
+        return id != null && id.equals(((Course) o).getId());
     }
 
     @Override
     public int hashCode() {
         // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
-        return getClass().hashCode();
+        // The class literal rather than getClass(), so that lazy proxies hash like the entities they stand for
+        return Course.class.hashCode();
     }
 
     // prettier-ignore
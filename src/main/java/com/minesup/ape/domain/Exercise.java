@@ -5,6 +5,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import java.io.Serializable;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
 
 /**
@@ -13,6 +15,7 @@ import org.hibernate.annotations.Type;
 @Schema(description = "The Exercise entity.\n@author APE")
 @Entity
 @Table(name = "exercise")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Exercise implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -23,6 +26,13 @@ public class Exercise implements Serializable {
     @Column(name = "id")
     private Long id;
 
+    /**
+     * Optimistic locking version, incremented by every update.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * title
      */
@@ -49,11 +59,15 @@ public class Exercise implements Serializable {
     @Column(name = "mark", nullable = false)
     private Integer mark;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @NotNull
     @JsonIgnoreProperties(value = { "exercises" }, allowSetters = true)
     private Course course;
 
+    /**
+     * Inverse side, which Hibernate cannot proxy: it is loaded along with every exercise, so the queries returning exercises
+     * fetch it in the same select (see {@link com.minesup.ape.repository.ExerciseRepository}).
+     */
     @JsonIgnoreProperties(value = { "exercise" }, allowSetters = true)
     @OneToOne(mappedBy = "exercise")
     private Correction correction;
@@ -73,6 +87,19 @@ public class Exercise implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Exercise version(Long version) {
+        this.setVersion(version);
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTitle() {
         return this.title;
     }
@@ -154,13 +181,13 @@ public class Exercise implements Serializable {
         if (!(o instanceof Exercise)) {
             return false;
         }
-        return id != null && id.equals(((Exercise) o).id);
+        return id != null && id.equals(((Exercise) o).getId());
     }
 
     @Override
     public int hashCode() {
         // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
-        return getClass().hashCode();
+        return Exercise.class.hashCode();
     }
 
     // prettier-ignore
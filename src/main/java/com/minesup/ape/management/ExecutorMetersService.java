@@ -0,0 +1,70 @@
+package com.minesup.ape.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.TimeUnit;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Service;
+
+/**
+ * Meters of the executors the application defines, completing the {@code executor.active}, {@code executor.queued} and
+ * {@code executor.completed} meters Spring Boot actuator binds to them, with the same {@code name} tag.
+ */
+@Service
+public class ExecutorMetersService {
+
+    public static final String WAIT_METER_NAME = "executor.wait";
+    public static final String WAIT_METER_DESCRIPTION = "Indicates time the tasks wait for a thread of the executor.";
+
+    public static final String REJECTED_METER_NAME = "executor.rejected";
+    public static final String REJECTED_METER_DESCRIPTION = "Indicates count of the tasks rejected by the executor.";
+    public static final String REJECTED_METER_BASE_UNIT = "tasks";
+
+    public static final String NAME_DIMENSION = "name";
+
+    private final MeterRegistry registry;
+
+    public ExecutorMetersService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @param executorName the name of the executor.
+     * @return a decorator timing how long the tasks submitted to the executor wait for a thread.
+     */
+    public TaskDecorator waitTimer(String executorName) {
+        Timer timer = Timer
+            .builder(WAIT_METER_NAME)
+            .description(WAIT_METER_DESCRIPTION)
+            .tag(NAME_DIMENSION, executorName)
+            .publishPercentileHistogram()
+            .register(registry);
+        return task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                timer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                task.run();
+            };
+        };
+    }
+
+    /**
+     * @param executorName the name of the executor.
+     * @param policy what happens to the rejected tasks.
+     * @return the policy, counting the tasks it is applied to.
+     */
+    public RejectedExecutionHandler rejectionCounter(String executorName, RejectedExecutionHandler policy) {
+        Counter counter = Counter
+            .builder(REJECTED_METER_NAME)
+            .baseUnit(REJECTED_METER_BASE_UNIT)
+            .description(REJECTED_METER_DESCRIPTION)
+            .tag(NAME_DIMENSION, executorName)
+            .register(registry);
+        return (task, executor) -> {
+            counter.increment();
+            policy.rejectedExecution(task, executor);
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package com.minesup.ape.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MailMetersService {
+
+    public static final String SENT_METER_NAME = "mail.outbox.sent";
+    public static final String SENT_METER_DESCRIPTION = "Indicates count of the emails sent from the outbox.";
+    public static final String SENT_METER_BASE_UNIT = "emails";
+
+    public static final String FAILED_METER_NAME = "mail.outbox.failed";
+    public static final String FAILED_METER_DESCRIPTION = "Indicates count of the failed attempts to send an email from the outbox.";
+    public static final String FAILED_METER_BASE_UNIT = "emails";
+    public static final String FAILED_METER_OUTCOME_DIMENSION = "outcome";
+
+    public static final String LAG_METER_NAME = "mail.outbox.lag";
+    public static final String LAG_METER_DESCRIPTION = "Indicates time between the queueing of an email and its sending.";
+
+    public static final String BATCH_METER_NAME = "mail.outbox.batch";
+    public static final String BATCH_METER_DESCRIPTION = "Indicates time spent sending a batch of emails through one connection.";
+
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter abandonedCounter;
+
+    private final Timer lagTimer;
+    private final Timer batchTimer;
+
+    public MailMetersService(MeterRegistry registry) {
+        this.sentCounter =
+            Counter.builder(SENT_METER_NAME).baseUnit(SENT_METER_BASE_UNIT).description(SENT_METER_DESCRIPTION).register(registry);
+        this.retriedCounter = failedCounterForOutcomeBuilder("retried").register(registry);
+        this.abandonedCounter = failedCounterForOutcomeBuilder("abandoned").register(registry);
+
+        this.lagTimer = Timer.builder(LAG_METER_NAME).description(LAG_METER_DESCRIPTION).publishPercentileHistogram().register(registry);
+        this.batchTimer =
+            Timer.builder(BATCH_METER_NAME).description(BATCH_METER_DESCRIPTION).publishPercentileHistogram().register(registry);
+    }
+
+    private Counter.Builder failedCounterForOutcomeBuilder(String outcome) {
+        return Counter
+            .builder(FAILED_METER_NAME)
+            .baseUnit(FAILED_METER_BASE_UNIT)
+            .description(FAILED_METER_DESCRIPTION)
+            .tag(FAILED_METER_OUTCOME_DIMENSION, outcome);
+    }
+
+    public void trackSent(Duration lag) {
+        this.sentCounter.increment();
+        this.lagTimer.record(lag);
+    }
+
+    public void trackRetried() {
+        this.retriedCounter.increment();
+    }
+
+    public void trackAbandoned() {
+        this.abandonedCounter.increment();
+    }
+
+    public <T> T recordBatch(Supplier<T> send) {
+        return this.batchTimer.record(send);
+    }
+}
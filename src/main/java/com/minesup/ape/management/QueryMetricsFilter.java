@@ -0,0 +1,115 @@
+package com.minesup.ape.management;
+
+import com.minesup.ape.config.ApplicationProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTags;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Records the statements, rows and database time of every HTTP request, tagged like {@code http.server.requests} by
+ * method and URI template, and logs a warning when a request executes more statements than its endpoint's budget, which
+ * usually means an N+1 query.
+ * <p>
+ * Only the statements executed by the request thread are counted.
+ */
+public class QueryMetricsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_METER_NAME = "http.server.requests.db.statements";
+    public static final String ROWS_METER_NAME = "http.server.requests.db.rows";
+    public static final String TIME_METER_NAME = "http.server.requests.db.time";
+
+    public static final String QUERIES_HEADER = "X-DB-Queries";
+
+    private final Logger log = LoggerFactory.getLogger(QueryMetricsFilter.class);
+
+    private final MeterRegistry registry;
+
+    private final ApplicationProperties.QueryMetrics properties;
+
+    public QueryMetricsFilter(MeterRegistry registry, ApplicationProperties.QueryMetrics properties) {
+        this.registry = registry;
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        QueryStatistics statistics = QueryStatistics.start();
+        try {
+            filterChain.doFilter(request, properties.isResponseHeaderEnabled() ? new QueriesHeaderResponse(response, statistics) : response);
+        } finally {
+            statistics.stop();
+            if (properties.isResponseHeaderEnabled() && !response.isCommitted()) {
+                response.setHeader(QUERIES_HEADER, String.valueOf(statistics.getStatements()));
+            }
+            record(request, response, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, QueryStatistics statistics) {
+        Tags tags = Tags.of(WebMvcTags.method(request), WebMvcTags.uri(request, response));
+        DistributionSummary
+            .builder(STATEMENTS_METER_NAME)
+            .description("JDBC statements executed by an HTTP request")
+            .baseUnit("statements")
+            .tags(tags)
+            .register(registry)
+            .record(statistics.getStatements());
+        DistributionSummary
+            .builder(ROWS_METER_NAME)
+            .description("Rows fetched by the JDBC statements of an HTTP request")
+            .baseUnit("rows")
+            .tags(tags)
+            .register(registry)
+            .record(statistics.getRows());
+        Timer
+            .builder(TIME_METER_NAME)
+            .description("Time spent executing the JDBC statements of an HTTP request")
+            .tags(tags)
+            .register(registry)
+            .record(statistics.getTimeNanos(), TimeUnit.NANOSECONDS);
+
+        String endpoint = request.getMethod() + " " + WebMvcTags.uri(request, response).getValue();
+        int budget = properties.getStatementBudget(endpoint);
+        if (statistics.getStatements() > budget) {
+            log.warn(
+                "{} executed {} statements, over its budget of {}, fetching {} rows in {} ms: look for an N+1 query",
+                endpoint,
+                statistics.getStatements(),
+                budget,
+                statistics.getRows(),
+                TimeUnit.NANOSECONDS.toMillis(statistics.getTimeNanos())
+            );
+        }
+    }
+
+    /**
+     * Adds the statement count to the response just before it is committed, since headers cannot be changed afterwards.
+     */
+    private static class QueriesHeaderResponse extends OnCommittedResponseWrapper {
+
+        private final QueryStatistics statistics;
+
+        QueriesHeaderResponse(HttpServletResponse response, QueryStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            setHeader(QUERIES_HEADER, String.valueOf(statistics.getStatements()));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.minesup.ape.management;
+
+/**
+ * The JDBC statements executed by the current thread, the rows they fetched and the time spent waiting for the database,
+ * counted between {@link #start()} and {@link #stop()} by the {@link QueryStatisticsListener}.
+ */
+public final class QueryStatistics {
+
+    private static final ThreadLocal<QueryStatistics> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+
+    private long rows;
+
+    private long timeNanos;
+
+    private QueryStatistics() {}
+
+    /**
+     * Starts counting the statements of the current thread.
+     *
+     * @return the statistics, to be stopped by the caller.
+     */
+    public static QueryStatistics start() {
+        QueryStatistics statistics = new QueryStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * @return the statistics of the current thread, or {@code null} when nothing is being counted.
+     */
+    static QueryStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops counting the statements of the current thread, leaving the statistics unchanged from now on.
+     */
+    public void stop() {
+        CURRENT.remove();
+    }
+
+    void recordStatement(long elapsedNanos) {
+        statements++;
+        timeNanos += elapsedNanos;
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "QueryStatistics{" +
+            "statements=" + getStatements() +
+            ", rows=" + getRows() +
+            ", timeNanos=" + getTimeNanos() +
+            "}";
+    }
+}
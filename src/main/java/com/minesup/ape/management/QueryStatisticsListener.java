@@ -0,0 +1,54 @@
+package com.minesup.ape.management;
+
+import java.sql.ResultSet;
+import java.util.List;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Feeds the {@link QueryStatistics} of the current thread from a proxied {@link javax.sql.DataSource}: every execution
+ * (a whole batch counting as one round trip) is a statement, and every successful {@link ResultSet#next()} a fetched row.
+ * <p>
+ * Threads that are not counting only pay for a thread-local lookup.
+ */
+public class QueryStatisticsListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final String START_NANOS = QueryStatisticsListener.class.getName() + ".startNanos";
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (QueryStatistics.current() != null) {
+            execInfo.addCustomValue(START_NANOS, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryStatistics statistics = QueryStatistics.current();
+        Long startNanos = execInfo.getCustomValue(START_NANOS, Long.class);
+        if (statistics != null && startNanos != null) {
+            statistics.recordStatement(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+        // Nothing to do before a JDBC call
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        QueryStatistics statistics = QueryStatistics.current();
+        if (
+            statistics != null &&
+            executionContext.getTarget() instanceof ResultSet &&
+            "next".equals(executionContext.getMethod().getName()) &&
+            Boolean.TRUE.equals(executionContext.getResult())
+        ) {
+            statistics.recordRow();
+        }
+    }
+}
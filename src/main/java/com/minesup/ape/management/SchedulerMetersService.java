@@ -0,0 +1,61 @@
+package com.minesup.ape.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import org.springframework.stereotype.Service;
+
+@Service
+public class SchedulerMetersService {
+
+    public static final String DURATION_METER_NAME = "scheduler.job.duration";
+    public static final String DURATION_METER_DESCRIPTION = "Indicates time spent running a job on one instance at a time.";
+    public static final String DURATION_METER_OUTCOME_DIMENSION = "outcome";
+
+    public static final String SKIPPED_METER_NAME = "scheduler.job.skipped";
+    public static final String SKIPPED_METER_DESCRIPTION = "Indicates count of the runs of a job skipped, another instance running it.";
+    public static final String SKIPPED_METER_BASE_UNIT = "runs";
+
+    public static final String LEASE_LOST_METER_NAME = "scheduler.job.lease.lost";
+    public static final String LEASE_LOST_METER_DESCRIPTION = "Indicates count of the leases that expired before the end of their job.";
+    public static final String LEASE_LOST_METER_BASE_UNIT = "leases";
+
+    public static final String JOB_DIMENSION = "job";
+
+    private final MeterRegistry registry;
+
+    public SchedulerMetersService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void trackRun(String job, boolean succeeded, Duration duration) {
+        Timer
+            .builder(DURATION_METER_NAME)
+            .description(DURATION_METER_DESCRIPTION)
+            .tag(JOB_DIMENSION, job)
+            .tag(DURATION_METER_OUTCOME_DIMENSION, succeeded ? "success" : "failure")
+            .register(registry)
+            .record(duration);
+    }
+
+    public void trackSkipped(String job) {
+        Counter
+            .builder(SKIPPED_METER_NAME)
+            .baseUnit(SKIPPED_METER_BASE_UNIT)
+            .description(SKIPPED_METER_DESCRIPTION)
+            .tag(JOB_DIMENSION, job)
+            .register(registry)
+            .increment();
+    }
+
+    public void trackLeaseLost(String job) {
+        Counter
+            .builder(LEASE_LOST_METER_NAME)
+            .baseUnit(LEASE_LOST_METER_BASE_UNIT)
+            .description(LEASE_LOST_METER_DESCRIPTION)
+            .tag(JOB_DIMENSION, job)
+            .register(registry)
+            .increment();
+    }
+}
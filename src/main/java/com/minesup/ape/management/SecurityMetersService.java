@@ -2,6 +2,9 @@ package com.minesup.ape.management;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,16 +16,47 @@ public class SecurityMetersService {
     public static final String INVALID_TOKENS_METER_BASE_UNIT = "errors";
     public static final String INVALID_TOKENS_METER_CAUSE_DIMENSION = "cause";
 
+    public static final String AUTHENTICATION_WAIT_METER_NAME = "security.authentication.wait";
+    public static final String AUTHENTICATION_WAIT_METER_DESCRIPTION =
+        "Indicates time the logins wait for a thread of the authentication executor.";
+
+    public static final String AUTHENTICATION_REJECTED_METER_NAME = "security.authentication.rejected";
+    public static final String AUTHENTICATION_REJECTED_METER_DESCRIPTION =
+        "Indicates count of the logins refused because too many were waiting.";
+    public static final String AUTHENTICATION_REJECTED_METER_BASE_UNIT = "logins";
+
+    public static final String PASSWORD_HASHING_METER_NAME = "security.password.hashing";
+    public static final String PASSWORD_HASHING_METER_DESCRIPTION = "Indicates time spent hashing passwords, to store or to check them.";
+    public static final String PASSWORD_HASHING_METER_OPERATION_DIMENSION = "operation";
+
     private final Counter tokenInvalidSignatureCounter;
     private final Counter tokenExpiredCounter;
     private final Counter tokenUnsupportedCounter;
     private final Counter tokenMalformedCounter;
 
+    private final Timer authenticationWaitTimer;
+    private final Counter authenticationRejectedCounter;
+    private final Timer passwordEncodeTimer;
+    private final Timer passwordMatchesTimer;
+
     public SecurityMetersService(MeterRegistry registry) {
         this.tokenInvalidSignatureCounter = invalidTokensCounterForCauseBuilder("invalid-signature").register(registry);
         this.tokenExpiredCounter = invalidTokensCounterForCauseBuilder("expired").register(registry);
         this.tokenUnsupportedCounter = invalidTokensCounterForCauseBuilder("unsupported").register(registry);
         this.tokenMalformedCounter = invalidTokensCounterForCauseBuilder("malformed").register(registry);
+
+        this.authenticationWaitTimer = Timer
+            .builder(AUTHENTICATION_WAIT_METER_NAME)
+            .description(AUTHENTICATION_WAIT_METER_DESCRIPTION)
+            .publishPercentileHistogram()
+            .register(registry);
+        this.authenticationRejectedCounter = Counter
+            .builder(AUTHENTICATION_REJECTED_METER_NAME)
+            .baseUnit(AUTHENTICATION_REJECTED_METER_BASE_UNIT)
+            .description(AUTHENTICATION_REJECTED_METER_DESCRIPTION)
+            .register(registry);
+        this.passwordEncodeTimer = passwordHashingTimerForOperationBuilder("encode").register(registry);
+        this.passwordMatchesTimer = passwordHashingTimerForOperationBuilder("matches").register(registry);
     }
 
     private Counter.Builder invalidTokensCounterForCauseBuilder(String cause) {
@@ -33,6 +67,14 @@ public class SecurityMetersService {
             .tag(INVALID_TOKENS_METER_CAUSE_DIMENSION, cause);
     }
 
+    private Timer.Builder passwordHashingTimerForOperationBuilder(String operation) {
+        return Timer
+            .builder(PASSWORD_HASHING_METER_NAME)
+            .description(PASSWORD_HASHING_METER_DESCRIPTION)
+            .tag(PASSWORD_HASHING_METER_OPERATION_DIMENSION, operation)
+            .publishPercentileHistogram();
+    }
+
     public void trackTokenInvalidSignature() {
         this.tokenInvalidSignatureCounter.increment();
     }
@@ -48,4 +90,20 @@ public class SecurityMetersService {
     public void trackTokenMalformed() {
         this.tokenMalformedCounter.increment();
     }
+
+    public void recordAuthenticationWait(long nanos) {
+        this.authenticationWaitTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void trackAuthenticationRejected() {
+        this.authenticationRejectedCounter.increment();
+    }
+
+    public String recordPasswordEncode(Supplier<String> encode) {
+        return this.passwordEncodeTimer.record(encode);
+    }
+
+    public boolean recordPasswordMatches(Supplier<Boolean> matches) {
+        return this.passwordMatchesTimer.record(matches);
+    }
 }
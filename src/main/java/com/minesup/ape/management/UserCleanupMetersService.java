@@ -0,0 +1,38 @@
+package com.minesup.ape.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Service;
+
+@Service
+public class UserCleanupMetersService {
+
+    public static final String REMOVED_METER_NAME = "users.cleanup.removed";
+    public static final String REMOVED_METER_DESCRIPTION = "Indicates count of the not activated users removed.";
+    public static final String REMOVED_METER_BASE_UNIT = "users";
+
+    public static final String CHUNK_METER_NAME = "users.cleanup.chunk";
+    public static final String CHUNK_METER_DESCRIPTION = "Indicates time spent removing a chunk of not activated users in one transaction.";
+
+    private final Counter removedCounter;
+
+    private final Timer chunkTimer;
+
+    public UserCleanupMetersService(MeterRegistry registry) {
+        this.removedCounter =
+            Counter.builder(REMOVED_METER_NAME).baseUnit(REMOVED_METER_BASE_UNIT).description(REMOVED_METER_DESCRIPTION).register(registry);
+
+        this.chunkTimer =
+            Timer.builder(CHUNK_METER_NAME).description(CHUNK_METER_DESCRIPTION).publishPercentileHistogram().register(registry);
+    }
+
+    public <T> T recordChunk(Supplier<T> removal) {
+        return this.chunkTimer.record(removal);
+    }
+
+    public void trackRemoved(int count) {
+        this.removedCounter.increment(count);
+    }
+}
@@ -0,0 +1,273 @@
+package com.minesup.ape.repository;
+
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.domain.User;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Repository inserting new courses, exercises, corrections and users in bulk, bypassing the persistence context.
+ * <p>
+ * On PostgreSQL the rows are streamed with {@code COPY ... FROM STDIN}, elsewhere (H2 in the tests) they are sent as a JDBC
+ * batch of inserts. Either way the statements run on the connection of the current transaction, which must exist.
+ * <p>
+ * The ids come from the identifier generator of each entity, so that they never collide with those Hibernate assigns, and
+ * the second-level cache regions the new rows make stale are evicted once the transaction completes.
+ */
+@Repository
+public class BulkLoadRepository {
+
+    private static final List<String> COURSE_COLUMNS = List.of("id", "version", "title", "content");
+
+    private static final List<String> EXERCISE_COLUMNS = List.of("id", "version", "title", "content", "mark", "course_id");
+
+    private static final List<String> CORRECTION_COLUMNS = List.of("id", "version", "content", "exercise_id");
+
+    private static final List<String> USER_COLUMNS = List.of(
+        "id",
+        "login",
+        "password_hash",
+        "first_name",
+        "last_name",
+        "email",
+        "image_url",
+        "activated",
+        "lang_key",
+        "activation_key",
+        "reset_key",
+        "reset_date",
+        "created_by",
+        "created_date",
+        "last_modified_by",
+        "last_modified_date"
+    );
+
+    private static final List<String> USER_AUTHORITY_COLUMNS = List.of("user_id", "authority_name");
+
+    private final EntityManager entityManager;
+
+    private final ExerciseCacheEvictor exerciseCacheEvictor;
+
+    public BulkLoadRepository(EntityManager entityManager, ExerciseCacheEvictor exerciseCacheEvictor) {
+        this.entityManager = entityManager;
+        this.exerciseCacheEvictor = exerciseCacheEvictor;
+    }
+
+    /**
+     * Insert new courses, setting their id and version.
+     *
+     * @param courses the courses, without id.
+     */
+    public void insertCourses(List<Course> courses) {
+        for (Course course : courses) {
+            course.setId(nextId(Course.class, course));
+            course.setVersion(0L);
+        }
+        insert(
+            "course",
+            COURSE_COLUMNS,
+            courses,
+            course -> new Object[] { course.getId(), course.getVersion(), course.getTitle(), course.getContent() }
+        );
+    }
+
+    /**
+     * Insert new exercises, setting their id and version.
+     *
+     * @param exercises the exercises, without id, each referencing an existing course by its id.
+     */
+    public void insertExercises(List<Exercise> exercises) {
+        for (Exercise exercise : exercises) {
+            exercise.setId(nextId(Exercise.class, exercise));
+            exercise.setVersion(0L);
+        }
+        insert(
+            "exercise",
+            EXERCISE_COLUMNS,
+            exercises,
+            exercise ->
+                new Object[] {
+                    exercise.getId(),
+                    exercise.getVersion(),
+                    exercise.getTitle(),
+                    exercise.getContent(),
+                    exercise.getMark(),
+                    exercise.getCourse().getId(),
+                }
+        );
+        evictCollectionAfterCompletion(Course.class.getName() + ".exercises");
+    }
+
+    /**
+     * Insert new corrections, setting their id and version.
+     *
+     * @param corrections the corrections, without id, each referencing an existing exercise by its id.
+     */
+    public void insertCorrections(List<Correction> corrections) {
+        for (Correction correction : corrections) {
+            correction.setId(nextId(Correction.class, correction));
+            correction.setVersion(0L);
+        }
+        insert(
+            "correction",
+            CORRECTION_COLUMNS,
+            corrections,
+            correction ->
+                new Object[] { correction.getId(), correction.getVersion(), correction.getContent(), correction.getExercise().getId() }
+        );
+        exerciseCacheEvictor.evictAllAfterCompletion();
+    }
+
+    /**
+     * Insert new users and their authorities, setting their id.
+     * <p>
+     * Unlike {@link UserRepository#save}, this does not fill in the auditing columns: the users must come with them.
+     *
+     * @param users the users, without id, each referencing existing authorities.
+     */
+    public void insertUsers(List<User> users) {
+        for (User user : users) {
+            user.setId(nextId(User.class, user));
+        }
+        insert(
+            "jhi_user",
+            USER_COLUMNS,
+            users,
+            user ->
+                new Object[] {
+                    user.getId(),
+                    user.getLogin(),
+                    user.getPassword(),
+                    user.getFirstName(),
+                    user.getLastName(),
+                    user.getEmail(),
+                    user.getImageUrl(),
+                    user.isActivated(),
+                    user.getLangKey(),
+                    user.getActivationKey(),
+                    user.getResetKey(),
+                    toUtc(user.getResetDate()),
+                    user.getCreatedBy(),
+                    toUtc(user.getCreatedDate()),
+                    user.getLastModifiedBy(),
+                    toUtc(user.getLastModifiedDate()),
+                }
+        );
+        List<Map.Entry<Long, String>> userAuthorities = users
+            .stream()
+            .flatMap(user -> user.getAuthorities().stream().map(authority -> Map.entry(user.getId(), authority.getName())))
+            .collect(Collectors.toList());
+        insert(
+            "jhi_user_authority",
+            USER_AUTHORITY_COLUMNS,
+            userAuthorities,
+            userAuthority -> new Object[] { userAuthority.getKey(), userAuthority.getValue() }
+        );
+    }
+
+    /**
+     * Timestamps are stored in UTC, as {@code hibernate.jdbc.time_zone} has Hibernate do.
+     */
+    private static LocalDateTime toUtc(Instant instant) {
+        return instant != null ? LocalDateTime.ofInstant(instant, ZoneOffset.UTC) : null;
+    }
+
+    private Long nextId(Class<?> entityClass, Object entity) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        // The pooled optimizer only hits the sequence once per allocation size
+        IdentifierGenerator generator = session.getFactory().getMetamodel().entityPersister(entityClass).getIdentifierGenerator();
+        return (Long) generator.generate(session, entity);
+    }
+
+    private <T> void insert(String table, List<String> columns, List<T> entities, Function<T, Object[]> row) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        entityManager
+            .unwrap(SessionImplementor.class)
+            .doWork(connection -> {
+                if (PostgresCopy.isSupported(connection)) {
+                    PostgresCopy.copyIn(connection, table, columns, entities, row);
+                } else {
+                    batchInsert(connection, table, columns, entities, row);
+                }
+            });
+    }
+
+    private static <T> void batchInsert(
+        Connection connection,
+        String table,
+        List<String> columns,
+        List<T> entities,
+        Function<T, Object[]> row
+    ) throws SQLException {
+        String sql =
+            "insert into " +
+            table +
+            " (" +
+            String.join(", ", columns) +
+            ") values (" +
+            String.join(", ", Collections.nCopies(columns.size(), "?")) +
+            ")";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (T entity : entities) {
+                Object[] values = row.apply(entity);
+                for (int i = 0; i < values.length; i++) {
+                    statement.setObject(i + 1, values[i]);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void evictCollectionAfterCompletion(String role) {
+        org.hibernate.Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(org.hibernate.Cache.class);
+        // Synchronizations are kept in a set, so each chunk of the same transaction registers the same eviction
+        TransactionSynchronizationManager.registerSynchronization(new CollectionEviction(cache, role));
+    }
+
+    private static final class CollectionEviction implements TransactionSynchronization {
+
+        private final org.hibernate.Cache cache;
+
+        private final String role;
+
+        private CollectionEviction(org.hibernate.Cache cache, String role) {
+            this.cache = cache;
+            this.role = role;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            cache.evictCollectionData(role);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollectionEviction && role.equals(((CollectionEviction) o).role);
+        }
+
+        @Override
+        public int hashCode() {
+            return role.hashCode();
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package com.minesup.ape.repository;
 
+import com.minesup.ape.config.Constants;
 import com.minesup.ape.domain.Correction;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -26,15 +32,62 @@ public interface CorrectionRepository extends JpaRepository<Correction, Long> {
         return this.findAllWithToOneRelationships(pageable);
     }
 
+    /**
+     * Only to-one associations may be fetched here: they never multiply the rows, so neither {@code distinct} nor in-memory
+     * pagination is needed and the page is cut by the database.
+     */
     @Query(
-        value = "select distinct correction from Correction correction left join fetch correction.exercise",
-        countQuery = "select count(distinct correction) from Correction correction"
+        value = "select correction from Correction correction left join fetch correction.exercise",
+        countQuery = "select count(correction) from Correction correction"
     )
     Page<Correction> findAllWithToOneRelationships(Pageable pageable);
 
-    @Query("select distinct correction from Correction correction left join fetch correction.exercise")
+    @Query("select correction from Correction correction left join fetch correction.exercise")
     List<Correction> findAllWithToOneRelationships();
 
+    @Query(
+        value = "select new com.minesup.ape.repository.CorrectionSummary(correction.id, exercise.id, exercise.title, exercise.mark) from Correction correction join correction.exercise exercise",
+        countQuery = "select count(correction) from Correction correction"
+    )
+    Page<CorrectionSummary> findAllSummaries(Pageable pageable);
+
+    @Query("select correction from Correction correction left join fetch correction.exercise where correction.id > :after")
+    Slice<Correction> findAllWithToOneRelationshipsAfter(@Param("after") Long after, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
     @Query("select correction from Correction correction left join fetch correction.exercise where correction.id =:id")
     Optional<Correction> findOneWithToOneRelationships(@Param("id") Long id);
+
+    @Query("select correction.id from Correction correction where correction.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select correction.exercise.id from Correction correction where correction.exercise.id in :exerciseIds")
+    Set<Long> findCorrectedExerciseIds(@Param("exerciseIds") Collection<Long> exerciseIds);
+
+    @Query(
+        "select new com.minesup.ape.repository.CorrectionSummary(correction.id, exercise.id, exercise.title, exercise.mark) from Correction correction join correction.exercise exercise where exercise.id in :exerciseIds"
+    )
+    List<CorrectionSummary> findAllSummariesByExerciseIdIn(@Param("exerciseIds") Collection<Long> exerciseIds);
+
+    /**
+     * The versions of the correction and of the exercise embedded in its representation, without their contents.
+     */
+    @Query(
+        "select new com.minesup.ape.repository.ResourceVersion(correction.version, exercise.version) from Correction correction join correction.exercise exercise where correction.id = :id"
+    )
+    Optional<ResourceVersion> findResourceVersionById(@Param("id") Long id);
+
+    /**
+     * Forward-only cursor over all the corrections, for exports: the entities are read-only and bypass the second-level cache.
+     * Must be consumed, and closed, within a transaction.
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Constants.EXPORT_FETCH_SIZE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_MODE, value = "IGNORE"),
+        }
+    )
+    @Query("select correction from Correction correction order by correction.id")
+    Stream<Correction> streamAll();
 }
@@ -0,0 +1,41 @@
+package com.minesup.ape.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.minesup.ape.domain.Correction;
+
+/**
+ * A read-only projection of a {@link Correction} without its content.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CorrectionSummary {
+
+    private final Long id;
+
+    private final ExerciseSummary exercise;
+
+    public CorrectionSummary(Long id) {
+        this.id = id;
+        this.exercise = null;
+    }
+
+    public CorrectionSummary(Long id, Long exerciseId, String exerciseTitle, Integer exerciseMark) {
+        this.id = id;
+        this.exercise = new ExerciseSummary(exerciseId, exerciseTitle, exerciseMark);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ExerciseSummary getExercise() {
+        return exercise;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CorrectionSummary{" +
+            "id=" + getId() +
+            "}";
+    }
+}
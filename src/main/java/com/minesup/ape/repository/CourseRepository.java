@@ -1,7 +1,18 @@
 package com.minesup.ape.repository;
 
+import com.minesup.ape.config.Constants;
 import com.minesup.ape.domain.Course;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +20,48 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface CourseRepository extends JpaRepository<Course, Long> {}
+public interface CourseRepository extends JpaRepository<Course, Long> {
+    @Query(
+        value = "select new com.minesup.ape.repository.CourseSummary(course.id, course.title) from Course course",
+        countQuery = "select count(course) from Course course"
+    )
+    Page<CourseSummary> findAllSummaries(Pageable pageable);
+
+    Slice<Course> findAllByIdGreaterThan(Long id, Pageable pageable);
+
+    @Query("select new com.minesup.ape.repository.CourseSummary(course.id, course.title) from Course course where course.id = :id")
+    Optional<CourseSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("select new com.minesup.ape.repository.CourseSummary(course.id, course.title) from Course course where course.title in :titles")
+    List<CourseSummary> findAllSummariesByTitleIn(@Param("titles") Collection<String> titles);
+
+    /**
+     * Loads the whole course tree in a single select: the inverse {@code Exercise.correction} is fetched as well, otherwise
+     * Hibernate would resolve it with one extra select per exercise.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    @Query(
+        "select distinct course from Course course left join fetch course.exercises exercise left join fetch exercise.correction where course.id = :id"
+    )
+    Optional<Course> findOneWithExercisesAndCorrections(@Param("id") Long id);
+
+    @Query("select course.id from Course course where course.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.minesup.ape.repository.ResourceVersion(course.version) from Course course where course.id = :id")
+    Optional<ResourceVersion> findResourceVersionById(@Param("id") Long id);
+
+    /**
+     * Forward-only cursor over all the courses, for exports: the entities are read-only and bypass the second-level cache.
+     * Must be consumed, and closed, within a transaction.
+     */
+    @QueryHints(
+        {
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Constants.EXPORT_FETCH_SIZE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHE_MODE, value = "IGNORE"),
+        }
+    )
+    @Query("select course from Course course order by course.id")
+    Stream<Course> streamAll();
+}
@@ -0,0 +1,35 @@
+package com.minesup.ape.repository;
+
+import com.minesup.ape.domain.Course;
+
+/**
+ * A read-only projection of a {@link Course} without its content.
+ */
+public class CourseSummary {
+
+    private final Long id;
+
+    private final String title;
+
+    public CourseSummary(Long id, String title) {
+        this.id = id;
+        this.title = title;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CourseSummary{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            "}";
+    }
+}
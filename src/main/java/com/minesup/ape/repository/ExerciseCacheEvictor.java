@@ -0,0 +1,141 @@
+package com.minesup.ape.repository;
+
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Exercise;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts the exercises from the second-level cache when their correction changes.
+ * <p>
+ * {@link Exercise#getCorrection()} is the inverse side of the association: the cached exercise keeps the id of the
+ * correction it had when it was cached, as Hibernate neither updates nor evicts it when a correction is inserted or
+ * deleted. The changes of single corrections are followed through a Hibernate listener, those of bulk statements evict
+ * every exercise through {@link #evictAllAfterCompletion()}.
+ */
+@Component
+public class ExerciseCacheEvictor
+    implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ExerciseCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * Evict every exercise once the current transaction completes, after a bulk statement inserted or deleted corrections.
+     */
+    public void evictAllAfterCompletion() {
+        // Synchronizations are kept in a set, so each bulk statement of the same transaction registers the same eviction
+        TransactionSynchronizationManager.registerSynchronization(new ExercisesEviction(cache()));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        evictExerciseOf(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        evictExerciseOf(event.getEntity());
+        // The correction may have been moved to another exercise
+        if (event.getEntity() instanceof Correction && event.getOldState() != null) {
+            Object exercise = event.getOldState()[event.getPersister().getEntityMetamodel().getPropertyIndex("exercise")];
+            if (exercise instanceof Exercise) {
+                evict((Exercise) exercise);
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        evictExerciseOf(event.getEntity());
+    }
+
+    /**
+     * Hibernate 5 passes the other entities too, hence the check of the type.
+     */
+    private void evictExerciseOf(Object entity) {
+        if (entity instanceof Correction && ((Correction) entity).getExercise() != null) {
+            evict(((Correction) entity).getExercise());
+        }
+    }
+
+    private void evict(Exercise exercise) {
+        // The id of a lazy proxy is read without initializing it
+        cache().evictEntityData(Exercise.class, exercise.getId());
+    }
+
+    private org.hibernate.Cache cache() {
+        return entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {}
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Correction.class.equals(persister.getMappedClass());
+    }
+
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private static final class ExercisesEviction implements TransactionSynchronization {
+
+        private final org.hibernate.Cache cache;
+
+        private ExercisesEviction(org.hibernate.Cache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            cache.evictEntityData(Exercise.class);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ExercisesEviction;
+        }
+
+        @Override
+        public int hashCode() {
+            return ExercisesEviction.class.hashCode();
+        }
+    }
+}
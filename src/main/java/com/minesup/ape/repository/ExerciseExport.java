@@ -0,0 +1,74 @@
+package com.minesup.ape.repository;
+
+import com.minesup.ape.domain.Exercise;
+
+/**
+ * A read-only projection of an {@link Exercise} for exports, referencing its course and correction by id only.
+ * <p>
+ * Selecting the entity would load the content of its correction too, the inverse side of the association being fetched
+ * along with every exercise.
+ */
+public class ExerciseExport {
+
+    private final Long id;
+
+    private final Long version;
+
+    private final String title;
+
+    private final String content;
+
+    private final Integer mark;
+
+    private final Long courseId;
+
+    private final Long correctionId;
+
+    public ExerciseExport(Long id, Long version, String title, String content, Integer mark, Long courseId, Long correctionId) {
+        this.id = id;
+        this.version = version;
+        this.title = title;
+        this.content = content;
+        this.mark = mark;
+        this.courseId = courseId;
+        this.correctionId = correctionId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public Integer getMark() {
+        return mark;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public Long getCorrectionId() {
+        return correctionId;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ExerciseExport{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", mark=" + getMark() +
+            "}";
+    }
+}
@@ -1,10 +1,16 @@
 package com.minesup.ape.repository;
 
+import com.minesup.ape.config.Constants;
 import com.minesup.ape.domain.Exercise;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -26,15 +32,89 @@ public interface ExerciseRepository extends JpaRepository<Exercise, Long> {
         return this.findAllWithToOneRelationships(pageable);
     }
 
+    /**
+     * {@code Exercise.correction} is the inverse side of a one-to-one and cannot be proxied: Hibernate loads it along with
+     * every exercise, one select per row unless the query fetches it. Hence every query returning exercises fetches it, which
+     * keeps a page of exercises to one select (plus the count query when the page is full).
+     */
+    @Override
+    @EntityGraph(attributePaths = "correction")
+    Page<Exercise> findAll(Pageable pageable);
+
+    /**
+     * Only to-one associations may be fetched here: they never multiply the rows, so neither {@code distinct} nor in-memory
+     * pagination is needed and the page is cut by the database.
+     */
     @Query(
-        value = "select distinct exercise from Exercise exercise left join fetch exercise.course",
-        countQuery = "select count(distinct exercise) from Exercise exercise"
+        value = "select exercise from Exercise exercise left join fetch exercise.course left join fetch exercise.correction",
+        countQuery = "select count(exercise) from Exercise exercise"
     )
     Page<Exercise> findAllWithToOneRelationships(Pageable pageable);
 
-    @Query("select distinct exercise from Exercise exercise left join fetch exercise.course")
+    @Query("select exercise from Exercise exercise left join fetch exercise.course left join fetch exercise.correction")
     List<Exercise> findAllWithToOneRelationships();
 
-    @Query("select exercise from Exercise exercise left join fetch exercise.course where exercise.id =:id")
+    @Query(
+        value = "select new com.minesup.ape.repository.ExerciseSummary(exercise.id, exercise.title, exercise.mark, course.id, course.title) from Exercise exercise join exercise.course course",
+        countQuery = "select count(exercise) from Exercise exercise"
+    )
+    Page<ExerciseSummary> findAllSummaries(Pageable pageable);
+
+    @Query(
+        value = "select new com.minesup.ape.repository.ExerciseSummary(exercise.id, exercise.title, exercise.mark, course.id, course.title) from Exercise exercise join exercise.course course left join exercise.correction correction where correction.id is null",
+        countQuery = "select count(exercise) from Exercise exercise left join exercise.correction correction where correction.id is null"
+    )
+    Page<ExerciseSummary> findAllSummariesWhereCorrectionIsNull(Pageable pageable);
+
+    @Query(
+        "select new com.minesup.ape.repository.ExerciseSummary(exercise.id, exercise.title, exercise.mark, correction.id) from Exercise exercise left join exercise.correction correction where exercise.course.id = :courseId order by exercise.id"
+    )
+    List<ExerciseSummary> findAllSummariesByCourseId(@Param("courseId") Long courseId);
+
+    @Query(
+        "select new com.minesup.ape.repository.ExerciseSummary(exercise.id, exercise.title, exercise.mark, correction.id) from Exercise exercise left join exercise.correction correction where exercise.title in :titles"
+    )
+    List<ExerciseSummary> findAllSummariesByTitleIn(@Param("titles") Collection<String> titles);
+
+    @Query(
+        "select exercise from Exercise exercise left join fetch exercise.course left join fetch exercise.correction where exercise.id > :after"
+    )
+    Slice<Exercise> findAllWithToOneRelationshipsAfter(@Param("after") Long after, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Query(
+        "select exercise from Exercise exercise left join fetch exercise.course left join fetch exercise.correction where exercise.id =:id"
+    )
     Optional<Exercise> findOneWithToOneRelationships(@Param("id") Long id);
+
+    /**
+     * Anti-join on the inverse side of {@code Exercise.correction}: the (always null) correction is fetched in the same
+     * select so Hibernate does not issue one extra query per exercise to resolve it.
+     */
+    @Query(
+        value = "select exercise from Exercise exercise left join fetch exercise.course left join fetch exercise.correction correction where correction.id is null",
+        countQuery = "select count(exercise) from Exercise exercise left join exercise.correction correction where correction.id is null"
+    )
+    Page<Exercise> findAllWhereCorrectionIsNull(Pageable pageable);
+
+    @Query("select exercise.id from Exercise exercise where exercise.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * The versions of the exercise and of the course and correction embedded in its representation, without their contents.
+     */
+    @Query(
+        "select new com.minesup.ape.repository.ResourceVersion(exercise.version, course.version, correction.id, correction.version) from Exercise exercise join exercise.course course left join exercise.correction correction where exercise.id = :id"
+    )
+    Optional<ResourceVersion> findResourceVersionById(@Param("id") Long id);
+
+    /**
+     * Forward-only cursor over all the exercises, with the ids of their course and correction, for exports. Must be consumed,
+     * and closed, within a transaction.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Constants.EXPORT_FETCH_SIZE))
+    @Query(
+        "select new com.minesup.ape.repository.ExerciseExport(exercise.id, exercise.version, exercise.title, exercise.content, exercise.mark, exercise.course.id, correction.id) from Exercise exercise left join exercise.correction correction order by exercise.id"
+    )
+    Stream<ExerciseExport> streamAll();
 }
@@ -0,0 +1,71 @@
+package com.minesup.ape.repository;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.minesup.ape.domain.Exercise;
+
+/**
+ * A read-only projection of an {@link Exercise} without its content.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExerciseSummary {
+
+    private final Long id;
+
+    private final String title;
+
+    private final Integer mark;
+
+    private final CourseSummary course;
+
+    private final CorrectionSummary correction;
+
+    public ExerciseSummary(Long id, String title, Integer mark) {
+        this(id, title, mark, (CourseSummary) null, null);
+    }
+
+    public ExerciseSummary(Long id, String title, Integer mark, Long courseId, String courseTitle) {
+        this(id, title, mark, new CourseSummary(courseId, courseTitle), null);
+    }
+
+    public ExerciseSummary(Long id, String title, Integer mark, Long correctionId) {
+        this(id, title, mark, null, correctionId != null ? new CorrectionSummary(correctionId) : null);
+    }
+
+    private ExerciseSummary(Long id, String title, Integer mark, CourseSummary course, CorrectionSummary correction) {
+        this.id = id;
+        this.title = title;
+        this.mark = mark;
+        this.course = course;
+        this.correction = correction;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Integer getMark() {
+        return mark;
+    }
+
+    public CourseSummary getCourse() {
+        return course;
+    }
+
+    public CorrectionSummary getCorrection() {
+        return correction;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ExerciseSummary{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", mark=" + getMark() +
+            "}";
+    }
+}
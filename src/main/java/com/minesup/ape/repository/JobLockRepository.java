@@ -0,0 +1,68 @@
+package com.minesup.ape.repository;
+
+import com.minesup.ape.domain.JobLock;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the {@link JobLock} entity.
+ * <p>
+ * Each change is a single conditional statement, so that two instances can never both hold the lease of a job.
+ */
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+    /**
+     * Takes the lease of a job if it expired.
+     *
+     * @return 1 if the lease was taken, 0 if it is held or was never written.
+     */
+    @Modifying
+    @Query(
+        "update JobLock jobLock set jobLock.lockedUntil = :until, jobLock.lockedAt = :now, jobLock.lockedBy = :owner" +
+        " where jobLock.name = :name and jobLock.lockedUntil <= :now"
+    )
+    int lock(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now, @Param("until") Instant until);
+
+    /**
+     * Writes the first lease of a job, failing with a key violation if another instance wrote it meanwhile.
+     */
+    @Modifying
+    @Query(
+        value = "insert into job_lock (name, locked_until, locked_at, locked_by) values (:name, :until, :now, :owner)",
+        nativeQuery = true
+    )
+    void insert(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now, @Param("until") Instant until);
+
+    /**
+     * Pushes back the end of a lease that did not expire.
+     *
+     * @return 1 if the lease was extended, 0 if it was lost.
+     */
+    @Modifying
+    @Query(
+        "update JobLock jobLock set jobLock.lockedUntil = :until" +
+        " where jobLock.name = :name and jobLock.lockedBy = :owner and jobLock.lockedUntil > :now"
+    )
+    int extend(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now, @Param("until") Instant until);
+
+    /**
+     * @return when the lease of a job held by an instance was taken, empty if it is held by another one.
+     */
+    @Query("select jobLock.lockedAt from JobLock jobLock where jobLock.name = :name and jobLock.lockedBy = :owner")
+    Optional<Instant> findLockedAt(@Param("name") String name, @Param("owner") String owner);
+
+    /**
+     * Ends a lease that did not expire, at {@code until} rather than now for a job which must not run again before.
+     */
+    @Modifying
+    @Query(
+        "update JobLock jobLock set jobLock.lockedUntil = :until" +
+        " where jobLock.name = :name and jobLock.lockedBy = :owner and jobLock.lockedUntil > :now"
+    )
+    void unlock(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now, @Param("until") Instant until);
+}
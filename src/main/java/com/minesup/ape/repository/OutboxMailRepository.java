@@ -0,0 +1,26 @@
+package com.minesup.ape.repository;
+
+import com.minesup.ape.domain.OutboxMail;
+import java.time.Instant;
+import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the {@link OutboxMail} entity.
+ */
+@Repository
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+    /**
+     * Locks the emails due at the given date, oldest first, skipping those another instance has locked on the databases
+     * supporting it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select mail from OutboxMail mail where mail.nextAttemptDate <= :date order by mail.nextAttemptDate, mail.id")
+    List<OutboxMail> findAllDueForUpdate(@Param("date") Instant date, Pageable pageable);
+}
@@ -0,0 +1,48 @@
+package com.minesup.ape.repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Function;
+import org.postgresql.PGConnection;
+
+/**
+ * {@code COPY ... FROM STDIN} through the PostgreSQL driver, kept apart so that the driver classes are only loaded when the
+ * database is PostgreSQL.
+ */
+final class PostgresCopy {
+
+    private PostgresCopy() {}
+
+    static boolean isSupported(Connection connection) throws SQLException {
+        return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+    }
+
+    /**
+     * Copies the rows in CSV format, every value being quoted so that empty strings are not read as {@code null}.
+     */
+    static <T> void copyIn(Connection connection, String table, List<String> columns, List<T> entities, Function<T, Object[]> row)
+        throws SQLException {
+        StringBuilder csv = new StringBuilder();
+        for (T entity : entities) {
+            Object[] values = row.apply(entity);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    csv.append(',');
+                }
+                if (values[i] != null) {
+                    csv.append('"').append(values[i].toString().replace("\"", "\"\"")).append('"');
+                }
+            }
+            csv.append('\n');
+        }
+        String sql = "copy " + table + " (" + String.join(", ", columns) + ") from stdin with (format csv)";
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new SQLException("Could not copy rows into " + table, e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.minesup.ape.repository;
+
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * A read-only projection of the versions making up the REST representation of an entity: its own version, followed by
+ * those of the related entities embedded in it. It changes whenever the representation does, so it can be compared with
+ * what a client holds without loading any content.
+ * <p>
+ * The ids of related entities are included where the relationship is not owned by the entity, since replacing them does
+ * not increment its version.
+ */
+public class ResourceVersion {
+
+    private final List<Long> versions;
+
+    public ResourceVersion(Long version) {
+        this.versions = Arrays.asList(version);
+    }
+
+    public ResourceVersion(Long version, Long relatedVersion) {
+        this.versions = Arrays.asList(version, relatedVersion);
+    }
+
+    public ResourceVersion(Long version, Long relatedVersion, Long otherRelatedId, Long otherRelatedVersion) {
+        this.versions = Arrays.asList(version, relatedVersion, otherRelatedId, otherRelatedVersion);
+    }
+
+    /**
+     * @see CourseRepository#findResourceVersionById(Long)
+     */
+    public static ResourceVersion of(Course course) {
+        return new ResourceVersion(course.getVersion());
+    }
+
+    /**
+     * @see ExerciseRepository#findResourceVersionById(Long)
+     */
+    public static ResourceVersion of(Exercise exercise) {
+        Correction correction = exercise.getCorrection();
+        return new ResourceVersion(
+            exercise.getVersion(),
+            exercise.getCourse().getVersion(),
+            correction != null ? correction.getId() : null,
+            correction != null ? correction.getVersion() : null
+        );
+    }
+
+    /**
+     * @see CorrectionRepository#findResourceVersionById(Long)
+     */
+    public static ResourceVersion of(Correction correction) {
+        return new ResourceVersion(correction.getVersion(), correction.getExercise().getVersion());
+    }
+
+    /**
+     * @return the version of the entity itself.
+     */
+    public Long getVersion() {
+        return versions.get(0);
+    }
+
+    /**
+     * @return the versions joined by dots, missing related entities being written as {@code -}.
+     */
+    public String getTag() {
+        return versions.stream().map(version -> version != null ? version.toString() : "-").collect(Collectors.joining("."));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ResourceVersion)) {
+            return false;
+        }
+        return versions.equals(((ResourceVersion) o).versions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(versions);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ResourceVersion{" +
+            "tag='" + getTag() + "'" +
+            "}";
+    }
+}
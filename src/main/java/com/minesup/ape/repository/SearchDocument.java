@@ -0,0 +1,54 @@
+package com.minesup.ape.repository;
+
+/**
+ * A read-only projection of the searchable fields of a course or an exercise.
+ * <p>
+ * The {@code title} and {@code content} are {@code null} when only the versions are scanned.
+ */
+public class SearchDocument {
+
+    private final Long id;
+
+    private final Long version;
+
+    private final String title;
+
+    private final String content;
+
+    public SearchDocument(Long id, Long version) {
+        this(id, version, null, null);
+    }
+
+    public SearchDocument(Long id, Long version, String title, String content) {
+        this.id = id;
+        this.version = version;
+        this.title = title;
+        this.content = content;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchDocument{" +
+            "id=" + getId() +
+            ", version=" + getVersion() +
+            ", title='" + getTitle() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,69 @@
+package com.minesup.ape.repository;
+
+/**
+ * A read-only projection of a course or an exercise matching a search, without its content.
+ * <p>
+ * The {@code snippet} is an HTML fragment: the excerpt of the content is escaped and the matching terms are wrapped in
+ * {@code <mark>} elements.
+ */
+public class SearchHit {
+
+    public static final String COURSE = "course";
+
+    public static final String EXERCISE = "exercise";
+
+    private final String type;
+
+    private final Long id;
+
+    private final String title;
+
+    private final String snippet;
+
+    private final double rank;
+
+    public SearchHit(String type, Long id, String title, String snippet, double rank) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.snippet = snippet;
+        this.rank = rank;
+    }
+
+    /**
+     * @return {@value #COURSE} or {@value #EXERCISE}.
+     */
+    public String getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    /**
+     * @return the relevance of the hit, only meaningful compared with the other hits of the same search.
+     */
+    public double getRank() {
+        return rank;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SearchHit{" +
+            "type='" + getType() + "'" +
+            ", id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", rank=" + getRank() +
+            "}";
+    }
+}
@@ -0,0 +1,253 @@
+package com.minesup.ape.repository;
+
+import com.minesup.ape.config.Constants;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * Repository searching the titles and contents of the courses and exercises.
+ * <p>
+ * On PostgreSQL the search is backed by the {@code search_vector} columns and their GIN indexes: the matches are ranked
+ * with {@code ts_rank}, titles weighing more than contents, and {@code ts_headline} builds the snippets of the returned
+ * page only. Elsewhere (H2 in the tests) the whole query is looked up as a case-insensitive substring, which scans both
+ * tables.
+ * <p>
+ * In both cases the search is a single statement which never returns the contents themselves, and no total count is
+ * computed.
+ * <p>
+ * The searchable fields can also be read as {@link SearchDocument}s, for the search engines indexing them outside the
+ * database.
+ */
+@Repository
+public class SearchRepository {
+
+    /**
+     * The text search configuration the {@code search_vector} columns are generated with.
+     */
+    static final String TEXT_SEARCH_CONFIGURATION = "french";
+
+    // Control characters cannot appear in the escaped snippet, so they safely delimit the matches until then
+    private static final String START_SELECTION = "\u0002";
+
+    private static final String STOP_SELECTION = "\u0003";
+
+    private static final String HEADLINE_OPTIONS =
+        "StartSel=" + START_SELECTION + ", StopSel=" + STOP_SELECTION + ", MaxWords=30, MinWords=10, MaxFragments=2";
+
+    private static final String POSTGRESQL_SEARCH =
+        "select hit.hit_type, hit.id, hit.title, " +
+        "ts_headline('" +
+        TEXT_SEARCH_CONFIGURATION +
+        "', coalesce(course.content, exercise.content), websearch_to_tsquery('" +
+        TEXT_SEARCH_CONFIGURATION +
+        "', :query), :options), hit.hit_rank " +
+        "from (" +
+        "select 'course' as hit_type, course.id, course.title, ts_rank(course.search_vector, query) as hit_rank " +
+        "from course, websearch_to_tsquery('" +
+        TEXT_SEARCH_CONFIGURATION +
+        "', :query) query where course.search_vector @@ query " +
+        "union all " +
+        "select 'exercise', exercise.id, exercise.title, ts_rank(exercise.search_vector, query) " +
+        "from exercise, websearch_to_tsquery('" +
+        TEXT_SEARCH_CONFIGURATION +
+        "', :query) query where exercise.search_vector @@ query " +
+        "order by hit_rank desc, hit_type, id limit :limit offset :offset" +
+        ") hit " +
+        "left join course on hit.hit_type = 'course' and course.id = hit.id " +
+        "left join exercise on hit.hit_type = 'exercise' and exercise.id = hit.id " +
+        "order by hit.hit_rank desc, hit.hit_type, hit.id";
+
+    private static final int FALLBACK_SNIPPET_LEADING_CHARACTERS = 60;
+
+    private static final int FALLBACK_SNIPPET_LENGTH = 240;
+
+    private static final String FALLBACK_SEARCH =
+        "select hit.hit_type, hit.id, hit.title, " +
+        "cast(substring(coalesce(course.content, exercise.content), " +
+        "greatest(1, locate(:term, lower(coalesce(course.content, exercise.content))) - " +
+        FALLBACK_SNIPPET_LEADING_CHARACTERS +
+        "), " +
+        FALLBACK_SNIPPET_LENGTH +
+        ") as varchar(" +
+        FALLBACK_SNIPPET_LENGTH +
+        ")), hit.hit_rank " +
+        "from (" +
+        "select 'course' as hit_type, course.id, course.title, " +
+        "case when lower(course.title) like :pattern escape '\\' then 2 else 1 end as hit_rank " +
+        "from course where lower(course.title) like :pattern escape '\\' or lower(course.content) like :pattern escape '\\' " +
+        "union all " +
+        "select 'exercise', exercise.id, exercise.title, " +
+        "case when lower(exercise.title) like :pattern escape '\\' then 2 else 1 end " +
+        "from exercise where lower(exercise.title) like :pattern escape '\\' or lower(exercise.content) like :pattern escape '\\' " +
+        "order by hit_rank desc, hit_type, id limit :limit offset :offset" +
+        ") hit " +
+        "left join course on hit.hit_type = 'course' and course.id = hit.id " +
+        "left join exercise on hit.hit_type = 'exercise' and exercise.id = hit.id " +
+        "order by hit.hit_rank desc, hit.hit_type, hit.id";
+
+    private static final Map<String, String> ENTITY_NAMES = Map.of(SearchHit.COURSE, "Course", SearchHit.EXERCISE, "Exercise");
+
+    private final EntityManager entityManager;
+
+    private volatile Boolean postgresql;
+
+    public SearchRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Search the courses and exercises, the most relevant first.
+     *
+     * @param query the search, in the syntax of {@code websearch_to_tsquery} on PostgreSQL: words, {@code "quoted phrases"},
+     * {@code or} and {@code -excluded} words.
+     * @param pageable the pagination information, its sort being ignored.
+     * @return the slice of hits.
+     */
+    @SuppressWarnings("unchecked")
+    public Slice<SearchHit> search(String query, Pageable pageable) {
+        Query search;
+        Pattern highlighted = null;
+        if (isPostgresql()) {
+            search =
+                entityManager
+                    .createNativeQuery(POSTGRESQL_SEARCH)
+                    .setParameter("query", query)
+                    .setParameter("options", HEADLINE_OPTIONS);
+        } else {
+            String term = query.trim().toLowerCase(Locale.ROOT);
+            search =
+                entityManager
+                    .createNativeQuery(FALLBACK_SEARCH)
+                    .setParameter("term", term)
+                    .setParameter("pattern", "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+            highlighted = Pattern.compile(Pattern.quote(query.trim()), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        }
+        // One more row than requested tells whether there is a next slice
+        List<Object[]> rows = search
+            .setParameter("limit", pageable.getPageSize() + 1)
+            .setParameter("offset", pageable.getOffset())
+            .getResultList();
+        Pattern matches = highlighted;
+        List<SearchHit> hits = rows
+            .stream()
+            .limit(pageable.getPageSize())
+            .map(row ->
+                new SearchHit(
+                    (String) row[0],
+                    ((Number) row[1]).longValue(),
+                    (String) row[2],
+                    snippet((String) row[3], matches),
+                    ((Number) row[4]).doubleValue()
+                )
+            )
+            .collect(Collectors.toList());
+        return new SliceImpl<>(hits, pageable, rows.size() > pageable.getPageSize());
+    }
+
+    /**
+     * Stream the searchable fields of every course or exercise, in id order. It must be closed, within a transaction.
+     *
+     * @param type {@value SearchHit#COURSE} or {@value SearchHit#EXERCISE}.
+     * @return the stream of documents.
+     */
+    public Stream<SearchDocument> streamDocuments(String type) {
+        return stream("select new com.minesup.ape.repository.SearchDocument(e.id, e.version, e.title, e.content) from " + entityName(type));
+    }
+
+    /**
+     * Stream the ids and versions of every course or exercise, in id order, without their searchable fields. It must be
+     * closed, within a transaction.
+     *
+     * @param type {@value SearchHit#COURSE} or {@value SearchHit#EXERCISE}.
+     * @return the stream of documents, without title nor content.
+     */
+    public Stream<SearchDocument> streamDocumentVersions(String type) {
+        return stream("select new com.minesup.ape.repository.SearchDocument(e.id, e.version) from " + entityName(type));
+    }
+
+    /**
+     * Get the searchable fields of some courses or exercises.
+     *
+     * @param type {@value SearchHit#COURSE} or {@value SearchHit#EXERCISE}.
+     * @param ids the ids of the courses or exercises, those which do not exist being ignored.
+     * @return the list of documents, in no particular order.
+     */
+    public List<SearchDocument> findDocuments(String type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return entityManager
+            .createQuery(
+                "select new com.minesup.ape.repository.SearchDocument(e.id, e.version, e.title, e.content) from " +
+                entityName(type) +
+                " e where e.id in :ids",
+                SearchDocument.class
+            )
+            .setParameter("ids", ids)
+            .getResultList();
+    }
+
+    private Stream<SearchDocument> stream(String select) {
+        return entityManager
+            .createQuery(select + " e order by e.id", SearchDocument.class)
+            .setHint(QueryHints.HINT_FETCH_SIZE, Constants.EXPORT_FETCH_SIZE)
+            .setHint(QueryHints.HINT_READONLY, true)
+            .setHint(QueryHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+            .getResultStream();
+    }
+
+    private static String entityName(String type) {
+        String entityName = ENTITY_NAMES.get(type);
+        if (entityName == null) {
+            throw new IllegalArgumentException("Unknown search document type: " + type);
+        }
+        return entityName;
+    }
+
+    /**
+     * Escapes the excerpt, then turns the selections into {@code <mark>} elements.
+     *
+     * @param excerpt the excerpt, with its matches delimited by the selection characters unless {@code matches} is given.
+     * @param matches the pattern of the matches, {@code null} if they are already delimited.
+     */
+    private static String snippet(String excerpt, Pattern matches) {
+        if (excerpt == null) {
+            return null;
+        }
+        String selected = excerpt;
+        if (matches != null) {
+            selected = matches.matcher(excerpt).replaceAll(Matcher.quoteReplacement(START_SELECTION) + "$0" + STOP_SELECTION);
+        }
+        return HtmlUtils
+            .htmlEscape(selected, StandardCharsets.UTF_8.name())
+            .replace(START_SELECTION, "<mark>")
+            .replace(STOP_SELECTION, "</mark>");
+    }
+
+    private boolean isPostgresql() {
+        if (postgresql == null) {
+            postgresql =
+                entityManager
+                    .unwrap(Session.class)
+                    .doReturningWork(connection -> "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgresql;
+    }
+}
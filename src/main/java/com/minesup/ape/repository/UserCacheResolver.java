@@ -0,0 +1,165 @@
+package com.minesup.ape.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Resolves the caches of the {@link UserRepository} lookups, through which their entries must also be evicted.
+ * <p>
+ * A lookup missing the cache may read a user just before a change to it commits, and cache what it read just after the change
+ * evicted it: the replaced password, activation or authorities would then be served until the entry expires. So a cache does not
+ * keep what it loaded if any entry was evicted since the load began. What a transaction caches or evicts is also cached or evicted
+ * once it commits, so what it rolls back is never served.
+ */
+@Component
+public class UserCacheResolver implements CacheResolver {
+
+    private final CacheManager cacheManager;
+
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public UserCacheResolver(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        return context.getOperation().getCacheNames().stream().map(this::getCache).collect(Collectors.toList());
+    }
+
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(
+            name,
+            cacheName -> new EvictionGuardedCache(Objects.requireNonNull(cacheManager.getCache(cacheName)))
+        );
+    }
+
+    /**
+     * Loads through {@code @Cacheable(sync = true)} lookups, which do not cache {@code null}, that is unknown users.
+     */
+    private static final class EvictionGuardedCache implements Cache {
+
+        private final Cache target;
+
+        /**
+         * Count of the evictions, only changed along with the evicted entry under the write lock.
+         */
+        private final AtomicLong evictions = new AtomicLong();
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private EvictionGuardedCache(Cache target) {
+            this.target = target;
+        }
+
+        @Override
+        public String getName() {
+            return target.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return target.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return target.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return target.get(key, type);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            ValueWrapper cached = target.get(key);
+            if (cached != null) {
+                return (T) cached.get();
+            }
+            long evictionsBeforeLoad = evictions.get();
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            if (value != null) {
+                afterCommit(() -> putIfNotEvictedSince(key, value, evictionsBeforeLoad));
+            }
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            long evictionsBeforePut = evictions.get();
+            afterCommit(() -> putIfNotEvictedSince(key, value, evictionsBeforePut));
+        }
+
+        @Override
+        public void evict(Object key) {
+            // Right away, so the rest of the transaction does not see it cached, and again once it commits
+            invalidate(() -> target.evict(key));
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                afterCommit(() -> invalidate(() -> target.evict(key)));
+            }
+        }
+
+        @Override
+        public void clear() {
+            invalidate(target::clear);
+        }
+
+        private void putIfNotEvictedSince(Object key, Object value, long evictionCount) {
+            lock.readLock().lock();
+            try {
+                if (evictions.get() == evictionCount) {
+                    target.put(key, value);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void invalidate(Runnable eviction) {
+            lock.writeLock().lock();
+            try {
+                evictions.incrementAndGet();
+                eviction.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private static void afterCommit(Runnable action) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                action.run();
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                }
+            );
+        }
+    }
+}
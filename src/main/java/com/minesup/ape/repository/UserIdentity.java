@@ -0,0 +1,47 @@
+package com.minesup.ape.repository;
+
+import com.minesup.ape.domain.User;
+
+/**
+ * A read-only projection of a {@link User} on what identifies it: its login and its email, and its id when selected.
+ */
+public class UserIdentity {
+
+    private final Long id;
+
+    private final String login;
+
+    private final String email;
+
+    public UserIdentity(String login, String email) {
+        this(null, login, email);
+    }
+
+    public UserIdentity(Long id, String login, String email) {
+        this.id = id;
+        this.login = login;
+        this.email = email;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserIdentity{" +
+            "id=" + getId() +
+            ", login='" + getLogin() + "'" +
+            ", email='" + getEmail() + "'" +
+            "}";
+    }
+}
@@ -2,11 +2,16 @@ package com.minesup.ape.repository;
 
 import com.minesup.ape.domain.User;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -14,17 +19,83 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    /**
+     * Users with their authorities, by login. Evicted by {@code UserService} whenever it changes a user, see
+     * {@link UserCacheResolver}.
+     */
+    String USERS_BY_LOGIN_CACHE = "usersByLogin";
+
+    /**
+     * Users with their authorities, by lower-cased email. Evicted by {@code UserService} whenever it changes a user, see
+     * {@link UserCacheResolver}.
+     */
+    String USERS_BY_EMAIL_CACHE = "usersByEmail";
+
     Optional<User> findOneByActivationKey(String activationKey);
-    List<User> findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant dateTime);
+
+    /**
+     * Identities of not activated users created before the given date, served on PostgreSQL by the
+     * {@code idx_user_not_activated__created_date} partial index.
+     */
+    @Query(
+        "select new com.minesup.ape.repository.UserIdentity(user.id, user.login, user.email) from User user" +
+        " where user.activated = false and user.activationKey is not null and user.createdDate < :date"
+    )
+    List<UserIdentity> findAllIdentitiesByActivatedIsFalseAndCreatedDateBefore(@Param("date") Instant date, Pageable pageable);
+
+    /**
+     * Deletes the given users with one statement, their authorities with another, skipping those activated meanwhile.
+     *
+     * @return the number of users deleted.
+     */
+    @Modifying
+    @Query("delete from User user where user.id in :ids and user.activated = false")
+    int deleteAllByIdInAndActivatedIsFalse(@Param("ids") Collection<Long> ids);
     Optional<User> findOneByResetKey(String resetKey);
-    Optional<User> findOneByEmailIgnoreCase(String email);
+    /**
+     * Compares {@code lower(email)} rather than the {@code upper(email)} a derived {@code IgnoreCase} query would use, so that the
+     * {@code idx_user_email_lower} index applies.
+     */
+    @Query("select user from User user where lower(user.email) = lower(:email)")
+    Optional<User> findOneByEmailIgnoreCase(@Param("email") String email);
     Optional<User> findOneByLogin(String login);
 
+    /**
+     * Looked up by every authentication and {@code GET /api/account}, so cached; unknown logins are not.
+     */
     @EntityGraph(attributePaths = "authorities")
+    @Cacheable(cacheNames = USERS_BY_LOGIN_CACHE, cacheResolver = "userCacheResolver", sync = true)
     Optional<User> findOneWithAuthoritiesByLogin(String login);
 
+    /**
+     * Looked up by every authentication with an email, so cached whatever the case of the email; unknown emails are not.
+     */
     @EntityGraph(attributePaths = "authorities")
-    Optional<User> findOneWithAuthoritiesByEmailIgnoreCase(String email);
+    @Cacheable(
+        cacheNames = USERS_BY_EMAIL_CACHE,
+        cacheResolver = "userCacheResolver",
+        sync = true,
+        key = "#p0.toLowerCase(T(java.util.Locale).ROOT)"
+    )
+    @Query("select user from User user where lower(user.email) = lower(:email)")
+    Optional<User> findOneWithAuthoritiesByEmailIgnoreCase(@Param("email") String email);
+
+    /**
+     * The users that already use one of the given logins or emails, found with one query however many there are.
+     *
+     * @param logins the lower-cased logins.
+     * @param emails the lower-cased emails.
+     */
+    @Query(
+        "select new com.minesup.ape.repository.UserIdentity(user.login, user.email) from User user" +
+        " where user.login in :logins or lower(user.email) in :emails"
+    )
+    List<UserIdentity> findAllIdentitiesByLoginInOrEmailIn(
+        @Param("logins") Collection<String> logins,
+        @Param("emails") Collection<String> emails
+    );
 
     Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
+
+    Slice<User> findAllByIdGreaterThan(Long id, Pageable pageable);
 }
@@ -0,0 +1,34 @@
+package com.minesup.ape.security;
+
+import com.minesup.ape.management.SecurityMetersService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Times the hashing done by another {@link PasswordEncoder}, which with BCrypt dominates the cost of a login.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final SecurityMetersService securityMetersService;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, SecurityMetersService securityMetersService) {
+        this.delegate = delegate;
+        this.securityMetersService = securityMetersService;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return securityMetersService.recordPasswordEncode(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return securityMetersService.recordPasswordMatches(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -7,10 +7,14 @@ import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -25,6 +29,8 @@ public class TokenProvider {
 
     private final Logger log = LoggerFactory.getLogger(TokenProvider.class);
 
+    public static final String AUTHENTICATIONS_BY_TOKEN_CACHE = "authenticationsByToken";
+
     private static final String AUTHORITIES_KEY = "auth";
 
     private static final String INVALID_JWT_TOKEN = "Invalid JWT token.";
@@ -39,7 +45,9 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
+    private final Cache authenticationCache;
+
+    public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService, CacheManager cacheManager) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
         if (!ObjectUtils.isEmpty(secret)) {
@@ -60,6 +68,7 @@ public class TokenProvider {
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
 
         this.securityMetersService = securityMetersService;
+        this.authenticationCache = Objects.requireNonNull(cacheManager.getCache(AUTHENTICATIONS_BY_TOKEN_CACHE));
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -83,8 +92,43 @@ public class TokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return toAuthentication(token, jwtParser.parseClaimsJws(token).getBody());
+    }
+
+    /**
+     * Validates the token and returns the corresponding authentication, verifying the signature at most once per token.
+     * <p>
+     * Authentications are cached by token hash until the token expires, so that only the first request presenting a given token
+     * pays for the HMAC verification and the claims parsing.
+     *
+     * @param token the JWT presented by the client.
+     * @return the authentication, or empty if the token is not valid.
+     */
+    public Optional<Authentication> getValidAuthentication(String token) {
+        String tokenHash = hash(token);
+        CachedAuthentication cached = authenticationCache.get(tokenHash, CachedAuthentication.class);
+        if (cached != null) {
+            if (cached.expiration.after(new Date())) {
+                return Optional.of(cached.authentication);
+            }
+            authenticationCache.evict(tokenHash);
+        }
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return Optional.empty();
+        }
+        Authentication authentication = toAuthentication(token, claims);
+        if (claims.getExpiration() != null) {
+            authenticationCache.put(tokenHash, new CachedAuthentication(authentication, claims.getExpiration()));
+        }
+        return Optional.of(authentication);
+    }
+
+    public boolean validateToken(String authToken) {
+        return parseClaims(authToken) != null;
+    }
 
+    private Authentication toAuthentication(String token, Claims claims) {
         Collection<? extends GrantedAuthority> authorities = Arrays
             .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
             .filter(auth -> !auth.trim().isEmpty())
@@ -96,11 +140,9 @@ public class TokenProvider {
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
-    public boolean validateToken(String authToken) {
+    private Claims parseClaims(String authToken) {
         try {
-            jwtParser.parseClaimsJws(authToken);
-
-            return true;
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -121,6 +163,30 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * Hashes the token into a fixed-size cache key.
+     */
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class CachedAuthentication {
+
+        private final Authentication authentication;
+
+        private final Date expiration;
+
+        private CachedAuthentication(Authentication authentication, Date expiration) {
+            this.authentication = authentication;
+            this.expiration = expiration;
+        }
     }
 }
@@ -2,11 +2,24 @@ package com.minesup.ape.service;
 
 import com.minesup.ape.domain.Correction;
 import com.minesup.ape.repository.CorrectionRepository;
+import com.minesup.ape.repository.ExerciseCacheEvictor;
+import com.minesup.ape.repository.CorrectionSummary;
+import com.minesup.ape.repository.ResourceVersion;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,8 +34,11 @@ public class CorrectionService {
 
     private final CorrectionRepository correctionRepository;
 
-    public CorrectionService(CorrectionRepository correctionRepository) {
+    private final ExerciseCacheEvictor exerciseCacheEvictor;
+
+    public CorrectionService(CorrectionRepository correctionRepository, ExerciseCacheEvictor exerciseCacheEvictor) {
         this.correctionRepository = correctionRepository;
+        this.exerciseCacheEvictor = exerciseCacheEvictor;
     }
 
     /**
@@ -44,9 +60,49 @@ public class CorrectionService {
      */
     public Correction update(Correction correction) {
         log.debug("Request to save Correction : {}", correction);
+        if (correction.getVersion() == null) {
+            // Without a version the last write wins: the merge below loads the current entity anyway
+            correctionRepository
+                .findById(correction.getId())
+                .ifPresent(existingCorrection -> correction.setVersion(existingCorrection.getVersion()));
+        }
         return correctionRepository.save(correction);
     }
 
+    /**
+     * Save a batch of new corrections in a single transaction.
+     * <p>
+     * The inserts are grouped into JDBC batches, see {@code hibernate.jdbc.batch_size}.
+     *
+     * @param corrections the entities to save.
+     * @return the persisted entities, in the same order.
+     */
+    public List<Correction> saveAll(List<Correction> corrections) {
+        log.debug("Request to save {} Corrections", corrections.size());
+        return correctionRepository.saveAll(corrections);
+    }
+
+    /**
+     * Update a batch of existing corrections in a single transaction.
+     *
+     * @param corrections the entities to save.
+     * @return the persisted entities, in the same order.
+     */
+    public List<Correction> updateAll(List<Correction> corrections) {
+        log.debug("Request to update {} Corrections", corrections.size());
+        // Loading them all at once lets the merges below find the entities in the persistence context, instead of selecting them one by one
+        Map<Long, Long> versions = correctionRepository
+            .findAllById(corrections.stream().map(Correction::getId).collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.toMap(Correction::getId, Correction::getVersion));
+        // Items sent without a version overwrite whatever version is current, like a single update
+        corrections
+            .stream()
+            .filter(correction -> correction.getVersion() == null)
+            .forEach(correction -> correction.setVersion(versions.get(correction.getId())));
+        return correctionRepository.saveAll(corrections);
+    }
+
     /**
      * Partially update a correction.
      *
@@ -59,6 +115,9 @@ public class CorrectionService {
         return correctionRepository
             .findById(correction.getId())
             .map(existingCorrection -> {
+                if (correction.getVersion() != null && !correction.getVersion().equals(existingCorrection.getVersion())) {
+                    throw new ObjectOptimisticLockingFailureException(Correction.class, correction.getId());
+                }
                 if (correction.getContent() != null) {
                     existingCorrection.setContent(correction.getContent());
                 }
@@ -85,10 +144,39 @@ public class CorrectionService {
      *
      * @return the list of entities.
      */
+    @Transactional(readOnly = true)
     public Page<Correction> findAllWithEagerRelationships(Pageable pageable) {
         return correctionRepository.findAllWithEagerRelationships(pageable);
     }
 
+    /**
+     * Get all the corrections as summaries, without loading their content.
+     *
+     * @param pageable the pagination information.
+     * @return the list of summaries.
+     */
+    @Transactional(readOnly = true)
+    public Page<CorrectionSummary> findAllSummaries(Pageable pageable) {
+        log.debug("Request to get all Correction summaries");
+        return correctionRepository.findAllSummaries(pageable);
+    }
+
+    /**
+     * Get a slice of the corrections following the given id, in ascending id order.
+     *
+     * @param after the id of the last correction of the previous slice, or {@code null} to start from the first one.
+     * @param size the maximum number of corrections to return.
+     * @return the slice of entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Correction> findAllAfter(Long after, int size) {
+        log.debug("Request to get a slice of Corrections after : {}", after);
+        return correctionRepository.findAllWithToOneRelationshipsAfter(
+            after != null ? after : Long.MIN_VALUE,
+            PageRequest.of(0, size, Sort.by("id"))
+        );
+    }
+
     /**
      * Get one correction by id.
      *
@@ -98,7 +186,26 @@ public class CorrectionService {
     @Transactional(readOnly = true)
     public Optional<Correction> findOne(Long id) {
         log.debug("Request to get Correction : {}", id);
-        return correctionRepository.findOneWithEagerRelationships(id);
+        // A hit of the query cache only holds the id of the exercise, read from the second-level cache here rather than
+        // once the transaction is over
+        return correctionRepository
+            .findOneWithEagerRelationships(id)
+            .map(correction -> {
+                Hibernate.initialize(correction.getExercise());
+                return correction;
+            });
+    }
+
+    /**
+     * Get the versions making up the representation of one correction, without loading its content.
+     *
+     * @param id the id of the entity.
+     * @return the versions, see {@link ResourceVersion}.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ResourceVersion> findResourceVersion(Long id) {
+        log.debug("Request to get the version of Correction : {}", id);
+        return correctionRepository.findResourceVersionById(id);
     }
 
     /**
@@ -110,4 +217,23 @@ public class CorrectionService {
         log.debug("Request to delete Correction : {}", id);
         correctionRepository.deleteById(id);
     }
+
+    /**
+     * Delete the corrections by id, with a single statement.
+     *
+     * @param ids the ids of the entities.
+     * @return the ids of the entities that existed and were deleted.
+     */
+    public Set<Long> deleteAll(Collection<Long> ids) {
+        log.debug("Request to delete Corrections : {}", ids);
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> existingIds = correctionRepository.findExistingIds(ids);
+        if (!existingIds.isEmpty()) {
+            correctionRepository.deleteAllByIdInBatch(existingIds);
+            exerciseCacheEvictor.evictAllAfterCompletion();
+        }
+        return existingIds;
+    }
 }
@@ -2,11 +2,19 @@ package com.minesup.ape.service;
 
 import com.minesup.ape.domain.Course;
 import com.minesup.ape.repository.CourseRepository;
+import com.minesup.ape.repository.CourseSummary;
+import com.minesup.ape.repository.ExerciseRepository;
+import com.minesup.ape.repository.ResourceVersion;
+import com.minesup.ape.service.dto.CourseTreeDTO;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,8 +29,11 @@ public class CourseService {
 
     private final CourseRepository courseRepository;
 
-    public CourseService(CourseRepository courseRepository) {
+    private final ExerciseRepository exerciseRepository;
+
+    public CourseService(CourseRepository courseRepository, ExerciseRepository exerciseRepository) {
         this.courseRepository = courseRepository;
+        this.exerciseRepository = exerciseRepository;
     }
 
     /**
@@ -44,6 +55,10 @@ public class CourseService {
      */
     public Course update(Course course) {
         log.debug("Request to save Course : {}", course);
+        if (course.getVersion() == null) {
+            // Without a version the last write wins: the merge below loads the current entity anyway
+            courseRepository.findById(course.getId()).ifPresent(existingCourse -> course.setVersion(existingCourse.getVersion()));
+        }
         return courseRepository.save(course);
     }
 
@@ -59,6 +74,9 @@ public class CourseService {
         return courseRepository
             .findById(course.getId())
             .map(existingCourse -> {
+                if (course.getVersion() != null && !course.getVersion().equals(existingCourse.getVersion())) {
+                    throw new ObjectOptimisticLockingFailureException(Course.class, course.getId());
+                }
                 if (course.getTitle() != null) {
                     existingCourse.setTitle(course.getTitle());
                 }
@@ -83,6 +101,31 @@ public class CourseService {
         return courseRepository.findAll(pageable);
     }
 
+    /**
+     * Get all the courses as summaries, without loading their content.
+     *
+     * @param pageable the pagination information.
+     * @return the list of summaries.
+     */
+    @Transactional(readOnly = true)
+    public Page<CourseSummary> findAllSummaries(Pageable pageable) {
+        log.debug("Request to get all Course summaries");
+        return courseRepository.findAllSummaries(pageable);
+    }
+
+    /**
+     * Get a slice of the courses following the given id, in ascending id order.
+     *
+     * @param after the id of the last course of the previous slice, or {@code null} to start from the first one.
+     * @param size the maximum number of courses to return.
+     * @return the slice of entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Course> findAllAfter(Long after, int size) {
+        log.debug("Request to get a slice of Courses after : {}", after);
+        return courseRepository.findAllByIdGreaterThan(after != null ? after : Long.MIN_VALUE, PageRequest.of(0, size, Sort.by("id")));
+    }
+
     /**
      * Get one course by id.
      *
@@ -95,6 +138,36 @@ public class CourseService {
         return courseRepository.findById(id);
     }
 
+    /**
+     * Get the versions making up the representation of one course, without loading its content.
+     *
+     * @param id the id of the entity.
+     * @return the versions, see {@link ResourceVersion}.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ResourceVersion> findResourceVersion(Long id) {
+        log.debug("Request to get the version of Course : {}", id);
+        return courseRepository.findResourceVersionById(id);
+    }
+
+    /**
+     * Get one course by id with all its exercises and their corrections.
+     *
+     * @param id the id of the entity.
+     * @param includeContent whether the content of the course, exercises and corrections should be loaded.
+     * @return the course tree, built from a single query with contents and from two queries without.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CourseTreeDTO> findOneTree(Long id, boolean includeContent) {
+        log.debug("Request to get Course tree : {}, with content : {}", id, includeContent);
+        if (includeContent) {
+            return courseRepository.findOneWithExercisesAndCorrections(id).map(CourseTreeDTO::new);
+        }
+        return courseRepository
+            .findSummaryById(id)
+            .map(course -> new CourseTreeDTO(course, exerciseRepository.findAllSummariesByCourseId(id)));
+    }
+
     /**
      * Delete the course by id.
      *
@@ -0,0 +1,38 @@
+package com.minesup.ape.service;
+
+import java.util.List;
+
+/**
+ * Published by the {@link ImportService} for each batch of loaded entities, within the transaction of the import.
+ * <p>
+ * The batches are loaded without going through Hibernate, so this is the only way to learn about them: listeners should
+ * wait for the commit, as the whole import may still be rolled back.
+ */
+public class EntitiesImportedEvent {
+
+    private final Class<?> entityClass;
+
+    private final List<Long> ids;
+
+    public EntitiesImportedEvent(Class<?> entityClass, List<Long> ids) {
+        this.entityClass = entityClass;
+        this.ids = ids;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "EntitiesImportedEvent{" +
+            "entityClass=" + getEntityClass().getSimpleName() +
+            ", ids=" + getIds().size() +
+            "}";
+    }
+}
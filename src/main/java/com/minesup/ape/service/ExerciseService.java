@@ -2,14 +2,23 @@ package com.minesup.ape.service;
 
 import com.minesup.ape.domain.Exercise;
 import com.minesup.ape.repository.ExerciseRepository;
+import com.minesup.ape.repository.ExerciseSummary;
+import com.minesup.ape.repository.ResourceVersion;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -47,9 +56,47 @@ public class ExerciseService {
      */
     public Exercise update(Exercise exercise) {
         log.debug("Request to save Exercise : {}", exercise);
+        if (exercise.getVersion() == null) {
+            // Without a version the last write wins: the merge below loads the current entity anyway
+            exerciseRepository.findById(exercise.getId()).ifPresent(existingExercise -> exercise.setVersion(existingExercise.getVersion()));
+        }
         return exerciseRepository.save(exercise);
     }
 
+    /**
+     * Save a batch of new exercises in a single transaction.
+     * <p>
+     * The inserts are grouped into JDBC batches, see {@code hibernate.jdbc.batch_size}.
+     *
+     * @param exercises the entities to save.
+     * @return the persisted entities, in the same order.
+     */
+    public List<Exercise> saveAll(List<Exercise> exercises) {
+        log.debug("Request to save {} Exercises", exercises.size());
+        return exerciseRepository.saveAll(exercises);
+    }
+
+    /**
+     * Update a batch of existing exercises in a single transaction.
+     *
+     * @param exercises the entities to save.
+     * @return the persisted entities, in the same order.
+     */
+    public List<Exercise> updateAll(List<Exercise> exercises) {
+        log.debug("Request to update {} Exercises", exercises.size());
+        // Loading them all at once lets the merges below find the entities in the persistence context, instead of selecting them one by one
+        Map<Long, Long> versions = exerciseRepository
+            .findAllById(exercises.stream().map(Exercise::getId).collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.toMap(Exercise::getId, Exercise::getVersion));
+        // Items sent without a version overwrite whatever version is current, like a single update
+        exercises
+            .stream()
+            .filter(exercise -> exercise.getVersion() == null)
+            .forEach(exercise -> exercise.setVersion(versions.get(exercise.getId())));
+        return exerciseRepository.saveAll(exercises);
+    }
+
     /**
      * Partially update a exercise.
      *
@@ -62,6 +109,9 @@ public class ExerciseService {
         return exerciseRepository
             .findById(exercise.getId())
             .map(existingExercise -> {
+                if (exercise.getVersion() != null && !exercise.getVersion().equals(existingExercise.getVersion())) {
+                    throw new ObjectOptimisticLockingFailureException(Exercise.class, exercise.getId());
+                }
                 if (exercise.getTitle() != null) {
                     existingExercise.setTitle(exercise.getTitle());
                 }
@@ -94,21 +144,61 @@ public class ExerciseService {
      *
      * @return the list of entities.
      */
+    @Transactional(readOnly = true)
     public Page<Exercise> findAllWithEagerRelationships(Pageable pageable) {
         return exerciseRepository.findAllWithEagerRelationships(pageable);
     }
 
     /**
      *  Get all the exercises where Correction is {@code null}.
+     *
+     *  @param pageable the pagination information.
      *  @return the list of entities.
      */
     @Transactional(readOnly = true)
-    public List<Exercise> findAllWhereCorrectionIsNull() {
+    public Page<Exercise> findAllWhereCorrectionIsNull(Pageable pageable) {
         log.debug("Request to get all exercises where Correction is null");
-        return StreamSupport
-            .stream(exerciseRepository.findAll().spliterator(), false)
-            .filter(exercise -> exercise.getCorrection() == null)
-            .collect(Collectors.toList());
+        return exerciseRepository.findAllWhereCorrectionIsNull(pageable);
+    }
+
+    /**
+     * Get all the exercises as summaries, without loading their content.
+     *
+     * @param pageable the pagination information.
+     * @return the list of summaries.
+     */
+    @Transactional(readOnly = true)
+    public Page<ExerciseSummary> findAllSummaries(Pageable pageable) {
+        log.debug("Request to get all Exercise summaries");
+        return exerciseRepository.findAllSummaries(pageable);
+    }
+
+    /**
+     * Get all the exercises without a correction as summaries, without loading their content.
+     *
+     * @param pageable the pagination information.
+     * @return the list of summaries.
+     */
+    @Transactional(readOnly = true)
+    public Page<ExerciseSummary> findAllSummariesWhereCorrectionIsNull(Pageable pageable) {
+        log.debug("Request to get all Exercise summaries where Correction is null");
+        return exerciseRepository.findAllSummariesWhereCorrectionIsNull(pageable);
+    }
+
+    /**
+     * Get a slice of the exercises following the given id, in ascending id order.
+     *
+     * @param after the id of the last exercise of the previous slice, or {@code null} to start from the first one.
+     * @param size the maximum number of exercises to return.
+     * @return the slice of entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Exercise> findAllAfter(Long after, int size) {
+        log.debug("Request to get a slice of Exercises after : {}", after);
+        return exerciseRepository.findAllWithToOneRelationshipsAfter(
+            after != null ? after : Long.MIN_VALUE,
+            PageRequest.of(0, size, Sort.by("id"))
+        );
     }
 
     /**
@@ -120,7 +210,26 @@ public class ExerciseService {
     @Transactional(readOnly = true)
     public Optional<Exercise> findOne(Long id) {
         log.debug("Request to get Exercise : {}", id);
-        return exerciseRepository.findOneWithEagerRelationships(id);
+        // A hit of the query cache only holds the id of the course, read from the second-level cache here rather than
+        // once the transaction is over
+        return exerciseRepository
+            .findOneWithEagerRelationships(id)
+            .map(exercise -> {
+                Hibernate.initialize(exercise.getCourse());
+                return exercise;
+            });
+    }
+
+    /**
+     * Get the versions making up the representation of one exercise, without loading its content.
+     *
+     * @param id the id of the entity.
+     * @return the versions, see {@link ResourceVersion}.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ResourceVersion> findResourceVersion(Long id) {
+        log.debug("Request to get the version of Exercise : {}", id);
+        return exerciseRepository.findResourceVersionById(id);
     }
 
     /**
@@ -132,4 +241,25 @@ public class ExerciseService {
         log.debug("Request to delete Exercise : {}", id);
         exerciseRepository.deleteById(id);
     }
+
+    /**
+     * Delete the exercises by id, with a single statement.
+     * <p>
+     * The statement bypasses the persistence context, hence the Hibernate listeners: the in-memory search index only drops the deleted
+     * exercises from its index once a search finds them. Those which have a correction must not be among the ids.
+     *
+     * @param ids the ids of the entities.
+     * @return the ids of the entities that existed and were deleted.
+     */
+    public Set<Long> deleteAll(Collection<Long> ids) {
+        log.debug("Request to delete Exercises : {}", ids);
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> existingIds = exerciseRepository.findExistingIds(ids);
+        if (!existingIds.isEmpty()) {
+            exerciseRepository.deleteAllByIdInBatch(existingIds);
+        }
+        return existingIds;
+    }
 }
@@ -0,0 +1,97 @@
+package com.minesup.ape.service;
+
+import com.minesup.ape.config.Constants;
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.repository.CorrectionRepository;
+import com.minesup.ape.repository.CourseRepository;
+import com.minesup.ape.repository.ExerciseExport;
+import com.minesup.ape.repository.ExerciseRepository;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service Implementation for exporting all the courses, exercises and corrections.
+ * <p>
+ * Each export reads a single forward-only cursor, fetching {@link Constants#EXPORT_FETCH_SIZE} rows per round trip, and
+ * clears the persistence context at the same interval, so that its heap usage does not depend on the number of rows.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+
+    private final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private final CourseRepository courseRepository;
+
+    private final ExerciseRepository exerciseRepository;
+
+    private final CorrectionRepository correctionRepository;
+
+    private final EntityManager entityManager;
+
+    public ExportService(
+        CourseRepository courseRepository,
+        ExerciseRepository exerciseRepository,
+        CorrectionRepository correctionRepository,
+        EntityManager entityManager
+    ) {
+        this.courseRepository = courseRepository;
+        this.exerciseRepository = exerciseRepository;
+        this.correctionRepository = correctionRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Export all the courses, ordered by id.
+     *
+     * @param sink the consumer of the courses, which must not keep them.
+     * @return the number of exported courses.
+     */
+    public long exportCourses(Consumer<Course> sink) {
+        log.debug("Request to export all Courses");
+        return export(courseRepository.streamAll(), sink);
+    }
+
+    /**
+     * Export all the exercises with the id of their correction, ordered by id.
+     *
+     * @param sink the consumer of the exercises, which must not keep them.
+     * @return the number of exported exercises.
+     */
+    public long exportExercises(Consumer<ExerciseExport> sink) {
+        log.debug("Request to export all Exercises");
+        return export(exerciseRepository.streamAll(), sink);
+    }
+
+    /**
+     * Export all the corrections, ordered by id.
+     *
+     * @param sink the consumer of the corrections, which must not keep them.
+     * @return the number of exported corrections.
+     */
+    public long exportCorrections(Consumer<Correction> sink) {
+        log.debug("Request to export all Corrections");
+        return export(correctionRepository.streamAll(), sink);
+    }
+
+    private <T> long export(Stream<T> entities, Consumer<T> sink) {
+        long count = 0;
+        try (entities) {
+            for (T entity : (Iterable<T>) entities::iterator) {
+                sink.accept(entity);
+                if (++count % Constants.EXPORT_FETCH_SIZE == 0) {
+                    // Nothing is modified, so the exported entities can be dropped without flushing
+                    entityManager.clear();
+                }
+            }
+        }
+        log.debug("Exported {} entities", count);
+        return count;
+    }
+}
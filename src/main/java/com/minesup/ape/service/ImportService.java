@@ -0,0 +1,551 @@
+package com.minesup.ape.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.minesup.ape.config.ApplicationProperties;
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.repository.BulkLoadRepository;
+import com.minesup.ape.repository.CourseRepository;
+import com.minesup.ape.repository.CourseSummary;
+import com.minesup.ape.repository.ExerciseRepository;
+import com.minesup.ape.repository.ExerciseSummary;
+import com.minesup.ape.service.dto.CorrectionImportDTO;
+import com.minesup.ape.service.dto.CourseImportDTO;
+import com.minesup.ape.service.dto.ExerciseImportDTO;
+import com.minesup.ape.service.dto.ImportJobDTO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service Implementation for importing files of courses, exercises or corrections.
+ * <p>
+ * The uploaded file is spooled to disk and imported asynchronously on the {@code importTaskExecutor}, within a single
+ * transaction. The records go through a pipeline, {@code application.bulk-import.batch-size} at a time:
+ * <ol>
+ *     <li>parse, streaming the NDJSON or CSV file;</li>
+ *     <li>validate, against the constraints of the import DTOs;</li>
+ *     <li>resolve the {@code course} or {@code exercise} titles the records reference, with one query per batch;</li>
+ *     <li>load, with {@link BulkLoadRepository}.</li>
+ * </ol>
+ * An {@link EntitiesImportedEvent} is published for each loaded batch. The jobs are only known to the instance running
+ * them, and only the last {@link #RETAINED_JOBS} are kept.
+ */
+@Service
+public class ImportService {
+
+    public enum Format {
+        NDJSON,
+        CSV;
+
+        /**
+         * @param name the name of the format, whatever its case.
+         * @return the format, empty if it is not supported.
+         */
+        public static Optional<Format> of(String name) {
+            return Arrays.stream(values()).filter(format -> format.name().equalsIgnoreCase(name)).findFirst();
+        }
+    }
+
+    static final int RETAINED_JOBS = 100;
+
+    private final Logger log = LoggerFactory.getLogger(ImportService.class);
+
+    private final CourseRepository courseRepository;
+
+    private final ExerciseRepository exerciseRepository;
+
+    private final BulkLoadRepository bulkLoadRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskExecutor importTaskExecutor;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final CsvMapper csvMapper = CsvMapper
+        .builder()
+        .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL, CsvParser.Feature.SKIP_EMPTY_LINES)
+        .build();
+
+    private final ApplicationProperties.BulkImport properties;
+
+    private final Map<String, Job> jobs = Collections.synchronizedMap(
+        new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+                return size() > RETAINED_JOBS && eldest.getValue().isFinished();
+            }
+        }
+    );
+
+    public ImportService(
+        CourseRepository courseRepository,
+        ExerciseRepository exerciseRepository,
+        BulkLoadRepository bulkLoadRepository,
+        PlatformTransactionManager transactionManager,
+        @Qualifier("importTaskExecutor") TaskExecutor importTaskExecutor,
+        ApplicationEventPublisher eventPublisher,
+        Validator validator,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.courseRepository = courseRepository;
+        this.exerciseRepository = exerciseRepository;
+        this.bulkLoadRepository = bulkLoadRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importTaskExecutor = importTaskExecutor;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getBulkImport();
+    }
+
+    /**
+     * Start importing a file of courses.
+     *
+     * @param format the format of the file.
+     * @param input the content of the file, read before this method returns.
+     * @return the queued job.
+     * @throws IOException if the file cannot be read or spooled.
+     * @throws TaskRejectedException if too many jobs are already queued.
+     */
+    public ImportJobDTO importCourses(Format format, InputStream input) throws IOException {
+        log.debug("Request to import Courses from {}", format);
+        return submit("course", format, input, job -> run(job, CourseImportDTO.class, this::loadCourses));
+    }
+
+    /**
+     * Start importing a file of exercises, each referencing its course by title.
+     *
+     * @param format the format of the file.
+     * @param input the content of the file, read before this method returns.
+     * @return the queued job.
+     * @throws IOException if the file cannot be read or spooled.
+     * @throws TaskRejectedException if too many jobs are already queued.
+     */
+    public ImportJobDTO importExercises(Format format, InputStream input) throws IOException {
+        log.debug("Request to import Exercises from {}", format);
+        return submit("exercise", format, input, job -> run(job, ExerciseImportDTO.class, this::loadExercises));
+    }
+
+    /**
+     * Start importing a file of corrections, each referencing its exercise by title.
+     *
+     * @param format the format of the file.
+     * @param input the content of the file, read before this method returns.
+     * @return the queued job.
+     * @throws IOException if the file cannot be read or spooled.
+     * @throws TaskRejectedException if too many jobs are already queued.
+     */
+    public ImportJobDTO importCorrections(Format format, InputStream input) throws IOException {
+        log.debug("Request to import Corrections from {}", format);
+        // The resolution query of a batch cannot see that an earlier record of the same batch corrects an exercise
+        Set<Long> correctedExerciseIds = new HashSet<>();
+        return submit(
+            "correction",
+            format,
+            input,
+            job -> run(job, CorrectionImportDTO.class, (j, batch) -> loadCorrections(j, batch, correctedExerciseIds))
+        );
+    }
+
+    /**
+     * Get the retained import jobs, most recent first.
+     *
+     * @return the list of jobs.
+     */
+    public List<ImportJobDTO> findAll() {
+        log.debug("Request to get all import jobs");
+        List<ImportJobDTO> result;
+        synchronized (jobs) {
+            result = jobs.values().stream().map(Job::toDTO).collect(Collectors.toList());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Get one import job by id.
+     *
+     * @param id the id of the job.
+     * @return the job.
+     */
+    public Optional<ImportJobDTO> findOne(String id) {
+        log.debug("Request to get import job : {}", id);
+        return Optional.ofNullable(jobs.get(id)).map(Job::toDTO);
+    }
+
+    private ImportJobDTO submit(String entityName, Format format, InputStream input, Consumer<Job> work)
+        throws IOException {
+        Path file = Files.createTempFile("ape-import-", "." + format.name().toLowerCase());
+        try {
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        Job job = new Job(UUID.randomUUID().toString(), entityName, format, file);
+        jobs.put(job.id, job);
+        try {
+            importTaskExecutor.execute(() -> work.accept(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return job.toDTO();
+    }
+
+    private <R> void run(Job job, Class<R> type, BatchLoader<R> loader) {
+        log.info("Starting import job {} of {} records", job.id, job.entityName);
+        job.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                read(job, type, loader);
+                if (job.hasRejectedRecords()) {
+                    status.setRollbackOnly();
+                }
+            });
+            job.finish();
+        } catch (RuntimeException e) {
+            log.warn("Import job {} failed", job.id, e);
+            job.fail(e instanceof UncheckedIOException ? describe(((UncheckedIOException) e).getCause()) : e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(job.file);
+            } catch (IOException e) {
+                log.warn("Could not delete {}", job.file, e);
+            }
+        }
+        log.info("Finished import job {}: {}", job.id, job.toDTO());
+    }
+
+    /**
+     * The parse and validate stages, handing the valid records over to the loader one batch at a time.
+     */
+    private <R> void read(Job job, Class<R> type, BatchLoader<R> loader) {
+        List<NumberedRecord<R>> batch = new ArrayList<>(properties.getBatchSize());
+        try (MappingIterator<R> records = reader(job.format, type).readValues(job.file.toFile())) {
+            long number = 0;
+            while (records.hasNextValue()) {
+                if (job.rejectedRecordCount() >= properties.getMaxRejectedRecords()) {
+                    job.stop("Stopped after " + properties.getMaxRejectedRecords() + " rejected records");
+                    return;
+                }
+                number++;
+                job.incrementProcessed();
+                R record;
+                try {
+                    record = records.nextValue();
+                } catch (JsonMappingException e) {
+                    // The iterator skips the rest of the record, so the following ones can still be read
+                    job.reject(number, List.of(describe(e)));
+                    continue;
+                }
+                List<String> errors = validator
+                    .validate(record)
+                    .stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.toList());
+                if (!errors.isEmpty()) {
+                    job.reject(number, errors);
+                    continue;
+                }
+                batch.add(new NumberedRecord<>(number, record));
+                if (batch.size() == properties.getBatchSize()) {
+                    loader.load(job, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                loader.load(job, batch);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ObjectReader reader(Format format, Class<?> type) {
+        if (format == Format.CSV) {
+            return csvMapper.readerFor(type).with(CsvSchema.emptySchema().withHeader());
+        }
+        return objectMapper.readerFor(type);
+    }
+
+    private void loadCourses(Job job, List<NumberedRecord<CourseImportDTO>> batch) {
+        if (job.hasRejectedRecords()) {
+            return;
+        }
+        List<Course> courses = batch
+            .stream()
+            .map(record -> new Course().title(record.value.getTitle()).content(record.value.getContent()))
+            .collect(Collectors.toList());
+        bulkLoadRepository.insertCourses(courses);
+        eventPublisher.publishEvent(new EntitiesImportedEvent(Course.class, ids(courses, Course::getId)));
+        job.addImported(courses.size());
+    }
+
+    private void loadExercises(Job job, List<NumberedRecord<ExerciseImportDTO>> batch) {
+        Map<String, List<CourseSummary>> coursesByTitle = courseRepository
+            .findAllSummariesByTitleIn(titles(batch, ExerciseImportDTO::getCourse))
+            .stream()
+            .collect(Collectors.groupingBy(CourseSummary::getTitle));
+        List<Exercise> exercises = new ArrayList<>(batch.size());
+        for (NumberedRecord<ExerciseImportDTO> record : batch) {
+            ExerciseImportDTO exercise = record.value;
+            resolve(job, record.number, "course", exercise.getCourse(), coursesByTitle)
+                .ifPresent(course ->
+                    exercises.add(
+                        new Exercise()
+                            .title(exercise.getTitle())
+                            .content(exercise.getContent())
+                            .mark(exercise.getMark())
+                            .course(new Course().id(course.getId()))
+                    )
+                );
+        }
+        if (job.hasRejectedRecords()) {
+            return;
+        }
+        bulkLoadRepository.insertExercises(exercises);
+        eventPublisher.publishEvent(new EntitiesImportedEvent(Exercise.class, ids(exercises, Exercise::getId)));
+        job.addImported(exercises.size());
+    }
+
+    private void loadCorrections(Job job, List<NumberedRecord<CorrectionImportDTO>> batch, Set<Long> correctedExerciseIds) {
+        Map<String, List<ExerciseSummary>> exercisesByTitle = exerciseRepository
+            .findAllSummariesByTitleIn(titles(batch, CorrectionImportDTO::getExercise))
+            .stream()
+            .collect(Collectors.groupingBy(ExerciseSummary::getTitle));
+        List<Correction> corrections = new ArrayList<>(batch.size());
+        for (NumberedRecord<CorrectionImportDTO> record : batch) {
+            CorrectionImportDTO correction = record.value;
+            resolve(job, record.number, "exercise", correction.getExercise(), exercisesByTitle)
+                .ifPresent(exercise -> {
+                    if (exercise.getCorrection() != null || !correctedExerciseIds.add(exercise.getId())) {
+                        job.reject(record.number, List.of("exercise: '" + exercise.getTitle() + "' already has a correction"));
+                        return;
+                    }
+                    corrections.add(new Correction().content(correction.getContent()).exercise(new Exercise().id(exercise.getId())));
+                });
+        }
+        if (job.hasRejectedRecords()) {
+            return;
+        }
+        bulkLoadRepository.insertCorrections(corrections);
+        eventPublisher.publishEvent(new EntitiesImportedEvent(Correction.class, ids(corrections, Correction::getId)));
+        job.addImported(corrections.size());
+    }
+
+    private static <E> List<Long> ids(List<E> entities, Function<E, Long> id) {
+        return entities.stream().map(id).collect(Collectors.toList());
+    }
+
+    private static <R> Set<String> titles(List<NumberedRecord<R>> batch, Function<R, String> reference) {
+        return batch.stream().map(record -> reference.apply(record.value)).collect(Collectors.toSet());
+    }
+
+    /**
+     * The resolve stage of one record: its reference must match exactly one entity.
+     */
+    private static <S> Optional<S> resolve(Job job, long number, String field, String title, Map<String, List<S>> candidatesByTitle) {
+        List<S> candidates = candidatesByTitle.getOrDefault(title, List.of());
+        if (candidates.size() == 1) {
+            return Optional.of(candidates.get(0));
+        }
+        job.reject(
+            number,
+            List.of(
+                candidates.isEmpty()
+                    ? field + ": no " + field + " is titled '" + title + "'"
+                    : field + ": " + candidates.size() + " " + field + "s are titled '" + title + "'"
+            )
+        );
+        return Optional.empty();
+    }
+
+    private static String describe(IOException e) {
+        if (e instanceof JsonMappingException) {
+            String path = ((JsonMappingException) e).getPath()
+                .stream()
+                .map(JsonMappingException.Reference::getFieldName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining("."));
+            return (path.isEmpty() ? "" : path + ": ") + ((JsonMappingException) e).getOriginalMessage();
+        }
+        if (e instanceof JsonProcessingException && ((JsonProcessingException) e).getLocation() != null) {
+            return (
+                "Malformed file at line " +
+                ((JsonProcessingException) e).getLocation().getLineNr() +
+                ": " +
+                ((JsonProcessingException) e).getOriginalMessage()
+            );
+        }
+        return "Could not read the file: " + e.getMessage();
+    }
+
+    @FunctionalInterface
+    private interface BatchLoader<R> {
+        /**
+         * The resolve and load stages of a batch of valid records, nothing being loaded once a record has been rejected.
+         */
+        void load(Job job, List<NumberedRecord<R>> batch);
+    }
+
+    private static final class NumberedRecord<R> {
+
+        private final long number;
+
+        private final R value;
+
+        private NumberedRecord(long number, R value) {
+            this.number = number;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The state of a job, written by the thread running it and read by the requests polling it.
+     */
+    private static final class Job {
+
+        private final String id;
+
+        private final String entityName;
+
+        private final Format format;
+
+        private final Path file;
+
+        private final Instant createdDate = Instant.now();
+
+        private ImportJobDTO.Status status = ImportJobDTO.Status.QUEUED;
+
+        private long processed;
+
+        private long imported;
+
+        private final List<ImportJobDTO.RejectedRecord> rejectedRecords = new ArrayList<>();
+
+        private String message;
+
+        private Instant startedDate;
+
+        private Instant finishedDate;
+
+        private Job(String id, String entityName, Format format, Path file) {
+            this.id = id;
+            this.entityName = entityName;
+            this.format = format;
+            this.file = file;
+        }
+
+        synchronized void start() {
+            status = ImportJobDTO.Status.RUNNING;
+            startedDate = Instant.now();
+        }
+
+        synchronized void incrementProcessed() {
+            processed++;
+        }
+
+        synchronized void addImported(int count) {
+            imported += count;
+        }
+
+        synchronized void reject(long record, List<String> errors) {
+            rejectedRecords.add(new ImportJobDTO.RejectedRecord(record, errors));
+        }
+
+        synchronized int rejectedRecordCount() {
+            return rejectedRecords.size();
+        }
+
+        synchronized boolean hasRejectedRecords() {
+            return !rejectedRecords.isEmpty();
+        }
+
+        synchronized void stop(String message) {
+            this.message = message;
+        }
+
+        synchronized void finish() {
+            if (rejectedRecords.isEmpty()) {
+                status = ImportJobDTO.Status.COMPLETED;
+                finishedDate = Instant.now();
+            } else {
+                fail(message != null ? message : rejectedRecords.size() + " rejected records, nothing was imported");
+            }
+        }
+
+        synchronized void fail(String message) {
+            this.message = message;
+            // Rolled back
+            imported = 0;
+            status = ImportJobDTO.Status.FAILED;
+            finishedDate = Instant.now();
+        }
+
+        synchronized boolean isFinished() {
+            return finishedDate != null;
+        }
+
+        synchronized ImportJobDTO toDTO() {
+            return new ImportJobDTO(
+                id,
+                entityName,
+                format.name().toLowerCase(),
+                status,
+                processed,
+                imported,
+                List.copyOf(rejectedRecords),
+                message,
+                createdDate,
+                startedDate,
+                finishedDate
+            );
+        }
+    }
+}
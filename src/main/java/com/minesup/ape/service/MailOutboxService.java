@@ -0,0 +1,316 @@
+package com.minesup.ape.service;
+
+import com.minesup.ape.config.ApplicationProperties;
+import com.minesup.ape.domain.OutboxMail;
+import com.minesup.ape.domain.User;
+import com.minesup.ape.management.MailMetersService;
+import com.minesup.ape.repository.OutboxMailRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service for sending the account emails through a database outbox.
+ * <p>
+ * The emails are rendered and written to the outbox in the transaction of the change requiring them, so that they are sent
+ * if and only if it commits. Once committed they are dispatched on the {@code mailTaskExecutor}, a batch at a time:
+ * <ol>
+ *     <li>claim, locking up to {@code application.mail-outbox.batch-size} due emails and postponing them by the claim
+ *     timeout, in case this instance stops before sending them;</li>
+ *     <li>send, through one connection to the mail server;</li>
+ *     <li>complete, deleting the sent emails and postponing the failed ones with an exponential backoff, until they are
+ *     abandoned after {@code application.mail-outbox.max-attempts} attempts.</li>
+ * </ol>
+ * The outbox is also checked every {@code application.mail-outbox.poll-interval}, for the emails to retry.
+ */
+@Service
+public class MailOutboxService {
+
+    private final Logger log = LoggerFactory.getLogger(MailOutboxService.class);
+
+    private final OutboxMailRepository outboxMailRepository;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final JavaMailSender javaMailSender;
+
+    private final MailTemplateRenderer mailTemplateRenderer;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskExecutor mailTaskExecutor;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final MailMetersService mailMetersService;
+
+    private final ApplicationProperties.MailOutbox properties;
+
+    private final AtomicBoolean dispatchQueued = new AtomicBoolean();
+
+    public MailOutboxService(
+        OutboxMailRepository outboxMailRepository,
+        JHipsterProperties jHipsterProperties,
+        JavaMailSender javaMailSender,
+        MailTemplateRenderer mailTemplateRenderer,
+        PlatformTransactionManager transactionManager,
+        @Qualifier("mailTaskExecutor") TaskExecutor mailTaskExecutor,
+        ApplicationEventPublisher eventPublisher,
+        MailMetersService mailMetersService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.jHipsterProperties = jHipsterProperties;
+        this.javaMailSender = javaMailSender;
+        this.mailTemplateRenderer = mailTemplateRenderer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mailTaskExecutor = mailTaskExecutor;
+        this.eventPublisher = eventPublisher;
+        this.mailMetersService = mailMetersService;
+        this.properties = applicationProperties.getMailOutbox();
+    }
+
+    @Transactional
+    public void queueActivationEmail(User user) {
+        log.debug("Queueing activation email to '{}'", user.getEmail());
+        queueEmailFromTemplate(user, "mail/activationEmail", "email.activation.title");
+    }
+
+    @Transactional
+    public void queueCreationEmail(User user) {
+        log.debug("Queueing creation email to '{}'", user.getEmail());
+        queueEmailFromTemplate(user, "mail/creationEmail", "email.activation.title");
+    }
+
+    /**
+     * Queue the creation emails of users created in bulk, inserted with JDBC batches.
+     *
+     * @param users the created users.
+     */
+    @Transactional
+    public void queueCreationEmails(Collection<User> users) {
+        log.debug("Queueing creation emails to {} users", users.size());
+        Instant now = Instant.now();
+        List<OutboxMail> mails = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (user.getEmail() == null) {
+                log.debug("Email doesn't exist for user '{}'", user.getLogin());
+            } else {
+                mails.add(newMail(user, "mail/creationEmail", "email.activation.title", now));
+            }
+        }
+        if (!mails.isEmpty()) {
+            outboxMailRepository.saveAll(mails);
+            eventPublisher.publishEvent(new MailQueuedEvent(mails));
+        }
+    }
+
+    @Transactional
+    public void queuePasswordResetMail(User user) {
+        log.debug("Queueing password reset email to '{}'", user.getEmail());
+        queueEmailFromTemplate(user, "mail/passwordResetEmail", "email.reset.title");
+    }
+
+    private void queueEmailFromTemplate(User user, String templateName, String titleKey) {
+        if (user.getEmail() == null) {
+            log.debug("Email doesn't exist for user '{}'", user.getLogin());
+            return;
+        }
+        OutboxMail mail = outboxMailRepository.save(newMail(user, templateName, titleKey, Instant.now()));
+        eventPublisher.publishEvent(new MailQueuedEvent(List.of(mail)));
+    }
+
+    private OutboxMail newMail(User user, String templateName, String titleKey, Instant now) {
+        OutboxMail mail = new OutboxMail();
+        mail.setRecipient(user.getEmail());
+        mail.setSubject(mailTemplateRenderer.renderSubject(titleKey, user));
+        mail.setContent(mailTemplateRenderer.renderContent(templateName, user));
+        mail.setHtml(true);
+        mail.setCreatedDate(now);
+        mail.setNextAttemptDate(now);
+        return mail;
+    }
+
+    @TransactionalEventListener
+    public void onMailQueued(MailQueuedEvent event) {
+        dispatchSoon();
+    }
+
+    @Scheduled(
+        initialDelayString = "${application.mail-outbox.poll-interval:PT30S}",
+        fixedDelayString = "${application.mail-outbox.poll-interval:PT30S}"
+    )
+    public void poll() {
+        dispatchSoon();
+    }
+
+    /**
+     * Dispatch the due emails on the {@code mailTaskExecutor}, unless a dispatch is already waiting to start.
+     */
+    public void dispatchSoon() {
+        if (!dispatchQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            mailTaskExecutor.execute(() -> {
+                dispatchQueued.set(false);
+                try {
+                    dispatch();
+                } catch (RuntimeException e) {
+                    log.warn("Could not dispatch the mail outbox", e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            dispatchQueued.set(false);
+            log.warn("Could not start dispatching the mail outbox", e);
+        }
+    }
+
+    /**
+     * Send the due emails, a batch at a time, until none is left.
+     *
+     * @return the number of emails sent.
+     */
+    public int dispatch() {
+        int sent = 0;
+        List<OutboxMail> batch;
+        do {
+            batch = claim();
+            sent += send(batch);
+        } while (batch.size() == properties.getBatchSize());
+        return sent;
+    }
+
+    private List<OutboxMail> claim() {
+        Instant now = Instant.now();
+        return transactionTemplate.execute(status -> {
+            List<OutboxMail> mails = outboxMailRepository.findAllDueForUpdate(now, PageRequest.of(0, properties.getBatchSize()));
+            for (OutboxMail mail : mails) {
+                mail.setAttempts(mail.getAttempts() + 1);
+                mail.setNextAttemptDate(now.plus(properties.getClaimTimeout()));
+            }
+            return mails;
+        });
+    }
+
+    private int send(List<OutboxMail> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<OutboxMail> failed = new ArrayList<>();
+        Map<MimeMessage, OutboxMail> messages = new LinkedHashMap<>();
+        for (OutboxMail mail : batch) {
+            try {
+                messages.put(createMimeMessage(mail), mail);
+            } catch (MessagingException e) {
+                // Retrying would not make the message valid
+                fail(mail, e, false);
+                failed.add(mail);
+            }
+        }
+
+        Map<Object, Exception> failedMessages = mailMetersService.recordBatch(() -> send(messages.keySet()));
+
+        Instant now = Instant.now();
+        List<Long> sentIds = new ArrayList<>();
+        messages.forEach((message, mail) -> {
+            Exception error = failedMessages.get(message);
+            if (error == null) {
+                sentIds.add(mail.getId());
+                mailMetersService.trackSent(Duration.between(mail.getCreatedDate(), now));
+            } else {
+                fail(mail, error, true);
+                failed.add(mail);
+            }
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                outboxMailRepository.deleteAllByIdInBatch(sentIds);
+            }
+            outboxMailRepository.saveAll(failed);
+        });
+        log.debug("Sent {} of {} emails from the outbox", sentIds.size(), batch.size());
+        return sentIds.size();
+    }
+
+    private MimeMessage createMimeMessage(OutboxMail mail) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper message = new MimeMessageHelper(mimeMessage, false, StandardCharsets.UTF_8.name());
+        message.setTo(mail.getRecipient());
+        message.setFrom(jHipsterProperties.getMail().getFrom());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getContent(), mail.isHtml());
+        return mimeMessage;
+    }
+
+    private Map<Object, Exception> send(Collection<MimeMessage> messages) {
+        if (messages.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            javaMailSender.send(messages.toArray(new MimeMessage[0]));
+            return Map.of();
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                // The messages were sent, but the connection could not be closed
+                log.warn("Could not close the connection to the mail server", e);
+            }
+            return e.getFailedMessages();
+        } catch (MailException e) {
+            Map<Object, Exception> failedMessages = new HashMap<>();
+            messages.forEach(message -> failedMessages.put(message, e));
+            return failedMessages;
+        }
+    }
+
+    private void fail(OutboxMail mail, Exception error, boolean retry) {
+        mail.setLastError(StringUtils.abbreviate(String.valueOf(error.getMessage()), 255));
+        if (retry && mail.getAttempts() < properties.getMaxAttempts()) {
+            Duration backoff = properties.getInitialBackoff().multipliedBy(1L << Math.min(mail.getAttempts() - 1, 20));
+            if (backoff.compareTo(properties.getMaxBackoff()) > 0) {
+                backoff = properties.getMaxBackoff();
+            }
+            mail.setNextAttemptDate(Instant.now().plus(backoff));
+            mailMetersService.trackRetried();
+            log.warn(
+                "Email {} to '{}' could not be sent, retrying in {}: {}",
+                mail.getId(),
+                mail.getRecipient(),
+                backoff,
+                error.getMessage()
+            );
+        } else {
+            mail.setNextAttemptDate(null);
+            mailMetersService.trackAbandoned();
+            log.error("Email {} to '{}' abandoned after {} attempts", mail.getId(), mail.getRecipient(), mail.getAttempts(), error);
+        }
+    }
+}
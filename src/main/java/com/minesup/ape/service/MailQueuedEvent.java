@@ -0,0 +1,30 @@
+package com.minesup.ape.service;
+
+import com.minesup.ape.domain.OutboxMail;
+import java.util.List;
+
+/**
+ * Published by the {@link MailOutboxService} for the emails it writes to the outbox at once, within the transaction writing them.
+ * <p>
+ * Listeners should wait for the commit, as the emails may still be rolled back.
+ */
+public class MailQueuedEvent {
+
+    private final List<OutboxMail> mails;
+
+    public MailQueuedEvent(List<OutboxMail> mails) {
+        this.mails = mails;
+    }
+
+    public List<OutboxMail> getMails() {
+        return mails;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "MailQueuedEvent{" +
+            "mails=" + getMails().size() +
+            "}";
+    }
+}
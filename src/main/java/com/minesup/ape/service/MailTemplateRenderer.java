@@ -0,0 +1,236 @@
+package com.minesup.ape.service;
+
+import com.minesup.ape.config.Constants;
+import com.minesup.ape.domain.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service rendering the emails of the users, with their templates compiled once per language.
+ * <p>
+ * A template is compiled by rendering it with Thymeleaf for a stand-in user, whose fields are markers, and splitting the
+ * output around the markers. Rendering it for a user then only appends the fixed fragments and the escaped fields of the
+ * user to a single buffer. The templates may only use the {@code login}, {@code activationKey} and {@code resetKey} of the
+ * user; a user missing one of the fields its template uses is rendered by Thymeleaf. The subjects are resolved once per
+ * language too.
+ * <p>
+ * Nothing is kept when {@code spring.thymeleaf.cache} is disabled, so that edited templates and messages show up at once.
+ */
+@Service
+public class MailTemplateRenderer {
+
+    private final Logger log = LoggerFactory.getLogger(MailTemplateRenderer.class);
+
+    private static final String USER = "user";
+
+    private static final String BASE_URL = "baseUrl";
+
+    /**
+     * The fields of the user the templates may use.
+     */
+    enum Field {
+        LOGIN(User::getLogin, User::setLogin),
+        ACTIVATION_KEY(User::getActivationKey, User::setActivationKey),
+        RESET_KEY(User::getResetKey, User::setResetKey);
+
+        private final Function<User, String> getter;
+
+        private final BiConsumer<User, String> setter;
+
+        /**
+         * Left untouched by the escaping and the link building of Thymeleaf, and by {@link User#setLogin} which lowercases.
+         */
+        private final String marker = "zzapemailfield" + ordinal() + "zz";
+
+        Field(Function<User, String> getter, BiConsumer<User, String> setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * A template rendered for one language, as fixed fragments around the fields of the user.
+     */
+    static final class CompiledTemplate {
+
+        private final String[] fragments;
+
+        private final Field[] fields;
+
+        private final int fixedLength;
+
+        CompiledTemplate(String[] fragments, Field[] fields) {
+            this.fragments = fragments;
+            this.fields = fields;
+            int length = 0;
+            for (String fragment : fragments) {
+                length += fragment.length();
+            }
+            this.fixedLength = length;
+        }
+
+        /**
+         * @return the rendered template, {@code null} if the user misses one of the fields.
+         */
+        String render(User user) {
+            int length = fixedLength;
+            for (Field field : fields) {
+                String value = field.getter.apply(user);
+                if (value == null) {
+                    return null;
+                }
+                length += value.length();
+            }
+            // Room for a few escaped characters
+            StringBuilder content = new StringBuilder(length + 16);
+            content.append(fragments[0]);
+            for (int i = 0; i < fields.length; i++) {
+                appendEscaped(content, fields[i].getter.apply(user));
+                content.append(fragments[i + 1]);
+            }
+            return content.toString();
+        }
+    }
+
+    private final SpringTemplateEngine templateEngine;
+
+    private final MessageSource messageSource;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final boolean cache;
+
+    private final Map<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
+
+    private final Map<String, String> subjects = new ConcurrentHashMap<>();
+
+    public MailTemplateRenderer(
+        SpringTemplateEngine templateEngine,
+        MessageSource messageSource,
+        JHipsterProperties jHipsterProperties,
+        ThymeleafProperties thymeleafProperties
+    ) {
+        this.templateEngine = templateEngine;
+        this.messageSource = messageSource;
+        this.jHipsterProperties = jHipsterProperties;
+        this.cache = thymeleafProperties.isCache();
+    }
+
+    /**
+     * Resolve the subject of an email in the language of the user.
+     *
+     * @param titleKey the message key of the subject.
+     * @param user the recipient.
+     * @return the subject.
+     */
+    public String renderSubject(String titleKey, User user) {
+        Locale locale = locale(user);
+        if (!cache) {
+            return messageSource.getMessage(titleKey, null, locale);
+        }
+        return subjects.computeIfAbsent(
+            titleKey + ':' + locale.toLanguageTag(),
+            key -> messageSource.getMessage(titleKey, null, locale)
+        );
+    }
+
+    /**
+     * Render the content of an email in the language of the user.
+     *
+     * @param templateName the name of the template.
+     * @param user the recipient.
+     * @return the content.
+     */
+    public String renderContent(String templateName, User user) {
+        Locale locale = locale(user);
+        CompiledTemplate template = cache
+            ? templates.computeIfAbsent(templateName + ':' + locale.toLanguageTag(), key -> compile(templateName, locale))
+            : compile(templateName, locale);
+        String content = template.render(user);
+        return content != null ? content : process(templateName, locale, user);
+    }
+
+    private CompiledTemplate compile(String templateName, Locale locale) {
+        log.debug("Compiling mail template {} for {}", templateName, locale);
+        User standIn = new User();
+        for (Field field : Field.values()) {
+            field.setter.accept(standIn, field.marker);
+        }
+        String output = process(templateName, locale, standIn);
+
+        List<String> fragments = new ArrayList<>();
+        List<Field> fields = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            Field next = null;
+            int nextIndex = -1;
+            for (Field field : Field.values()) {
+                int index = output.indexOf(field.marker, start);
+                if (index >= 0 && (nextIndex < 0 || index < nextIndex)) {
+                    next = field;
+                    nextIndex = index;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            fragments.add(output.substring(start, nextIndex));
+            fields.add(next);
+            start = nextIndex + next.marker.length();
+        }
+        fragments.add(output.substring(start));
+        return new CompiledTemplate(fragments.toArray(new String[0]), fields.toArray(new Field[0]));
+    }
+
+    private String process(String templateName, Locale locale, User user) {
+        Context context = new Context(locale);
+        context.setVariable(USER, user);
+        context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
+        return templateEngine.process(templateName, context);
+    }
+
+    private static Locale locale(User user) {
+        return Locale.forLanguageTag(user.getLangKey() != null ? user.getLangKey() : Constants.DEFAULT_LANGUAGE);
+    }
+
+    /**
+     * Escape as Thymeleaf does for the HTML templates, both in texts and in attributes.
+     */
+    static void appendEscaped(StringBuilder content, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    content.append("&amp;");
+                    break;
+                case '<':
+                    content.append("&lt;");
+                    break;
+                case '>':
+                    content.append("&gt;");
+                    break;
+                case '"':
+                    content.append("&quot;");
+                    break;
+                case '\'':
+                    content.append("&#39;");
+                    break;
+                default:
+                    content.append(c);
+            }
+        }
+    }
+}
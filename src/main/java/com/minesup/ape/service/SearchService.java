@@ -0,0 +1,39 @@
+package com.minesup.ape.service;
+
+import com.minesup.ape.repository.SearchHit;
+import com.minesup.ape.service.search.SearchEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service Implementation for searching the courses and exercises, with the {@link SearchEngine} selected by the
+ * {@code application.search.engine} property.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SearchService {
+
+    private final Logger log = LoggerFactory.getLogger(SearchService.class);
+
+    private final SearchEngine searchEngine;
+
+    public SearchService(SearchEngine searchEngine) {
+        this.searchEngine = searchEngine;
+    }
+
+    /**
+     * Search the courses and exercises matching the query, the most relevant first.
+     *
+     * @param query the query.
+     * @param pageable the pagination information.
+     * @return the slice of hits.
+     */
+    public Slice<SearchHit> search(String query, Pageable pageable) {
+        log.debug("Request to search for : {}", query);
+        return searchEngine.search(query, pageable);
+    }
+}
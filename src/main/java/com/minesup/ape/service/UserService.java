@@ -1,35 +1,61 @@
 package com.minesup.ape.service;
 
+import com.minesup.ape.config.ApplicationProperties;
 import com.minesup.ape.config.Constants;
 import com.minesup.ape.domain.Authority;
 import com.minesup.ape.domain.User;
+import com.minesup.ape.management.UserCleanupMetersService;
 import com.minesup.ape.repository.AuthorityRepository;
+import com.minesup.ape.repository.BulkLoadRepository;
+import com.minesup.ape.repository.UserCacheResolver;
+import com.minesup.ape.repository.UserIdentity;
 import com.minesup.ape.repository.UserRepository;
 import com.minesup.ape.security.AuthoritiesConstants;
 import com.minesup.ape.security.SecurityUtils;
 import com.minesup.ape.service.dto.AdminUserDTO;
 import com.minesup.ape.service.dto.UserDTO;
+import com.minesup.ape.service.dto.UserProvisioningDTO;
+import com.minesup.ape.service.scheduling.JobLockService;
+import com.minesup.ape.service.scheduling.SchedulerLock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import javax.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import tech.jhipster.security.RandomUtil;
 
 /**
  * Service class for managing users.
+ * <p>
+ * Every change to a user evicts it from the {@link UserRepository#USERS_BY_LOGIN_CACHE} and
+ * {@link UserRepository#USERS_BY_EMAIL_CACHE} caches.
  */
 @Service
 @Transactional
 public class UserService {
 
+    /**
+     * The name of the lease of {@link #removeNotActivatedUsers()}.
+     */
+    static final String REMOVE_NOT_ACTIVATED_USERS_JOB = "removeNotActivatedUsers";
+
     private final Logger log = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
@@ -38,10 +64,53 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository) {
+    private final UserCacheResolver userCacheResolver;
+
+    private final BulkLoadRepository bulkLoadRepository;
+
+    private final ForkJoinPool passwordHashingPool;
+
+    private final Validator validator;
+
+    private final ApplicationProperties.UserProvisioning provisioningProperties;
+
+    private final MailOutboxService mailOutboxService;
+
+    private final ApplicationProperties.UserCleanup cleanupProperties;
+
+    private final JobLockService jobLockService;
+
+    private final UserCleanupMetersService userCleanupMetersService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public UserService(
+        UserRepository userRepository,
+        PasswordEncoder passwordEncoder,
+        AuthorityRepository authorityRepository,
+        UserCacheResolver userCacheResolver,
+        BulkLoadRepository bulkLoadRepository,
+        @Qualifier("passwordHashingPool") ForkJoinPool passwordHashingPool,
+        Validator validator,
+        ApplicationProperties applicationProperties,
+        MailOutboxService mailOutboxService,
+        JobLockService jobLockService,
+        UserCleanupMetersService userCleanupMetersService,
+        PlatformTransactionManager transactionManager
+    ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
+        this.userCacheResolver = userCacheResolver;
+        this.bulkLoadRepository = bulkLoadRepository;
+        this.passwordHashingPool = passwordHashingPool;
+        this.validator = validator;
+        this.provisioningProperties = applicationProperties.getUserProvisioning();
+        this.mailOutboxService = mailOutboxService;
+        this.cleanupProperties = applicationProperties.getUserCleanup();
+        this.jobLockService = jobLockService;
+        this.userCleanupMetersService = userCleanupMetersService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -49,6 +118,7 @@ public class UserService {
         return userRepository
             .findOneByActivationKey(key)
             .map(user -> {
+                this.clearUserCaches(user);
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
@@ -63,6 +133,7 @@ public class UserService {
             .findOneByResetKey(key)
             .filter(user -> user.getResetDate().isAfter(Instant.now().minus(1, ChronoUnit.DAYS)))
             .map(user -> {
+                this.clearUserCaches(user);
                 user.setPassword(passwordEncoder.encode(newPassword));
                 user.setResetKey(null);
                 user.setResetDate(null);
@@ -75,8 +146,10 @@ public class UserService {
             .findOneByEmailIgnoreCase(mail)
             .filter(User::isActivated)
             .map(user -> {
+                this.clearUserCaches(user);
                 user.setResetKey(RandomUtil.generateResetKey());
                 user.setResetDate(Instant.now());
+                mailOutboxService.queuePasswordResetMail(user);
                 return user;
             });
     }
@@ -118,6 +191,8 @@ public class UserService {
         authorityRepository.findById(AuthoritiesConstants.STUDENT).ifPresent(authorities::add);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
+        this.clearUserCaches(newUser);
+        mailOutboxService.queueActivationEmail(newUser);
         log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
@@ -128,6 +203,7 @@ public class UserService {
         }
         userRepository.delete(existingUser);
         userRepository.flush();
+        this.clearUserCaches(existingUser);
         return true;
     }
 
@@ -161,10 +237,132 @@ public class UserService {
             user.setAuthorities(authorities);
         }
         userRepository.save(user);
+        this.clearUserCaches(user);
+        mailOutboxService.queueCreationEmail(user);
         log.debug("Created Information for User: {}", user);
         return user;
     }
 
+    /**
+     * Create users in bulk, as {@link #createUser(AdminUserDTO)} would one at a time, except that they must have an email.
+     * <p>
+     * The users are handled {@code application.user-provisioning.batch-size} at a time: the logins and emails of a batch are
+     * checked with one query, the passwords hashed in parallel on the {@code passwordHashingPool}, and the users inserted
+     * with {@link BulkLoadRepository}, their creation mails written to the outbox in the same transaction.
+     *
+     * @param userDTOs the users to create.
+     * @return the logins of the created users, and the rejected ones.
+     */
+    public UserProvisioningDTO createUsers(List<AdminUserDTO> userDTOs) {
+        Map<String, Authority> authorities = authorityRepository
+            .findAll()
+            .stream()
+            .collect(Collectors.toMap(Authority::getName, Function.identity()));
+        String createdBy = SecurityUtils.getCurrentUserLogin().orElse(Constants.SYSTEM);
+        Instant now = Instant.now();
+        Set<String> requestedLogins = new HashSet<>();
+        Set<String> requestedEmails = new HashSet<>();
+        List<String> createdLogins = new ArrayList<>();
+        List<UserProvisioningDTO.RejectedUser> rejectedUsers = new ArrayList<>();
+        Map<Integer, User> batch = new LinkedHashMap<>();
+        for (int index = 0; index < userDTOs.size(); index++) {
+            AdminUserDTO userDTO = userDTOs.get(index);
+            List<String> errors = validator
+                .validate(userDTO)
+                .stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toList());
+            if (userDTO.getId() != null) {
+                errors.add("id: a new user cannot already have an id");
+            }
+            if (userDTO.getEmail() == null) {
+                errors.add("email: must not be null");
+            }
+            if (errors.isEmpty() && !requestedLogins.add(userDTO.getLogin().toLowerCase())) {
+                errors.add("login: '" + userDTO.getLogin() + "' is requested more than once");
+            }
+            if (errors.isEmpty() && !requestedEmails.add(userDTO.getEmail().toLowerCase())) {
+                errors.add("email: '" + userDTO.getEmail() + "' is requested more than once");
+            }
+            if (!errors.isEmpty()) {
+                rejectedUsers.add(new UserProvisioningDTO.RejectedUser(index, userDTO.getLogin(), errors));
+                continue;
+            }
+            batch.put(index, newUser(userDTO, authorities, createdBy, now));
+            if (batch.size() == provisioningProperties.getBatchSize()) {
+                createBatch(batch, createdLogins, rejectedUsers);
+                batch.clear();
+            }
+        }
+        createBatch(batch, createdLogins, rejectedUsers);
+        rejectedUsers.sort(Comparator.comparingInt(UserProvisioningDTO.RejectedUser::getIndex));
+        log.debug("Created {} users, rejected {}", createdLogins.size(), rejectedUsers.size());
+        return new UserProvisioningDTO(createdLogins, rejectedUsers);
+    }
+
+    private User newUser(AdminUserDTO userDTO, Map<String, Authority> authorities, String createdBy, Instant now) {
+        User user = new User();
+        user.setLogin(userDTO.getLogin().toLowerCase());
+        user.setFirstName(userDTO.getFirstName());
+        user.setLastName(userDTO.getLastName());
+        user.setEmail(userDTO.getEmail().toLowerCase());
+        user.setImageUrl(userDTO.getImageUrl());
+        user.setLangKey(userDTO.getLangKey() == null ? Constants.DEFAULT_LANGUAGE : userDTO.getLangKey());
+        user.setResetKey(RandomUtil.generateResetKey());
+        user.setResetDate(now);
+        user.setActivated(true);
+        if (userDTO.getAuthorities() != null) {
+            user.setAuthorities(
+                userDTO.getAuthorities().stream().map(authorities::get).filter(Objects::nonNull).collect(Collectors.toSet())
+            );
+        }
+        user.setCreatedBy(createdBy);
+        user.setCreatedDate(now);
+        user.setLastModifiedBy(createdBy);
+        user.setLastModifiedDate(now);
+        return user;
+    }
+
+    private void createBatch(Map<Integer, User> batch, List<String> createdLogins, List<UserProvisioningDTO.RejectedUser> rejectedUsers) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<UserIdentity> existingUsers = userRepository.findAllIdentitiesByLoginInOrEmailIn(
+            batch.values().stream().map(User::getLogin).collect(Collectors.toList()),
+            batch.values().stream().map(User::getEmail).collect(Collectors.toList())
+        );
+        Set<String> usedLogins = existingUsers.stream().map(UserIdentity::getLogin).collect(Collectors.toSet());
+        Set<String> usedEmails = existingUsers
+            .stream()
+            .map(UserIdentity::getEmail)
+            .filter(Objects::nonNull)
+            .map(String::toLowerCase)
+            .collect(Collectors.toSet());
+        List<User> users = new ArrayList<>(batch.size());
+        batch.forEach((index, user) -> {
+            List<String> errors = new ArrayList<>();
+            if (usedLogins.contains(user.getLogin())) {
+                errors.add("login: '" + user.getLogin() + "' is already used");
+            }
+            if (usedEmails.contains(user.getEmail())) {
+                errors.add("email: '" + user.getEmail() + "' is already used");
+            }
+            if (errors.isEmpty()) {
+                users.add(user);
+            } else {
+                rejectedUsers.add(new UserProvisioningDTO.RejectedUser(index, user.getLogin(), errors));
+            }
+        });
+        // BCrypt is deliberately slow, a parallel stream run from the pool only uses the threads of the pool
+        passwordHashingPool
+            .submit(() -> users.parallelStream().forEach(user -> user.setPassword(passwordEncoder.encode(RandomUtil.generatePassword()))))
+            .join();
+        bulkLoadRepository.insertUsers(users);
+        users.forEach(user -> createdLogins.add(user.getLogin()));
+        mailOutboxService.queueCreationEmails(users);
+    }
+
     /**
      * Update all information for a specific user, and return the modified user.
      *
@@ -177,6 +375,7 @@ public class UserService {
             .filter(Optional::isPresent)
             .map(Optional::get)
             .map(user -> {
+                this.clearUserCaches(user);
                 user.setLogin(userDTO.getLogin().toLowerCase());
                 user.setFirstName(userDTO.getFirstName());
                 user.setLastName(userDTO.getLastName());
@@ -206,6 +405,7 @@ public class UserService {
             .findOneByLogin(login)
             .ifPresent(user -> {
                 userRepository.delete(user);
+                this.clearUserCaches(user);
                 log.debug("Deleted User: {}", user);
             });
     }
@@ -224,6 +424,7 @@ public class UserService {
             .getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
             .ifPresent(user -> {
+                this.clearUserCaches(user);
                 user.setFirstName(firstName);
                 user.setLastName(lastName);
                 if (email != null) {
@@ -247,6 +448,7 @@ public class UserService {
                 }
                 String encryptedPassword = passwordEncoder.encode(newPassword);
                 user.setPassword(encryptedPassword);
+                this.clearUserCaches(user);
                 log.debug("Changed password for User: {}", user);
             });
     }
@@ -256,6 +458,13 @@ public class UserService {
         return userRepository.findAll(pageable).map(AdminUserDTO::new);
     }
 
+    @Transactional(readOnly = true)
+    public Slice<AdminUserDTO> getAllManagedUsersAfter(Long after, int size) {
+        return userRepository
+            .findAllByIdGreaterThan(after != null ? after : Long.MIN_VALUE, PageRequest.of(0, size, Sort.by("id")))
+            .map(AdminUserDTO::new);
+    }
+
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllPublicUsers(Pageable pageable) {
         return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
@@ -274,16 +483,52 @@ public class UserService {
     /**
      * Not activated users should be automatically deleted after 3 days.
      * <p>
-     * This is scheduled to get fired everyday, at 01:00 (am).
+     * This is scheduled to get fired everyday, at 01:00 (am), and runs on one instance at a time. The users are deleted by
+     * chunks, each in a short transaction of its own unless called within a transaction, and the lease of the job is renewed
+     * after every chunk.
      */
     @Scheduled(cron = "0 0 1 * * ?")
+    @SchedulerLock(
+        name = REMOVE_NOT_ACTIVATED_USERS_JOB,
+        lease = "${application.user-cleanup.lock-lease:PT10M}",
+        lockAtLeastFor = "${application.user-cleanup.lock-at-least-for:PT5M}"
+    )
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void removeNotActivatedUsers() {
-        userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
-            .forEach(user -> {
-                log.debug("Deleting not activated user {}", user.getLogin());
-                userRepository.delete(user);
-            });
+        Instant createdBefore = Instant.now().minus(cleanupProperties.getRetention());
+        int chunkSize = cleanupProperties.getChunkSize();
+        int removed = 0;
+        while (true) {
+            Integer chunk = userCleanupMetersService.recordChunk(() ->
+                transactionTemplate.execute(status -> removeNotActivatedUsers(createdBefore, chunkSize))
+            );
+            removed += chunk;
+            // Users activated meanwhile make a chunk smaller too, the next run removing what this one left
+            if (chunk < chunkSize || !jobLockService.extend(REMOVE_NOT_ACTIVATED_USERS_JOB, cleanupProperties.getLockLease())) {
+                break;
+            }
+        }
+        log.info("Removed {} not activated users", removed);
+    }
+
+    /**
+     * @return the number of users deleted.
+     */
+    private int removeNotActivatedUsers(Instant createdBefore, int chunkSize) {
+        List<UserIdentity> users = userRepository.findAllIdentitiesByActivatedIsFalseAndCreatedDateBefore(
+            createdBefore,
+            PageRequest.of(0, chunkSize)
+        );
+        if (users.isEmpty()) {
+            return 0;
+        }
+        int removed = userRepository.deleteAllByIdInAndActivatedIsFalse(
+            users.stream().map(UserIdentity::getId).collect(Collectors.toList())
+        );
+        users.forEach(user -> clearUserCaches(user.getLogin(), user.getEmail()));
+        userCleanupMetersService.trackRemoved(removed);
+        log.debug("Removed a chunk of {} not activated users", removed);
+        return removed;
     }
 
     /**
@@ -294,4 +539,19 @@ public class UserService {
     public List<String> getAuthorities() {
         return authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toList());
     }
+
+    /**
+     * Evicts the user right away, so the rest of the transaction does not see it cached, and again once the transaction
+     * commits. {@link UserCacheResolver} keeps a concurrent lookup from caching the state being replaced meanwhile.
+     */
+    private void clearUserCaches(User user) {
+        clearUserCaches(user.getLogin(), user.getEmail());
+    }
+
+    private void clearUserCaches(String login, String email) {
+        userCacheResolver.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(login);
+        if (email != null) {
+            userCacheResolver.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(email.toLowerCase(Locale.ROOT));
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package com.minesup.ape.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A DTO representing a correction read from an import file, its exercise being referenced by title.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CorrectionImportDTO {
+
+    @NotNull
+    private String content;
+
+    /**
+     * The title of the exercise, which must match exactly one existing exercise, not corrected yet.
+     */
+    @NotNull
+    private String exercise;
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getExercise() {
+        return exercise;
+    }
+
+    public void setExercise(String exercise) {
+        this.exercise = exercise;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CorrectionImportDTO{" +
+            "exercise='" + getExercise() + "'" +
+            "}";
+    }
+}
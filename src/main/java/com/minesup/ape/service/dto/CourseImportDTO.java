@@ -0,0 +1,43 @@
+package com.minesup.ape.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * A DTO representing a course read from an import file.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CourseImportDTO {
+
+    @NotNull
+    @Size(max = 255)
+    private String title;
+
+    @NotNull
+    private String content;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CourseImportDTO{" +
+            "title='" + getTitle() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,144 @@
+package com.minesup.ape.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.repository.CourseSummary;
+import com.minesup.ape.repository.ExerciseSummary;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A DTO representing a course with all its exercises and their corrections.
+ * <p>
+ * The {@code content} fields are left {@code null}, and omitted from the JSON, when the tree is built from summaries.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CourseTreeDTO {
+
+    private final Long id;
+
+    private final String title;
+
+    private final String content;
+
+    private final List<ExerciseNode> exercises;
+
+    public CourseTreeDTO(Course course) {
+        this.id = course.getId();
+        this.title = course.getTitle();
+        this.content = course.getContent();
+        this.exercises =
+            course.getExercises().stream().sorted(Comparator.comparing(Exercise::getId)).map(ExerciseNode::new).collect(Collectors.toList());
+    }
+
+    public CourseTreeDTO(CourseSummary course, List<ExerciseSummary> exercises) {
+        this.id = course.getId();
+        this.title = course.getTitle();
+        this.content = null;
+        this.exercises = exercises.stream().map(ExerciseNode::new).collect(Collectors.toList());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public List<ExerciseNode> getExercises() {
+        return exercises;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CourseTreeDTO{" +
+            "id=" + getId() +
+            ", title='" + getTitle() + "'" +
+            ", exercises=" + getExercises().size() +
+            "}";
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ExerciseNode {
+
+        private final Long id;
+
+        private final String title;
+
+        private final String content;
+
+        private final Integer mark;
+
+        private final CorrectionNode correction;
+
+        ExerciseNode(Exercise exercise) {
+            this.id = exercise.getId();
+            this.title = exercise.getTitle();
+            this.content = exercise.getContent();
+            this.mark = exercise.getMark();
+            this.correction = exercise.getCorrection() != null ? new CorrectionNode(exercise.getCorrection()) : null;
+        }
+
+        ExerciseNode(ExerciseSummary exercise) {
+            this.id = exercise.getId();
+            this.title = exercise.getTitle();
+            this.content = null;
+            this.mark = exercise.getMark();
+            this.correction = exercise.getCorrection() != null ? new CorrectionNode(exercise.getCorrection().getId(), null) : null;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public Integer getMark() {
+            return mark;
+        }
+
+        public CorrectionNode getCorrection() {
+            return correction;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CorrectionNode {
+
+        private final Long id;
+
+        private final String content;
+
+        CorrectionNode(Correction correction) {
+            this(correction.getId(), correction.getContent());
+        }
+
+        CorrectionNode(Long id, String content) {
+            this.id = id;
+            this.content = content;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.minesup.ape.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * A DTO representing an exercise read from an import file, its course being referenced by title.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ExerciseImportDTO {
+
+    @NotNull
+    @Size(max = 255)
+    private String title;
+
+    @NotNull
+    private String content;
+
+    @NotNull
+    @Min(value = 0)
+    private Integer mark;
+
+    /**
+     * The title of the course, which must match exactly one existing course.
+     */
+    @NotNull
+    private String course;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Integer getMark() {
+        return mark;
+    }
+
+    public void setMark(Integer mark) {
+        this.mark = mark;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ExerciseImportDTO{" +
+            "title='" + getTitle() + "'" +
+            ", mark=" + getMark() +
+            ", course='" + getCourse() + "'" +
+            "}";
+    }
+}
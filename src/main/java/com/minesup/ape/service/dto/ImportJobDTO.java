@@ -0,0 +1,161 @@
+package com.minesup.ape.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A DTO representing the state of an import job at a given time.
+ * <p>
+ * A job either loads every record of its file or none of them: as soon as a record is rejected the remaining ones are only
+ * validated, up to {@code application.bulk-import.max-rejected-records}, and the job fails.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportJobDTO {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    /**
+     * A record of the file that could not be imported.
+     */
+    public static class RejectedRecord {
+
+        private final long record;
+
+        private final List<String> errors;
+
+        public RejectedRecord(long record, List<String> errors) {
+            this.record = record;
+            this.errors = errors;
+        }
+
+        /**
+         * @return the position of the record in the file, starting at 1 and not counting the CSV header.
+         */
+        public long getRecord() {
+            return record;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    private final String id;
+
+    private final String entityName;
+
+    private final String format;
+
+    private final Status status;
+
+    private final long processed;
+
+    private final long imported;
+
+    private final List<RejectedRecord> rejectedRecords;
+
+    private final String message;
+
+    private final Instant createdDate;
+
+    private final Instant startedDate;
+
+    private final Instant finishedDate;
+
+    public ImportJobDTO(
+        String id,
+        String entityName,
+        String format,
+        Status status,
+        long processed,
+        long imported,
+        List<RejectedRecord> rejectedRecords,
+        String message,
+        Instant createdDate,
+        Instant startedDate,
+        Instant finishedDate
+    ) {
+        this.id = id;
+        this.entityName = entityName;
+        this.format = format;
+        this.status = status;
+        this.processed = processed;
+        this.imported = imported;
+        this.rejectedRecords = rejectedRecords;
+        this.message = message;
+        this.createdDate = createdDate;
+        this.startedDate = startedDate;
+        this.finishedDate = finishedDate;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the number of records read so far.
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * @return the number of records loaded so far, which are only visible to other transactions once the job is completed.
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    public List<RejectedRecord> getRejectedRecords() {
+        return rejectedRecords;
+    }
+
+    /**
+     * @return why the job failed, if it did.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ImportJobDTO{" +
+            "id='" + getId() + "'" +
+            ", entityName='" + getEntityName() + "'" +
+            ", status=" + getStatus() +
+            ", processed=" + getProcessed() +
+            ", imported=" + getImported() +
+            "}";
+    }
+}
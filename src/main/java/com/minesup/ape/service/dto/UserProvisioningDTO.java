@@ -0,0 +1,71 @@
+package com.minesup.ape.service.dto;
+
+import java.util.List;
+
+/**
+ * A DTO representing the outcome of a bulk creation of users.
+ * <p>
+ * The users are created independently of each other: those that are invalid, or whose login or email is already used, are
+ * rejected and the others created.
+ */
+public class UserProvisioningDTO {
+
+    /**
+     * A user that could not be created.
+     */
+    public static class RejectedUser {
+
+        private final int index;
+
+        private final String login;
+
+        private final List<String> errors;
+
+        public RejectedUser(int index, String login, List<String> errors) {
+            this.index = index;
+            this.login = login;
+            this.errors = errors;
+        }
+
+        /**
+         * @return the position of the user in the request, starting at 0.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    private final List<String> createdLogins;
+
+    private final List<RejectedUser> rejectedUsers;
+
+    public UserProvisioningDTO(List<String> createdLogins, List<RejectedUser> rejectedUsers) {
+        this.createdLogins = createdLogins;
+        this.rejectedUsers = rejectedUsers;
+    }
+
+    public List<String> getCreatedLogins() {
+        return createdLogins;
+    }
+
+    public List<RejectedUser> getRejectedUsers() {
+        return rejectedUsers;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserProvisioningDTO{" +
+            "createdLogins=" + getCreatedLogins().size() +
+            ", rejectedUsers=" + getRejectedUsers().size() +
+            "}";
+    }
+}
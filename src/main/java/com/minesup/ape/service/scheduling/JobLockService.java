@@ -0,0 +1,126 @@
+package com.minesup.ape.service.scheduling;
+
+import com.minesup.ape.management.SchedulerMetersService;
+import com.minesup.ape.repository.JobLockRepository;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service running the jobs of the application on one instance at a time, through leases written to the {@code job_lock}
+ * table.
+ * <p>
+ * Every lease change commits in its own transaction, so that the other instances see it at once. A lease expires by itself
+ * when its holder stops without releasing it; the instances compare the leases with their own clocks, which must agree to
+ * well within the length of a lease.
+ */
+@Service
+public class JobLockService {
+
+    private final Logger log = LoggerFactory.getLogger(JobLockService.class);
+
+    private final JobLockRepository jobLockRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final SchedulerMetersService schedulerMetersService;
+
+    /**
+     * Identifies this instance in the leases it holds, unique even among the instances of one JVM.
+     */
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + '/' + UUID.randomUUID();
+
+    public JobLockService(
+        JobLockRepository jobLockRepository,
+        PlatformTransactionManager transactionManager,
+        SchedulerMetersService schedulerMetersService
+    ) {
+        this.jobLockRepository = jobLockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.schedulerMetersService = schedulerMetersService;
+    }
+
+    /**
+     * Take the lease of a job, unless another instance holds it.
+     *
+     * @param name the name of the job.
+     * @param lease how long the lease lasts, unless extended or released.
+     * @return whether this instance now holds the lease.
+     */
+    public boolean tryLock(String name, Duration lease) {
+        Instant now = Instant.now();
+        Instant until = now.plus(lease);
+        // null when the job was never locked
+        Boolean locked = transactionTemplate.execute(status -> {
+            if (jobLockRepository.lock(name, owner, now, until) > 0) {
+                return true;
+            }
+            return jobLockRepository.existsById(name) ? false : null;
+        });
+        if (locked != null) {
+            return locked;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jobLockRepository.insert(name, owner, now, until));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Job {} was locked by another instance meanwhile", name);
+            return false;
+        }
+    }
+
+    /**
+     * Push back the end of the lease of a job this instance holds.
+     *
+     * @param name the name of the job.
+     * @param lease how long the lease lasts from now on.
+     * @return whether this instance still holds the lease, which it lost if it let it expire.
+     */
+    public boolean extend(String name, Duration lease) {
+        Instant now = Instant.now();
+        Integer extended = transactionTemplate.execute(status -> jobLockRepository.extend(name, owner, now, now.plus(lease)));
+        if (extended == null || extended == 0) {
+            log.warn("Lost the lease of job {}, another instance may run it meanwhile", name);
+            schedulerMetersService.trackLeaseLost(name);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Release the lease of a job this instance holds, so that the next run may happen anywhere.
+     *
+     * @param name the name of the job.
+     */
+    public void unlock(String name) {
+        unlock(name, Duration.ZERO);
+    }
+
+    /**
+     * Release the lease of a job this instance holds, but no sooner than a minimum time after it was taken, so that the
+     * instances whose clocks are late, or which missed the run, do not run the job again meanwhile.
+     *
+     * @param name the name of the job.
+     * @param lockAtLeastFor how long the lease is held at least since it was taken.
+     */
+    public void unlock(String name, Duration lockAtLeastFor) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Instant now = Instant.now();
+            Instant until = jobLockRepository
+                .findLockedAt(name, owner)
+                .map(lockedAt -> lockedAt.plus(lockAtLeastFor))
+                .filter(now::isBefore)
+                .orElse(now);
+            jobLockRepository.unlock(name, owner, now, until);
+        });
+    }
+}
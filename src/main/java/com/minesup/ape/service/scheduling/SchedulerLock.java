@@ -0,0 +1,37 @@
+package com.minesup.ape.service.scheduling;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a scheduled method on one instance at a time: the instance taking the lease of the job runs it, the others skip
+ * their run. See the {@link JobLockService}.
+ * <p>
+ * The lease is released when the method returns, or once held for {@link #lockAtLeastFor} if later. A job that may outlast
+ * its lease extends it with {@link JobLockService#extend}, or another instance may start it meanwhile. The jobs working on
+ * the state of their own instance, like a local index, must not use it.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SchedulerLock {
+    /**
+     * The name of the job, unique within the application and at most 64 characters long.
+     */
+    String name();
+
+    /**
+     * How long the lease lasts, as an ISO-8601 duration or a property placeholder resolving to one.
+     */
+    String lease() default "PT10M";
+
+    /**
+     * How long the lease is held at least since it was taken, even if the method returned sooner, as an ISO-8601 duration or a
+     * property placeholder resolving to one. Keeps a short job from running again on an instance whose clock is late, and
+     * should be shorter than the lease.
+     */
+    String lockAtLeastFor() default "PT0S";
+}
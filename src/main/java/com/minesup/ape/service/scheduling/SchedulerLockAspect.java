@@ -0,0 +1,74 @@
+package com.minesup.ape.service.scheduling;
+
+import com.minesup.ape.management.SchedulerMetersService;
+import java.time.Duration;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.StringValueResolver;
+
+/**
+ * Aspect running the methods annotated with {@link SchedulerLock} on one instance at a time.
+ * <p>
+ * It comes right before the transactions, whose advisor has the lowest precedence, so that the lease is taken and released
+ * apart from them.
+ */
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class SchedulerLockAspect implements EmbeddedValueResolverAware {
+
+    private final Logger log = LoggerFactory.getLogger(SchedulerLockAspect.class);
+
+    private final JobLockService jobLockService;
+
+    private final SchedulerMetersService schedulerMetersService;
+
+    private StringValueResolver valueResolver;
+
+    public SchedulerLockAspect(JobLockService jobLockService, SchedulerMetersService schedulerMetersService) {
+        this.jobLockService = jobLockService;
+        this.schedulerMetersService = schedulerMetersService;
+    }
+
+    @Override
+    public void setEmbeddedValueResolver(StringValueResolver valueResolver) {
+        this.valueResolver = valueResolver;
+    }
+
+    /**
+     * Runs the job if this instance takes its lease, and skips it otherwise.
+     *
+     * @param joinPoint the run of the job.
+     * @param schedulerLock the lease of the job.
+     * @return what the job returned, {@code null} when skipped.
+     * @throws Throwable what the job threw.
+     */
+    @Around("@annotation(schedulerLock)")
+    public Object runOnOneInstance(ProceedingJoinPoint joinPoint, SchedulerLock schedulerLock) throws Throwable {
+        String name = schedulerLock.name();
+        if (!jobLockService.tryLock(name, resolveDuration(schedulerLock.lease()))) {
+            log.debug("Skipping job {}, run by another instance", name);
+            schedulerMetersService.trackSkipped(name);
+            return null;
+        }
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Object result = joinPoint.proceed();
+            succeeded = true;
+            return result;
+        } finally {
+            jobLockService.unlock(name, resolveDuration(schedulerLock.lockAtLeastFor()));
+            schedulerMetersService.trackRun(name, succeeded, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private Duration resolveDuration(String duration) {
+        return Duration.parse(valueResolver.resolveStringValue(duration));
+    }
+}
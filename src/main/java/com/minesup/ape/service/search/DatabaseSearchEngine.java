@@ -0,0 +1,29 @@
+package com.minesup.ape.service.search;
+
+import com.minesup.ape.repository.SearchHit;
+import com.minesup.ape.repository.SearchRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+/**
+ * The default {@link SearchEngine}, querying the database: full-text search on PostgreSQL, substring search elsewhere.
+ *
+ * @see SearchRepository
+ */
+@Service
+@ConditionalOnProperty(name = "application.search.engine", havingValue = "database", matchIfMissing = true)
+public class DatabaseSearchEngine implements SearchEngine {
+
+    private final SearchRepository searchRepository;
+
+    public DatabaseSearchEngine(SearchRepository searchRepository) {
+        this.searchRepository = searchRepository;
+    }
+
+    @Override
+    public Slice<SearchHit> search(String query, Pageable pageable) {
+        return searchRepository.search(query, pageable);
+    }
+}
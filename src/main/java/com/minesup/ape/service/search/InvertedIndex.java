@@ -0,0 +1,500 @@
+package com.minesup.ape.service.search;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.carrotsearch.hppc.cursors.ObjectIntCursor;
+import com.minesup.ape.repository.SearchHit;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory inverted index of the titles and contents of the courses and exercises.
+ * <p>
+ * Each document is identified by an ordinal, its position in the parallel arrays of types, ids, versions and lengths. Each
+ * term maps to its postings: the ordinals of the documents it occurs in, in increasing order, and its weight in each of
+ * them, an occurrence in the title weighing {@link #TITLE_WEIGHT} occurrences in the content. The documents containing
+ * every term of a query are ranked with BM25.
+ * <p>
+ * Replacing a document appends it under a new ordinal and marks the old one deleted, so the postings are only ever
+ * appended to. The deleted ordinals are dropped once they outnumber the live ones, and when the index is written.
+ * <p>
+ * This class is not thread-safe.
+ */
+final class InvertedIndex {
+
+    static final int TITLE_WEIGHT = 3;
+
+    /**
+     * The {@link #version(String, long)} of the documents which are not indexed.
+     */
+    static final long NOT_INDEXED = -1;
+
+    private static final String[] TYPES = { SearchHit.COURSE, SearchHit.EXERCISE };
+
+    // "APEI", followed by the version of the layout
+    private static final int MAGIC = 0x41504549;
+
+    private static final int FORMAT_VERSION = 1;
+
+    // BM25 term frequency saturation and length normalization
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final int MIN_DELETED_TO_COMPACT = 1024;
+
+    static final Comparator<Match> RANKING = Comparator
+        .comparingDouble(Match::getScore)
+        .reversed()
+        .thenComparing(Match::getType)
+        .thenComparingLong(Match::getId);
+
+    private byte[] types = new byte[16];
+
+    private long[] ids = new long[16];
+
+    private long[] versions = new long[16];
+
+    private int[] lengths = new int[16];
+
+    // Allocated ordinals, including the deleted ones
+    private int size;
+
+    private final BitSet deleted = new BitSet();
+
+    private int deletedCount;
+
+    // Sum of the lengths of the live documents
+    private long totalLength;
+
+    private final LongIntHashMap[] ordinals = { new LongIntHashMap(), new LongIntHashMap() };
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    /**
+     * A document matching a query.
+     */
+    static final class Match {
+
+        private final String type;
+
+        private final long id;
+
+        private final double score;
+
+        Match(String type, long id, double score) {
+            this.type = type;
+            this.id = id;
+            this.score = score;
+        }
+
+        String getType() {
+            return type;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        double getScore() {
+            return score;
+        }
+    }
+
+    private static final class Postings {
+
+        private int[] documents;
+
+        private int[] weights;
+
+        private int size;
+
+        private Postings(int capacity) {
+            documents = new int[Math.max(capacity, 1)];
+            weights = new int[documents.length];
+        }
+
+        private void add(int document, int weight) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size + (size >> 1) + 1);
+                weights = Arrays.copyOf(weights, documents.length);
+            }
+            documents[size] = document;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    /**
+     * Add or replace a document, unless the indexed one is at least as recent.
+     * <p>
+     * The post-commit listeners of concurrent transactions may run in any order, so an older version of a document can come
+     * after a newer one.
+     *
+     * @param type {@value SearchHit#COURSE} or {@value SearchHit#EXERCISE}.
+     * @param id the id of the course or exercise.
+     * @param version its version, to tell whether the index is up to date.
+     * @param title its title.
+     * @param content its content.
+     * @return whether the document was added or replaced.
+     */
+    boolean put(String type, long id, long version, String title, String content) {
+        if (version(type, id) >= version) {
+            return false;
+        }
+        remove(type, id);
+        ObjectIntHashMap<String> weights = new ObjectIntHashMap<>();
+        int length = 0;
+        for (Tokenizer.Token token : Tokenizer.tokens(title)) {
+            weights.addTo(token.term, TITLE_WEIGHT);
+            length += TITLE_WEIGHT;
+        }
+        for (Tokenizer.Token token : Tokenizer.tokens(content)) {
+            weights.addTo(token.term, 1);
+            length++;
+        }
+        int ordinal = append(typeIndex(type), id, version, length);
+        for (ObjectIntCursor<String> weight : weights) {
+            postings.computeIfAbsent(weight.key, term -> new Postings(1)).add(ordinal, weight.value);
+        }
+        return true;
+    }
+
+    /**
+     * Remove a document.
+     *
+     * @param type {@value SearchHit#COURSE} or {@value SearchHit#EXERCISE}.
+     * @param id the id of the course or exercise.
+     * @return whether it was indexed.
+     */
+    boolean remove(String type, long id) {
+        LongIntHashMap typeOrdinals = ordinals[typeIndex(type)];
+        int ordinal = typeOrdinals.getOrDefault(id, -1);
+        if (ordinal < 0) {
+            return false;
+        }
+        typeOrdinals.remove(id);
+        deleted.set(ordinal);
+        deletedCount++;
+        totalLength -= lengths[ordinal];
+        if (deletedCount >= MIN_DELETED_TO_COMPACT && deletedCount > size - deletedCount) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * @param type {@value SearchHit#COURSE} or {@value SearchHit#EXERCISE}.
+     * @param id the id of the course or exercise.
+     * @return the indexed version of the document, {@link #NOT_INDEXED} if there is none.
+     */
+    long version(String type, long id) {
+        int ordinal = ordinals[typeIndex(type)].getOrDefault(id, -1);
+        return ordinal < 0 ? NOT_INDEXED : versions[ordinal];
+    }
+
+    /**
+     * @param type {@value SearchHit#COURSE} or {@value SearchHit#EXERCISE}.
+     * @return the ids of the indexed documents of that type, in no particular order.
+     */
+    long[] ids(String type) {
+        return ordinals[typeIndex(type)].keys().toArray();
+    }
+
+    /**
+     * @return the number of indexed documents.
+     */
+    int size() {
+        return size - deletedCount;
+    }
+
+    /**
+     * Find the documents containing every term, the most relevant first.
+     *
+     * @param terms the distinct terms, as returned by {@link Tokenizer#terms(String)}.
+     * @param offset the number of matches to skip.
+     * @param limit the maximum number of matches to return.
+     * @return the matches, ordered by {@link #RANKING}.
+     */
+    List<Match> search(Collection<String> terms, int offset, int limit) {
+        int live = size();
+        if (terms.isEmpty() || limit <= 0 || live == 0) {
+            return List.of();
+        }
+        Postings[] lists = new Postings[terms.size()];
+        int i = 0;
+        for (String term : terms) {
+            lists[i] = postings.get(term);
+            if (lists[i] == null) {
+                return List.of();
+            }
+            i++;
+        }
+        // The rarest term drives the intersection
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        double[] idfs = new double[lists.length];
+        for (int l = 0; l < lists.length; l++) {
+            int documentFrequency = Math.min(lists[l].size, live);
+            idfs[l] = Math.log(1 + (live - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        }
+        double averageLength = Math.max(1, (double) totalLength / live);
+        int kept = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        // The worst of the kept matches is at the head
+        PriorityQueue<Match> best = new PriorityQueue<>(RANKING.reversed());
+        int[] cursors = new int[lists.length];
+        Postings rarest = lists[0];
+        candidates: for (int p = 0; p < rarest.size; p++) {
+            int document = rarest.documents[p];
+            if (deleted.get(document)) {
+                continue;
+            }
+            double score = score(idfs[0], rarest.weights[p], lengths[document], averageLength);
+            for (int l = 1; l < lists.length; l++) {
+                Postings list = lists[l];
+                int cursor = cursors[l];
+                while (cursor < list.size && list.documents[cursor] < document) {
+                    cursor++;
+                }
+                cursors[l] = cursor;
+                if (cursor == list.size) {
+                    break candidates;
+                }
+                if (list.documents[cursor] != document) {
+                    continue candidates;
+                }
+                score += score(idfs[l], list.weights[cursor], lengths[document], averageLength);
+            }
+            Match match = new Match(TYPES[types[document]], ids[document], score);
+            if (best.size() < kept) {
+                best.add(match);
+            } else if (RANKING.compare(match, best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        return offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+    }
+
+    private static double score(double idf, int weight, int length, double averageLength) {
+        return (idf * weight * (K1 + 1)) / (weight + K1 * (1 - B + B * length / averageLength));
+    }
+
+    /**
+     * Write the live documents and their postings, replacing the file atomically.
+     *
+     * @param file the file to write.
+     * @throws IOException if it cannot be written.
+     */
+    void writeTo(Path file) throws IOException {
+        int[] remapped = remappedOrdinals();
+        int live = size();
+        List<byte[]> terms = new ArrayList<>(postings.size());
+        List<Postings> termPostings = new ArrayList<>(postings.size());
+        List<Integer> livePostingCounts = new ArrayList<>(postings.size());
+        long length = Integer.BYTES * 3L + live * (long) (Byte.BYTES + Long.BYTES * 2 + Integer.BYTES) + Integer.BYTES;
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            Postings list = entry.getValue();
+            int livePostings = 0;
+            for (int p = 0; p < list.size; p++) {
+                if (remapped[list.documents[p]] >= 0) {
+                    livePostings++;
+                }
+            }
+            if (livePostings == 0) {
+                continue;
+            }
+            byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            terms.add(term);
+            termPostings.add(list);
+            livePostingCounts.add(livePostings);
+            length += Integer.BYTES * 2L + term.length + livePostings * (long) Integer.BYTES * 2;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("The search index is too large to be written to a single mapping: " + length + " bytes");
+        }
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (
+            FileChannel channel = FileChannel.open(
+                temporary,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(live);
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                if (remapped[ordinal] >= 0) {
+                    buffer.put(types[ordinal]).putLong(ids[ordinal]).putLong(versions[ordinal]).putInt(lengths[ordinal]);
+                }
+            }
+            buffer.putInt(terms.size());
+            for (int t = 0; t < terms.size(); t++) {
+                Postings list = termPostings.get(t);
+                buffer.putInt(terms.get(t).length).put(terms.get(t)).putInt(livePostingCounts.get(t));
+                for (int p = 0; p < list.size; p++) {
+                    int ordinal = remapped[list.documents[p]];
+                    if (ordinal >= 0) {
+                        buffer.putInt(ordinal).putInt(list.weights[p]);
+                    }
+                }
+            }
+            buffer.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read an index written by {@link #writeTo(Path)}.
+     *
+     * @param file the file to read.
+     * @return the index.
+     * @throws IOException if the file cannot be read, or is not a valid index.
+     */
+    static InvertedIndex readFrom(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a search index of the current format: " + file);
+            }
+            InvertedIndex index = new InvertedIndex();
+            int documents = buffer.getInt();
+            index.grow(documents);
+            for (int ordinal = 0; ordinal < documents; ordinal++) {
+                byte type = buffer.get();
+                if (type < 0 || type >= TYPES.length) {
+                    throw new IOException("Corrupted search index, unknown document type " + type + ": " + file);
+                }
+                index.append(type, buffer.getLong(), buffer.getLong(), buffer.getInt());
+            }
+            int terms = buffer.getInt();
+            for (int t = 0; t < terms; t++) {
+                byte[] term = new byte[buffer.getInt()];
+                buffer.get(term);
+                int count = buffer.getInt();
+                Postings list = new Postings(count);
+                for (int p = 0; p < count; p++) {
+                    int ordinal = buffer.getInt();
+                    if (ordinal < 0 || ordinal >= documents) {
+                        throw new IOException("Corrupted search index, unknown document " + ordinal + ": " + file);
+                    }
+                    list.add(ordinal, buffer.getInt());
+                }
+                index.postings.put(new String(term, StandardCharsets.UTF_8), list);
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Corrupted search index, trailing bytes: " + file);
+            }
+            return index;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Corrupted search index, truncated: " + file, e);
+        }
+    }
+
+    private int append(int type, long id, long version, int length) {
+        if (size == ids.length) {
+            grow(size + (size >> 1) + 1);
+        }
+        types[size] = (byte) type;
+        ids[size] = id;
+        versions[size] = version;
+        lengths[size] = length;
+        ordinals[type].put(id, size);
+        totalLength += length;
+        return size++;
+    }
+
+    private void grow(int capacity) {
+        if (capacity > ids.length) {
+            types = Arrays.copyOf(types, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+    }
+
+    /**
+     * Drop the deleted ordinals, renumbering the live ones in the same order.
+     */
+    private void compact() {
+        int[] remapped = remappedOrdinals();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            int target = remapped[ordinal];
+            if (target >= 0) {
+                types[target] = types[ordinal];
+                ids[target] = ids[ordinal];
+                versions[target] = versions[ordinal];
+                lengths[target] = lengths[ordinal];
+            }
+        }
+        for (Iterator<Postings> iterator = postings.values().iterator(); iterator.hasNext();) {
+            Postings list = iterator.next();
+            int kept = 0;
+            for (int p = 0; p < list.size; p++) {
+                int target = remapped[list.documents[p]];
+                if (target >= 0) {
+                    list.documents[kept] = target;
+                    list.weights[kept] = list.weights[p];
+                    kept++;
+                }
+            }
+            list.size = kept;
+            if (kept == 0) {
+                iterator.remove();
+            }
+        }
+        size -= deletedCount;
+        deleted.clear();
+        deletedCount = 0;
+        for (LongIntHashMap typeOrdinals : ordinals) {
+            typeOrdinals.clear();
+        }
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            ordinals[types[ordinal]].put(ids[ordinal], ordinal);
+        }
+    }
+
+    /**
+     * @return the ordinal each ordinal has once the deleted ones are dropped, {@code -1} for the deleted ones.
+     */
+    private int[] remappedOrdinals() {
+        int[] remapped = new int[size];
+        int next = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            remapped[ordinal] = deleted.get(ordinal) ? -1 : next++;
+        }
+        return remapped;
+    }
+
+    private static int typeIndex(String type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown search document type: " + type);
+    }
+}
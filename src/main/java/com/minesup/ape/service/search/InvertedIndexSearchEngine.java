@@ -0,0 +1,452 @@
+package com.minesup.ape.service.search;
+
+import com.carrotsearch.hppc.LongHashSet;
+import com.minesup.ape.config.ApplicationProperties;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.repository.SearchDocument;
+import com.minesup.ape.repository.SearchHit;
+import com.minesup.ape.repository.SearchRepository;
+import com.minesup.ape.service.EntitiesImportedEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * {@link SearchEngine} backed by an {@link InvertedIndex} held in memory, for the deployments without PostgreSQL.
+ * <p>
+ * The index follows the committed inserts, updates and deletions of courses and exercises through Hibernate listeners,
+ * and the bulk imports through their {@link EntitiesImportedEvent}s. It is saved to
+ * {@code application.search.index.snapshot-file} periodically and on shutdown. At startup the saved index is loaded, then
+ * only the documents whose version changed meanwhile are reindexed; everything is indexed when there is no saved index.
+ * <p>
+ * Only the matching ids come from the index: the titles and contents of the returned page are read from the database,
+ * which also drops the hits deleted by bulk statements.
+ */
+@Service
+@ConditionalOnProperty(name = "application.search.engine", havingValue = "index")
+public class InvertedIndexSearchEngine
+    implements SearchEngine, PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final String[] TYPES = { SearchHit.COURSE, SearchHit.EXERCISE };
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private static final int SNIPPET_LEADING_CHARACTERS = 60;
+
+    private static final int SNIPPET_LENGTH = 240;
+
+    private final Logger log = LoggerFactory.getLogger(InvertedIndexSearchEngine.class);
+
+    private final SearchRepository searchRepository;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final Path snapshotFile;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private InvertedIndex index = new InvertedIndex();
+
+    /**
+     * The changes committed while {@link #open()} builds the index, {@code null} the rest of the time.
+     */
+    private List<Consumer<InvertedIndex>> changesWhileOpening;
+
+    private volatile boolean changed;
+
+    public InvertedIndexSearchEngine(
+        SearchRepository searchRepository,
+        EntityManagerFactory entityManagerFactory,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.searchRepository = searchRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        // Also run after the commit of an import, whose resources are still bound to the thread
+        this.readOnlyTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.snapshotFile = applicationProperties.getSearch().getIndex().getSnapshotFile();
+    }
+
+    /**
+     * Listen to the changes as early as possible: those committed before the index is opened are caught up with by
+     * {@link #open()}, and indexing a document twice is harmless.
+     */
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * Load the saved index and bring it up to date with the database, or index everything.
+     * <p>
+     * The index is built aside: searches find nothing meanwhile, and the committed changes are only recorded, to be replayed
+     * on the built index before it replaces the empty one. Those already seen by the queries of the build are skipped, their
+     * version being indexed already.
+     * <p>
+     * This waits for the application to be ready, the database schema being possibly migrated asynchronously.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void open() {
+        lock.writeLock().lock();
+        try {
+            changesWhileOpening = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        InvertedIndex opened = null;
+        boolean openedChanged = false;
+        try {
+            InvertedIndex saved = null;
+            if (Files.exists(snapshotFile)) {
+                try {
+                    saved = InvertedIndex.readFrom(snapshotFile);
+                } catch (IOException e) {
+                    log.warn("Could not load the search index from {}, reindexing everything", snapshotFile, e);
+                }
+            }
+            if (saved == null) {
+                InvertedIndex all = new InvertedIndex();
+                readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                    for (String type : TYPES) {
+                        try (Stream<SearchDocument> documents = searchRepository.streamDocuments(type)) {
+                            documents.forEach(document -> put(all, type, document));
+                        }
+                    }
+                });
+                opened = all;
+                openedChanged = true;
+                log.info("Indexed {} courses and exercises", opened.size());
+            } else {
+                InvertedIndex caughtUp = saved;
+                int reindexed = readOnlyTransactionTemplate.execute(status -> catchUp(caughtUp));
+                opened = caughtUp;
+                openedChanged = reindexed > 0;
+                log.info("Loaded {} courses and exercises from {}, {} of them reindexed", opened.size(), snapshotFile, reindexed);
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (opened != null) {
+                    index = opened;
+                    changed = openedChanged;
+                }
+                // Should the build fail, the changes still apply to the empty index
+                changesWhileOpening.forEach(change -> change.accept(index));
+                changed |= !changesWhileOpening.isEmpty();
+                changesWhileOpening = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Reindex the documents whose version differs from the database, and remove those which no longer exist.
+     *
+     * @return the number of reindexed or removed documents.
+     */
+    private int catchUp(InvertedIndex saved) {
+        int reindexed = 0;
+        for (String type : TYPES) {
+            LongHashSet existing = new LongHashSet();
+            List<Long> stale = new ArrayList<>();
+            try (Stream<SearchDocument> versions = searchRepository.streamDocumentVersions(type)) {
+                versions.forEach(document -> {
+                    existing.add(document.getId());
+                    if (saved.version(type, document.getId()) != document.getVersion()) {
+                        stale.add(document.getId());
+                    }
+                });
+            }
+            for (int from = 0; from < stale.size(); from += LOAD_BATCH_SIZE) {
+                List<Long> batch = stale.subList(from, Math.min(from + LOAD_BATCH_SIZE, stale.size()));
+                searchRepository
+                    .findDocuments(type, batch)
+                    .forEach(document -> {
+                        // The saved version may be the newer one, if the database was restored from an older backup
+                        saved.remove(type, document.getId());
+                        put(saved, type, document);
+                    });
+            }
+            reindexed += stale.size();
+            for (long id : saved.ids(type)) {
+                if (!existing.contains(id)) {
+                    saved.remove(type, id);
+                    reindexed++;
+                }
+            }
+        }
+        return reindexed;
+    }
+
+    /**
+     * Save the index if it changed since it was last saved.
+     */
+    @Scheduled(
+        initialDelayString = "${application.search.index.snapshot-interval:PT5M}",
+        fixedDelayString = "${application.search.index.snapshot-interval:PT5M}"
+    )
+    public void saveIfChanged() {
+        if (!changed) {
+            return;
+        }
+        // Searches go on while the index is written, changes wait
+        lock.readLock().lock();
+        try {
+            index.writeTo(snapshotFile);
+            changed = false;
+            log.debug("Saved the search index to {}", snapshotFile);
+        } catch (IOException e) {
+            log.warn("Could not save the search index to {}", snapshotFile, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        saveIfChanged();
+    }
+
+    @Override
+    public Slice<SearchHit> search(String query, Pageable pageable) {
+        Set<String> terms = Tokenizer.terms(query);
+        int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE - pageable.getPageSize() - 1);
+        List<InvertedIndex.Match> matches;
+        lock.readLock().lock();
+        try {
+            // One more match than requested tells whether there is a next slice
+            matches = index.search(terms, offset, pageable.getPageSize() + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<InvertedIndex.Match> page = matches.subList(0, Math.min(matches.size(), pageable.getPageSize()));
+        return new SliceImpl<>(hits(page, terms), pageable, matches.size() > pageable.getPageSize());
+    }
+
+    /**
+     * Read the titles and contents of the matches, with one query per type.
+     */
+    private List<SearchHit> hits(List<InvertedIndex.Match> matches, Set<String> terms) {
+        Map<String, List<Long>> idsByType = matches
+            .stream()
+            .collect(
+                Collectors.groupingBy(InvertedIndex.Match::getType, Collectors.mapping(InvertedIndex.Match::getId, Collectors.toList()))
+            );
+        Map<String, Map<Long, SearchDocument>> documents = new HashMap<>();
+        idsByType.forEach((type, ids) ->
+            documents.put(
+                type,
+                searchRepository.findDocuments(type, ids).stream().collect(Collectors.toMap(SearchDocument::getId, Function.identity()))
+            )
+        );
+        List<SearchHit> hits = new ArrayList<>(matches.size());
+        List<InvertedIndex.Match> deleted = new ArrayList<>();
+        for (InvertedIndex.Match match : matches) {
+            SearchDocument document = documents.get(match.getType()).get(match.getId());
+            if (document == null) {
+                deleted.add(match);
+            } else {
+                String snippet = snippet(document.getContent(), terms);
+                hits.add(new SearchHit(match.getType(), match.getId(), document.getTitle(), snippet, match.getScore()));
+            }
+        }
+        if (!deleted.isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                deleted.forEach(match -> index.remove(match.getType(), match.getId()));
+                changed = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onPostCommit(event.getEntity(), false);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onPostCommit(event.getEntity(), false);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onPostCommit(event.getEntity(), true);
+    }
+
+    /**
+     * Every committed entity comes through here, whatever {@link #requiresPostCommitHandling(EntityPersister)} says.
+     */
+    private void onPostCommit(Object entity, boolean deleted) {
+        if (entity instanceof Course) {
+            Course course = (Course) entity;
+            apply(change(SearchHit.COURSE, course.getId(), course.getVersion(), course.getTitle(), course.getContent(), deleted));
+        } else if (entity instanceof Exercise) {
+            Exercise exercise = (Exercise) entity;
+            apply(change(SearchHit.EXERCISE, exercise.getId(), exercise.getVersion(), exercise.getTitle(), exercise.getContent(), deleted));
+        }
+    }
+
+    private static Consumer<InvertedIndex> change(String type, Long id, Long version, String title, String content, boolean deleted) {
+        if (deleted) {
+            return target -> target.remove(type, id);
+        }
+        return target -> target.put(type, id, version, title, content);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {}
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Course.class.equals(persister.getMappedClass()) || Exercise.class.equals(persister.getMappedClass());
+    }
+
+    /**
+     * Misspelled predecessor of {@link #requiresPostCommitHandling(EntityPersister)}, still abstract in Hibernate 5 but no
+     * longer called by it.
+     */
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    /**
+     * Index the courses or exercises loaded by a bulk import, once it is committed.
+     *
+     * @param event the loaded batch.
+     */
+    @TransactionalEventListener
+    public void onEntitiesImported(EntitiesImportedEvent event) {
+        String type;
+        if (Course.class.equals(event.getEntityClass())) {
+            type = SearchHit.COURSE;
+        } else if (Exercise.class.equals(event.getEntityClass())) {
+            type = SearchHit.EXERCISE;
+        } else {
+            return;
+        }
+        List<SearchDocument> documents = readOnlyTransactionTemplate.execute(status ->
+            searchRepository.findDocuments(type, event.getIds())
+        );
+        apply(target -> documents.forEach(document -> put(target, type, document)));
+    }
+
+    /**
+     * Apply a committed change to the index, or record it while {@link #open()} builds the index.
+     */
+    private void apply(Consumer<InvertedIndex> change) {
+        lock.writeLock().lock();
+        try {
+            if (changesWhileOpening != null) {
+                changesWhileOpening.add(change);
+            } else {
+                change.accept(index);
+                changed = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void put(InvertedIndex index, String type, SearchDocument document) {
+        index.put(type, document.getId(), document.getVersion(), document.getTitle(), document.getContent());
+    }
+
+    /**
+     * Excerpt of the content around its first match, escaped, the matching terms being wrapped in {@code <mark>} elements.
+     */
+    static String snippet(String content, Set<String> terms) {
+        if (content == null) {
+            return null;
+        }
+        List<Tokenizer.Token> tokens = Tokenizer.tokens(content);
+        int from = 0;
+        Tokenizer.Token first = tokens.stream().filter(token -> terms.contains(token.term)).findFirst().orElse(null);
+        if (first != null && first.start > SNIPPET_LEADING_CHARACTERS) {
+            // Start at a word, at most that many characters before the first match
+            int earliest = first.start - SNIPPET_LEADING_CHARACTERS;
+            from = tokens.stream().filter(token -> token.start >= earliest).findFirst().orElse(first).start;
+        }
+        int to = Math.min(content.length(), from + SNIPPET_LENGTH);
+        StringBuilder snippet = new StringBuilder();
+        int position = from;
+        for (Tokenizer.Token token : tokens) {
+            if (token.start >= from && token.end <= to && terms.contains(token.term)) {
+                snippet
+                    .append(escape(content.substring(position, token.start)))
+                    .append("<mark>")
+                    .append(escape(content.substring(token.start, token.end)))
+                    .append("</mark>");
+                position = token.end;
+            }
+        }
+        return snippet.append(escape(content.substring(position, to))).toString();
+    }
+
+    private static String escape(String text) {
+        return HtmlUtils.htmlEscape(text, StandardCharsets.UTF_8.name());
+    }
+}
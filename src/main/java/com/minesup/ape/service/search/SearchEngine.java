@@ -0,0 +1,20 @@
+package com.minesup.ape.service.search;
+
+import com.minesup.ape.repository.SearchHit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Engine searching the titles and contents of the courses and exercises, selected by the
+ * {@code application.search.engine} property.
+ */
+public interface SearchEngine {
+    /**
+     * Search the courses and exercises, the most relevant first.
+     *
+     * @param query the words to look for, not blank.
+     * @param pageable the pagination information, its sort being ignored.
+     * @return the slice of hits.
+     */
+    Slice<SearchHit> search(String query, Pageable pageable);
+}
@@ -0,0 +1,96 @@
+package com.minesup.ape.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits texts into terms: the runs of letters and digits, lower-cased and without their accents, so that
+ * {@code "Périodique"} and {@code "periodique"} match.
+ */
+final class Tokenizer {
+
+    /**
+     * Longer runs (encoded data, long URLs) are not worth indexing.
+     */
+    static final int MAX_TERM_LENGTH = 64;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private Tokenizer() {}
+
+    /**
+     * A term and where it occurs in the text.
+     */
+    static final class Token {
+
+        final String term;
+
+        final int start;
+
+        final int end;
+
+        private Token(String term, int start, int end) {
+            this.term = term;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * @param text the text, possibly {@code null}.
+     * @return the tokens of the text, in order.
+     */
+    static List<Token> tokens(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            // Decomposed accents belong to the letter before them
+            boolean inWord =
+                Character.isLetterOrDigit(codePoint) || (start >= 0 && Character.getType(codePoint) == Character.NON_SPACING_MARK);
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                add(tokens, text, start, i);
+                start = -1;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (start >= 0) {
+            add(tokens, text, start, text.length());
+        }
+        return tokens;
+    }
+
+    /**
+     * @param text the text, possibly {@code null}.
+     * @return the distinct terms of the text, in order of first occurrence.
+     */
+    static Set<String> terms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (Token token : tokens(text)) {
+            terms.add(token.term);
+        }
+        return terms;
+    }
+
+    private static void add(List<Token> tokens, String text, int start, int end) {
+        if (end - start > MAX_TERM_LENGTH) {
+            return;
+        }
+        String term = COMBINING_MARKS
+            .matcher(Normalizer.normalize(text.substring(start, end), Normalizer.Form.NFD))
+            .replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        tokens.add(new Token(term, start, end));
+    }
+}
@@ -1,25 +1,43 @@
 package com.minesup.ape.web.rest;
 
+import com.minesup.ape.config.ApplicationProperties;
 import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Exercise;
 import com.minesup.ape.repository.CorrectionRepository;
+import com.minesup.ape.repository.CorrectionSummary;
+import com.minesup.ape.repository.ExerciseRepository;
+import com.minesup.ape.repository.ResourceVersion;
 import com.minesup.ape.service.CorrectionService;
 import com.minesup.ape.web.rest.errors.BadRequestAlertException;
+import com.minesup.ape.web.rest.util.BulkRequestUtil;
+import com.minesup.ape.web.rest.util.ETagUtil;
+import com.minesup.ape.web.rest.util.KeysetPaginationUtil;
+import com.minesup.ape.web.rest.vm.BulkItemResultVM;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -43,9 +61,24 @@ public class CorrectionResource {
 
     private final CorrectionRepository correctionRepository;
 
-    public CorrectionResource(CorrectionService correctionService, CorrectionRepository correctionRepository) {
+    private final ExerciseRepository exerciseRepository;
+
+    private final Validator validator;
+
+    private final int maxBulkItems;
+
+    public CorrectionResource(
+        CorrectionService correctionService,
+        CorrectionRepository correctionRepository,
+        ExerciseRepository exerciseRepository,
+        Validator validator,
+        ApplicationProperties applicationProperties
+    ) {
         this.correctionService = correctionService;
         this.correctionRepository = correctionRepository;
+        this.exerciseRepository = exerciseRepository;
+        this.validator = validator;
+        this.maxBulkItems = applicationProperties.getBulkRequests().getMaxItems();
     }
 
     /**
@@ -73,7 +106,9 @@ public class CorrectionResource {
      *
      * @param id the id of the correction to save.
      * @param correction the correction to update.
+     * @param request the request, whose {@code If-Match} header makes the update conditional.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated correction,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not hold the current ETag,
      * or with status {@code 400 (Bad Request)} if the correction is not valid,
      * or with status {@code 500 (Internal Server Error)} if the correction couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -81,7 +116,8 @@ public class CorrectionResource {
     @PutMapping("/corrections/{id}")
     public ResponseEntity<Correction> updateCorrection(
         @PathVariable(value = "id", required = false) final Long id,
-        @Valid @RequestBody Correction correction
+        @Valid @RequestBody Correction correction,
+        WebRequest request
     ) throws URISyntaxException {
         log.debug("REST request to update Correction : {}, {}", id, correction);
         if (correction.getId() == null) {
@@ -95,10 +131,16 @@ public class CorrectionResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
+        ETagUtil.checkIfMatch(request, () -> correctionService.findResourceVersion(id), ENTITY_NAME).ifPresent(correction::setVersion);
         Correction result = correctionService.update(correction);
         return ResponseEntity
             .ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, correction.getId().toString()))
+            .headers(
+                ETagUtil.withETag(
+                    HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, correction.getId().toString()),
+                    correctionService.findResourceVersion(id)
+                )
+            )
             .body(result);
     }
 
@@ -107,7 +149,9 @@ public class CorrectionResource {
      *
      * @param id the id of the correction to save.
      * @param correction the correction to update.
+     * @param request the request, whose {@code If-Match} header makes the update conditional.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated correction,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not hold the current ETag,
      * or with status {@code 400 (Bad Request)} if the correction is not valid,
      * or with status {@code 404 (Not Found)} if the correction is not found,
      * or with status {@code 500 (Internal Server Error)} if the correction couldn't be updated.
@@ -116,7 +160,8 @@ public class CorrectionResource {
     @PatchMapping(value = "/corrections/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Correction> partialUpdateCorrection(
         @PathVariable(value = "id", required = false) final Long id,
-        @NotNull @RequestBody Correction correction
+        @NotNull @RequestBody Correction correction,
+        WebRequest request
     ) throws URISyntaxException {
         log.debug("REST request to partial update Correction partially : {}, {}", id, correction);
         if (correction.getId() == null) {
@@ -130,14 +175,194 @@ public class CorrectionResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
+        ETagUtil.checkIfMatch(request, () -> correctionService.findResourceVersion(id), ENTITY_NAME).ifPresent(correction::setVersion);
         Optional<Correction> result = correctionService.partialUpdate(correction);
 
         return ResponseUtil.wrapOrNotFound(
             result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, correction.getId().toString())
+            ETagUtil.withETag(
+                HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, correction.getId().toString()),
+                correctionService.findResourceVersion(id)
+            )
+        );
+    }
+
+    /**
+     * {@code POST  /corrections/bulk} : Create a batch of new corrections.
+     * <p>
+     * All the corrections, and the exercises they correct, are checked before any of them is saved, and they are saved in a single
+     * transaction.
+     *
+     * @param corrections the corrections to create.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the per-item results,
+     * or with status {@code 400 (Bad Request)} and with body the results of the invalid items if any correction is not valid,
+     * or with status {@code 400 (Bad Request)} if there are too many corrections.
+     */
+    @PostMapping("/corrections/bulk")
+    public ResponseEntity<List<BulkItemResultVM>> createCorrections(@RequestBody List<Correction> corrections) {
+        log.debug("REST request to save {} Corrections", corrections.size());
+        BulkRequestUtil.checkSize(corrections, maxBulkItems, ENTITY_NAME);
+        Set<Long> exerciseIds = exerciseIds(corrections);
+        Set<Long> existingExerciseIds = exerciseIds.isEmpty() ? Set.of() : exerciseRepository.findExistingIds(exerciseIds);
+        Set<Long> correctedExerciseIds = exerciseIds.isEmpty() ? Set.of() : correctionRepository.findCorrectedExerciseIds(exerciseIds);
+        Set<Long> seenExerciseIds = new HashSet<>();
+        List<BulkItemResultVM> failures = new ArrayList<>();
+        for (int i = 0; i < corrections.size(); i++) {
+            Correction correction = corrections.get(i);
+            Long id = correction != null ? correction.getId() : null;
+            List<String> errors = BulkRequestUtil.validate(validator, correction);
+            if (id != null) {
+                errors.add("A new correction cannot already have an ID");
+            }
+            // Each exercise has at most one correction
+            Long exerciseId = correction != null && correction.getExercise() != null ? correction.getExercise().getId() : null;
+            if (isExerciseMissing(correction, existingExerciseIds)) {
+                errors.add("exercise: not found");
+            } else if (exerciseId != null && (correctedExerciseIds.contains(exerciseId) || !seenExerciseIds.add(exerciseId))) {
+                errors.add("exercise: already has a correction");
+            }
+            if (!errors.isEmpty()) {
+                failures.add(BulkItemResultVM.failure(i, id, HttpStatus.BAD_REQUEST.value(), errors));
+            }
+        }
+        if (!failures.isEmpty()) {
+            return BulkRequestUtil.invalidItems(applicationName, ENTITY_NAME, failures);
+        }
+
+        List<Correction> result = correctionService.saveAll(corrections);
+        return ResponseEntity
+            .status(HttpStatus.CREATED)
+            .body(
+                IntStream
+                    .range(0, result.size())
+                    .mapToObj(i -> BulkItemResultVM.success(i, result.get(i).getId(), HttpStatus.CREATED.value()))
+                    .collect(Collectors.toList())
+            );
+    }
+
+    /**
+     * {@code PUT  /corrections/bulk} : Updates a batch of existing corrections.
+     * <p>
+     * All the corrections, and the exercises they correct, are checked before any of them is saved, and they are saved in a single
+     * transaction.
+     *
+     * @param corrections the corrections to update.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the per-item results,
+     * or with status {@code 400 (Bad Request)} and with body the results of the invalid items if any correction is not valid or not found,
+     * or with status {@code 400 (Bad Request)} if there are too many corrections.
+     */
+    @PutMapping("/corrections/bulk")
+    public ResponseEntity<List<BulkItemResultVM>> updateCorrections(@RequestBody List<Correction> corrections) {
+        log.debug("REST request to update {} Corrections", corrections.size());
+        BulkRequestUtil.checkSize(corrections, maxBulkItems, ENTITY_NAME);
+        Set<Long> ids = corrections
+            .stream()
+            .filter(Objects::nonNull)
+            .map(Correction::getId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Set<Long> existingIds = ids.isEmpty() ? Set.of() : correctionRepository.findExistingIds(ids);
+        Set<Long> exerciseIds = exerciseIds(corrections);
+        Set<Long> existingExerciseIds = exerciseIds.isEmpty() ? Set.of() : exerciseRepository.findExistingIds(exerciseIds);
+        // The correction each exercise currently has, which may be the item itself
+        Map<Long, Long> correctionIdsByExerciseId = exerciseIds.isEmpty()
+            ? Map.of()
+            : correctionRepository
+                .findAllSummariesByExerciseIdIn(exerciseIds)
+                .stream()
+                .collect(Collectors.toMap(summary -> summary.getExercise().getId(), CorrectionSummary::getId));
+        Set<Long> seenExerciseIds = new HashSet<>();
+        Set<Long> seenIds = new HashSet<>();
+        List<BulkItemResultVM> failures = new ArrayList<>();
+        for (int i = 0; i < corrections.size(); i++) {
+            Correction correction = corrections.get(i);
+            Long id = correction != null ? correction.getId() : null;
+            List<String> errors = BulkRequestUtil.validate(validator, correction);
+            boolean notFound = false;
+            if (correction != null && id == null) {
+                errors.add("Invalid id");
+            } else if (id != null && !seenIds.add(id)) {
+                errors.add("Duplicate id");
+            } else if (id != null && !existingIds.contains(id)) {
+                errors.add("Entity not found");
+                notFound = true;
+            }
+            Long exerciseId = correction != null && correction.getExercise() != null ? correction.getExercise().getId() : null;
+            if (isExerciseMissing(correction, existingExerciseIds)) {
+                errors.add("exercise: not found");
+            } else if (
+                exerciseId != null &&
+                (
+                    !seenExerciseIds.add(exerciseId) ||
+                    (correctionIdsByExerciseId.containsKey(exerciseId) && !correctionIdsByExerciseId.get(exerciseId).equals(id))
+                )
+            ) {
+                errors.add("exercise: already has a correction");
+            }
+            if (!errors.isEmpty()) {
+                HttpStatus status = notFound && errors.size() == 1 ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+                failures.add(BulkItemResultVM.failure(i, id, status.value(), errors));
+            }
+        }
+        if (!failures.isEmpty()) {
+            return BulkRequestUtil.invalidItems(applicationName, ENTITY_NAME, failures);
+        }
+
+        List<Correction> result = correctionService.updateAll(corrections);
+        return ResponseEntity.ok(
+            IntStream
+                .range(0, result.size())
+                .mapToObj(i -> BulkItemResultVM.success(i, result.get(i).getId(), HttpStatus.OK.value()))
+                .collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * {@code DELETE  /corrections/bulk?ids=:ids} : delete a batch of corrections.
+     *
+     * @param ids the ids of the corrections to delete.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the per-item results, {@code 204} for the deleted
+     * corrections and {@code 404} for the ones that did not exist, or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @DeleteMapping("/corrections/bulk")
+    public ResponseEntity<List<BulkItemResultVM>> deleteCorrections(@RequestParam List<Long> ids) {
+        log.debug("REST request to delete Corrections : {}", ids);
+        BulkRequestUtil.checkSize(ids, maxBulkItems, ENTITY_NAME);
+        Set<Long> deletedIds = correctionService.deleteAll(ids);
+        return ResponseEntity.ok(
+            IntStream
+                .range(0, ids.size())
+                .mapToObj(i ->
+                    deletedIds.contains(ids.get(i))
+                        ? BulkItemResultVM.success(i, ids.get(i), HttpStatus.NO_CONTENT.value())
+                        : BulkItemResultVM.failure(i, ids.get(i), HttpStatus.NOT_FOUND.value(), List.of("Entity not found"))
+                )
+                .collect(Collectors.toList())
         );
     }
 
+    /**
+     * Whether the correction references an exercise which does not exist, rather than letting its foreign key fail the batch.
+     */
+    private static boolean isExerciseMissing(Correction correction, Set<Long> existingExerciseIds) {
+        if (correction == null || correction.getExercise() == null) {
+            return false;
+        }
+        Long exerciseId = correction.getExercise().getId();
+        return exerciseId == null || !existingExerciseIds.contains(exerciseId);
+    }
+
+    private static Set<Long> exerciseIds(List<Correction> corrections) {
+        return corrections
+            .stream()
+            .filter(Objects::nonNull)
+            .map(Correction::getExercise)
+            .filter(Objects::nonNull)
+            .map(Exercise::getId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+    }
+
     /**
      * {@code GET  /corrections} : get all the corrections.
      *
@@ -161,17 +386,68 @@ public class CorrectionResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /corrections?after=:id} : get the corrections following the "id" correction, using keyset pagination.
+     * <p>
+     * The corrections are ordered by ascending id, and always come with their exercise, whatever {@code eagerload} says.
+     *
+     * @param after the id of the last correction of the previous page, empty to start from the first correction.
+     * @param summary whether the summaries are requested, which keyset pagination does not support.
+     * @param pageable the pagination information, only its size is used.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of corrections in body,
+     * or with status {@code 400 (Bad Request)} if the summaries or a sort are requested.
+     */
+    @GetMapping(value = "/corrections", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<Correction>> getAllCorrectionsAfter(
+        @RequestParam(required = false) Long after,
+        @RequestParam(defaultValue = "false") boolean summary,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a keyset page of Corrections after : {}", after);
+        if (summary) {
+            throw new BadRequestAlertException("Keyset pagination does not support summaries", ENTITY_NAME, "keysetunsupported");
+        }
+        KeysetPaginationUtil.checkUnsorted(pageable, ENTITY_NAME);
+        Slice<Correction> slice = correctionService.findAllAfter(after, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            slice,
+            Correction::getId
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /corrections?summary=true} : get all the corrections without their content.
+     *
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of correction summaries in body.
+     */
+    @GetMapping(value = "/corrections", params = { "summary=true", "!" + KeysetPaginationUtil.AFTER_PARAMETER })
+    public ResponseEntity<List<CorrectionSummary>> getAllCorrectionSummaries(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+        log.debug("REST request to get a page of Correction summaries");
+        Page<CorrectionSummary> page = correctionService.findAllSummaries(pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
     /**
      * {@code GET  /corrections/:id} : get the "id" correction.
      *
      * @param id the id of the correction to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the correction, or with status {@code 404 (Not Found)}.
+     * @param request the request, whose {@code If-None-Match} header makes the read conditional.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the correction and its ETag,
+     * or with status {@code 304 (Not Modified)} if the {@code If-None-Match} header holds the current ETag,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/corrections/{id}")
-    public ResponseEntity<Correction> getCorrection(@PathVariable Long id) {
+    public ResponseEntity<Correction> getCorrection(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Correction : {}", id);
+        if (ETagUtil.checkNotModified(request, () -> correctionService.findResourceVersion(id))) {
+            return null;
+        }
         Optional<Correction> correction = correctionService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(correction);
+        return ETagUtil.wrapOrNotFound(correction, ResourceVersion::of);
     }
 
     /**
@@ -2,8 +2,13 @@ package com.minesup.ape.web.rest;
 
 import com.minesup.ape.domain.Course;
 import com.minesup.ape.repository.CourseRepository;
+import com.minesup.ape.repository.CourseSummary;
+import com.minesup.ape.repository.ResourceVersion;
 import com.minesup.ape.service.CourseService;
+import com.minesup.ape.service.dto.CourseTreeDTO;
 import com.minesup.ape.web.rest.errors.BadRequestAlertException;
+import com.minesup.ape.web.rest.util.ETagUtil;
+import com.minesup.ape.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -16,10 +21,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -73,7 +80,9 @@ public class CourseResource {
      *
      * @param id the id of the course to save.
      * @param course the course to update.
+     * @param request the request, whose {@code If-Match} header makes the update conditional.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated course,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not hold the current ETag,
      * or with status {@code 400 (Bad Request)} if the course is not valid,
      * or with status {@code 500 (Internal Server Error)} if the course couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -81,7 +90,8 @@ public class CourseResource {
     @PutMapping("/courses/{id}")
     public ResponseEntity<Course> updateCourse(
         @PathVariable(value = "id", required = false) final Long id,
-        @Valid @RequestBody Course course
+        @Valid @RequestBody Course course,
+        WebRequest request
     ) throws URISyntaxException {
         log.debug("REST request to update Course : {}, {}", id, course);
         if (course.getId() == null) {
@@ -95,10 +105,16 @@ public class CourseResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
+        ETagUtil.checkIfMatch(request, () -> courseService.findResourceVersion(id), ENTITY_NAME).ifPresent(course::setVersion);
         Course result = courseService.update(course);
         return ResponseEntity
             .ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, course.getId().toString()))
+            .headers(
+                ETagUtil.withETag(
+                    HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, course.getId().toString()),
+                    courseService.findResourceVersion(id)
+                )
+            )
             .body(result);
     }
 
@@ -107,7 +123,9 @@ public class CourseResource {
      *
      * @param id the id of the course to save.
      * @param course the course to update.
+     * @param request the request, whose {@code If-Match} header makes the update conditional.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated course,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not hold the current ETag,
      * or with status {@code 400 (Bad Request)} if the course is not valid,
      * or with status {@code 404 (Not Found)} if the course is not found,
      * or with status {@code 500 (Internal Server Error)} if the course couldn't be updated.
@@ -116,7 +134,8 @@ public class CourseResource {
     @PatchMapping(value = "/courses/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Course> partialUpdateCourse(
         @PathVariable(value = "id", required = false) final Long id,
-        @NotNull @RequestBody Course course
+        @NotNull @RequestBody Course course,
+        WebRequest request
     ) throws URISyntaxException {
         log.debug("REST request to partial update Course partially : {}, {}", id, course);
         if (course.getId() == null) {
@@ -130,11 +149,15 @@ public class CourseResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
+        ETagUtil.checkIfMatch(request, () -> courseService.findResourceVersion(id), ENTITY_NAME).ifPresent(course::setVersion);
         Optional<Course> result = courseService.partialUpdate(course);
 
         return ResponseUtil.wrapOrNotFound(
             result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, course.getId().toString())
+            ETagUtil.withETag(
+                HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, course.getId().toString()),
+                courseService.findResourceVersion(id)
+            )
         );
     }
 
@@ -152,17 +175,85 @@ public class CourseResource {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /courses?after=:id} : get the courses following the "id" course, using keyset pagination.
+     * <p>
+     * The courses are ordered by ascending id.
+     *
+     * @param after the id of the last course of the previous page, empty to start from the first course.
+     * @param summary whether the summaries are requested, which keyset pagination does not support.
+     * @param pageable the pagination information, only its size is used.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of courses in body,
+     * or with status {@code 400 (Bad Request)} if the summaries or a sort are requested.
+     */
+    @GetMapping(value = "/courses", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<Course>> getAllCoursesAfter(
+        @RequestParam(required = false) Long after,
+        @RequestParam(defaultValue = "false") boolean summary,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a keyset page of Courses after : {}", after);
+        if (summary) {
+            throw new BadRequestAlertException("Keyset pagination does not support summaries", ENTITY_NAME, "keysetunsupported");
+        }
+        KeysetPaginationUtil.checkUnsorted(pageable, ENTITY_NAME);
+        Slice<Course> slice = courseService.findAllAfter(after, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            slice,
+            Course::getId
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /courses?summary=true} : get all the courses without their content.
+     *
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of course summaries in body.
+     */
+    @GetMapping(value = "/courses", params = { "summary=true", "!" + KeysetPaginationUtil.AFTER_PARAMETER })
+    public ResponseEntity<List<CourseSummary>> getAllCourseSummaries(@org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+        log.debug("REST request to get a page of Course summaries");
+        Page<CourseSummary> page = courseService.findAllSummaries(pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
     /**
      * {@code GET  /courses/:id} : get the "id" course.
      *
      * @param id the id of the course to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the course, or with status {@code 404 (Not Found)}.
+     * @param request the request, whose {@code If-None-Match} header makes the read conditional.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the course and its ETag,
+     * or with status {@code 304 (Not Modified)} if the {@code If-None-Match} header holds the current ETag,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/courses/{id}")
-    public ResponseEntity<Course> getCourse(@PathVariable Long id) {
+    public ResponseEntity<Course> getCourse(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Course : {}", id);
+        if (ETagUtil.checkNotModified(request, () -> courseService.findResourceVersion(id))) {
+            return null;
+        }
         Optional<Course> course = courseService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(course);
+        return ETagUtil.wrapOrNotFound(course, ResourceVersion::of);
+    }
+
+    /**
+     * {@code GET  /courses/:id/tree} : get the "id" course with all its exercises and their corrections.
+     *
+     * @param id the id of the course to retrieve.
+     * @param includeContent flag to include the content of the course, exercises and corrections.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the course tree, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/courses/{id}/tree")
+    public ResponseEntity<CourseTreeDTO> getCourseTree(
+        @PathVariable Long id,
+        @RequestParam(required = false, defaultValue = "true") boolean includeContent
+    ) {
+        log.debug("REST request to get Course tree : {}", id);
+        Optional<CourseTreeDTO> courseTree = courseService.findOneTree(id, includeContent);
+        return ResponseUtil.wrapOrNotFound(courseTree);
     }
 
     /**
@@ -1,26 +1,43 @@
 package com.minesup.ape.web.rest;
 
+import com.minesup.ape.config.ApplicationProperties;
+import com.minesup.ape.domain.Course;
 import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.repository.CorrectionRepository;
+import com.minesup.ape.repository.CourseRepository;
 import com.minesup.ape.repository.ExerciseRepository;
+import com.minesup.ape.repository.ExerciseSummary;
+import com.minesup.ape.repository.ResourceVersion;
 import com.minesup.ape.service.ExerciseService;
 import com.minesup.ape.web.rest.errors.BadRequestAlertException;
+import com.minesup.ape.web.rest.util.BulkRequestUtil;
+import com.minesup.ape.web.rest.util.ETagUtil;
+import com.minesup.ape.web.rest.util.KeysetPaginationUtil;
+import com.minesup.ape.web.rest.vm.BulkItemResultVM;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.StreamSupport;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
@@ -44,9 +61,28 @@ public class ExerciseResource {
 
     private final ExerciseRepository exerciseRepository;
 
-    public ExerciseResource(ExerciseService exerciseService, ExerciseRepository exerciseRepository) {
+    private final CourseRepository courseRepository;
+
+    private final CorrectionRepository correctionRepository;
+
+    private final Validator validator;
+
+    private final int maxBulkItems;
+
+    public ExerciseResource(
+        ExerciseService exerciseService,
+        ExerciseRepository exerciseRepository,
+        CourseRepository courseRepository,
+        CorrectionRepository correctionRepository,
+        Validator validator,
+        ApplicationProperties applicationProperties
+    ) {
         this.exerciseService = exerciseService;
         this.exerciseRepository = exerciseRepository;
+        this.courseRepository = courseRepository;
+        this.correctionRepository = correctionRepository;
+        this.validator = validator;
+        this.maxBulkItems = applicationProperties.getBulkRequests().getMaxItems();
     }
 
     /**
@@ -74,7 +110,9 @@ public class ExerciseResource {
      *
      * @param id the id of the exercise to save.
      * @param exercise the exercise to update.
+     * @param request the request, whose {@code If-Match} header makes the update conditional.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated exercise,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not hold the current ETag,
      * or with status {@code 400 (Bad Request)} if the exercise is not valid,
      * or with status {@code 500 (Internal Server Error)} if the exercise couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -82,7 +120,8 @@ public class ExerciseResource {
     @PutMapping("/exercises/{id}")
     public ResponseEntity<Exercise> updateExercise(
         @PathVariable(value = "id", required = false) final Long id,
-        @Valid @RequestBody Exercise exercise
+        @Valid @RequestBody Exercise exercise,
+        WebRequest request
     ) throws URISyntaxException {
         log.debug("REST request to update Exercise : {}, {}", id, exercise);
         if (exercise.getId() == null) {
@@ -96,10 +135,16 @@ public class ExerciseResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
+        ETagUtil.checkIfMatch(request, () -> exerciseService.findResourceVersion(id), ENTITY_NAME).ifPresent(exercise::setVersion);
         Exercise result = exerciseService.update(exercise);
         return ResponseEntity
             .ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, exercise.getId().toString()))
+            .headers(
+                ETagUtil.withETag(
+                    HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, exercise.getId().toString()),
+                    exerciseService.findResourceVersion(id)
+                )
+            )
             .body(result);
     }
 
@@ -108,7 +153,9 @@ public class ExerciseResource {
      *
      * @param id the id of the exercise to save.
      * @param exercise the exercise to update.
+     * @param request the request, whose {@code If-Match} header makes the update conditional.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated exercise,
+     * or with status {@code 412 (Precondition Failed)} if the {@code If-Match} header does not hold the current ETag,
      * or with status {@code 400 (Bad Request)} if the exercise is not valid,
      * or with status {@code 404 (Not Found)} if the exercise is not found,
      * or with status {@code 500 (Internal Server Error)} if the exercise couldn't be updated.
@@ -117,7 +164,8 @@ public class ExerciseResource {
     @PatchMapping(value = "/exercises/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public ResponseEntity<Exercise> partialUpdateExercise(
         @PathVariable(value = "id", required = false) final Long id,
-        @NotNull @RequestBody Exercise exercise
+        @NotNull @RequestBody Exercise exercise,
+        WebRequest request
     ) throws URISyntaxException {
         log.debug("REST request to partial update Exercise partially : {}, {}", id, exercise);
         if (exercise.getId() == null) {
@@ -131,14 +179,181 @@ public class ExerciseResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
+        ETagUtil.checkIfMatch(request, () -> exerciseService.findResourceVersion(id), ENTITY_NAME).ifPresent(exercise::setVersion);
         Optional<Exercise> result = exerciseService.partialUpdate(exercise);
 
         return ResponseUtil.wrapOrNotFound(
             result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, exercise.getId().toString())
+            ETagUtil.withETag(
+                HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, exercise.getId().toString()),
+                exerciseService.findResourceVersion(id)
+            )
         );
     }
 
+    /**
+     * {@code POST  /exercises/bulk} : Create a batch of new exercises.
+     * <p>
+     * All the exercises, and the courses they belong to, are checked before any of them is saved, and they are saved in a single
+     * transaction.
+     *
+     * @param exercises the exercises to create.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the per-item results,
+     * or with status {@code 400 (Bad Request)} and with body the results of the invalid items if any exercise is not valid,
+     * or with status {@code 400 (Bad Request)} if there are too many exercises.
+     */
+    @PostMapping("/exercises/bulk")
+    public ResponseEntity<List<BulkItemResultVM>> createExercises(@RequestBody List<Exercise> exercises) {
+        log.debug("REST request to save {} Exercises", exercises.size());
+        BulkRequestUtil.checkSize(exercises, maxBulkItems, ENTITY_NAME);
+        Set<Long> existingCourseIds = findExistingCourseIds(exercises);
+        List<BulkItemResultVM> failures = new ArrayList<>();
+        for (int i = 0; i < exercises.size(); i++) {
+            Exercise exercise = exercises.get(i);
+            Long id = exercise != null ? exercise.getId() : null;
+            List<String> errors = BulkRequestUtil.validate(validator, exercise);
+            if (id != null) {
+                errors.add("A new exercise cannot already have an ID");
+            }
+            checkCourseExists(exercise, existingCourseIds, errors);
+            if (!errors.isEmpty()) {
+                failures.add(BulkItemResultVM.failure(i, id, HttpStatus.BAD_REQUEST.value(), errors));
+            }
+        }
+        if (!failures.isEmpty()) {
+            return BulkRequestUtil.invalidItems(applicationName, ENTITY_NAME, failures);
+        }
+
+        List<Exercise> result = exerciseService.saveAll(exercises);
+        return ResponseEntity
+            .status(HttpStatus.CREATED)
+            .body(
+                IntStream
+                    .range(0, result.size())
+                    .mapToObj(i -> BulkItemResultVM.success(i, result.get(i).getId(), HttpStatus.CREATED.value()))
+                    .collect(Collectors.toList())
+            );
+    }
+
+    /**
+     * {@code PUT  /exercises/bulk} : Updates a batch of existing exercises.
+     * <p>
+     * All the exercises, and the courses they belong to, are checked before any of them is saved, and they are saved in a single
+     * transaction.
+     *
+     * @param exercises the exercises to update.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the per-item results,
+     * or with status {@code 400 (Bad Request)} and with body the results of the invalid items if any exercise is not valid or not found,
+     * or with status {@code 400 (Bad Request)} if there are too many exercises.
+     */
+    @PutMapping("/exercises/bulk")
+    public ResponseEntity<List<BulkItemResultVM>> updateExercises(@RequestBody List<Exercise> exercises) {
+        log.debug("REST request to update {} Exercises", exercises.size());
+        BulkRequestUtil.checkSize(exercises, maxBulkItems, ENTITY_NAME);
+        Set<Long> ids = exercises
+            .stream()
+            .filter(Objects::nonNull)
+            .map(Exercise::getId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        Set<Long> existingIds = ids.isEmpty() ? Set.of() : exerciseRepository.findExistingIds(ids);
+        Set<Long> existingCourseIds = findExistingCourseIds(exercises);
+        Set<Long> seenIds = new HashSet<>();
+        List<BulkItemResultVM> failures = new ArrayList<>();
+        for (int i = 0; i < exercises.size(); i++) {
+            Exercise exercise = exercises.get(i);
+            Long id = exercise != null ? exercise.getId() : null;
+            List<String> errors = BulkRequestUtil.validate(validator, exercise);
+            boolean notFound = false;
+            if (exercise != null && id == null) {
+                errors.add("Invalid id");
+            } else if (id != null && !seenIds.add(id)) {
+                errors.add("Duplicate id");
+            } else if (id != null && !existingIds.contains(id)) {
+                errors.add("Entity not found");
+                notFound = true;
+            }
+            checkCourseExists(exercise, existingCourseIds, errors);
+            if (!errors.isEmpty()) {
+                HttpStatus status = notFound && errors.size() == 1 ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+                failures.add(BulkItemResultVM.failure(i, id, status.value(), errors));
+            }
+        }
+        if (!failures.isEmpty()) {
+            return BulkRequestUtil.invalidItems(applicationName, ENTITY_NAME, failures);
+        }
+
+        List<Exercise> result = exerciseService.updateAll(exercises);
+        return ResponseEntity.ok(
+            IntStream
+                .range(0, result.size())
+                .mapToObj(i -> BulkItemResultVM.success(i, result.get(i).getId(), HttpStatus.OK.value()))
+                .collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * {@code DELETE  /exercises/bulk?ids=:ids} : delete a batch of exercises.
+     *
+     * <p>
+     * The exercises which have a correction are kept, rather than letting its foreign key fail the batch.
+     *
+     * @param ids the ids of the exercises to delete.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the per-item results, {@code 204} for the deleted
+     * exercises, {@code 409} for the ones that have a correction and {@code 404} for the ones that did not exist,
+     * or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @DeleteMapping("/exercises/bulk")
+    public ResponseEntity<List<BulkItemResultVM>> deleteExercises(@RequestParam List<Long> ids) {
+        log.debug("REST request to delete Exercises : {}", ids);
+        BulkRequestUtil.checkSize(ids, maxBulkItems, ENTITY_NAME);
+        Set<Long> correctedIds = ids.isEmpty() ? Set.of() : correctionRepository.findCorrectedExerciseIds(ids);
+        Set<Long> deletedIds = exerciseService.deleteAll(
+            ids.stream().filter(id -> !correctedIds.contains(id)).collect(Collectors.toSet())
+        );
+        return ResponseEntity.ok(
+            IntStream
+                .range(0, ids.size())
+                .mapToObj(i -> {
+                    if (deletedIds.contains(ids.get(i))) {
+                        return BulkItemResultVM.success(i, ids.get(i), HttpStatus.NO_CONTENT.value());
+                    } else if (correctedIds.contains(ids.get(i))) {
+                        return BulkItemResultVM.failure(i, ids.get(i), HttpStatus.CONFLICT.value(), List.of("Entity has a correction"));
+                    }
+                    return BulkItemResultVM.failure(i, ids.get(i), HttpStatus.NOT_FOUND.value(), List.of("Entity not found"));
+                })
+                .collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * The courses referenced by the exercises which exist, found with a single query.
+     */
+    private Set<Long> findExistingCourseIds(List<Exercise> exercises) {
+        Set<Long> courseIds = exercises
+            .stream()
+            .filter(Objects::nonNull)
+            .map(Exercise::getCourse)
+            .filter(Objects::nonNull)
+            .map(Course::getId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        return courseIds.isEmpty() ? Set.of() : courseRepository.findExistingIds(courseIds);
+    }
+
+    /**
+     * Adds an error if the exercise references a course which does not exist, rather than letting its foreign key fail the batch.
+     */
+    private static void checkCourseExists(Exercise exercise, Set<Long> existingCourseIds, List<String> errors) {
+        if (exercise == null || exercise.getCourse() == null) {
+            return;
+        }
+        Long courseId = exercise.getCourse().getId();
+        if (courseId == null || !existingCourseIds.contains(courseId)) {
+            errors.add("course: not found");
+        }
+    }
+
     /**
      * {@code GET  /exercises} : get all the exercises.
      *
@@ -153,16 +368,79 @@ public class ExerciseResource {
         @RequestParam(required = false) String filter,
         @RequestParam(required = false, defaultValue = "true") boolean eagerload
     ) {
+        Page<Exercise> page;
         if ("correction-is-null".equals(filter)) {
-            log.debug("REST request to get all Exercises where correction is null");
-            return new ResponseEntity<>(exerciseService.findAllWhereCorrectionIsNull(), HttpStatus.OK);
+            log.debug("REST request to get a page of Exercises where correction is null");
+            page = exerciseService.findAllWhereCorrectionIsNull(pageable);
+        } else {
+            log.debug("REST request to get a page of Exercises");
+            if (eagerload) {
+                page = exerciseService.findAllWithEagerRelationships(pageable);
+            } else {
+                page = exerciseService.findAll(pageable);
+            }
         }
-        log.debug("REST request to get a page of Exercises");
-        Page<Exercise> page;
-        if (eagerload) {
-            page = exerciseService.findAllWithEagerRelationships(pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /exercises?after=:id} : get the exercises following the "id" exercise, using keyset pagination.
+     * <p>
+     * The exercises are ordered by ascending id, and always come with their course and correction, whatever {@code eagerload}
+     * says.
+     *
+     * @param after the id of the last exercise of the previous page, empty to start from the first exercise.
+     * @param summary whether the summaries are requested, which keyset pagination does not support.
+     * @param filter the filter of the request, which keyset pagination does not support.
+     * @param pageable the pagination information, only its size is used.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of exercises in body,
+     * or with status {@code 400 (Bad Request)} if summaries, a filter or a sort are requested too.
+     */
+    @GetMapping(value = "/exercises", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    public ResponseEntity<List<Exercise>> getAllExercisesAfter(
+        @RequestParam(required = false) Long after,
+        @RequestParam(defaultValue = "false") boolean summary,
+        @RequestParam(required = false) String filter,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a keyset page of Exercises after : {}", after);
+        if (summary || filter != null) {
+            throw new BadRequestAlertException(
+                "Keyset pagination supports neither summaries nor filters",
+                ENTITY_NAME,
+                "keysetunsupported"
+            );
+        }
+        KeysetPaginationUtil.checkUnsorted(pageable, ENTITY_NAME);
+        Slice<Exercise> slice = exerciseService.findAllAfter(after, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            slice,
+            Exercise::getId
+        );
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /exercises?summary=true} : get all the exercises without their content.
+     *
+     * @param pageable the pagination information.
+     * @param filter the filter of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of exercise summaries in body.
+     */
+    @GetMapping(value = "/exercises", params = { "summary=true", "!" + KeysetPaginationUtil.AFTER_PARAMETER })
+    public ResponseEntity<List<ExerciseSummary>> getAllExerciseSummaries(
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestParam(required = false) String filter
+    ) {
+        Page<ExerciseSummary> page;
+        if ("correction-is-null".equals(filter)) {
+            log.debug("REST request to get a page of Exercise summaries where correction is null");
+            page = exerciseService.findAllSummariesWhereCorrectionIsNull(pageable);
         } else {
-            page = exerciseService.findAll(pageable);
+            log.debug("REST request to get a page of Exercise summaries");
+            page = exerciseService.findAllSummaries(pageable);
         }
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
@@ -172,13 +450,19 @@ public class ExerciseResource {
      * {@code GET  /exercises/:id} : get the "id" exercise.
      *
      * @param id the id of the exercise to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the exercise, or with status {@code 404 (Not Found)}.
+     * @param request the request, whose {@code If-None-Match} header makes the read conditional.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the exercise and its ETag,
+     * or with status {@code 304 (Not Modified)} if the {@code If-None-Match} header holds the current ETag,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/exercises/{id}")
-    public ResponseEntity<Exercise> getExercise(@PathVariable Long id) {
+    public ResponseEntity<Exercise> getExercise(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Exercise : {}", id);
+        if (ETagUtil.checkNotModified(request, () -> exerciseService.findResourceVersion(id))) {
+            return null;
+        }
         Optional<Exercise> exercise = exerciseService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(exercise);
+        return ETagUtil.wrapOrNotFound(exercise, ResourceVersion::of);
     }
 
     /**
@@ -0,0 +1,124 @@
+package com.minesup.ape.web.rest;
+
+import static com.minesup.ape.web.rest.util.ExportWriter.column;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.repository.ExerciseExport;
+import com.minesup.ape.security.AuthoritiesConstants;
+import com.minesup.ape.service.ExportService;
+import com.minesup.ape.web.rest.errors.BadRequestAlertException;
+import com.minesup.ape.web.rest.util.ExportWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for exporting all the courses, exercises and corrections at once, as newline-delimited JSON or CSV.
+ * <p>
+ * Unlike the paginated endpoints, each export is a single query read through a database cursor and written as it is read,
+ * without any count query nor pagination headers.
+ */
+@RestController
+@RequestMapping("/api/export")
+@PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+public class ExportResource {
+
+    private static final List<ExportWriter.Column<Course>> COURSE_COLUMNS = List.of(
+        column("id", Course::getId),
+        column("version", Course::getVersion),
+        column("title", Course::getTitle),
+        column("content", Course::getContent)
+    );
+
+    private static final List<ExportWriter.Column<ExerciseExport>> EXERCISE_COLUMNS = List.of(
+        column("id", ExerciseExport::getId),
+        column("version", ExerciseExport::getVersion),
+        column("title", ExerciseExport::getTitle),
+        column("content", ExerciseExport::getContent),
+        column("mark", ExerciseExport::getMark),
+        column("courseId", ExerciseExport::getCourseId),
+        column("correctionId", ExerciseExport::getCorrectionId)
+    );
+
+    private static final List<ExportWriter.Column<Correction>> CORRECTION_COLUMNS = List.of(
+        column("id", Correction::getId),
+        column("version", Correction::getVersion),
+        column("content", Correction::getContent),
+        column("exerciseId", correction -> correction.getExercise().getId())
+    );
+
+    private final Logger log = LoggerFactory.getLogger(ExportResource.class);
+
+    private final ExportService exportService;
+
+    private final ObjectMapper objectMapper;
+
+    public ExportResource(ExportService exportService, ObjectMapper objectMapper) {
+        this.exportService = exportService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * {@code GET  /export/courses} : export all the courses, ordered by id.
+     *
+     * @param format the format of the export, {@code ndjson} (the default) or {@code csv}.
+     * @param response the response the courses are written to.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping("/courses")
+    public void exportCourses(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+        log.debug("REST request to export all Courses as {}", format);
+        export(response, format, "courses", COURSE_COLUMNS, exportService::exportCourses);
+    }
+
+    /**
+     * {@code GET  /export/exercises} : export all the exercises, ordered by id.
+     *
+     * @param format the format of the export, {@code ndjson} (the default) or {@code csv}.
+     * @param response the response the exercises are written to.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping("/exercises")
+    public void exportExercises(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+        log.debug("REST request to export all Exercises as {}", format);
+        export(response, format, "exercises", EXERCISE_COLUMNS, exportService::exportExercises);
+    }
+
+    /**
+     * {@code GET  /export/corrections} : export all the corrections, ordered by id.
+     *
+     * @param format the format of the export, {@code ndjson} (the default) or {@code csv}.
+     * @param response the response the corrections are written to.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping("/corrections")
+    public void exportCorrections(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response)
+        throws IOException {
+        log.debug("REST request to export all Corrections as {}", format);
+        export(response, format, "corrections", CORRECTION_COLUMNS, exportService::exportCorrections);
+    }
+
+    private <T> void export(
+        HttpServletResponse response,
+        String format,
+        String name,
+        List<ExportWriter.Column<T>> columns,
+        ToLongFunction<Consumer<T>> exporter
+    ) throws IOException {
+        ExportWriter.Format exportFormat = ExportWriter.Format
+            .of(format)
+            .orElseThrow(() -> new BadRequestAlertException("Unsupported export format", name, "exportformatinvalid"));
+        try (ExportWriter<T> writer = ExportWriter.open(response, exportFormat, name, columns, objectMapper)) {
+            long count = exporter.applyAsLong(writer::write);
+            log.debug("Exported {} {}", count, name);
+        }
+    }
+}
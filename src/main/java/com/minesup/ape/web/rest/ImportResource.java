@@ -0,0 +1,139 @@
+package com.minesup.ape.web.rest;
+
+import com.minesup.ape.security.AuthoritiesConstants;
+import com.minesup.ape.service.ImportService;
+import com.minesup.ape.service.dto.ImportJobDTO;
+import com.minesup.ape.web.rest.errors.BadRequestAlertException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for importing files of courses, exercises and corrections, in the same formats as the exports.
+ * <p>
+ * The file is the raw request body. It is imported in the background, the returned job being polled for its progress.
+ */
+@RestController
+@RequestMapping("/api/imports")
+@PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+public class ImportResource {
+
+    private static final String ENTITY_NAME = "importJob";
+
+    private final Logger log = LoggerFactory.getLogger(ImportResource.class);
+
+    private final ImportService importService;
+
+    public ImportResource(ImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * {@code POST  /imports/courses} : Start importing a file of courses, with {@code title} and {@code content} fields.
+     *
+     * @param format the format of the file, {@code ndjson} (the default) or {@code csv}.
+     * @param body the file.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the queued job, or with status
+     * {@code 503 (Service Unavailable)} if too many jobs are already queued.
+     * @throws IOException if the file cannot be read.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/courses")
+    public ResponseEntity<ImportJobDTO> importCourses(@RequestParam(defaultValue = "ndjson") String format, InputStream body)
+        throws IOException, URISyntaxException {
+        log.debug("REST request to import Courses from {}", format);
+        try {
+            return accepted(importService.importCourses(parseFormat(format), body));
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports are queued", e);
+        }
+    }
+
+    /**
+     * {@code POST  /imports/exercises} : Start importing a file of exercises, with {@code title}, {@code content}, {@code mark}
+     * and {@code course} fields, the latter being the title of an existing course.
+     *
+     * @param format the format of the file, {@code ndjson} (the default) or {@code csv}.
+     * @param body the file.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the queued job, or with status
+     * {@code 503 (Service Unavailable)} if too many jobs are already queued.
+     * @throws IOException if the file cannot be read.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/exercises")
+    public ResponseEntity<ImportJobDTO> importExercises(@RequestParam(defaultValue = "ndjson") String format, InputStream body)
+        throws IOException, URISyntaxException {
+        log.debug("REST request to import Exercises from {}", format);
+        try {
+            return accepted(importService.importExercises(parseFormat(format), body));
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports are queued", e);
+        }
+    }
+
+    /**
+     * {@code POST  /imports/corrections} : Start importing a file of corrections, with {@code content} and {@code exercise}
+     * fields, the latter being the title of an existing exercise without correction.
+     *
+     * @param format the format of the file, {@code ndjson} (the default) or {@code csv}.
+     * @param body the file.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the queued job, or with status
+     * {@code 503 (Service Unavailable)} if too many jobs are already queued.
+     * @throws IOException if the file cannot be read.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/corrections")
+    public ResponseEntity<ImportJobDTO> importCorrections(@RequestParam(defaultValue = "ndjson") String format, InputStream body)
+        throws IOException, URISyntaxException {
+        log.debug("REST request to import Corrections from {}", format);
+        try {
+            return accepted(importService.importCorrections(parseFormat(format), body));
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports are queued", e);
+        }
+    }
+
+    /**
+     * {@code GET  /imports} : get the recent import jobs.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of jobs in body, most recent first.
+     */
+    @GetMapping("")
+    public List<ImportJobDTO> getAllImportJobs() {
+        log.debug("REST request to get all import jobs");
+        return importService.findAll();
+    }
+
+    /**
+     * {@code GET  /imports/:id} : get the "id" import job.
+     *
+     * @param id the id of the job to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the job, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable String id) {
+        log.debug("REST request to get import job : {}", id);
+        return ResponseUtil.wrapOrNotFound(importService.findOne(id));
+    }
+
+    private static ImportService.Format parseFormat(String format) {
+        return ImportService.Format
+            .of(format)
+            .orElseThrow(() -> new BadRequestAlertException("Unsupported import format", ENTITY_NAME, "importformatinvalid"));
+    }
+
+    private static ResponseEntity<ImportJobDTO> accepted(ImportJobDTO job) throws URISyntaxException {
+        return ResponseEntity.accepted().location(new URI("/api/imports/" + job.getId())).body(job);
+    }
+}
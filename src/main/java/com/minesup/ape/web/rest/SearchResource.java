@@ -0,0 +1,64 @@
+package com.minesup.ape.web.rest;
+
+import com.minesup.ape.repository.SearchHit;
+import com.minesup.ape.service.SearchService;
+import com.minesup.ape.web.rest.errors.BadRequestAlertException;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * REST controller for searching the courses and exercises.
+ */
+@RestController
+@RequestMapping("/api")
+public class SearchResource {
+
+    private static final String ENTITY_NAME = "search";
+
+    private final Logger log = LoggerFactory.getLogger(SearchResource.class);
+
+    private final SearchService searchService;
+
+    public SearchResource(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    /**
+     * {@code GET  /search?query=:query} : search the titles and contents of the courses and exercises.
+     * <p>
+     * No total count is computed: the client follows the {@code Link: rel="next"} header, present when there are more hits.
+     *
+     * @param query the words to look for.
+     * @param pageable the pagination information, the hits being sorted by relevance.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of hits in body, or with status
+     * {@code 400 (Bad Request)} if the query is blank.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<SearchHit>> search(
+        @RequestParam String query,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to search for : {}", query);
+        if (query.isBlank()) {
+            throw new BadRequestAlertException("The search query must not be blank", ENTITY_NAME, "querymissing");
+        }
+        Slice<SearchHit> slice = searchService.search(query, pageable);
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.hasNext()) {
+            String next = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .replaceQueryParam("page", slice.getNumber() + 1)
+                .replaceQueryParam("size", slice.getSize())
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+}
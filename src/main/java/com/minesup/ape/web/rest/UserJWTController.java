@@ -1,21 +1,31 @@
 package com.minesup.ape.web.rest;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.minesup.ape.config.ApplicationProperties;
+import com.minesup.ape.management.SecurityMetersService;
 import com.minesup.ape.security.jwt.JWTFilter;
 import com.minesup.ape.security.jwt.TokenProvider;
+import com.minesup.ape.web.rest.errors.ServiceUnavailableException;
 import com.minesup.ape.web.rest.vm.LoginVM;
+import java.util.concurrent.CompletableFuture;
 import javax.validation.Valid;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 /**
  * Controller to authenticate users.
+ * <p>
+ * The passwords are checked on the {@code authenticationTaskExecutor}, the request being processed asynchronously so that
+ * no web server thread waits meanwhile. Once the executor queue is full, logins are refused with a
+ * {@code 503 (Service Unavailable)} right away.
  */
 @RestController
 @RequestMapping("/api")
@@ -25,24 +35,61 @@ public class UserJWTController {
 
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
 
-    public UserJWTController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder) {
+    private final TaskExecutor authenticationTaskExecutor;
+
+    private final SecurityMetersService securityMetersService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public UserJWTController(
+        TokenProvider tokenProvider,
+        AuthenticationManagerBuilder authenticationManagerBuilder,
+        @Qualifier("authenticationTaskExecutor") TaskExecutor authenticationTaskExecutor,
+        SecurityMetersService securityMetersService,
+        ApplicationProperties applicationProperties
+    ) {
         this.tokenProvider = tokenProvider;
         this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.authenticationTaskExecutor = authenticationTaskExecutor;
+        this.securityMetersService = securityMetersService;
+        this.applicationProperties = applicationProperties;
     }
 
+    /**
+     * {@code POST  /authenticate} : authenticate a user.
+     *
+     * @param loginVM the credentials of the user.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the JWT, or with status
+     * {@code 401 (Unauthorized)} if the credentials are wrong.
+     * @throws ServiceUnavailableException {@code 503 (Service Unavailable)} if too many logins are waiting.
+     */
     @PostMapping("/authenticate")
-    public ResponseEntity<JWTToken> authorize(@Valid @RequestBody LoginVM loginVM) {
+    public CompletableFuture<ResponseEntity<JWTToken>> authorize(@Valid @RequestBody LoginVM loginVM) {
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
             loginVM.getUsername(),
             loginVM.getPassword()
         );
 
-        Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = tokenProvider.createToken(authentication, loginVM.isRememberMe());
-        HttpHeaders httpHeaders = new HttpHeaders();
-        httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
-        return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(
+                () -> {
+                    securityMetersService.recordAuthenticationWait(System.nanoTime() - queuedAt);
+                    Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
+                    String jwt = tokenProvider.createToken(authentication, loginVM.isRememberMe());
+                    HttpHeaders httpHeaders = new HttpHeaders();
+                    httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
+                    return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
+                },
+                authenticationTaskExecutor
+            );
+        } catch (TaskRejectedException e) {
+            securityMetersService.trackAuthenticationRejected();
+            throw new ServiceUnavailableException(
+                "Too many logins are in progress",
+                applicationProperties.getAuthentication().getRetryAfter()
+            );
+        }
     }
 
     /**
@@ -4,12 +4,13 @@ import com.minesup.ape.config.Constants;
 import com.minesup.ape.domain.User;
 import com.minesup.ape.repository.UserRepository;
 import com.minesup.ape.security.AuthoritiesConstants;
-import com.minesup.ape.service.MailService;
 import com.minesup.ape.service.UserService;
 import com.minesup.ape.service.dto.AdminUserDTO;
+import com.minesup.ape.service.dto.UserProvisioningDTO;
 import com.minesup.ape.web.rest.errors.BadRequestAlertException;
 import com.minesup.ape.web.rest.errors.EmailAlreadyUsedException;
 import com.minesup.ape.web.rest.errors.LoginAlreadyUsedException;
+import com.minesup.ape.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
@@ -21,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -85,12 +87,9 @@ public class UserResource {
 
     private final UserRepository userRepository;
 
-    private final MailService mailService;
-
-    public UserResource(UserService userService, UserRepository userRepository, MailService mailService) {
+    public UserResource(UserService userService, UserRepository userRepository) {
         this.userService = userService;
         this.userRepository = userRepository;
-        this.mailService = mailService;
     }
 
     /**
@@ -119,7 +118,6 @@ public class UserResource {
             throw new EmailAlreadyUsedException();
         } else {
             User newUser = userService.createUser(userDTO);
-            mailService.sendCreationEmail(newUser);
             return ResponseEntity
                 .created(new URI("/api/admin/users/" + newUser.getLogin()))
                 .headers(HeaderUtil.createAlert(applicationName, "userManagement.created", newUser.getLogin()))
@@ -127,6 +125,28 @@ public class UserResource {
         }
     }
 
+    /**
+     * {@code POST  /admin/users/bulk}  : Creates new users in bulk.
+     * <p>
+     * Creates the users whose login and email are not already used, and once they are all created sends them a mail with
+     * an activation link. Unlike {@link #createUser}, every user must have an email.
+     *
+     * @param userDTOs the users to create.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the logins of the created users, and the
+     * rejected users with the reasons why.
+     */
+    @PostMapping("/users/bulk")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<UserProvisioningDTO> createUsers(@RequestBody List<AdminUserDTO> userDTOs) {
+        log.debug("REST request to save {} Users", userDTOs.size());
+        UserProvisioningDTO provisioning = userService.createUsers(userDTOs);
+        String created = String.valueOf(provisioning.getCreatedLogins().size());
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createAlert(applicationName, "userManagement.bulkCreated", created))
+            .body(provisioning);
+    }
+
     /**
      * {@code PUT /admin/users} : Updates an existing User.
      *
@@ -174,6 +194,30 @@ public class UserResource {
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * {@code GET /admin/users?after=:id} : get the users following the "id" user with all the details, using keyset pagination
+     * - calling this are only allowed for the administrators.
+     *
+     * @param after the id of the last user of the previous page, empty to start from the first user.
+     * @param pageable the pagination information, only its size is used.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the users.
+     */
+    @GetMapping(value = "/users", params = KeysetPaginationUtil.AFTER_PARAMETER)
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<List<AdminUserDTO>> getAllUsersAfter(
+        @RequestParam(required = false) Long after,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable
+    ) {
+        log.debug("REST request to get a keyset page of User for an admin after : {}", after);
+        final Slice<AdminUserDTO> slice = userService.getAllManagedUsersAfter(after, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            slice,
+            AdminUserDTO::getId
+        );
+        return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+    }
+
     private boolean onlyContainsAllowedProperties(Pageable pageable) {
         return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains);
     }
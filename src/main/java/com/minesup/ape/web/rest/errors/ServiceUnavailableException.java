@@ -0,0 +1,25 @@
+package com.minesup.ape.web.rest.errors;
+
+import java.time.Duration;
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+/**
+ * Thrown when a request is refused because the server is too busy, the client being advised when to try again with a
+ * {@code Retry-After} header.
+ */
+public class ServiceUnavailableException extends AbstractThrowableProblem {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String defaultMessage, Duration retryAfter) {
+        super(ErrorConstants.DEFAULT_TYPE, defaultMessage, Status.SERVICE_UNAVAILABLE);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
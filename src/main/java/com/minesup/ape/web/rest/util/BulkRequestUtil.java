@@ -0,0 +1,72 @@
+package com.minesup.ape.web.rest.util;
+
+import com.minesup.ape.web.rest.errors.BadRequestAlertException;
+import com.minesup.ape.web.rest.vm.BulkItemResultVM;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.validation.Validator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import tech.jhipster.web.util.HeaderUtil;
+
+/**
+ * Utility class for the bulk endpoints, which validate all the items of a request before persisting any of them.
+ */
+public final class BulkRequestUtil {
+
+    private BulkRequestUtil() {}
+
+    /**
+     * Reject a bulk request with more items than a single transaction should hold, before any of them is validated.
+     *
+     * @param items the items of the request.
+     * @param maxItems the maximum number of items.
+     * @param entityName the entity name.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if there are more than {@code maxItems} items.
+     */
+    public static void checkSize(List<?> items, int maxItems, String entityName) {
+        if (items.size() > maxItems) {
+            throw new BadRequestAlertException("Too many items, at most " + maxItems + " per request", entityName, "bulktoolarge");
+        }
+    }
+
+    /**
+     * Validate one item of a bulk request against its bean validation constraints.
+     *
+     * @param validator the validator.
+     * @param item the item, which may be {@code null} when the client sent a {@code null} array element.
+     * @param <T> the type of the item.
+     * @return the constraint violations, as a mutable list the caller can add its own errors to.
+     */
+    public static <T> List<String> validate(Validator validator, T item) {
+        if (item == null) {
+            return new ArrayList<>(List.of("must not be null"));
+        }
+        return validator
+            .validate(item)
+            .stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Create the response of a bulk request rejected because some of its items are invalid.
+     *
+     * @param applicationName the application name.
+     * @param entityName the entity name.
+     * @param failures the results of the invalid items.
+     * @return the {@link ResponseEntity} with status {@code 400 (Bad Request)} and the results of the invalid items in body.
+     */
+    public static ResponseEntity<List<BulkItemResultVM>> invalidItems(
+        String applicationName,
+        String entityName,
+        List<BulkItemResultVM> failures
+    ) {
+        return ResponseEntity
+            .status(HttpStatus.BAD_REQUEST)
+            .headers(HeaderUtil.createFailureAlert(applicationName, true, entityName, "bulkinvalid", "Invalid items, nothing was saved"))
+            .body(failures);
+    }
+}
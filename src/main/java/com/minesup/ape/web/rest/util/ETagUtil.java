@@ -0,0 +1,105 @@
+package com.minesup.ape.web.rest.util;
+
+import com.minesup.ape.repository.ResourceVersion;
+import com.minesup.ape.web.rest.errors.PreconditionFailedAlertException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Utility class for conditional requests, based on strong ETags built from a {@link ResourceVersion}.
+ * <p>
+ * The current version is read with a query that does not load any content, so that {@code If-None-Match} can be answered
+ * with {@code 304 (Not Modified)} and {@code If-Match} checked before the entity itself is touched.
+ */
+public final class ETagUtil {
+
+    private ETagUtil() {}
+
+    /**
+     * @param version the version of the representation.
+     * @return the strong ETag of the representation.
+     */
+    public static String eTag(ResourceVersion version) {
+        return "\"" + version.getTag() + "\"";
+    }
+
+    /**
+     * Answers a {@code GET} whose {@code If-None-Match} header holds the current ETag, in which case the response status
+     * is set to {@code 304 (Not Modified)} and the handler should return {@code null}.
+     * <p>
+     * The current version is not even read when the request has no {@code If-None-Match} header.
+     *
+     * @param request the current request.
+     * @param currentVersion supplier of the current version of the representation, empty if the entity does not exist.
+     * @return whether the client's copy is up to date.
+     */
+    public static boolean checkNotModified(WebRequest request, Supplier<Optional<ResourceVersion>> currentVersion) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return false;
+        }
+        return currentVersion.get().map(version -> request.checkNotModified(eTag(version))).orElse(false);
+    }
+
+    /**
+     * Checks the {@code If-Match} header of a {@code PUT} or {@code PATCH} against the current ETag.
+     * <p>
+     * Nothing is locked: the returned version is to be set on the entity, so that the update itself fails with an
+     * optimistic locking failure if another one slipped in since this check.
+     *
+     * @param request the current request.
+     * @param currentVersion supplier of the current version of the representation, empty if the entity does not exist.
+     * @param entityName the name of the entity, for the alert.
+     * @return the version of the entity the client's copy was read at, empty if the request has no {@code If-Match} header or
+     * accepts any version.
+     * @throws PreconditionFailedAlertException if none of the ETags of the {@code If-Match} header is the current one.
+     */
+    public static Optional<Long> checkIfMatch(WebRequest request, Supplier<Optional<ResourceVersion>> currentVersion, String entityName) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch == null || "*".equals(ifMatch.trim())) {
+            return Optional.empty();
+        }
+        ResourceVersion version = currentVersion
+            .get()
+            .orElseThrow(() -> new PreconditionFailedAlertException("Entity not found", entityName, "concurrencyFailure"));
+        String eTag = eTag(version);
+        // Weak ETags never match here, If-Match requiring a strong comparison
+        if (Arrays.stream(ifMatch.split(",")).map(String::trim).noneMatch(eTag::equals)) {
+            throw new PreconditionFailedAlertException("Entity modified since it was read", entityName, "concurrencyFailure");
+        }
+        return Optional.of(version.getVersion());
+    }
+
+    /**
+     * Adds the ETag of the current version, if any, to the given headers.
+     *
+     * @param headers the headers of the response.
+     * @param version the current version of the representation.
+     * @return the same headers.
+     */
+    public static HttpHeaders withETag(HttpHeaders headers, Optional<ResourceVersion> version) {
+        version.ifPresent(v -> headers.setETag(eTag(v)));
+        return headers;
+    }
+
+    /**
+     * Wrap the optional into a {@link ResponseEntity} with an {@link HttpStatus#OK} status and the ETag of the entity, or
+     * if it's empty, throw a {@link ResponseStatusException} with status {@link HttpStatus#NOT_FOUND}.
+     *
+     * @param maybeResponse response to return if present.
+     * @param version function returning the version of the representation of the entity.
+     * @param <X> type of the response.
+     * @return response containing {@code maybeResponse} if present.
+     */
+    public static <X> ResponseEntity<X> wrapOrNotFound(Optional<X> maybeResponse, Function<X, ResourceVersion> version) {
+        return maybeResponse
+            .map(response -> ResponseEntity.ok().eTag(eTag(version.apply(response))).body(response))
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+}
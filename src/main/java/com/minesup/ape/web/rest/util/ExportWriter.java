@@ -0,0 +1,185 @@
+package com.minesup.ape.web.rest.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Writes entities to the servlet output stream as they come, one flat record per entity, either as newline-delimited JSON
+ * or as CSV.
+ * <p>
+ * Nothing is buffered beyond the output stream itself, so the response starts as soon as the first records are written
+ * and errors can no longer change its status.
+ *
+ * @param <T> the type of the exported entities.
+ */
+public final class ExportWriter<T> implements Closeable {
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv;charset=UTF-8");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return name().toLowerCase();
+        }
+
+        /**
+         * @param name the name of the format, whatever its case.
+         * @return the format, empty if it is not supported.
+         */
+        public static Optional<Format> of(String name) {
+            return Arrays.stream(values()).filter(format -> format.name().equalsIgnoreCase(name)).findFirst();
+        }
+    }
+
+    /**
+     * A field of the exported records.
+     *
+     * @param <T> the type of the exported entities.
+     */
+    public static final class Column<T> {
+
+        private final String name;
+
+        private final Function<T, Object> value;
+
+        private Column(String name, Function<T, Object> value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    private final Format format;
+
+    private final List<Column<T>> columns;
+
+    private final JsonGenerator json;
+
+    private final Writer csv;
+
+    private ExportWriter(Format format, List<Column<T>> columns, HttpServletResponse response, ObjectMapper mapper) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        if (format == Format.NDJSON) {
+            this.json = mapper.getFactory().createGenerator(response.getOutputStream()).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Records are separated by the newline written after each of them
+            this.json.setRootValueSeparator(null);
+            this.csv = null;
+        } else {
+            this.json = null;
+            this.csv = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+            writeCsvRecord(columns.stream().map(column -> (Object) column.name).toArray());
+        }
+    }
+
+    /**
+     * @param name the name of the field.
+     * @param value function returning the value of the field for an entity, {@code null} for an empty field.
+     * @param <T> the type of the exported entities.
+     * @return the column.
+     */
+    public static <T> Column<T> column(String name, Function<T, Object> value) {
+        return new Column<>(name, value);
+    }
+
+    /**
+     * Sets the content type of the response and starts writing it, the CSV header coming first.
+     *
+     * @param response the response to write to.
+     * @param format the format of the records.
+     * @param fileName the name of the file suggested to the client, without extension.
+     * @param columns the fields of the records.
+     * @param mapper the object mapper, writing the JSON values.
+     * @param <T> the type of the exported entities.
+     * @return the writer, to be closed once all the entities have been written.
+     * @throws IOException if the response cannot be written.
+     */
+    public static <T> ExportWriter<T> open(
+        HttpServletResponse response,
+        Format format,
+        String fileName,
+        List<Column<T>> columns,
+        ObjectMapper mapper
+    ) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setHeader(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(fileName + "." + format.getExtension()).build().toString()
+        );
+        return new ExportWriter<>(format, columns, response, mapper);
+    }
+
+    /**
+     * Writes the record of the given entity.
+     *
+     * @param entity the entity to write.
+     * @throws UncheckedIOException if the response cannot be written, typically because the client went away.
+     */
+    public void write(T entity) {
+        try {
+            if (format == Format.NDJSON) {
+                json.writeStartObject();
+                for (Column<T> column : columns) {
+                    json.writeObjectField(column.name, column.value.apply(entity));
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+            } else {
+                writeCsvRecord(columns.stream().map(column -> column.value.apply(entity)).toArray());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (json != null) {
+            json.close();
+        } else {
+            csv.flush();
+        }
+    }
+
+    private void writeCsvRecord(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                csv.write(',');
+            }
+            if (values[i] != null) {
+                csv.write(escapeCsv(values[i].toString()));
+            }
+        }
+        csv.write("\r\n");
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
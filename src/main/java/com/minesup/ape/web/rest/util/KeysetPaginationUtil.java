@@ -0,0 +1,65 @@
+package com.minesup.ape.web.rest.util;
+
+import com.minesup.ape.web.rest.errors.BadRequestAlertException;
+import java.util.function.Function;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (seek) pagination.
+ * <p>
+ * Unlike {@link tech.jhipster.web.util.PaginationUtil}, no total count is produced: the client follows the
+ * {@code Link: rel="next"} header, which carries the id of the last returned entity as the {@code after} cursor. The pages
+ * are always ordered by ascending id, the cursor being an id.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String AFTER_PARAMETER = "after";
+
+    private static final String HEADER_LINK_FORMAT = "<%s>; rel=\"%s\"";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Reject a keyset page request which asks for a sort, rather than returning the page ordered by id anyway.
+     *
+     * @param pageable the pagination information.
+     * @param entityName the entity name.
+     * @throws BadRequestAlertException {@code 400 (Bad Request)} if a sort is requested.
+     */
+    public static void checkUnsorted(Pageable pageable, String entityName) {
+        if (pageable.getSort().isSorted()) {
+            throw new BadRequestAlertException("Keyset pages are ordered by id and cannot be sorted", entityName, "keysetunsupported");
+        }
+    }
+
+    /**
+     * Generate keyset pagination headers for a Spring Data {@link Slice} object.
+     *
+     * @param uriBuilder The URI builder.
+     * @param slice The slice, ordered by ascending id.
+     * @param idExtractor Function returning the id of an element of the slice.
+     * @param <T> The type of object.
+     * @return http header, with a {@code Link} to the next slice when there is one.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        Slice<T> slice,
+        Function<T, Long> idExtractor
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.hasNext() && slice.hasContent()) {
+            T last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            String next = uriBuilder
+                .replaceQueryParam(AFTER_PARAMETER, idExtractor.apply(last))
+                .replaceQueryParam("size", slice.getSize())
+                .replaceQueryParam("page")
+                .replaceQueryParam("sort")
+                .toUriString();
+            headers.add(HttpHeaders.LINK, String.format(HEADER_LINK_FORMAT, next, "next"));
+        }
+        return headers;
+    }
+}
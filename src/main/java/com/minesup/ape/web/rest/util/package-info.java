@@ -0,0 +1,4 @@
+/**
+ * Utility classes for the REST layer.
+ */
+package com.minesup.ape.web.rest.util;
@@ -0,0 +1,63 @@
+package com.minesup.ape.web.rest.vm;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * View Model object for the outcome of one item of a bulk request.
+ * <p>
+ * The {@code status} is the HTTP status the item would have been given by the corresponding single-item endpoint.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class BulkItemResultVM {
+
+    private final int index;
+
+    private final Long id;
+
+    private final int status;
+
+    private final List<String> errors;
+
+    private BulkItemResultVM(int index, Long id, int status, List<String> errors) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.errors = errors;
+    }
+
+    public static BulkItemResultVM success(int index, Long id, int status) {
+        return new BulkItemResultVM(index, id, status, List.of());
+    }
+
+    public static BulkItemResultVM failure(int index, Long id, int status, List<String> errors) {
+        return new BulkItemResultVM(index, id, status, errors);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BulkItemResultVM{" +
+            "index=" + index +
+            ", id=" + id +
+            ", status=" + status +
+            ", errors=" + errors +
+            "}";
+    }
+}
@@ -0,0 +1,122 @@
+package com.minesup.ape.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.config.ApplicationProperties.Executors.RejectionPolicy;
+import com.minesup.ape.management.ExecutorMetersService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Integration tests for the executors of the {@link AsyncConfiguration} class.
+ */
+@IntegrationTest
+class AsyncConfigurationIT {
+
+    private static final Map<String, String> THREAD_NAME_PREFIXES = Map.of(
+        "authenticationTaskExecutor",
+        "ape-authentication-",
+        "importTaskExecutor",
+        "ape-import-",
+        "mailTaskExecutor",
+        "ape-mail-",
+        "migrationTaskExecutor",
+        "ape-migration-"
+    );
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void eachWorkloadRunsOnItsOwnThreads() throws Exception {
+        for (Map.Entry<String, String> executor : THREAD_NAME_PREFIXES.entrySet()) {
+            ThreadPoolTaskExecutor taskExecutor = applicationContext.getBean(executor.getKey(), ThreadPoolTaskExecutor.class);
+
+            assertThat(taskExecutor.submit(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS))
+                .startsWith(executor.getValue());
+        }
+    }
+
+    @Test
+    void eachExecutorIsMetered() throws Exception {
+        for (String name : THREAD_NAME_PREFIXES.keySet()) {
+            applicationContext.getBean(name, ThreadPoolTaskExecutor.class).submit(() -> {}).get(10, TimeUnit.SECONDS);
+
+            assertThat(meterRegistry.get("executor.active").tag("name", name).gauge()).isNotNull();
+            assertThat(meterRegistry.get("executor.queued").tag("name", name).gauge()).isNotNull();
+            assertThat(meterRegistry.get("executor.completed").tag("name", name).functionCounter()).isNotNull();
+            assertThat(meterRegistry.get(ExecutorMetersService.WAIT_METER_NAME).tag("name", name).timer().count()).isPositive();
+            assertThat(meterRegistry.get(ExecutorMetersService.REJECTED_METER_NAME).tag("name", name).counter()).isNotNull();
+        }
+    }
+
+    @Test
+    void rejectedTasksAreCounted() throws Exception {
+        // One thread and one waiting task
+        ThreadPoolTaskExecutor migrationTaskExecutor = applicationContext.getBean("migrationTaskExecutor", ThreadPoolTaskExecutor.class);
+        double rejected = meterRegistry
+            .get(ExecutorMetersService.REJECTED_METER_NAME)
+            .tag("name", "migrationTaskExecutor")
+            .counter()
+            .count();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            migrationTaskExecutor.execute(() -> await(release));
+            migrationTaskExecutor.execute(() -> await(release));
+
+            assertThatThrownBy(() -> migrationTaskExecutor.execute(() -> {})).isInstanceOf(TaskRejectedException.class);
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(meterRegistry.get(ExecutorMetersService.REJECTED_METER_NAME).tag("name", "migrationTaskExecutor").counter().count())
+            .isEqualTo(rejected + 1);
+    }
+
+    @Test
+    void onlyTheMigrationMayRunItsRejectedTasksOnTheCallerThread() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Executors executors = applicationProperties.getExecutors();
+        for (ApplicationProperties.Executors.Pool pool : List.of(
+            executors.getAuthentication(),
+            executors.getBulkImport(),
+            executors.getMail(),
+            executors.getMigration()
+        )) {
+            pool.setRejectionPolicy(RejectionPolicy.CALLER_RUNS);
+        }
+        AsyncConfiguration asyncConfiguration = new AsyncConfiguration(new TaskExecutionProperties());
+        ExecutorMetersService executorMetersService = new ExecutorMetersService(new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> asyncConfiguration.authenticationTaskExecutor(applicationProperties, executorMetersService))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> asyncConfiguration.importTaskExecutor(applicationProperties, executorMetersService))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> asyncConfiguration.mailTaskExecutor(applicationProperties, executorMetersService))
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(asyncConfiguration.migrationTaskExecutor(applicationProperties, executorMetersService)).isNotNull();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.minesup.ape.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.repository.UserRepository;
+import com.minesup.ape.security.jwt.TokenProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.cache.CacheManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for the {@link CacheConfiguration} class.
+ */
+@IntegrationTest
+class CacheConfigurationIT {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void entitiesAreSecondLevelCached() {
+        assertThat(cacheManager.getCache(Course.class.getName())).isNotNull();
+        assertThat(cacheManager.getCache(Course.class.getName() + ".exercises")).isNotNull();
+        assertThat(cacheManager.getCache(Exercise.class.getName())).isNotNull();
+        assertThat(cacheManager.getCache(Correction.class.getName())).isNotNull();
+    }
+
+    @Test
+    void tokenAuthenticationsAreCached() {
+        assertThat(cacheManager.getCache(TokenProvider.AUTHENTICATIONS_BY_TOKEN_CACHE)).isNotNull();
+        assertThat(meterRegistry.find("cache.gets").tag("cache", TokenProvider.AUTHENTICATIONS_BY_TOKEN_CACHE).functionCounters())
+            .isNotEmpty();
+        assertThat(meterRegistry.find("cache.evictions").tag("cache", TokenProvider.AUTHENTICATIONS_BY_TOKEN_CACHE).functionCounter())
+            .isNotNull();
+    }
+
+    @Test
+    void userLookupsAreCached() {
+        for (String cacheName : new String[] { UserRepository.USERS_BY_LOGIN_CACHE, UserRepository.USERS_BY_EMAIL_CACHE }) {
+            assertThat(cacheManager.getCache(cacheName)).isNotNull();
+            assertThat(meterRegistry.find("cache.gets").tag("cache", cacheName).functionCounters()).isNotEmpty();
+            assertThat(meterRegistry.find("cache.evictions").tag("cache", cacheName).functionCounter()).isNotNull();
+        }
+    }
+
+    @Test
+    void cacheMetricsAreExported() {
+        assertThat(meterRegistry.find("cache.gets").tag("cache", Course.class.getName()).tag("result", "hit").functionCounter())
+            .isNotNull();
+        assertThat(meterRegistry.find("cache.gets").tag("cache", Exercise.class.getName()).tag("result", "miss").functionCounter())
+            .isNotNull();
+    }
+}
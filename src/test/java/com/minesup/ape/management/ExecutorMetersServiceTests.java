@@ -0,0 +1,68 @@
+package com.minesup.ape.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExecutorMetersServiceTests {
+
+    private MeterRegistry meterRegistry;
+
+    private ExecutorMetersService executorMetersService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        executorMetersService = new ExecutorMetersService(meterRegistry);
+    }
+
+    @Test
+    void testWaitIsTimedFromTheSubmission() throws Exception {
+        AtomicBoolean ran = new AtomicBoolean();
+        Runnable task = executorMetersService.waitTimer("testExecutor").decorate(() -> ran.set(true));
+        Thread.sleep(20);
+
+        Timer timer = meterRegistry.get(ExecutorMetersService.WAIT_METER_NAME).tag("name", "testExecutor").timer();
+        assertThat(timer.count()).isZero();
+        task.run();
+
+        assertThat(ran).isTrue();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    void testRejectionsAreCountedBeforeThePolicyApplies() {
+        RejectedExecutionHandler abort = executorMetersService.rejectionCounter("abortingExecutor", new ThreadPoolExecutor.AbortPolicy());
+        RejectedExecutionHandler discard = executorMetersService.rejectionCounter(
+            "discardingExecutor",
+            new ThreadPoolExecutor.DiscardPolicy()
+        );
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        try {
+            assertThatThrownBy(() -> abort.rejectedExecution(() -> {}, executor)).isInstanceOf(RejectedExecutionException.class);
+            discard.rejectedExecution(() -> {}, executor);
+            discard.rejectedExecution(() -> {}, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(meterRegistry.get(ExecutorMetersService.REJECTED_METER_NAME).tag("name", "abortingExecutor").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get(ExecutorMetersService.REJECTED_METER_NAME).tag("name", "discardingExecutor").counter().count())
+            .isEqualTo(2);
+    }
+}
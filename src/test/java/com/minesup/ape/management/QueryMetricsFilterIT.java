@@ -0,0 +1,92 @@
+package com.minesup.ape.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.repository.ExerciseRepository;
+import com.minesup.ape.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link QueryMetricsFilter} class.
+ */
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+@IntegrationTest
+class QueryMetricsFilterIT {
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @Transactional
+    void requestStatementsAreCounted() throws Exception {
+        Course course = new Course().title("AAAAAAAAAA").content("AAAAAAAAAA");
+        em.persist(course);
+        Exercise exercise = exerciseRepository.saveAndFlush(new Exercise().title("AAAAAAAAAA").content("AAAAAAAAAA").mark(1).course(course));
+        em.clear();
+        DistributionSummary previousStatements = meterRegistry
+            .find(QueryMetricsFilter.STATEMENTS_METER_NAME)
+            .tag("uri", "/api/exercises/{id}")
+            .summary();
+        long countBefore = previousStatements != null ? previousStatements.count() : 0;
+
+        mockMvc
+            .perform(get("/api/exercises/{id}", exercise.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(QueryMetricsFilter.QUERIES_HEADER, "1"));
+
+        assertThat(statements("/api/exercises/{id}").count()).isEqualTo(countBefore + 1);
+        assertThat(statements("/api/exercises/{id}").max()).isGreaterThanOrEqualTo(1);
+        DistributionSummary rows = meterRegistry.get(QueryMetricsFilter.ROWS_METER_NAME).tag("uri", "/api/exercises/{id}").summary();
+        assertThat(rows.max()).isGreaterThanOrEqualTo(1);
+        Timer time = meterRegistry.get(QueryMetricsFilter.TIME_METER_NAME).tag("uri", "/api/exercises/{id}").timer();
+        assertThat(time.count()).isEqualTo(countBefore + 1);
+    }
+
+    @Test
+    @Transactional
+    void requestsWithoutStatementsReportZero() throws Exception {
+        // Client routes are forwarded to the index page without touching the database
+        mockMvc
+            .perform(get("/admin/user-management"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(QueryMetricsFilter.QUERIES_HEADER, "0"));
+    }
+
+    @Test
+    @Transactional
+    void managedUsersStayWithinTheirBudget() throws Exception {
+        // The authorities of the page are loaded in a single batch rather than one query per user
+        mockMvc
+            .perform(get("/api/admin/users?sort=id,asc"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(QueryMetricsFilter.QUERIES_HEADER, "2"));
+    }
+
+    private DistributionSummary statements(String uri) {
+        return meterRegistry.get(QueryMetricsFilter.STATEMENTS_METER_NAME).tag("method", "GET").tag("uri", uri).summary();
+    }
+}
@@ -6,6 +6,7 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -67,4 +68,27 @@ class SecurityMetersServiceTests {
 
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "malformed").counter().count()).isEqualTo(1);
     }
+
+    @Test
+    void testAuthenticationMetersAreRecorded() {
+        securityMetersService.recordAuthenticationWait(TimeUnit.MILLISECONDS.toNanos(5));
+        securityMetersService.trackAuthenticationRejected();
+
+        assertThat(meterRegistry.get(SecurityMetersService.AUTHENTICATION_WAIT_METER_NAME).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(SecurityMetersService.AUTHENTICATION_WAIT_METER_NAME).timer().totalTime(TimeUnit.MILLISECONDS))
+            .isEqualTo(5);
+        assertThat(meterRegistry.get(SecurityMetersService.AUTHENTICATION_REJECTED_METER_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testPasswordHashingIsTimedByOperation() {
+        assertThat(securityMetersService.recordPasswordEncode(() -> "hash")).isEqualTo("hash");
+        assertThat(securityMetersService.recordPasswordMatches(() -> true)).isTrue();
+        assertThat(securityMetersService.recordPasswordMatches(() -> false)).isFalse();
+
+        assertThat(meterRegistry.get(SecurityMetersService.PASSWORD_HASHING_METER_NAME).tag("operation", "encode").timer().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get(SecurityMetersService.PASSWORD_HASHING_METER_NAME).tag("operation", "matches").timer().count())
+            .isEqualTo(2);
+    }
 }
@@ -0,0 +1,389 @@
+package com.minesup.ape.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minesup.ape.IntegrationTest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Query plan regression tests: every query method of the repositories is run against large tables, and the generic plan of each
+ * SQL query it issues, bulk updates and deletes included, is checked for sequential scans of those tables.
+ * <p>
+ * The plans are only meaningful on PostgreSQL, so these tests are skipped unless the tests run against it, for instance with
+ * the {@code testcontainers} Spring profile.
+ */
+@IntegrationTest
+class QueryPlanIT {
+
+    private static final Set<String> LARGE_TABLES = Set.of("course", "exercise", "correction", "jhi_user");
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20, Sort.by("id"));
+
+    private static final Long ID = 1L;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private CorrectionRepository correctionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SearchRepository searchRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<String> statements = new ArrayList<>();
+
+    private final Set<String> checkedMethods = new HashSet<>();
+
+    private final List<String> failures = new ArrayList<>();
+
+    private Session session;
+
+    @BeforeEach
+    void bindInspectedSession() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            String databaseProductName = connection.getMetaData().getDatabaseProductName();
+            assumeTrue("PostgreSQL".equals(databaseProductName), "Query plans are only checked on PostgreSQL");
+        }
+        // Repositories join the transaction of the bound session, so every statement they issue goes through the inspector
+        session =
+            entityManagerFactory
+                .unwrap(SessionFactory.class)
+                .withOptions()
+                .statementInspector(sql -> {
+                    statements.add(sql);
+                    return sql;
+                })
+                .openSession();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(session));
+    }
+
+    @AfterEach
+    void unbindInspectedSession() {
+        if (session != null) {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            session.close();
+        }
+    }
+
+    @Test
+    void repositoryQueriesDoNotScanLargeTables() {
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                session.doWork(this::seedLargeTables);
+
+                expectIndexed(
+                    "CourseRepository.findAllByIdGreaterThan(Long, Pageable)",
+                    () -> courseRepository.findAllByIdGreaterThan(ID, FIRST_PAGE)
+                );
+                expectIndexed("CourseRepository.findSummaryById(Long)", () -> courseRepository.findSummaryById(ID));
+                expectIndexed("CourseRepository.findResourceVersionById(Long)", () -> courseRepository.findResourceVersionById(ID));
+                expectIndexed("CourseRepository.findExistingIds(Collection)", () -> courseRepository.findExistingIds(List.of(ID, ID + 1)));
+                expectIndexed(
+                    "CourseRepository.findAllSummariesByTitleIn(Collection)",
+                    () -> courseRepository.findAllSummariesByTitleIn(List.of("course 1", "course 2"))
+                );
+                expectIndexed(
+                    "CourseRepository.findOneWithExercisesAndCorrections(Long)",
+                    () -> courseRepository.findOneWithExercisesAndCorrections(ID)
+                );
+                allowFullScan("CourseRepository.findAllSummaries(Pageable)", () -> courseRepository.findAllSummaries(FIRST_PAGE));
+                // Exports read every row, through a cursor that only needs to be opened here
+                allowFullScan("CourseRepository.streamAll()", () -> courseRepository.streamAll().close());
+
+                expectIndexed(
+                    "ExerciseRepository.findAllSummariesByCourseId(Long)",
+                    () -> exerciseRepository.findAllSummariesByCourseId(ID)
+                );
+                expectIndexed(
+                    "ExerciseRepository.findAllWithToOneRelationshipsAfter(Long, Pageable)",
+                    () -> exerciseRepository.findAllWithToOneRelationshipsAfter(ID, FIRST_PAGE)
+                );
+                expectIndexed(
+                    "ExerciseRepository.findOneWithToOneRelationships(Long)",
+                    () -> exerciseRepository.findOneWithToOneRelationships(ID)
+                );
+                expectIndexed("ExerciseRepository.findResourceVersionById(Long)", () -> exerciseRepository.findResourceVersionById(ID));
+                expectIndexed(
+                    "ExerciseRepository.findAllSummariesByTitleIn(Collection)",
+                    () -> exerciseRepository.findAllSummariesByTitleIn(List.of("exercise 1", "exercise 2"))
+                );
+                expectIndexed(
+                    "ExerciseRepository.findExistingIds(Collection)",
+                    () -> exerciseRepository.findExistingIds(List.of(ID, ID + 1))
+                );
+                allowFullScan(
+                    "ExerciseRepository.findAllWithToOneRelationships(Pageable)",
+                    () -> exerciseRepository.findAllWithToOneRelationships(FIRST_PAGE)
+                );
+                allowFullScan(
+                    "ExerciseRepository.findAllWithToOneRelationships()",
+                    () -> exerciseRepository.findAllWithToOneRelationships()
+                );
+                allowFullScan("ExerciseRepository.findAll(Pageable)", () -> exerciseRepository.findAll(FIRST_PAGE));
+                allowFullScan("ExerciseRepository.findAllSummaries(Pageable)", () -> exerciseRepository.findAllSummaries(FIRST_PAGE));
+                allowFullScan("ExerciseRepository.streamAll()", () -> exerciseRepository.streamAll().close());
+                // Anti-join: every exercise has to be matched against the corrections
+                allowFullScan(
+                    "ExerciseRepository.findAllWhereCorrectionIsNull(Pageable)",
+                    () -> exerciseRepository.findAllWhereCorrectionIsNull(FIRST_PAGE)
+                );
+                allowFullScan(
+                    "ExerciseRepository.findAllSummariesWhereCorrectionIsNull(Pageable)",
+                    () -> exerciseRepository.findAllSummariesWhereCorrectionIsNull(FIRST_PAGE)
+                );
+
+                expectIndexed(
+                    "CorrectionRepository.findAllWithToOneRelationshipsAfter(Long, Pageable)",
+                    () -> correctionRepository.findAllWithToOneRelationshipsAfter(ID, FIRST_PAGE)
+                );
+                expectIndexed(
+                    "CorrectionRepository.findOneWithToOneRelationships(Long)",
+                    () -> correctionRepository.findOneWithToOneRelationships(ID)
+                );
+                expectIndexed("CorrectionRepository.findResourceVersionById(Long)", () -> correctionRepository.findResourceVersionById(ID));
+                expectIndexed(
+                    "CorrectionRepository.findExistingIds(Collection)",
+                    () -> correctionRepository.findExistingIds(List.of(ID, ID + 1))
+                );
+                expectIndexed(
+                    "CorrectionRepository.findCorrectedExerciseIds(Collection)",
+                    () -> correctionRepository.findCorrectedExerciseIds(List.of(ID, ID + 1))
+                );
+                expectIndexed(
+                    "CorrectionRepository.findAllSummariesByExerciseIdIn(Collection)",
+                    () -> correctionRepository.findAllSummariesByExerciseIdIn(List.of(ID, ID + 1))
+                );
+                allowFullScan(
+                    "CorrectionRepository.findAllWithToOneRelationships(Pageable)",
+                    () -> correctionRepository.findAllWithToOneRelationships(FIRST_PAGE)
+                );
+                allowFullScan(
+                    "CorrectionRepository.findAllWithToOneRelationships()",
+                    () -> correctionRepository.findAllWithToOneRelationships()
+                );
+                allowFullScan("CorrectionRepository.findAllSummaries(Pageable)", () -> correctionRepository.findAllSummaries(FIRST_PAGE));
+                allowFullScan("CorrectionRepository.streamAll()", () -> correctionRepository.streamAll().close());
+
+                // The matches are found through the GIN indexes of the search vectors, and only the page is joined back
+                expectIndexed("SearchRepository.search(String, Pageable)", () -> searchRepository.search("exercise", FIRST_PAGE));
+                expectIndexed(
+                    "SearchRepository.findDocuments(String, Collection)",
+                    () -> searchRepository.findDocuments(SearchHit.EXERCISE, List.of(ID, ID + 1))
+                );
+                // Only run by the in-process index, when it is built or brought up to date at startup
+                allowFullScan(
+                    "SearchRepository.streamDocuments(String)",
+                    () -> searchRepository.streamDocuments(SearchHit.EXERCISE).close()
+                );
+                allowFullScan(
+                    "SearchRepository.streamDocumentVersions(String)",
+                    () -> searchRepository.streamDocumentVersions(SearchHit.EXERCISE).close()
+                );
+
+                expectIndexed("UserRepository.findOneByActivationKey(String)", () -> userRepository.findOneByActivationKey("key"));
+                expectIndexed("UserRepository.findOneByResetKey(String)", () -> userRepository.findOneByResetKey("key"));
+                expectIndexed(
+                    "UserRepository.findOneByEmailIgnoreCase(String)",
+                    () -> userRepository.findOneByEmailIgnoreCase("USER@localhost")
+                );
+                expectIndexed("UserRepository.findOneByLogin(String)", () -> userRepository.findOneByLogin("user"));
+                expectIndexed(
+                    "UserRepository.findOneWithAuthoritiesByLogin(String)",
+                    () -> userRepository.findOneWithAuthoritiesByLogin("user")
+                );
+                expectIndexed(
+                    "UserRepository.findOneWithAuthoritiesByEmailIgnoreCase(String)",
+                    () -> userRepository.findOneWithAuthoritiesByEmailIgnoreCase("USER@localhost")
+                );
+                expectIndexed(
+                    "UserRepository.findAllByIdGreaterThan(Long, Pageable)",
+                    () -> userRepository.findAllByIdGreaterThan(ID, FIRST_PAGE)
+                );
+                expectIndexed(
+                    "UserRepository.findAllIdentitiesByLoginInOrEmailIn(Collection, Collection)",
+                    () -> userRepository.findAllIdentitiesByLoginInOrEmailIn(List.of("user"), List.of("user@localhost"))
+                );
+                allowFullScan(
+                    "UserRepository.findAllByIdNotNullAndActivatedIsTrue(Pageable)",
+                    () -> userRepository.findAllByIdNotNullAndActivatedIsTrue(FIRST_PAGE)
+                );
+                expectIndexed(
+                    "UserRepository.findAllIdentitiesByActivatedIsFalseAndCreatedDateBefore(Instant, Pageable)",
+                    () -> userRepository.findAllIdentitiesByActivatedIsFalseAndCreatedDateBefore(Instant.now(), PageRequest.of(0, 20))
+                );
+                expectIndexed(
+                    "UserRepository.deleteAllByIdInAndActivatedIsFalse(Collection)",
+                    () -> userRepository.deleteAllByIdInAndActivatedIsFalse(List.of(ID, ID + 1))
+                );
+            });
+
+        assertThat(failures).isEmpty();
+        assertThat(checkedMethods)
+            .as("Every repository query method must be checked by this test")
+            .containsAll(queryMethods(CourseRepository.class, ExerciseRepository.class, CorrectionRepository.class, UserRepository.class));
+    }
+
+    private void expectIndexed(String method, Runnable query) {
+        check(method, query, false);
+    }
+
+    private void allowFullScan(String method, Runnable query) {
+        check(method, query, true);
+    }
+
+    private void check(String method, Runnable query, boolean fullScanAllowed) {
+        checkedMethods.add(method);
+        statements.clear();
+        query.run();
+        session.clear();
+        List<String> queries = statements.stream().filter(QueryPlanIT::isExplainable).collect(Collectors.toList());
+        assertThat(queries).as("SQL issued by %s", method).isNotEmpty();
+        if (fullScanAllowed) {
+            return;
+        }
+        for (String sql : queries) {
+            JsonNode plan = session.doReturningWork(connection -> explain(connection, sql));
+            seqScannedTables(plan)
+                .filter(LARGE_TABLES::contains)
+                .forEach(table -> failures.add(method + " scans " + table + " sequentially: " + sql + "\n" + plan.toPrettyString()));
+        }
+    }
+
+    private static boolean isExplainable(String sql) {
+        String statement = sql.trim().toLowerCase();
+        return statement.startsWith("select") || statement.startsWith("update") || statement.startsWith("delete");
+    }
+
+    /**
+     * Explains the generic plan of the statement, the one used whatever the values of its parameters are.
+     */
+    private JsonNode explain(Connection connection, String sql) throws SQLException {
+        StringBuilder numberedSql = new StringBuilder();
+        int parameterCount = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numberedSql.append('$').append(++parameterCount);
+            } else {
+                numberedSql.append(c);
+            }
+        }
+        String arguments = parameterCount == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parameterCount, "null")) + ")";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("set local plan_cache_mode = force_generic_plan");
+            statement.execute("prepare plan_check as " + numberedSql);
+            try (ResultSet resultSet = statement.executeQuery("explain (format json) execute plan_check" + arguments)) {
+                resultSet.next();
+                return objectMapper.readTree(resultSet.getString(1)).get(0).get("Plan");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                statement.execute("deallocate plan_check");
+            }
+        }
+    }
+
+    private static Stream<String> seqScannedTables(JsonNode plan) {
+        Stream<String> self = "Seq Scan".equals(plan.path("Node Type").asText())
+            ? Stream.of(plan.path("Relation Name").asText())
+            : Stream.empty();
+        Stream<String> children = StreamSupport.stream(plan.path("Plans").spliterator(), false).flatMap(QueryPlanIT::seqScannedTables);
+        return Stream.concat(self, children);
+    }
+
+    private static Set<String> queryMethods(Class<?>... repositories) {
+        return Arrays
+            .stream(repositories)
+            .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods()))
+            .filter(method -> !method.isDefault() && !method.isSynthetic() && !Modifier.isStatic(method.getModifiers()))
+            .map(QueryPlanIT::signature)
+            .collect(Collectors.toSet());
+    }
+
+    private static String signature(Method method) {
+        return (
+            method.getDeclaringClass().getSimpleName() +
+            "." +
+            method.getName() +
+            Arrays.stream(method.getParameterTypes()).map(Class::getSimpleName).collect(Collectors.joining(", ", "(", ")"))
+        );
+    }
+
+    private void seedLargeTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(
+                "insert into course (id, title, content) " +
+                "select nextval('sequence_generator'), 'course ' || g, 'content' from generate_series(1, 1000) g"
+            );
+            statement.execute(
+                "insert into exercise (id, title, content, mark, course_id) " +
+                "select nextval('sequence_generator'), 'exercise ' || g, 'content', g % 20, course.id " +
+                "from generate_series(1, 50) g cross join course"
+            );
+            statement.execute(
+                "insert into correction (id, content, exercise_id) " +
+                "select nextval('sequence_generator'), 'correction', exercise.id from exercise where exercise.mark % 2 = 0"
+            );
+            statement.execute(
+                "insert into jhi_user (id, login, email, activated, activation_key, created_by, created_date) " +
+                "select nextval('sequence_generator'), 'plan-user-' || g, 'plan-user-' || g || '@localhost', g % 10 <> 0, " +
+                "case when g % 10 = 0 then 'key-' || g end, 'system', now() from generate_series(1, 20000) g"
+            );
+            for (String table : LARGE_TABLES) {
+                statement.execute("analyze " + table);
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.minesup.ape.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.config.ApplicationProperties;
+import com.minesup.ape.config.Constants;
+import com.minesup.ape.domain.OutboxMail;
+import com.minesup.ape.domain.User;
+import com.minesup.ape.management.MailMetersService;
+import com.minesup.ape.repository.OutboxMailRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Integration tests for {@link MailOutboxService}, sending to a {@link FakeSmtpServer}.
+ * <p>
+ * The emails are only sent once committed, so these tests are not transactional and empty the outbox.
+ */
+@IntegrationTest
+class MailOutboxServiceIT {
+
+    private static final FakeSmtpServer smtpServer = FakeSmtpServer.start();
+
+    @DynamicPropertySource
+    static void mailServerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.port", smtpServer::getPort);
+    }
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OutboxMailRepository outboxMailRepository;
+
+    @Autowired
+    private MailOutboxService mailOutboxService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JHipsterProperties jHipsterProperties;
+
+    @BeforeEach
+    void resetMailServer() {
+        smtpServer.reset();
+    }
+
+    @AfterEach
+    void emptyOutbox() {
+        outboxMailRepository.deleteAll();
+    }
+
+    @Test
+    void committedEmailsAreSentInBatches() throws Exception {
+        double sent = meterRegistry.get(MailMetersService.SENT_METER_NAME).counter().count();
+        long lags = meterRegistry.get(MailMetersService.LAG_METER_NAME).timer().count();
+
+        inTransaction(() -> {
+            for (int i = 0; i < 5; i++) {
+                mailOutboxService.queueActivationEmail(user("user-" + i));
+            }
+            assertThat(outboxMailRepository.count()).isEqualTo(5);
+        });
+        await(() -> smtpServer.getMessages().size() == 5 && outboxMailRepository.count() == 0);
+
+        assertThat(smtpServer.getMessages())
+            .extracting(message -> message.getRecipients().get(0))
+            .containsExactly("user-0@localhost", "user-1@localhost", "user-2@localhost", "user-3@localhost", "user-4@localhost");
+        assertThat(smtpServer.getMessages().get(0).getData()).contains("Subject: Activation de votre compte ape", "user-0");
+        // Batches of two in the tests
+        assertThat(smtpServer.getConnections()).isEqualTo(3);
+        assertThat(meterRegistry.get(MailMetersService.SENT_METER_NAME).counter().count()).isEqualTo(sent + 5);
+        assertThat(meterRegistry.get(MailMetersService.LAG_METER_NAME).timer().count()).isEqualTo(lags + 5);
+    }
+
+    @Test
+    void accountEmailsAreRenderedFromTheirTemplates() throws Exception {
+        inTransaction(() -> {
+            mailOutboxService.queueActivationEmail(user("activation"));
+            mailOutboxService.queueCreationEmail(user("creation"));
+            mailOutboxService.queuePasswordResetMail(user("reset"));
+            mailOutboxService.queueActivationEmail(new User());
+
+            assertThat(outboxMailRepository.findAll())
+                .allSatisfy(mail -> {
+                    assertThat(mail.getContent()).contains(mail.getRecipient().replace("@localhost", ""));
+                    assertThat(mail.isHtml()).isTrue();
+                })
+                .extracting(OutboxMail::getRecipient, OutboxMail::getSubject)
+                .containsExactlyInAnyOrder(
+                    tuple("activation@localhost", "Activation de votre compte ape"),
+                    tuple("creation@localhost", "Activation de votre compte ape"),
+                    tuple("reset@localhost", "ape password reset")
+                );
+        });
+        await(() -> smtpServer.getMessages().size() == 3 && outboxMailRepository.count() == 0);
+
+        assertThat(smtpServer.getMessages().get(0).getData())
+            .contains("From: " + jHipsterProperties.getMail().getFrom(), "Content-Type: text/html;charset=UTF-8");
+    }
+
+    @Test
+    void creationEmailsAreQueuedTogether() throws Exception {
+        List<User> users = List.of(user("created-0"), user("created-1"), user("created-2"), new User());
+
+        inTransaction(() -> {
+            mailOutboxService.queueCreationEmails(users);
+            assertThat(outboxMailRepository.count()).isEqualTo(3);
+        });
+        await(() -> smtpServer.getMessages().size() == 3 && outboxMailRepository.count() == 0);
+
+        assertThat(smtpServer.getMessages())
+            .extracting(message -> message.getRecipients().get(0))
+            .containsExactly("created-0@localhost", "created-1@localhost", "created-2@localhost");
+        assertThat(smtpServer.getMessages().get(2).getData()).contains("created-2");
+        assertThat(smtpServer.getConnections()).isEqualTo(2);
+    }
+
+    @Test
+    void rolledBackEmailsAreNotSent() {
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> {
+                mailOutboxService.queuePasswordResetMail(user("rolled-back"));
+                status.setRollbackOnly();
+            });
+
+        assertThat(outboxMailRepository.count()).isZero();
+        assertThat(mailOutboxService.dispatch()).isZero();
+        assertThat(smtpServer.getConnections()).isZero();
+    }
+
+    @Test
+    void failedEmailsAreRetriedWithBackoff() throws Exception {
+        double retried = meterRegistry.get(MailMetersService.FAILED_METER_NAME).tag("outcome", "retried").counter().count();
+        smtpServer.refuse("bounced@localhost");
+
+        inTransaction(() -> {
+            mailOutboxService.queueCreationEmail(user("bounced"));
+            mailOutboxService.queueCreationEmail(user("delivered"));
+        });
+        await(() -> outboxMailRepository.findAll().stream().allMatch(mail -> mail.getLastError() != null));
+
+        assertThat(smtpServer.getMessages()).extracting(message -> message.getRecipients().get(0)).containsExactly("delivered@localhost");
+        List<OutboxMail> mails = outboxMailRepository.findAll();
+        assertThat(mails).hasSize(1);
+        OutboxMail bounced = mails.get(0);
+        assertThat(bounced.getRecipient()).isEqualTo("bounced@localhost");
+        assertThat(bounced.getAttempts()).isEqualTo(1);
+        assertThat(bounced.getNextAttemptDate())
+            .isAfter(Instant.now().plus(applicationProperties.getMailOutbox().getInitialBackoff()).minusSeconds(10))
+            .isBefore(Instant.now().plus(applicationProperties.getMailOutbox().getClaimTimeout()));
+        assertThat(meterRegistry.get(MailMetersService.FAILED_METER_NAME).tag("outcome", "retried").counter().count())
+            .isEqualTo(retried + 1);
+
+        smtpServer.reset();
+        makeDue(bounced.getId(), 1);
+        mailOutboxService.poll();
+        await(() -> smtpServer.getMessages().size() == 1 && outboxMailRepository.count() == 0);
+
+        assertThat(smtpServer.getMessages().get(0).getRecipients()).containsExactly("bounced@localhost");
+    }
+
+    @Test
+    void emailsAreAbandonedAfterTooManyAttempts() throws Exception {
+        double abandoned = meterRegistry.get(MailMetersService.FAILED_METER_NAME).tag("outcome", "abandoned").counter().count();
+        smtpServer.refuse("bounced@localhost");
+        inTransaction(() -> mailOutboxService.queueCreationEmail(user("bounced")));
+        await(() -> outboxMailRepository.findAll().stream().allMatch(mail -> mail.getLastError() != null));
+        OutboxMail bounced = outboxMailRepository.findAll().get(0);
+
+        makeDue(bounced.getId(), applicationProperties.getMailOutbox().getMaxAttempts() - 1);
+        mailOutboxService.poll();
+        await(() -> outboxMailRepository.findById(bounced.getId()).orElseThrow().getNextAttemptDate() == null);
+
+        assertThat(outboxMailRepository.findById(bounced.getId()).orElseThrow().getAttempts())
+            .isEqualTo(applicationProperties.getMailOutbox().getMaxAttempts());
+        assertThat(meterRegistry.get(MailMetersService.FAILED_METER_NAME).tag("outcome", "abandoned").counter().count())
+            .isEqualTo(abandoned + 1);
+        assertThat(mailOutboxService.dispatch()).isZero();
+    }
+
+    @Test
+    void unavailableMailServerPostponesTheBatch() throws Exception {
+        smtpServer.setAvailable(false);
+
+        inTransaction(() -> {
+            mailOutboxService.queueActivationEmail(user("first"));
+            mailOutboxService.queueActivationEmail(user("second"));
+        });
+        await(() -> outboxMailRepository.findAll().stream().allMatch(mail -> mail.getLastError() != null));
+
+        assertThat(outboxMailRepository.findAll())
+            .hasSize(2)
+            .allSatisfy(mail -> {
+                assertThat(mail.getAttempts()).isEqualTo(1);
+                assertThat(mail.getNextAttemptDate()).isAfter(Instant.now());
+            });
+        assertThat(smtpServer.getConnections()).isEqualTo(1);
+        assertThat(smtpServer.getMessages()).isEmpty();
+    }
+
+    private void makeDue(Long id, int attempts) {
+        inTransaction(() ->
+            em
+                .createQuery("update OutboxMail mail set mail.nextAttemptDate = :date, mail.attempts = :attempts where mail.id = :id")
+                .setParameter("date", Instant.now())
+                .setParameter("attempts", attempts)
+                .setParameter("id", id)
+                .executeUpdate()
+        );
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@localhost");
+        user.setLangKey(Constants.DEFAULT_LANGUAGE);
+        return user;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && !condition.getAsBoolean(); attempt++) {
+            Thread.sleep(100);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+}
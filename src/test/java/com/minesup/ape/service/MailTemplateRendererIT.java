@@ -0,0 +1,168 @@
+package com.minesup.ape.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.config.Constants;
+import com.minesup.ape.domain.User;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
+import org.springframework.context.MessageSource;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import tech.jhipster.config.JHipsterProperties;
+import tech.jhipster.security.RandomUtil;
+
+/**
+ * Integration tests for {@link MailTemplateRenderer}, checking its output against Thymeleaf's.
+ */
+@IntegrationTest
+class MailTemplateRendererIT {
+
+    private static final String[] TEMPLATES = { "mail/activationEmail", "mail/creationEmail", "mail/passwordResetEmail" };
+
+    private static final String[] LANGUAGES = { "fr", "en" };
+
+    private static final Pattern PATTERN_LOCALE_3 = Pattern.compile("([a-z]{2})-([a-zA-Z]{4})-([a-z]{2})");
+
+    private static final Pattern PATTERN_LOCALE_2 = Pattern.compile("([a-z]{2})-([a-z]{2})");
+
+    @Autowired
+    private MailTemplateRenderer mailTemplateRenderer;
+
+    @Autowired
+    private SpringTemplateEngine templateEngine;
+
+    @Autowired
+    private MessageSource messageSource;
+
+    @Autowired
+    private JHipsterProperties jHipsterProperties;
+
+    @Test
+    void compiledTemplatesRenderAsThymeleaf() {
+        for (String template : TEMPLATES) {
+            for (String language : LANGUAGES) {
+                for (String login : new String[] { "john", "jo&hn<\"o'hara\">", "zzapemailfield1zz" }) {
+                    User user = user(login, language);
+
+                    assertThat(mailTemplateRenderer.renderContent(template, user))
+                        .as("%s in %s for %s", template, language, login)
+                        .isEqualTo(process(template, user));
+                }
+            }
+        }
+    }
+
+    @Test
+    void usersMissingAFieldAreRenderedByThymeleaf() {
+        User user = user("john", "en");
+        user.setResetKey(null);
+
+        assertThat(mailTemplateRenderer.renderContent("mail/creationEmail", user)).isEqualTo(process("mail/creationEmail", user));
+        assertThat(mailTemplateRenderer.renderContent("mail/activationEmail", user)).isEqualTo(process("mail/activationEmail", user));
+    }
+
+    @Test
+    void usersWithoutLanguageGetTheDefaultOne() {
+        User user = user("john", null);
+        User frenchUser = user("john", Constants.DEFAULT_LANGUAGE);
+        frenchUser.setActivationKey(user.getActivationKey());
+
+        assertThat(mailTemplateRenderer.renderSubject("email.activation.title", user))
+            .isEqualTo(mailTemplateRenderer.renderSubject("email.activation.title", frenchUser));
+        assertThat(mailTemplateRenderer.renderContent("mail/activationEmail", user)).isEqualTo(process("mail/activationEmail", frenchUser));
+    }
+
+    @Test
+    void subjectsAreResolvedInTheLanguageOfTheUser() {
+        for (String language : LANGUAGES) {
+            for (String titleKey : new String[] { "email.activation.title", "email.reset.title" }) {
+                assertThat(mailTemplateRenderer.renderSubject(titleKey, user("john", language)))
+                    .isEqualTo(messageSource.getMessage(titleKey, null, Locale.forLanguageTag(language)));
+            }
+        }
+    }
+
+    @Test
+    void otherTemplatesAreRenderedByThymeleaf() {
+        User user = user("john", Constants.DEFAULT_LANGUAGE);
+
+        assertThat(mailTemplateRenderer.renderSubject("email.test.title", user)).isEqualTo("test title");
+        assertThat(mailTemplateRenderer.renderContent("mail/testEmail", user))
+            .isEqualToNormalizingNewlines("<html>test title, http://127.0.0.1:8080, john</html>\n");
+    }
+
+    @Test
+    void templatesAreLocalizedInAllSupportedLanguages() throws Exception {
+        for (String language : LANGUAGES) {
+            User user = user("john", language);
+
+            String propertyFilePath = "i18n/messages_" + getJavaLocale(language) + ".properties";
+            URL resource = this.getClass().getClassLoader().getResource(propertyFilePath);
+            File file = new File(new URI(resource.getFile()).getPath());
+            Properties properties = new Properties();
+            properties.load(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+
+            String emailTitle = (String) properties.get("email.test.title");
+            assertThat(mailTemplateRenderer.renderSubject("email.test.title", user)).isEqualTo(emailTitle);
+            assertThat(mailTemplateRenderer.renderContent("mail/testEmail", user))
+                .isEqualToNormalizingNewlines("<html>" + emailTitle + ", http://127.0.0.1:8080, john</html>\n");
+        }
+    }
+
+    @Test
+    void nothingIsKeptWithoutTheThymeleafCache() {
+        ThymeleafProperties thymeleafProperties = new ThymeleafProperties();
+        thymeleafProperties.setCache(false);
+        MailTemplateRenderer renderer = new MailTemplateRenderer(templateEngine, messageSource, jHipsterProperties, thymeleafProperties);
+        User user = user("john", "en");
+
+        assertThat(renderer.renderContent("mail/passwordResetEmail", user)).isEqualTo(process("mail/passwordResetEmail", user));
+        assertThat(renderer.renderSubject("email.reset.title", user)).isEqualTo("ape password reset");
+    }
+
+    private String process(String template, User user) {
+        Context context = new Context(Locale.forLanguageTag(user.getLangKey()));
+        context.setVariable("user", user);
+        context.setVariable("baseUrl", jHipsterProperties.getMail().getBaseUrl());
+        return templateEngine.process(template, context);
+    }
+
+    /**
+     * Convert a lang key to the Java locale.
+     */
+    private static String getJavaLocale(String langKey) {
+        String javaLangKey = langKey;
+        Matcher matcher2 = PATTERN_LOCALE_2.matcher(langKey);
+        if (matcher2.matches()) {
+            javaLangKey = matcher2.group(1) + "_" + matcher2.group(2).toUpperCase();
+        }
+        Matcher matcher3 = PATTERN_LOCALE_3.matcher(langKey);
+        if (matcher3.matches()) {
+            javaLangKey = matcher3.group(1) + "_" + matcher3.group(2) + "_" + matcher3.group(3).toUpperCase();
+        }
+        return javaLangKey;
+    }
+
+    private static User user(String login, String langKey) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail("john.doe@example.com");
+        user.setLangKey(langKey);
+        user.setActivationKey(RandomUtil.generateActivationKey());
+        user.setResetKey(RandomUtil.generateResetKey());
+        return user;
+    }
+}
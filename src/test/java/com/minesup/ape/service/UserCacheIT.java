@@ -0,0 +1,258 @@
+package com.minesup.ape.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.domain.User;
+import com.minesup.ape.repository.UserRepository;
+import com.minesup.ape.service.dto.AdminUserDTO;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.security.RandomUtil;
+
+/**
+ * Integration tests for the caching of {@link UserRepository} lookups.
+ * <p>
+ * The caches follow committed changes only, so these tests are not transactional and delete the user they created.
+ */
+@IntegrationTest
+class UserCacheIT {
+
+    private static final String LOGIN = "cached-user";
+
+    private static final String EMAIL = "Cached-User@localhost";
+
+    private static final String PASSWORD = "cached-password";
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        user = new User();
+        user.setLogin(LOGIN);
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        user.setActivated(true);
+        user.setEmail(EMAIL);
+        user.setFirstName("john");
+        user.setLastName("doe");
+        user.setLangKey("en");
+    }
+
+    @AfterEach
+    void deleteCreatedUser() {
+        userService.deleteUser(LOGIN);
+    }
+
+    @Test
+    void cachedLookupsDoNotQueryTheDatabase() {
+        save(user);
+        assertThat(findByLogin()).isPresent();
+        assertThat(findByEmail(EMAIL)).isPresent();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(findByLogin()).map(User::getEmail).contains(EMAIL);
+        assertThat(findByEmail(EMAIL.toUpperCase())).map(User::getLogin).contains(LOGIN);
+        assertThat(findByEmail(EMAIL.toLowerCase())).map(User::getLogin).contains(LOGIN);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void unknownUsersAreNotCached() {
+        assertThat(findByLogin()).isEmpty();
+        assertThat(findByEmail(EMAIL)).isEmpty();
+        save(user);
+
+        assertThat(findByLogin()).isPresent();
+        assertThat(findByEmail(EMAIL)).isPresent();
+    }
+
+    @Test
+    void rolledBackChangesAreNotCached() {
+        save(user);
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> {
+                userRepository.findOneByLogin(LOGIN).orElseThrow().setFirstName("rolled back");
+                userRepository.flush();
+                assertThat(findByLogin()).map(User::getFirstName).contains("rolled back");
+                status.setRollbackOnly();
+            });
+
+        assertThat(findByLogin()).map(User::getFirstName).contains("john");
+    }
+
+    @Test
+    void updateUserEvictsTheUser() {
+        save(user);
+        warmUp();
+
+        AdminUserDTO userDTO = new AdminUserDTO(findByLogin().orElseThrow());
+        userDTO.setEmail("renamed@localhost");
+        userDTO.setActivated(false);
+        userService.updateUser(userDTO);
+
+        assertThat(findByLogin()).map(User::getEmail).contains("renamed@localhost");
+        assertThat(findByLogin()).map(User::isActivated).contains(false);
+        assertThat(findByEmail(EMAIL)).isEmpty();
+        assertThat(findByEmail("renamed@localhost")).map(User::getLogin).contains(LOGIN);
+    }
+
+    @Test
+    @WithMockUser(LOGIN)
+    void updateCurrentUserEvictsTheUser() {
+        save(user);
+        warmUp();
+
+        userService.updateUser("jane", "doe", "jane@localhost", "fr", null);
+
+        assertThat(findByLogin()).map(User::getFirstName).contains("jane");
+        assertThat(findByEmail(EMAIL)).isEmpty();
+        assertThat(findByEmail("jane@localhost")).map(User::getLangKey).contains("fr");
+    }
+
+    @Test
+    @WithMockUser(LOGIN)
+    void changePasswordEvictsTheUser() {
+        save(user);
+        warmUp();
+
+        userService.changePassword(PASSWORD, "new-password");
+
+        assertThat(passwordEncoder.matches("new-password", findByLogin().orElseThrow().getPassword())).isTrue();
+        assertThat(passwordEncoder.matches("new-password", findByEmail(EMAIL).orElseThrow().getPassword())).isTrue();
+    }
+
+    @Test
+    @WithMockUser(LOGIN)
+    void lookupReadingTheUserBeforeChangePasswordCommitsDoesNotCacheIt() {
+        save(user);
+        Runnable changePassword = new DelegatingSecurityContextRunnable(() -> userService.changePassword(PASSWORD, "new-password"));
+
+        inTransaction(() -> {
+            assertThat(passwordEncoder.matches(PASSWORD, findByLogin().orElseThrow().getPassword())).isTrue();
+            assertThat(passwordEncoder.matches(PASSWORD, findByEmail(EMAIL).orElseThrow().getPassword())).isTrue();
+            // Commits and evicts the user while the lookups above have yet to cache what they read
+            runInOtherThread(changePassword);
+        });
+
+        assertThat(passwordEncoder.matches("new-password", findByLogin().orElseThrow().getPassword())).isTrue();
+        assertThat(passwordEncoder.matches("new-password", findByEmail(EMAIL).orElseThrow().getPassword())).isTrue();
+    }
+
+    @Test
+    void activateRegistrationEvictsTheUser() {
+        user.setActivated(false);
+        user.setActivationKey(RandomUtil.generateActivationKey());
+        save(user);
+        warmUp();
+
+        assertThat(userService.activateRegistration(user.getActivationKey())).isPresent();
+
+        assertThat(findByLogin()).map(User::isActivated).contains(true);
+        assertThat(findByEmail(EMAIL)).map(User::isActivated).contains(true);
+    }
+
+    @Test
+    void completePasswordResetEvictsTheUser() {
+        user.setResetKey(RandomUtil.generateResetKey());
+        user.setResetDate(Instant.now());
+        save(user);
+        warmUp();
+
+        assertThat(userService.completePasswordReset("new-password", user.getResetKey())).isPresent();
+
+        assertThat(passwordEncoder.matches("new-password", findByLogin().orElseThrow().getPassword())).isTrue();
+        assertThat(findByEmail(EMAIL)).map(User::getResetKey).isEmpty();
+    }
+
+    @Test
+    void deleteUserEvictsTheUser() {
+        save(user);
+        warmUp();
+
+        userService.deleteUser(LOGIN);
+
+        assertThat(findByLogin()).isEmpty();
+        assertThat(findByEmail(EMAIL)).isEmpty();
+    }
+
+    @Test
+    void removeNotActivatedUsersEvictsThem() {
+        user.setActivated(false);
+        user.setActivationKey(RandomUtil.generateActivationKey());
+        save(user);
+        inTransaction(() ->
+            em
+                .createQuery("update User user set user.createdDate = :createdDate where user.login = :login")
+                .setParameter("createdDate", Instant.now().minus(4, ChronoUnit.DAYS))
+                .setParameter("login", LOGIN)
+                .executeUpdate()
+        );
+        warmUp();
+
+        userService.removeNotActivatedUsers();
+
+        assertThat(findByLogin()).isEmpty();
+        assertThat(findByEmail(EMAIL)).isEmpty();
+    }
+
+    private static void runInOtherThread(Runnable work) {
+        try {
+            CompletableFuture.runAsync(work).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void warmUp() {
+        assertThat(findByLogin()).isPresent();
+        assertThat(findByEmail(EMAIL)).isPresent();
+    }
+
+    private Optional<User> findByLogin() {
+        return userRepository.findOneWithAuthoritiesByLogin(LOGIN);
+    }
+
+    private Optional<User> findByEmail(String email) {
+        return userRepository.findOneWithAuthoritiesByEmailIgnoreCase(email);
+    }
+
+    private void save(User user) {
+        inTransaction(() -> userRepository.saveAndFlush(user));
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+}
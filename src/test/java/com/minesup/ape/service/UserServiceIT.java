@@ -5,14 +5,29 @@ import static org.mockito.Mockito.when;
 
 import com.minesup.ape.IntegrationTest;
 import com.minesup.ape.config.Constants;
+import com.minesup.ape.domain.Authority;
 import com.minesup.ape.domain.User;
+import com.minesup.ape.management.SchedulerMetersService;
+import com.minesup.ape.management.UserCleanupMetersService;
+import com.minesup.ape.repository.AuthorityRepository;
+import com.minesup.ape.repository.JobLockRepository;
+import com.minesup.ape.repository.UserIdentity;
 import com.minesup.ape.repository.UserRepository;
+import com.minesup.ape.security.AuthoritiesConstants;
 import com.minesup.ape.service.dto.AdminUserDTO;
+import com.minesup.ape.service.scheduling.JobLockService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import javax.persistence.EntityManager;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,6 +37,8 @@ import org.springframework.data.auditing.AuditingHandler;
 import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.security.RandomUtil;
 
@@ -50,6 +67,24 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private SchedulerMetersService schedulerMetersService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Autowired
     private AuditingHandler auditingHandler;
 
@@ -159,10 +194,10 @@ class UserServiceIT {
         dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
         userRepository.saveAndFlush(user);
         Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
+        List<UserIdentity> users = userRepository.findAllIdentitiesByActivatedIsFalseAndCreatedDateBefore(threeDaysAgo, Pageable.unpaged());
         assertThat(users).isNotEmpty();
         userService.removeNotActivatedUsers();
-        users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
+        users = userRepository.findAllIdentitiesByActivatedIsFalseAndCreatedDateBefore(threeDaysAgo, Pageable.unpaged());
         assertThat(users).isEmpty();
     }
 
@@ -176,10 +211,98 @@ class UserServiceIT {
         dbUser.setCreatedDate(now.minus(4, ChronoUnit.DAYS));
         userRepository.saveAndFlush(user);
         Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
-        List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
+        List<UserIdentity> users = userRepository.findAllIdentitiesByActivatedIsFalseAndCreatedDateBefore(threeDaysAgo, Pageable.unpaged());
         assertThat(users).isEmpty();
         userService.removeNotActivatedUsers();
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
         assertThat(maybeDbUser).contains(dbUser);
     }
+
+    @Test
+    @Transactional
+    void assertThatNotActivatedUsersAreRemovedByChunksWithTheirAuthorities() {
+        Instant now = Instant.now();
+        when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
+        Authority authority = authorityRepository.findById(AuthoritiesConstants.STUDENT).orElseThrow();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User notActivated = new User();
+            notActivated.setLogin("not-activated-" + i);
+            notActivated.setPassword(RandomStringUtils.random(60));
+            notActivated.setEmail("not-activated-" + i + "@localhost");
+            notActivated.setActivationKey(RandomUtil.generateActivationKey());
+            notActivated.setAuthorities(Set.of(authority));
+            ids.add(userRepository.saveAndFlush(notActivated).getId());
+        }
+        double removed = removedCounter();
+        long chunks = chunkTimer();
+        long runs = runTimer();
+
+        userService.removeNotActivatedUsers();
+
+        assertThat(userRepository.findAllById(ids)).isEmpty();
+        assertThat(
+            em.createNativeQuery("select count(*) from jhi_user_authority where user_id in :ids").setParameter("ids", ids).getSingleResult()
+        )
+            .asString()
+            .isEqualTo("0");
+        assertThat(removedCounter()).isEqualTo(removed + 5);
+        // Two full chunks, then the last one
+        assertThat(chunkTimer()).isEqualTo(chunks + 3);
+        assertThat(runTimer()).isEqualTo(runs + 1);
+    }
+
+    @Test
+    @Transactional
+    void assertThatNotActivatedUsersAreNotRemovedWhileAnotherInstanceRemovesThem() {
+        Instant now = Instant.now();
+        when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
+        user.setActivated(false);
+        user.setActivationKey(RandomUtil.generateActivationKey());
+        User dbUser = userRepository.saveAndFlush(user);
+        JobLockService otherInstance = new JobLockService(jobLockRepository, transactionManager, schedulerMetersService);
+        assertThat(otherInstance.tryLock(UserService.REMOVE_NOT_ACTIVATED_USERS_JOB, Duration.ofMinutes(1))).isTrue();
+        double skipped = skippedCounter();
+        try {
+            userService.removeNotActivatedUsers();
+        } finally {
+            otherInstance.unlock(UserService.REMOVE_NOT_ACTIVATED_USERS_JOB);
+        }
+
+        assertThat(userRepository.findById(dbUser.getId())).isPresent();
+        assertThat(skippedCounter()).isEqualTo(skipped + 1);
+    }
+
+    private double removedCounter() {
+        return meterRegistry.get(UserCleanupMetersService.REMOVED_METER_NAME).counter().count();
+    }
+
+    private long chunkTimer() {
+        return meterRegistry.get(UserCleanupMetersService.CHUNK_METER_NAME).timer().count();
+    }
+
+    private long runTimer() {
+        return Optional
+            .ofNullable(
+                meterRegistry
+                    .find(SchedulerMetersService.DURATION_METER_NAME)
+                    .tags(SchedulerMetersService.JOB_DIMENSION, UserService.REMOVE_NOT_ACTIVATED_USERS_JOB)
+                    .tag(SchedulerMetersService.DURATION_METER_OUTCOME_DIMENSION, "success")
+                    .timer()
+            )
+            .map(Timer::count)
+            .orElse(0L);
+    }
+
+    private double skippedCounter() {
+        return Optional
+            .ofNullable(
+                meterRegistry
+                    .find(SchedulerMetersService.SKIPPED_METER_NAME)
+                    .tags(SchedulerMetersService.JOB_DIMENSION, UserService.REMOVE_NOT_ACTIVATED_USERS_JOB)
+                    .counter()
+            )
+            .map(Counter::count)
+            .orElse(0.0);
+    }
 }
@@ -0,0 +1,120 @@
+package com.minesup.ape.service.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.management.SchedulerMetersService;
+import com.minesup.ape.repository.JobLockRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Integration tests for {@link JobLockService}.
+ * <p>
+ * The leases commit in their own transactions, so these tests are not transactional and delete the leases they wrote.
+ */
+@IntegrationTest
+class JobLockServiceIT {
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    /**
+     * A job unique to each test.
+     */
+    private final String job = "job-" + UUID.randomUUID();
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SchedulerMetersService schedulerMetersService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JobLockService jobLockService;
+
+    /**
+     * Another instance of the application.
+     */
+    private JobLockService otherInstance;
+
+    @BeforeEach
+    public void init() {
+        otherInstance = new JobLockService(jobLockRepository, transactionManager, schedulerMetersService);
+    }
+
+    @AfterEach
+    void deleteWrittenLeases() {
+        jobLockRepository.deleteById(job);
+    }
+
+    @Test
+    void leaseIsHeldByOneInstanceAtATime() {
+        assertThat(jobLockService.tryLock(job, LEASE)).isTrue();
+
+        assertThat(otherInstance.tryLock(job, LEASE)).isFalse();
+        assertThat(otherInstance.extend(job, LEASE)).isFalse();
+        assertThat(jobLockService.tryLock(job, LEASE)).isFalse();
+        assertThat(jobLockService.extend(job, LEASE)).isTrue();
+    }
+
+    @Test
+    void releasedLeaseCanBeTakenByAnotherInstance() {
+        assertThat(jobLockService.tryLock(job, LEASE)).isTrue();
+        otherInstance.unlock(job);
+        assertThat(otherInstance.tryLock(job, LEASE)).isFalse();
+
+        jobLockService.unlock(job);
+
+        assertThat(otherInstance.tryLock(job, LEASE)).isTrue();
+        assertThat(jobLockRepository.findById(job)).hasValueSatisfying(jobLock -> assertThat(jobLock.getLockedBy()).isNotBlank());
+    }
+
+    @Test
+    void leaseReleasedSoonerThanItsMinimumIsHeldUntilThen() {
+        assertThat(jobLockService.tryLock(job, LEASE)).isTrue();
+
+        jobLockService.unlock(job, Duration.ofSeconds(30));
+
+        assertThat(otherInstance.tryLock(job, LEASE)).isFalse();
+        assertThat(jobLockRepository.findById(job))
+            .hasValueSatisfying(jobLock -> assertThat(jobLock.getLockedUntil()).isEqualTo(jobLock.getLockedAt().plusSeconds(30)));
+    }
+
+    @Test
+    void leaseHeldLongerThanItsMinimumIsReleasedAtOnce() throws Exception {
+        assertThat(jobLockService.tryLock(job, LEASE)).isTrue();
+        Thread.sleep(100);
+
+        jobLockService.unlock(job, Duration.ofMillis(50));
+
+        assertThat(otherInstance.tryLock(job, LEASE)).isTrue();
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndCannotBeExtended() throws Exception {
+        assertThat(jobLockService.tryLock(job, Duration.ofMillis(50))).isTrue();
+        Thread.sleep(100);
+
+        assertThat(otherInstance.tryLock(job, LEASE)).isTrue();
+
+        assertThat(jobLockService.extend(job, LEASE)).isFalse();
+        assertThat(
+            meterRegistry.get(SchedulerMetersService.LEASE_LOST_METER_NAME).tag(SchedulerMetersService.JOB_DIMENSION, job).counter().count()
+        )
+            .isEqualTo(1);
+        jobLockService.unlock(job);
+        assertThat(jobLockService.tryLock(job, LEASE)).isFalse();
+    }
+}
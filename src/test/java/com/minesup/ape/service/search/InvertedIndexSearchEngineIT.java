@@ -0,0 +1,228 @@
+package com.minesup.ape.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.repository.CourseRepository;
+import com.minesup.ape.repository.ExerciseRepository;
+import com.minesup.ape.repository.SearchHit;
+import com.minesup.ape.service.ImportService;
+import com.minesup.ape.service.dto.ImportJobDTO;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link InvertedIndexSearchEngine}.
+ * <p>
+ * The index follows committed changes only, so these tests are not transactional and delete what they created.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestPropertySource(
+    properties = {
+        "application.search.engine=index", "application.search.index.snapshot-file=" + InvertedIndexSearchEngineIT.SNAPSHOT_FILE,
+    }
+)
+class InvertedIndexSearchEngineIT {
+
+    static final String SNAPSHOT_FILE = "target/search-index/ape-search-index-it.bin";
+
+    /**
+     * A term unique to each test.
+     */
+    private final String word = "w" + UUID.randomUUID().toString().replace("-", "");
+
+    private final List<Long> courseIds = new ArrayList<>();
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private SearchEngine searchEngine;
+
+    @Autowired
+    private MockMvc restSearchMockMvc;
+
+    @AfterEach
+    void deleteCreatedEntities() {
+        inTransaction(() -> {
+            em
+                .createQuery("delete from Exercise exercise where exercise.course.id in :ids")
+                .setParameter("ids", courseIds)
+                .executeUpdate();
+            em.createQuery("delete from Course course where course.id in :ids").setParameter("ids", courseIds).executeUpdate();
+        });
+    }
+
+    @Test
+    void theIndexEngineIsSelected() {
+        assertThat(searchEngine).isInstanceOf(InvertedIndexSearchEngine.class);
+    }
+
+    @Test
+    void indexFollowsCommittedChanges() throws Exception {
+        Course course = createCourse("Les " + word, "Structures apériodiques");
+        Exercise exercise = new Exercise().title("Pavages").content("Montrer qu'un <b>" + word + "</b> n'est pas périodique.").mark(1);
+        inTransaction(() -> exerciseRepository.saveAndFlush(exercise.course(course)));
+
+        restSearchMockMvc
+            .perform(get("/api/search?query={query}", word.toUpperCase()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].type").value(SearchHit.COURSE))
+            .andExpect(jsonPath("$.[0].id").value(course.getId().intValue()))
+            .andExpect(jsonPath("$.[0].title").value("Les " + word))
+            .andExpect(jsonPath("$.[1].type").value(SearchHit.EXERCISE))
+            .andExpect(jsonPath("$.[1].id").value(exercise.getId().intValue()))
+            .andExpect(
+                jsonPath("$.[1].snippet").value("Montrer qu&#39;un &lt;b&gt;<mark>" + word + "</mark>&lt;/b&gt; n&#39;est pas périodique.")
+            );
+
+        inTransaction(() -> courseRepository.findById(course.getId()).orElseThrow().setTitle("Renamed"));
+        inTransaction(() -> exerciseRepository.deleteById(exercise.getId()));
+
+        assertThat(searchEngine.search(word, PageRequest.of(0, 10))).isEmpty();
+        assertThat(searchEngine.search("renamed apériodiques", PageRequest.of(0, 10)))
+            .extracting(SearchHit::getId)
+            .contains(course.getId());
+    }
+
+    @Test
+    void rolledBackChangesAreNotIndexed() {
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> {
+                courseRepository.saveAndFlush(new Course().title(word).content("content"));
+                status.setRollbackOnly();
+            });
+
+        assertThat(searchEngine.search(word, PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void searchIsPaginated() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            createCourse(word + " " + i, "content");
+        }
+
+        restSearchMockMvc
+            .perform(get("/api/search?query={query}&size=2", word))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(header().exists(HttpHeaders.LINK));
+        restSearchMockMvc
+            .perform(get("/api/search?query={query}&size=2&page=1", word))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    void bulkDeletedHitsAreDropped() {
+        Course course = createCourse(word, "content");
+        inTransaction(() ->
+            em.createQuery("delete from Course course where course.id = :id").setParameter("id", course.getId()).executeUpdate()
+        );
+
+        assertThat(searchEngine.search(word, PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    void indexFollowsBulkImports() throws Exception {
+        ImportJobDTO job = importService.importCourses(
+            ImportService.Format.NDJSON,
+            new ByteArrayInputStream(("{\"title\":\"" + word + "\",\"content\":\"content\"}\n").getBytes(StandardCharsets.UTF_8))
+        );
+        for (int attempt = 0; attempt < 100 && importService.findOne(job.getId()).orElseThrow().getFinishedDate() == null; attempt++) {
+            Thread.sleep(100);
+        }
+        assertThat(importService.findOne(job.getId()).orElseThrow().getStatus()).isEqualTo(ImportJobDTO.Status.COMPLETED);
+        courseIds.addAll(
+            fetch(() ->
+                em
+                    .createQuery("select course.id from Course course where course.title = :title", Long.class)
+                    .setParameter("title", word)
+                    .getResultList()
+            )
+        );
+
+        assertThat(courseIds).hasSize(1);
+        assertThat(searchEngine.search(word, PageRequest.of(0, 10))).extracting(SearchHit::getId).containsExactlyElementsOf(courseIds);
+    }
+
+    @Test
+    void savedIndexIsLoadedAndCaughtUp() throws Exception {
+        Course renamed = createCourse(word + " renamed", "content");
+        Course deleted = createCourse(word + " deleted", "content");
+        InvertedIndexSearchEngine engine = (InvertedIndexSearchEngine) searchEngine;
+        engine.close();
+        assertThat(Path.of(SNAPSHOT_FILE)).exists();
+
+        // Changes the listeners do not see, as if they happened while the application was stopped
+        inTransaction(() -> {
+            em
+                .createQuery("update Course course set course.title = :title, course.version = course.version + 1 where course.id = :id")
+                .setParameter("title", "Caught up " + word)
+                .setParameter("id", renamed.getId())
+                .executeUpdate();
+            em.createQuery("delete from Course course where course.id = :id").setParameter("id", deleted.getId()).executeUpdate();
+        });
+        engine.open();
+
+        assertThat(searchEngine.search(word + " caught up", PageRequest.of(0, 10)))
+            .extracting(SearchHit::getId)
+            .containsExactly(renamed.getId());
+        assertThat(searchEngine.search(word + " renamed", PageRequest.of(0, 10))).isEmpty();
+        assertThat(searchEngine.search(word + " deleted", PageRequest.of(0, 10))).isEmpty();
+        assertThat(Files.size(Path.of(SNAPSHOT_FILE))).isPositive();
+    }
+
+    private Course createCourse(String title, String content) {
+        Course course = fetch(() -> courseRepository.saveAndFlush(new Course().title(title).content(content)));
+        courseIds.add(course.getId());
+        return course;
+    }
+
+    private <T> T fetch(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+}
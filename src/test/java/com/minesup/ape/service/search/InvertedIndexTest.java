@@ -0,0 +1,148 @@
+package com.minesup.ape.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.minesup.ape.repository.SearchHit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for {@link InvertedIndex}.
+ */
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    public void init() {
+        index = new InvertedIndex();
+        index.put(SearchHit.COURSE, 1, 0, "Les quasicristaux", "Structures apériodiques");
+        index.put(SearchHit.EXERCISE, 1, 0, "Pavages", "Montrer qu'un quasicristal n'est pas périodique");
+        index.put(SearchHit.EXERCISE, 2, 0, "Réseaux", "Un réseau est périodique, un quasicristal non");
+        index.put(SearchHit.EXERCISE, 3, 0, "Quasicristal", "Décrire sa diffraction");
+    }
+
+    @Test
+    void searchMatchesEveryTermWithoutAccents() {
+        assertThat(matches("Periodique QUASICRISTAL")).containsExactlyInAnyOrder("exercise:1", "exercise:2");
+        assertThat(matches("apériodiques")).containsExactly("course:1");
+        assertThat(matches("quasicristal inconnu")).isEmpty();
+    }
+
+    @Test
+    void searchRanksTitleMatchesFirst() {
+        // Then the shorter contents
+        assertThat(matches("quasicristal")).containsExactly("exercise:3", "exercise:2", "exercise:1");
+    }
+
+    @Test
+    void searchIsPaginated() {
+        List<InvertedIndex.Match> page = index.search(Tokenizer.terms("quasicristal"), 1, 1);
+
+        assertThat(page).extracting(InvertedIndex.Match::getId).containsExactly(2L);
+        assertThat(index.search(Tokenizer.terms("quasicristal"), 3, 1)).isEmpty();
+    }
+
+    @Test
+    void putReplacesTheDocument() {
+        index.put(SearchHit.EXERCISE, 3, 1, "Diffraction", "Décrire la figure");
+
+        assertThat(matches("quasicristal")).containsExactly("exercise:2", "exercise:1");
+        assertThat(matches("figure")).containsExactly("exercise:3");
+        assertThat(index.version(SearchHit.EXERCISE, 3)).isEqualTo(1);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void putKeepsTheNewerDocument() {
+        index.put(SearchHit.EXERCISE, 3, 2, "Diffraction", "Décrire la figure");
+
+        assertThat(index.put(SearchHit.EXERCISE, 3, 1, "Quasicristal", "Décrire sa diffraction")).isFalse();
+        assertThat(index.put(SearchHit.EXERCISE, 3, 2, "Quasicristal", "Décrire sa diffraction")).isFalse();
+        assertThat(matches("figure")).containsExactly("exercise:3");
+        assertThat(index.version(SearchHit.EXERCISE, 3)).isEqualTo(2);
+    }
+
+    @Test
+    void removeDropsTheDocument() {
+        assertThat(index.remove(SearchHit.EXERCISE, 1)).isTrue();
+        assertThat(index.remove(SearchHit.EXERCISE, 1)).isFalse();
+
+        assertThat(matches("quasicristal")).containsExactly("exercise:3", "exercise:2");
+        assertThat(index.version(SearchHit.EXERCISE, 1)).isEqualTo(InvertedIndex.NOT_INDEXED);
+        assertThat(index.version(SearchHit.COURSE, 1)).isZero();
+        assertThat(index.ids(SearchHit.EXERCISE)).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    void removedDocumentsAreCompacted() {
+        for (long id = 10; id < 3000; id++) {
+            index.put(SearchHit.COURSE, id, 0, "Cours " + id, "quasicristal");
+        }
+        for (long id = 10; id < 3000; id++) {
+            index.remove(SearchHit.COURSE, id);
+        }
+        index.put(SearchHit.EXERCISE, 2, 1, "Réseaux", "Un réseau est périodique");
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(matches("quasicristal")).containsExactly("exercise:3", "exercise:1");
+        assertThat(matches("reseau")).containsExactly("exercise:2");
+    }
+
+    @Test
+    void writtenIndexIsReadBack(@TempDir Path directory) throws IOException {
+        index.remove(SearchHit.EXERCISE, 2);
+        Path file = directory.resolve("index.bin");
+
+        index.writeTo(file);
+        InvertedIndex read = InvertedIndex.readFrom(file);
+
+        assertThat(read.size()).isEqualTo(3);
+        assertThat(read.version(SearchHit.EXERCISE, 2)).isEqualTo(InvertedIndex.NOT_INDEXED);
+        index = read;
+        assertThat(matches("quasicristal")).containsExactly("exercise:3", "exercise:1");
+        index.put(SearchHit.COURSE, 2, 0, "Pavages de Penrose", "");
+        assertThat(matches("pavages")).containsExactly("course:2", "exercise:1");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    void truncatedIndexIsRejected(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("index.bin");
+        index.writeTo(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThatThrownBy(() -> InvertedIndex.readFrom(file)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void snippetHighlightsTheEscapedMatches() {
+        assertThat(InvertedIndexSearchEngine.snippet("Un <b>Quasicristal</b> n'est pas périodique", Set.of("quasicristal", "periodique")))
+            .isEqualTo("Un &lt;b&gt;<mark>Quasicristal</mark>&lt;/b&gt; n&#39;est pas <mark>périodique</mark>");
+        String content = "Introduction ".repeat(10) + "quasicristal " + "conclusion ".repeat(30);
+        assertThat(InvertedIndexSearchEngine.snippet(content, Set.of("quasicristal")))
+            .startsWith("Introduction Introduction Introduction Introduction <mark>quasicristal</mark> conclusion")
+            .hasSizeLessThan(260);
+    }
+
+    private List<String> matches(String query) {
+        return index
+            .search(Tokenizer.terms(query), 0, 10)
+            .stream()
+            .map(match -> match.getType() + ":" + match.getId())
+            .collect(Collectors.toList());
+    }
+}
@@ -7,8 +7,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.minesup.ape.IntegrationTest;
 import com.minesup.ape.config.Constants;
+import com.minesup.ape.domain.OutboxMail;
 import com.minesup.ape.domain.User;
 import com.minesup.ape.repository.AuthorityRepository;
+import com.minesup.ape.repository.OutboxMailRepository;
 import com.minesup.ape.repository.UserRepository;
 import com.minesup.ape.security.AuthoritiesConstants;
 import com.minesup.ape.service.UserService;
@@ -51,6 +53,9 @@ class AccountResourceIT {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private OutboxMailRepository outboxMailRepository;
+
     @Autowired
     private MockMvc restAccountMockMvc;
 
@@ -132,6 +137,7 @@ class AccountResourceIT {
             .andExpect(status().isCreated());
 
         assertThat(userRepository.findOneByLogin("test-register-valid")).isPresent();
+        assertThat(outboxMailRepository.findAll()).extracting(OutboxMail::getRecipient).containsExactly("test-register-valid@example.com");
     }
 
     @Test
@@ -664,6 +670,8 @@ class AccountResourceIT {
         restAccountMockMvc
             .perform(post("/api/account/reset-password/init").content("password-reset@example.com"))
             .andExpect(status().isOk());
+
+        assertThat(outboxMailRepository.findAll()).extracting(OutboxMail::getRecipient).containsExactly("password-reset@example.com");
     }
 
     @Test
@@ -686,6 +694,8 @@ class AccountResourceIT {
         restAccountMockMvc
             .perform(post("/api/account/reset-password/init").content("password-reset-wrong-email@example.com"))
             .andExpect(status().isOk());
+
+        assertThat(outboxMailRepository.count()).isZero();
     }
 
     @Test
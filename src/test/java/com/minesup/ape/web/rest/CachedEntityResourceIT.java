@@ -0,0 +1,95 @@
+package com.minesup.ape.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the entities served again once they are in the Hibernate second-level and query caches, without
+ * any statement.
+ * <p>
+ * Each request must then run in its own transaction, so these tests are not transactional and delete what they created.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class CachedEntityResourceIT {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    private Course course;
+
+    private Exercise exercise;
+
+    private Correction correction;
+
+    @BeforeEach
+    void initDatabase() {
+        course = new Course().title("cached course").content("cached course content");
+        exercise = new Exercise().title("cached exercise").content("cached exercise content").mark(1).course(course);
+        correction = new Correction().content("cached correction content").exercise(exercise);
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> {
+                em.persist(course);
+                em.persist(exercise);
+                em.persist(correction);
+            });
+    }
+
+    @AfterEach
+    void deleteCreatedEntities() {
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> {
+                em.remove(em.find(Correction.class, correction.getId()));
+                em.remove(em.find(Exercise.class, exercise.getId()));
+                em.remove(em.find(Course.class, course.getId()));
+            });
+    }
+
+    @Test
+    void getExerciseTwiceReturnsTheSameRepresentation() throws Exception {
+        assertSameRepresentationTwice("/api/exercises/" + exercise.getId());
+    }
+
+    @Test
+    void getCorrectionTwiceReturnsTheSameRepresentation() throws Exception {
+        assertSameRepresentationTwice("/api/corrections/" + correction.getId());
+    }
+
+    private void assertSameRepresentationTwice(String url) throws Exception {
+        MockHttpServletResponse first = restMockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        MockHttpServletResponse second = restMockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse();
+
+        assertThat(statistics.getPrepareStatementCount()).as("statements prepared by the second GET %s", url).isZero();
+        assertThat(second.getHeader(HttpHeaders.ETAG)).isNotNull().isEqualTo(first.getHeader(HttpHeaders.ETAG));
+        assertThat(second.getContentAsString()).isEqualTo(first.getContentAsString());
+    }
+}
@@ -1,21 +1,28 @@
 package com.minesup.ape.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.config.ApplicationProperties;
 import com.minesup.ape.domain.Correction;
 import com.minesup.ape.domain.Exercise;
 import com.minesup.ape.repository.CorrectionRepository;
 import com.minesup.ape.service.CorrectionService;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,6 +32,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -64,6 +72,9 @@ class CorrectionResourceIT {
     @Autowired
     private MockMvc restCorrectionMockMvc;
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     private Correction correction;
 
     /**
@@ -162,6 +173,73 @@ class CorrectionResourceIT {
             .andExpect(jsonPath("$.[*].content").value(hasItem(DEFAULT_CONTENT.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllCorrectionsWithEagerRelationshipsIsPaginatedInDatabase() throws Throwable {
+        // Initialize the database
+        correctionRepository.saveAndFlush(correction);
+        Exercise secondExercise = ExerciseResourceIT.createEntity(em);
+        em.persist(secondExercise);
+        correctionRepository.saveAndFlush(new Correction().content(DEFAULT_CONTENT).exercise(secondExercise));
+
+        // Get the second page of one correction, fetching its exercise in the same query
+        TestUtil.assertPaginatedInDatabase(
+            em,
+            () ->
+                restCorrectionMockMvc
+                    .perform(get(ENTITY_API_URL + "?eagerload=true&sort=id,desc&page=1&size=1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$.[0].id").value(correction.getId().intValue()))
+                    .andExpect(jsonPath("$.[0].exercise.id").value(correction.getExercise().getId().intValue())),
+            "exercise"
+        );
+    }
+
+    @Test
+    @Transactional
+    void getAllCorrectionSummaries() throws Exception {
+        // Initialize the database
+        correctionRepository.saveAndFlush(correction);
+
+        // Get all the correction summaries
+        restCorrectionMockMvc
+            .perform(get(ENTITY_API_URL + "?summary=true&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(correction.getId().intValue())))
+            .andExpect(jsonPath("$.[*].exercise.id").value(hasItem(correction.getExercise().getId().intValue())))
+            .andExpect(jsonPath("$.[*].content").doesNotExist())
+            .andExpect(jsonPath("$.[*].exercise.content").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getAllCorrectionsIsASingleStatement() throws Exception {
+        // Initialize the database with several corrections, each for its own exercise
+        correctionRepository.saveAndFlush(correction);
+        for (int i = 0; i < 3; i++) {
+            Exercise exercise = ExerciseResourceIT.createEntity(em);
+            em.persist(exercise);
+            correctionRepository.saveAndFlush(new Correction().content(DEFAULT_CONTENT).exercise(exercise));
+        }
+
+        // Pages smaller than the page size skip the count query, leaving the select of the corrections alone
+        String allRows = "&size=" + Integer.MAX_VALUE;
+        assertStatementCount(ENTITY_API_URL + "?sort=id,desc" + allRows, 1);
+        assertStatementCount(ENTITY_API_URL + "?eagerload=false&sort=id,desc" + allRows, 1);
+        assertStatementCount(ENTITY_API_URL + "?after=" + (correction.getId() - 1) + allRows, 1);
+        assertStatementCount(ENTITY_API_URL + "?summary=true&sort=id,desc" + allRows, 1);
+        assertStatementCount(ENTITY_API_URL + "/" + correction.getId(), 1);
+    }
+
+    private void assertStatementCount(String url, long expectedCount) throws Exception {
+        Statistics statistics = TestUtil.resetStatementCount(em);
+        restCorrectionMockMvc.perform(get(url)).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).as("statements prepared by GET %s", url).isEqualTo(expectedCount);
+    }
+
     @SuppressWarnings({ "unchecked" })
     void getAllCorrectionsWithEagerRelationshipsIsEnabled() throws Exception {
         when(correctionServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
@@ -180,6 +258,24 @@ class CorrectionResourceIT {
         verify(correctionServiceMock, times(1)).findAllWithEagerRelationships(any());
     }
 
+    @Test
+    @Transactional
+    void getAllCorrectionSummariesAfterIsRejected() throws Exception {
+        restCorrectionMockMvc
+            .perform(get(ENTITY_API_URL + "?summary=true&after=0"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.keysetunsupported"));
+    }
+
+    @Test
+    @Transactional
+    void getAllSortedCorrectionsAfterIsRejected() throws Exception {
+        restCorrectionMockMvc
+            .perform(get(ENTITY_API_URL + "?after=0&sort=id,desc"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.keysetunsupported"));
+    }
+
     @Test
     @Transactional
     void getCorrection() throws Exception {
@@ -195,6 +291,47 @@ class CorrectionResourceIT {
             .andExpect(jsonPath("$.content").value(DEFAULT_CONTENT.toString()));
     }
 
+    @Test
+    @Transactional
+    void getCorrectionWithCurrentETagIsNotModified() throws Exception {
+        // Initialize the database
+        correctionRepository.saveAndFlush(correction);
+        String eTag = restCorrectionMockMvc
+            .perform(get(ENTITY_API_URL_ID, correction.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        restCorrectionMockMvc
+            .perform(get(ENTITY_API_URL_ID, correction.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // Any update makes it stale
+        restCorrectionMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, correction.getId())
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new Correction().id(correction.getId()).content(UPDATED_CONTENT)))
+            )
+            .andExpect(status().isOk());
+        restCorrectionMockMvc
+            .perform(get(ENTITY_API_URL_ID, correction.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content").value(UPDATED_CONTENT));
+        restCorrectionMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, correction.getId())
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new Correction().id(correction.getId()).content(DEFAULT_CONTENT)))
+            )
+            .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @Transactional
     void getNonExistingCorrection() throws Exception {
@@ -418,4 +555,152 @@ class CorrectionResourceIT {
         List<Correction> correctionList = correctionRepository.findAll();
         assertThat(correctionList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void createCorrectionsInBulk() throws Exception {
+        int databaseSizeBeforeCreate = correctionRepository.findAll().size();
+        Exercise otherExercise = ExerciseResourceIT.createEntity(em);
+        em.persist(otherExercise);
+        em.flush();
+        Correction otherCorrection = new Correction().content(UPDATED_CONTENT).exercise(otherExercise);
+
+        restCorrectionMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(correction, otherCorrection)))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.[*].index").value(contains(0, 1)))
+            .andExpect(jsonPath("$.[*].status").value(everyItem(is(201))));
+
+        List<Correction> correctionList = correctionRepository.findAll();
+        assertThat(correctionList).hasSize(databaseSizeBeforeCreate + 2);
+        assertThat(correctionList).extracting(Correction::getContent).contains(DEFAULT_CONTENT, UPDATED_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    void createCorrectionsInBulkForTheSameExercise() throws Exception {
+        int databaseSizeBeforeCreate = correctionRepository.findAll().size();
+        Correction otherCorrection = new Correction().content(UPDATED_CONTENT).exercise(correction.getExercise());
+
+        restCorrectionMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(correction, otherCorrection)))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].index").value(1))
+            .andExpect(jsonPath("$.[0].errors").value(hasItem(startsWith("exercise:"))));
+
+        assertThat(correctionRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void createCorrectionsInBulkForNonExistingExercise() throws Exception {
+        int databaseSizeBeforeCreate = correctionRepository.findAll().size();
+        Correction orphanCorrection = new Correction().content(UPDATED_CONTENT).exercise(new Exercise().id(count.incrementAndGet()));
+
+        restCorrectionMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(correction, orphanCorrection)))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].index").value(1))
+            .andExpect(jsonPath("$.[0].status").value(400))
+            .andExpect(jsonPath("$.[0].errors").value(contains("exercise: not found")));
+
+        assertThat(correctionRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void updateCorrectionsInBulk() throws Exception {
+        correctionRepository.saveAndFlush(correction);
+
+        // Keeping its own exercise is not a conflict with the correction already stored for it
+        Correction updatedCorrection = correctionRepository.findById(correction.getId()).get();
+        em.detach(updatedCorrection);
+        updatedCorrection.content(UPDATED_CONTENT);
+
+        restCorrectionMockMvc
+            .perform(
+                put(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(updatedCorrection)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(correction.getId().intValue()))
+            .andExpect(jsonPath("$.[0].status").value(200));
+
+        assertThat(correctionRepository.findById(correction.getId()).get().getContent()).isEqualTo(UPDATED_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    void updateCorrectionsInBulkForAnExerciseCorrectedByAnother() throws Exception {
+        correctionRepository.saveAndFlush(correction);
+        Exercise otherExercise = ExerciseResourceIT.createEntity(em);
+        em.persist(otherExercise);
+        Correction otherCorrection = correctionRepository.saveAndFlush(new Correction().content(DEFAULT_CONTENT).exercise(otherExercise));
+
+        Correction updatedCorrection = correctionRepository.findById(otherCorrection.getId()).get();
+        em.detach(updatedCorrection);
+        updatedCorrection.content(UPDATED_CONTENT).exercise(new Exercise().id(correction.getExercise().getId()));
+
+        restCorrectionMockMvc
+            .perform(
+                put(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(updatedCorrection)))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.[0].status").value(400))
+            .andExpect(jsonPath("$.[0].errors").value(contains("exercise: already has a correction")));
+
+        assertThat(correctionRepository.findById(otherCorrection.getId()).get().getContent()).isEqualTo(DEFAULT_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    void deleteCorrectionsInBulkWithTooManyIds() throws Exception {
+        correctionRepository.saveAndFlush(correction);
+        int maxItems = applicationProperties.getBulkRequests().getMaxItems();
+
+        int databaseSizeBeforeDelete = correctionRepository.findAll().size();
+
+        restCorrectionMockMvc
+            .perform(
+                delete(ENTITY_API_URL + "/bulk")
+                    .param("ids", Collections.nCopies(maxItems + 1, correction.getId().toString()).toArray(String[]::new))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.bulktoolarge"));
+
+        assertThat(correctionRepository.findAll()).hasSize(databaseSizeBeforeDelete);
+    }
+
+    @Test
+    @Transactional
+    void deleteCorrectionsInBulk() throws Exception {
+        correctionRepository.saveAndFlush(correction);
+        long nonExistingId = count.incrementAndGet();
+
+        int databaseSizeBeforeDelete = correctionRepository.findAll().size();
+
+        restCorrectionMockMvc
+            .perform(delete(ENTITY_API_URL + "/bulk").param("ids", correction.getId().toString(), Long.toString(nonExistingId)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].status").value(contains(204, 404)));
+
+        assertThat(correctionRepository.findAll()).hasSize(databaseSizeBeforeDelete - 1);
+    }
 }
@@ -1,12 +1,15 @@
 package com.minesup.ape.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.domain.Correction;
 import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
 import com.minesup.ape.repository.CourseRepository;
 import java.util.List;
 import java.util.Random;
@@ -16,6 +19,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -148,6 +152,65 @@ class CourseResourceIT {
             .andExpect(jsonPath("$.[*].content").value(hasItem(DEFAULT_CONTENT.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllCourseSummaries() throws Exception {
+        // Initialize the database
+        courseRepository.saveAndFlush(course);
+
+        // Get all the course summaries
+        restCourseMockMvc
+            .perform(get(ENTITY_API_URL + "?summary=true&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(course.getId().intValue())))
+            .andExpect(jsonPath("$.[*].title").value(hasItem(DEFAULT_TITLE)))
+            .andExpect(jsonPath("$.[*].content").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getAllCoursesAfter() throws Exception {
+        // Initialize the database
+        courseRepository.saveAndFlush(course);
+        Course nextCourse = courseRepository.saveAndFlush(createEntity(em));
+
+        // Get the first keyset page, which links to the next one
+        restCourseMockMvc
+            .perform(get(ENTITY_API_URL + "?after=" + (course.getId() - 1) + "&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("after=" + course.getId())))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(course.getId().intValue()));
+
+        // Follow the cursor
+        restCourseMockMvc
+            .perform(get(ENTITY_API_URL + "?after=" + course.getId() + "&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(nextCourse.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getAllCourseSummariesAfterIsRejected() throws Exception {
+        restCourseMockMvc
+            .perform(get(ENTITY_API_URL + "?summary=true&after=0"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.keysetunsupported"));
+    }
+
+    @Test
+    @Transactional
+    void getAllSortedCoursesAfterIsRejected() throws Exception {
+        restCourseMockMvc
+            .perform(get(ENTITY_API_URL + "?after=0&sort=id,desc"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.keysetunsupported"));
+    }
+
     @Test
     @Transactional
     void getCourse() throws Exception {
@@ -164,6 +227,107 @@ class CourseResourceIT {
             .andExpect(jsonPath("$.content").value(DEFAULT_CONTENT.toString()));
     }
 
+    @Test
+    @Transactional
+    void getCourseTree() throws Exception {
+        // Initialize the database
+        courseRepository.saveAndFlush(course);
+        Exercise correctedExercise = new Exercise().title(DEFAULT_TITLE).content(DEFAULT_CONTENT).mark(1).course(course);
+        Exercise openExercise = new Exercise().title(UPDATED_TITLE).content(UPDATED_CONTENT).mark(2).course(course);
+        em.persist(correctedExercise);
+        em.persist(openExercise);
+        em.persist(new Correction().content(UPDATED_CONTENT).exercise(correctedExercise));
+        em.flush();
+        em.clear();
+
+        // Get the course tree
+        restCourseMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/tree", course.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.id").value(course.getId().intValue()))
+            .andExpect(jsonPath("$.content").value(DEFAULT_CONTENT))
+            .andExpect(jsonPath("$.exercises.length()").value(2))
+            .andExpect(jsonPath("$.exercises[0].id").value(correctedExercise.getId().intValue()))
+            .andExpect(jsonPath("$.exercises[0].content").value(DEFAULT_CONTENT))
+            .andExpect(jsonPath("$.exercises[0].correction.content").value(UPDATED_CONTENT))
+            .andExpect(jsonPath("$.exercises[1].id").value(openExercise.getId().intValue()))
+            .andExpect(jsonPath("$.exercises[1].correction").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getCourseTreeWithoutContent() throws Exception {
+        // Initialize the database
+        courseRepository.saveAndFlush(course);
+        Exercise correctedExercise = new Exercise().title(DEFAULT_TITLE).content(DEFAULT_CONTENT).mark(1).course(course);
+        em.persist(correctedExercise);
+        Correction correction = new Correction().content(UPDATED_CONTENT).exercise(correctedExercise);
+        em.persist(correction);
+        em.flush();
+        em.clear();
+
+        // Get the course tree without any content
+        restCourseMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/tree?includeContent=false", course.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.title").value(DEFAULT_TITLE))
+            .andExpect(jsonPath("$.content").doesNotExist())
+            .andExpect(jsonPath("$.exercises[0].title").value(DEFAULT_TITLE))
+            .andExpect(jsonPath("$.exercises[0].mark").value(1))
+            .andExpect(jsonPath("$.exercises[0].content").doesNotExist())
+            .andExpect(jsonPath("$.exercises[0].correction.id").value(correction.getId().intValue()))
+            .andExpect(jsonPath("$.exercises[0].correction.content").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingCourseTree() throws Exception {
+        // Get the course tree
+        restCourseMockMvc.perform(get(ENTITY_API_URL_ID + "/tree", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getCourseWithCurrentETagIsNotModified() throws Exception {
+        // Initialize the database
+        courseRepository.saveAndFlush(course);
+        String eTag = restCourseMockMvc
+            .perform(get(ENTITY_API_URL_ID, course.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        restCourseMockMvc
+            .perform(get(ENTITY_API_URL_ID, course.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // Any update makes it stale
+        restCourseMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, course.getId())
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new Course().id(course.getId()).content(UPDATED_CONTENT)))
+            )
+            .andExpect(status().isOk());
+        restCourseMockMvc
+            .perform(get(ENTITY_API_URL_ID, course.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content").value(UPDATED_CONTENT));
+        restCourseMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, course.getId())
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new Course().id(course.getId()).content(DEFAULT_CONTENT)))
+            )
+            .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @Transactional
     void getNonExistingCourse() throws Exception {
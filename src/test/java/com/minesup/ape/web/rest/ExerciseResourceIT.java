@@ -1,21 +1,31 @@
 package com.minesup.ape.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.config.ApplicationProperties;
+import com.minesup.ape.domain.Correction;
 import com.minesup.ape.domain.Course;
 import com.minesup.ape.domain.Exercise;
 import com.minesup.ape.repository.ExerciseRepository;
 import com.minesup.ape.service.ExerciseService;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,6 +35,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -70,6 +81,9 @@ class ExerciseResourceIT {
     @Autowired
     private MockMvc restExerciseMockMvc;
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     private Exercise exercise;
 
     /**
@@ -206,6 +220,141 @@ class ExerciseResourceIT {
             .andExpect(jsonPath("$.[*].mark").value(hasItem(DEFAULT_MARK)));
     }
 
+    @Test
+    @Transactional
+    void getAllExercisesWithEagerRelationshipsIsPaginatedInDatabase() throws Throwable {
+        // Initialize the database
+        exerciseRepository.saveAndFlush(exercise);
+        exerciseRepository.saveAndFlush(createEntity(em));
+
+        // Get the second page of one exercise, fetching its course in the same query
+        TestUtil.assertPaginatedInDatabase(
+            em,
+            () ->
+                restExerciseMockMvc
+                    .perform(get(ENTITY_API_URL + "?eagerload=true&sort=id,desc&page=1&size=1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$.[0].id").value(exercise.getId().intValue()))
+                    .andExpect(jsonPath("$.[0].course.id").value(exercise.getCourse().getId().intValue())),
+            "course"
+        );
+    }
+
+    @Test
+    @Transactional
+    void getAllExerciseSummaries() throws Exception {
+        // Initialize the database
+        exerciseRepository.saveAndFlush(exercise);
+
+        // Get all the exercise summaries
+        restExerciseMockMvc
+            .perform(get(ENTITY_API_URL + "?summary=true&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(exercise.getId().intValue())))
+            .andExpect(jsonPath("$.[*].title").value(hasItem(DEFAULT_TITLE)))
+            .andExpect(jsonPath("$.[*].mark").value(hasItem(DEFAULT_MARK)))
+            .andExpect(jsonPath("$.[*].course.id").value(hasItem(exercise.getCourse().getId().intValue())))
+            .andExpect(jsonPath("$.[*].content").doesNotExist())
+            .andExpect(jsonPath("$.[*].course.content").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getAllExercisesAfter() throws Exception {
+        // Initialize the database
+        exerciseRepository.saveAndFlush(exercise);
+
+        // Get the keyset page starting right before the exercise
+        restExerciseMockMvc
+            .perform(get(ENTITY_API_URL + "?after=" + (exercise.getId() - 1) + "&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[0].id").value(exercise.getId().intValue()))
+            .andExpect(jsonPath("$.[0].course.id").value(exercise.getCourse().getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getAllExercisesWhereCorrectionIsNull() throws Exception {
+        // Initialize the database
+        exerciseRepository.saveAndFlush(exercise);
+        Exercise correctedExercise = createEntity(em);
+        exerciseRepository.saveAndFlush(correctedExercise);
+        Correction correction = new Correction().content(DEFAULT_CONTENT).exercise(correctedExercise);
+        em.persist(correction);
+        em.flush();
+        em.clear();
+
+        // Get the page of exercises without a correction
+        restExerciseMockMvc
+            .perform(get(ENTITY_API_URL + "?filter=correction-is-null&sort=id,desc&size=" + Integer.MAX_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(exercise.getId().intValue())))
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(correctedExercise.getId().intValue()))));
+    }
+
+    @Test
+    @Transactional
+    void getAllExerciseSummariesWhereCorrectionIsNull() throws Exception {
+        // Initialize the database
+        exerciseRepository.saveAndFlush(exercise);
+        Exercise correctedExercise = createEntity(em);
+        exerciseRepository.saveAndFlush(correctedExercise);
+        em.persist(new Correction().content(DEFAULT_CONTENT).exercise(correctedExercise));
+        em.flush();
+
+        // Get the page of exercise summaries without a correction
+        restExerciseMockMvc
+            .perform(get(ENTITY_API_URL + "?summary=true&filter=correction-is-null&sort=id,desc&size=" + Integer.MAX_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(exercise.getId().intValue())))
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(correctedExercise.getId().intValue()))))
+            .andExpect(jsonPath("$.[*].content").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getAllExercisesFetchesCorrectionsInTheSameStatement() throws Exception {
+        // Initialize the database with corrected and uncorrected exercises
+        exerciseRepository.saveAndFlush(exercise);
+        for (int i = 0; i < 3; i++) {
+            Exercise correctedExercise = exerciseRepository.saveAndFlush(createEntity(em));
+            em.persist(new Correction().content(DEFAULT_CONTENT).exercise(correctedExercise));
+        }
+
+        // Pages smaller than the page size skip the count query, leaving the select of the exercises alone
+        String allRows = "&size=" + Integer.MAX_VALUE;
+        assertStatementCount(ENTITY_API_URL + "?sort=id,desc" + allRows, 1);
+        assertStatementCount(ENTITY_API_URL + "?eagerload=false&sort=id,desc" + allRows, 1);
+        assertStatementCount(ENTITY_API_URL + "?filter=correction-is-null&sort=id,desc" + allRows, 1);
+        assertStatementCount(ENTITY_API_URL + "?after=" + (exercise.getId() - 1) + allRows, 1);
+        assertStatementCount(ENTITY_API_URL + "?summary=true&sort=id,desc" + allRows, 1);
+        assertStatementCount(ENTITY_API_URL + "?summary=true&filter=correction-is-null&sort=id,desc" + allRows, 1);
+    }
+
+    @Test
+    @Transactional
+    void getExerciseIsASingleStatement() throws Exception {
+        // Initialize the database
+        exerciseRepository.saveAndFlush(exercise);
+        em.persist(new Correction().content(DEFAULT_CONTENT).exercise(exercise));
+
+        assertStatementCount(ENTITY_API_URL + "/" + exercise.getId(), 1);
+    }
+
+    private void assertStatementCount(String url, long expectedCount) throws Exception {
+        Statistics statistics = TestUtil.resetStatementCount(em);
+        restExerciseMockMvc.perform(get(url)).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).as("statements prepared by GET %s", url).isEqualTo(expectedCount);
+    }
+
     @SuppressWarnings({ "unchecked" })
     void getAllExercisesWithEagerRelationshipsIsEnabled() throws Exception {
         when(exerciseServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
@@ -224,6 +373,33 @@ class ExerciseResourceIT {
         verify(exerciseServiceMock, times(1)).findAllWithEagerRelationships(any());
     }
 
+    @Test
+    @Transactional
+    void getAllExerciseSummariesAfterIsRejected() throws Exception {
+        restExerciseMockMvc
+            .perform(get(ENTITY_API_URL + "?summary=true&after=0"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.keysetunsupported"));
+    }
+
+    @Test
+    @Transactional
+    void getAllSortedExercisesAfterIsRejected() throws Exception {
+        restExerciseMockMvc
+            .perform(get(ENTITY_API_URL + "?after=0&sort=id,desc"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.keysetunsupported"));
+    }
+
+    @Test
+    @Transactional
+    void getAllExercisesWhereCorrectionIsNullAfterIsRejected() throws Exception {
+        restExerciseMockMvc
+            .perform(get(ENTITY_API_URL + "?filter=correction-is-null&after=0"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.keysetunsupported"));
+    }
+
     @Test
     @Transactional
     void getExercise() throws Exception {
@@ -241,6 +417,112 @@ class ExerciseResourceIT {
             .andExpect(jsonPath("$.mark").value(DEFAULT_MARK));
     }
 
+    @Test
+    @Transactional
+    void getExerciseWithCurrentETagIsNotModified() throws Exception {
+        // Initialize the database
+        exerciseRepository.saveAndFlush(exercise);
+        String eTag = restExerciseMockMvc
+            .perform(get(ENTITY_API_URL_ID, exercise.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        // Only the versions are read, not the content
+        Statistics statistics = TestUtil.resetStatementCount(em);
+        restExerciseMockMvc
+            .perform(get(ENTITY_API_URL_ID, exercise.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @Transactional
+    void getExerciseETagChangesWithItsCorrection() throws Exception {
+        // Initialize the database
+        exerciseRepository.saveAndFlush(exercise);
+        String eTag = restExerciseMockMvc
+            .perform(get(ENTITY_API_URL_ID, exercise.getId()))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        em.persist(new Correction().content(UPDATED_CONTENT).exercise(exercise));
+        em.flush();
+        em.clear();
+
+        // The correction is part of the representation of the exercise
+        restExerciseMockMvc
+            .perform(get(ENTITY_API_URL_ID, exercise.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(jsonPath("$.correction.content").value(UPDATED_CONTENT));
+    }
+
+    @Test
+    @Transactional
+    void putExerciseWithCurrentETag() throws Exception {
+        // Initialize the database
+        exerciseRepository.saveAndFlush(exercise);
+        String eTag = restExerciseMockMvc
+            .perform(get(ENTITY_API_URL_ID, exercise.getId()))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        Exercise updatedExercise = new Exercise().id(exercise.getId()).title(UPDATED_TITLE).content(UPDATED_CONTENT).mark(UPDATED_MARK);
+        updatedExercise.setCourse(exercise.getCourse());
+
+        String newETag = restExerciseMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, exercise.getId())
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedExercise))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        // The previous ETag is now stale, the new one is current
+        restExerciseMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, exercise.getId())
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new Exercise().id(exercise.getId()).title(DEFAULT_TITLE)))
+            )
+            .andExpect(status().isPreconditionFailed());
+        restExerciseMockMvc
+            .perform(get(ENTITY_API_URL_ID, exercise.getId()).header(HttpHeaders.IF_NONE_MATCH, newETag))
+            .andExpect(status().isNotModified());
+        assertThat(exerciseRepository.findById(exercise.getId()).get().getTitle()).isEqualTo(UPDATED_TITLE);
+    }
+
+    @Test
+    @Transactional
+    void putExerciseWithStaleVersion() throws Exception {
+        // Initialize the database
+        exerciseRepository.saveAndFlush(exercise);
+        Exercise updatedExercise = new Exercise().id(exercise.getId()).title(UPDATED_TITLE).content(UPDATED_CONTENT).mark(UPDATED_MARK);
+        updatedExercise.setCourse(exercise.getCourse());
+        updatedExercise.setVersion(exercise.getVersion() + 1);
+
+        // A version sent in the body is checked as well
+        restExerciseMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, exercise.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedExercise))
+            )
+            .andExpect(status().isConflict());
+    }
+
     @Test
     @Transactional
     void getNonExistingExercise() throws Exception {
@@ -470,4 +752,202 @@ class ExerciseResourceIT {
         List<Exercise> exerciseList = exerciseRepository.findAll();
         assertThat(exerciseList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void createExercisesInBulk() throws Exception {
+        int databaseSizeBeforeCreate = exerciseRepository.findAll().size();
+        Exercise otherExercise = createUpdatedEntity(em);
+
+        restExerciseMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(exercise, otherExercise)))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].index").value(contains(0, 1)))
+            .andExpect(jsonPath("$.[*].status").value(everyItem(is(201))))
+            .andExpect(jsonPath("$.[*].id").value(everyItem(notNullValue())));
+
+        List<Exercise> exerciseList = exerciseRepository.findAll();
+        assertThat(exerciseList).hasSize(databaseSizeBeforeCreate + 2);
+        assertThat(exerciseList).extracting(Exercise::getTitle).contains(DEFAULT_TITLE, UPDATED_TITLE);
+    }
+
+    @Test
+    @Transactional
+    void createExercisesInBulkWithInvalidItem() throws Exception {
+        int databaseSizeBeforeCreate = exerciseRepository.findAll().size();
+        Exercise invalidExercise = createUpdatedEntity(em).title(null);
+
+        restExerciseMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(exercise, invalidExercise)))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].index").value(1))
+            .andExpect(jsonPath("$.[0].status").value(400))
+            .andExpect(jsonPath("$.[0].errors").value(hasItem(startsWith("title:"))));
+
+        // Nothing is saved when any item is invalid
+        assertThat(exerciseRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void createExercisesInBulkWithNonExistingCourse() throws Exception {
+        int databaseSizeBeforeCreate = exerciseRepository.findAll().size();
+        Exercise orphanExercise = createUpdatedEntity(em).course(new Course().id(count.incrementAndGet()));
+
+        restExerciseMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(exercise, orphanExercise)))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].index").value(1))
+            .andExpect(jsonPath("$.[0].status").value(400))
+            .andExpect(jsonPath("$.[0].errors").value(contains("course: not found")));
+
+        assertThat(exerciseRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void createExercisesInBulkWithTooManyItems() throws Exception {
+        int databaseSizeBeforeCreate = exerciseRepository.findAll().size();
+        int maxItems = applicationProperties.getBulkRequests().getMaxItems();
+
+        restExerciseMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(Collections.nCopies(maxItems + 1, exercise)))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.bulktoolarge"));
+
+        assertThat(exerciseRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
+    @Test
+    @Transactional
+    void updateExercisesInBulk() throws Exception {
+        exerciseRepository.saveAndFlush(exercise);
+        Exercise otherExercise = exerciseRepository.saveAndFlush(createEntity(em));
+
+        Exercise updatedExercise = exerciseRepository.findById(exercise.getId()).get();
+        em.detach(updatedExercise);
+        updatedExercise.title(UPDATED_TITLE).content(UPDATED_CONTENT).mark(UPDATED_MARK);
+        Exercise otherUpdatedExercise = exerciseRepository.findById(otherExercise.getId()).get();
+        em.detach(otherUpdatedExercise);
+        otherUpdatedExercise.title(UPDATED_TITLE);
+
+        restExerciseMockMvc
+            .perform(
+                put(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(updatedExercise, otherUpdatedExercise)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(exercise.getId().intValue(), otherExercise.getId().intValue())))
+            .andExpect(jsonPath("$.[*].status").value(everyItem(is(200))));
+
+        Exercise testExercise = exerciseRepository.findById(exercise.getId()).get();
+        assertThat(testExercise.getTitle()).isEqualTo(UPDATED_TITLE);
+        assertThat(testExercise.getContent()).isEqualTo(UPDATED_CONTENT);
+        assertThat(testExercise.getMark()).isEqualTo(UPDATED_MARK);
+        assertThat(exerciseRepository.findById(otherExercise.getId()).get().getTitle()).isEqualTo(UPDATED_TITLE);
+    }
+
+    @Test
+    @Transactional
+    void updateExercisesInBulkWithNonExistingItem() throws Exception {
+        exerciseRepository.saveAndFlush(exercise);
+
+        Exercise updatedExercise = exerciseRepository.findById(exercise.getId()).get();
+        em.detach(updatedExercise);
+        updatedExercise.title(UPDATED_TITLE);
+        Exercise nonExistingExercise = createUpdatedEntity(em);
+        nonExistingExercise.setId(count.incrementAndGet());
+
+        restExerciseMockMvc
+            .perform(
+                put(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(updatedExercise, nonExistingExercise)))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].index").value(1))
+            .andExpect(jsonPath("$.[0].status").value(404));
+
+        assertThat(exerciseRepository.findById(exercise.getId()).get().getTitle()).isEqualTo(DEFAULT_TITLE);
+    }
+
+    @Test
+    @Transactional
+    void updateExercisesInBulkWithNonExistingCourse() throws Exception {
+        exerciseRepository.saveAndFlush(exercise);
+
+        Exercise updatedExercise = exerciseRepository.findById(exercise.getId()).get();
+        em.detach(updatedExercise);
+        updatedExercise.title(UPDATED_TITLE).course(new Course().id(count.incrementAndGet()));
+
+        restExerciseMockMvc
+            .perform(
+                put(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(List.of(updatedExercise)))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.[0].status").value(400))
+            .andExpect(jsonPath("$.[0].errors").value(contains("course: not found")));
+
+        assertThat(exerciseRepository.findById(exercise.getId()).get().getTitle()).isEqualTo(DEFAULT_TITLE);
+    }
+
+    @Test
+    @Transactional
+    void deleteExercisesInBulk() throws Exception {
+        exerciseRepository.saveAndFlush(exercise);
+        long nonExistingId = count.incrementAndGet();
+
+        int databaseSizeBeforeDelete = exerciseRepository.findAll().size();
+
+        restExerciseMockMvc
+            .perform(delete(ENTITY_API_URL + "/bulk").param("ids", exercise.getId().toString(), Long.toString(nonExistingId)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].status").value(contains(204, 404)));
+
+        assertThat(exerciseRepository.findAll()).hasSize(databaseSizeBeforeDelete - 1);
+    }
+
+    @Test
+    @Transactional
+    void deleteExercisesInBulkKeepsTheCorrectedOnes() throws Exception {
+        exerciseRepository.saveAndFlush(exercise);
+        Exercise correctedExercise = createEntity(em);
+        exerciseRepository.saveAndFlush(correctedExercise);
+        em.persist(new Correction().content(DEFAULT_CONTENT).exercise(correctedExercise));
+        em.flush();
+
+        int databaseSizeBeforeDelete = exerciseRepository.findAll().size();
+
+        restExerciseMockMvc
+            .perform(delete(ENTITY_API_URL + "/bulk").param("ids", correctedExercise.getId().toString(), exercise.getId().toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].status").value(contains(409, 204)))
+            .andExpect(jsonPath("$.[0].errors").value(contains("Entity has a correction")));
+
+        assertThat(exerciseRepository.findAll()).hasSize(databaseSizeBeforeDelete - 1);
+        assertThat(exerciseRepository.findById(correctedExercise.getId())).isPresent();
+    }
 }
@@ -0,0 +1,154 @@
+package com.minesup.ape.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.config.Constants;
+import com.minesup.ape.domain.Correction;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.security.AuthoritiesConstants;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link ExportResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+class ExportResourceIT {
+
+    private static final String CONTENT_WITH_SEPARATORS = "first line, \"quoted\"\nsecond line";
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restExportMockMvc;
+
+    private Course course;
+
+    private Exercise exercise;
+
+    private Exercise correctedExercise;
+
+    private Correction correction;
+
+    @BeforeEach
+    public void initTest() {
+        course = new Course().title("AAAAAAAAAA").content("AAAAAAAAAA");
+        em.persist(course);
+        exercise = new Exercise().title("AAAAAAAAAA").content("AAAAAAAAAA").mark(1).course(course);
+        em.persist(exercise);
+        correctedExercise = new Exercise().title("BBBBBBBBBB").content("BBBBBBBBBB").mark(2).course(course);
+        em.persist(correctedExercise);
+        correction = new Correction().content(CONTENT_WITH_SEPARATORS).exercise(correctedExercise);
+        em.persist(correction);
+    }
+
+    @Test
+    @Transactional
+    void exportExercisesAsNdjson() throws Exception {
+        Statistics statistics = TestUtil.resetStatementCount(em);
+
+        String body = restExportMockMvc
+            .perform(get("/api/export/exercises"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"exercises.ndjson\""))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        // A single query, the ids of the corrections included but not their content
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            records.add(objectMapper.readTree(line));
+        }
+        assertThat(body).endsWith("\n");
+        JsonNode exported = records.stream().filter(record -> record.get("id").asLong() == correctedExercise.getId()).findFirst().get();
+        assertThat(exported.get("title").asText()).isEqualTo("BBBBBBBBBB");
+        assertThat(exported.get("mark").asInt()).isEqualTo(2);
+        assertThat(exported.get("courseId").asLong()).isEqualTo(course.getId());
+        assertThat(exported.get("correctionId").asLong()).isEqualTo(correction.getId());
+        JsonNode uncorrected = records.stream().filter(record -> record.get("id").asLong() == exercise.getId()).findFirst().get();
+        assertThat(uncorrected.get("correctionId").isNull()).isTrue();
+        assertThat(records.stream().map(record -> record.get("id").asLong())).isSorted();
+    }
+
+    @Test
+    @Transactional
+    void exportCorrectionsAsCsv() throws Exception {
+        String body = restExportMockMvc
+            .perform(get("/api/export/corrections?format=csv"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"corrections.csv\""))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        assertThat(body)
+            .startsWith("id,version,content,exerciseId\r\n")
+            .contains(
+                correction.getId() + ",0,\"first line, \"\"quoted\"\"\nsecond line\"," + correctedExercise.getId() + "\r\n"
+            );
+    }
+
+    @Test
+    @Transactional
+    void exportCoursesBeyondTheFetchSize() throws Exception {
+        for (int i = 0; i < Constants.EXPORT_FETCH_SIZE; i++) {
+            em.persist(new Course().title("CCCCCCCCCC").content("CCCCCCCCCC"));
+        }
+        em.flush();
+        em.clear();
+
+        String body = restExportMockMvc
+            .perform(get("/api/export/courses?format=CSV"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        // Clearing the persistence context along the way does not disturb the cursor
+        List<String> lines = Arrays.stream(body.split("\r\n")).skip(1).collect(Collectors.toList());
+        assertThat(lines).hasSizeGreaterThan(Constants.EXPORT_FETCH_SIZE);
+        assertThat(lines.stream().filter(line -> line.endsWith(",CCCCCCCCCC,CCCCCCCCCC"))).hasSize(Constants.EXPORT_FETCH_SIZE);
+        assertThat(lines.stream().map(line -> Long.valueOf(line.substring(0, line.indexOf(','))))).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    @Transactional
+    void exportInUnsupportedFormat() throws Exception {
+        restExportMockMvc.perform(get("/api/export/courses?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.STUDENT)
+    void exportIsForAdminsOnly() throws Exception {
+        restExportMockMvc.perform(get("/api/export/corrections")).andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,301 @@
+package com.minesup.ape.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import com.minesup.ape.security.AuthoritiesConstants;
+import java.util.List;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link ImportResource} REST controller.
+ * <p>
+ * The jobs commit their own transactions, so these tests are not transactional and delete what they imported.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+class ImportResourceIT {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final String CSV = "text/csv";
+
+    /**
+     * Prefix of the titles of the imported entities, unique to each test.
+     */
+    private final String prefix = "import-" + UUID.randomUUID() + " ";
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restImportMockMvc;
+
+    @AfterEach
+    void deleteImportedEntities() {
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> {
+                em
+                    .createQuery(
+                        "delete from Correction correction where correction.exercise.id in " +
+                        "(select exercise.id from Exercise exercise where exercise.title like :prefix)"
+                    )
+                    .setParameter("prefix", prefix + "%")
+                    .executeUpdate();
+                em
+                    .createQuery("delete from Exercise exercise where exercise.title like :prefix")
+                    .setParameter("prefix", prefix + "%")
+                    .executeUpdate();
+                em
+                    .createQuery("delete from Course course where course.title like :prefix")
+                    .setParameter("prefix", prefix + "%")
+                    .executeUpdate();
+            });
+    }
+
+    @Test
+    void importCoursesExercisesAndCorrections() throws Exception {
+        JsonNode courses = importFile(
+            "courses",
+            "ndjson",
+            NDJSON,
+            courseLine("algebra") + courseLine("geometry") + "\n" + courseLine("analysis")
+        );
+        assertThat(courses.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(courses.get("processed").asLong()).isEqualTo(3);
+        assertThat(courses.get("imported").asLong()).isEqualTo(3);
+
+        JsonNode exercises = importFile(
+            "exercises",
+            "csv",
+            CSV,
+            "title,content,mark,course\r\n" +
+            csv("matrices") +
+            ",\"Invert, then multiply\",4," +
+            csv("algebra") +
+            "\r\n" +
+            csv("triangles") +
+            ",\"Prove it\",2," +
+            csv("geometry") +
+            "\r\n" +
+            csv("vectors") +
+            ",\"Add \"\"them\"\"\",0," +
+            csv("algebra") +
+            "\r\n"
+        );
+        assertThat(exercises.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(exercises.get("imported").asLong()).isEqualTo(3);
+
+        JsonNode corrections = importFile(
+            "corrections",
+            "ndjson",
+            NDJSON,
+            correctionLine("matrices", "Use the determinant") + correctionLine("vectors", "Component-wise")
+        );
+        assertThat(corrections.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(corrections.get("imported").asLong()).isEqualTo(2);
+
+        Exercise matrices = exercise("matrices");
+        assertThat(matrices.getContent()).isEqualTo("Invert, then multiply");
+        assertThat(matrices.getMark()).isEqualTo(4);
+        assertThat(matrices.getVersion()).isZero();
+        assertThat(matrices.getCourse().getTitle()).isEqualTo(prefix + "algebra");
+        assertThat(matrices.getCorrection().getContent()).isEqualTo("Use the determinant");
+        assertThat(exercise("vectors").getContent()).isEqualTo("Add \"them\"");
+        assertThat(exercise("triangles").getCorrection()).isNull();
+
+        // The imported ids come from the same generator as the ones Hibernate assigns, so they never collide
+        Course course = new Course().title(prefix + "statistics").content("content");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> em.persist(course));
+        assertThat(ids("select course.id from Course course where course.title like :prefix")).hasSize(4).contains(course.getId());
+    }
+
+    @Test
+    void importWithRejectedRecordsImportsNothing() throws Exception {
+        importFile("courses", "ndjson", NDJSON, courseLine("algebra") + courseLine("twin") + courseLine("twin"));
+
+        JsonNode job = importFile(
+            "exercises",
+            "ndjson",
+            NDJSON,
+            exerciseLine("valid", 1, "algebra") +
+            exerciseLine("unknown course", 1, "topology") +
+            exerciseLine("ambiguous course", 1, "twin") +
+            exerciseLine("negative mark", -1, "algebra") +
+            "{\"title\":\"" +
+            prefix +
+            "not a mark\",\"content\":\"content\",\"mark\":\"ten\",\"course\":\"" +
+            prefix +
+            "algebra\"}\n" +
+            "{\"content\":\"content\",\"mark\":1,\"course\":\"" +
+            prefix +
+            "algebra\"}\n" +
+            exerciseLine("last", 1, "algebra")
+        );
+
+        assertThat(job.get("status").asText()).isEqualTo("FAILED");
+        assertThat(job.get("processed").asLong()).isEqualTo(7);
+        assertThat(job.get("imported").asLong()).isZero();
+        assertThat(job.get("message").asText()).isEqualTo("5 rejected records, nothing was imported");
+        JsonNode rejected = job.get("rejectedRecords");
+        assertThat(rejected).hasSize(5);
+        assertThat(rejected.findValues("record")).extracting(JsonNode::asLong).containsExactlyInAnyOrder(2L, 3L, 4L, 5L, 6L);
+        assertThat(errors(rejected, 2)).isEqualTo("course: no course is titled '" + prefix + "topology'");
+        assertThat(errors(rejected, 3)).isEqualTo("course: 2 courses are titled '" + prefix + "twin'");
+        assertThat(errors(rejected, 4)).startsWith("mark: ");
+        assertThat(errors(rejected, 5)).startsWith("mark: ");
+        assertThat(errors(rejected, 6)).isEqualTo("title: must not be null");
+        assertThat(ids("select exercise.id from Exercise exercise where exercise.title like :prefix")).isEmpty();
+    }
+
+    @Test
+    void importRejectsCorrectionsOfCorrectedExercises() throws Exception {
+        importFile("courses", "ndjson", NDJSON, courseLine("algebra"));
+        importFile("exercises", "ndjson", NDJSON, exerciseLine("matrices", 1, "algebra") + exerciseLine("vectors", 1, "algebra"));
+        importFile("corrections", "ndjson", NDJSON, correctionLine("matrices", "first"));
+
+        JsonNode job = importFile(
+            "corrections",
+            "ndjson",
+            NDJSON,
+            correctionLine("vectors", "first") + correctionLine("vectors", "second") + correctionLine("matrices", "second")
+        );
+
+        assertThat(job.get("status").asText()).isEqualTo("FAILED");
+        assertThat(errors(job.get("rejectedRecords"), 2)).isEqualTo("exercise: '" + prefix + "vectors' already has a correction");
+        assertThat(errors(job.get("rejectedRecords"), 3)).isEqualTo("exercise: '" + prefix + "matrices' already has a correction");
+        assertThat(exercise("vectors").getCorrection()).isNull();
+    }
+
+    @Test
+    void importMalformedFile() throws Exception {
+        JsonNode job = importFile("courses", "ndjson", NDJSON, courseLine("algebra") + "{\"title\": \n");
+
+        assertThat(job.get("status").asText()).isEqualTo("FAILED");
+        assertThat(job.get("message").asText()).startsWith("Malformed file at line 3: ");
+        assertThat(ids("select course.id from Course course where course.title like :prefix")).isEmpty();
+    }
+
+    @Test
+    void getAllImportJobs() throws Exception {
+        JsonNode job = importFile("courses", "ndjson", NDJSON, courseLine("algebra"));
+
+        restImportMockMvc
+            .perform(get("/api/imports"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(job.get("id").asText())));
+    }
+
+    @Test
+    void getNonExistingImportJob() throws Exception {
+        restImportMockMvc.perform(get("/api/imports/{id}", UUID.randomUUID().toString())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void importInUnsupportedFormat() throws Exception {
+        restImportMockMvc
+            .perform(post("/api/imports/courses?format=xml").contentType(MediaType.APPLICATION_XML).content("<courses/>"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.TEACHER)
+    void importIsForAdminsOnly() throws Exception {
+        restImportMockMvc
+            .perform(post("/api/imports/courses").contentType(NDJSON).content(courseLine("algebra")))
+            .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Posts the file and waits for the job to finish.
+     */
+    private JsonNode importFile(String entities, String format, String contentType, String content) throws Exception {
+        String location = restImportMockMvc
+            .perform(post("/api/imports/{entities}?format={format}", entities, format).contentType(contentType).content(content))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.entityName").exists())
+            .andReturn()
+            .getResponse()
+            .getHeader("Location");
+        for (int attempt = 0; attempt < 100; attempt++) {
+            JsonNode job = objectMapper.readTree(
+                restImportMockMvc.perform(get(location)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString()
+            );
+            if (job.has("finishedDate")) {
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Import job " + location + " did not finish");
+    }
+
+    private String courseLine(String title) {
+        return "{\"title\":\"" + prefix + title + "\",\"content\":\"content\"}\n";
+    }
+
+    private String exerciseLine(String title, int mark, String course) {
+        return (
+            "{\"title\":\"" + prefix + title + "\",\"content\":\"content\",\"mark\":" + mark + ",\"course\":\"" + prefix + course + "\"}\n"
+        );
+    }
+
+    private String correctionLine(String exercise, String content) {
+        return "{\"content\":\"" + content + "\",\"exercise\":\"" + prefix + exercise + "\"}\n";
+    }
+
+    private String csv(String title) {
+        return "\"" + prefix + title + "\"";
+    }
+
+    private static String errors(JsonNode rejectedRecords, long record) {
+        for (JsonNode rejected : rejectedRecords) {
+            if (rejected.get("record").asLong() == record) {
+                return rejected.get("errors").get(0).asText();
+            }
+        }
+        throw new AssertionError("Record " + record + " was not rejected");
+    }
+
+    private List<Long> ids(String query) {
+        return new TransactionTemplate(transactionManager)
+            .execute(status -> em.createQuery(query, Long.class).setParameter("prefix", prefix + "%").getResultList());
+    }
+
+    private Exercise exercise(String title) {
+        return new TransactionTemplate(transactionManager)
+            .execute(status ->
+                em
+                    .createQuery(
+                        "select exercise from Exercise exercise join fetch exercise.course left join fetch exercise.correction " +
+                        "where exercise.title = :title",
+                        Exercise.class
+                    )
+                    .setParameter("title", prefix + title)
+                    .getSingleResult()
+            );
+    }
+}
@@ -0,0 +1,134 @@
+package com.minesup.ape.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.minesup.ape.IntegrationTest;
+import com.minesup.ape.domain.Course;
+import com.minesup.ape.domain.Exercise;
+import javax.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link SearchResource} REST controller, against the substring search used outside PostgreSQL.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class SearchResourceIT {
+
+    private static final String WORD = "Quasicristal";
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restSearchMockMvc;
+
+    private Course course;
+
+    private Exercise exercise;
+
+    private Exercise otherExercise;
+
+    @BeforeEach
+    public void initTest() {
+        course = new Course().title("Les " + WORD + "s").content("AAAAAAAAAA");
+        em.persist(course);
+        exercise =
+            new Exercise()
+                .title("AAAAAAAAAA")
+                .content("Montrer qu'un <b>" + WORD.toLowerCase() + "</b> n'est pas périodique.")
+                .mark(1)
+                .course(course);
+        em.persist(exercise);
+        otherExercise = new Exercise().title("BBBBBBBBBB").content(WORD.toUpperCase()).mark(1).course(course);
+        em.persist(otherExercise);
+        em.persist(new Exercise().title("CCCCCCCCCC").content("CCCCCCCCCC").mark(1).course(course));
+        em.flush();
+    }
+
+    @Test
+    @Transactional
+    void searchRanksTitleMatchesFirst() throws Exception {
+        restSearchMockMvc
+            .perform(get("/api/search?query={query}", WORD.toLowerCase()))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$", hasSize(3)))
+            .andExpect(jsonPath("$.[0].type").value("course"))
+            .andExpect(jsonPath("$.[0].id").value(course.getId().intValue()))
+            .andExpect(jsonPath("$.[0].title").value("Les " + WORD + "s"))
+            .andExpect(jsonPath("$.[1].type").value("exercise"))
+            .andExpect(jsonPath("$.[1].id").value(exercise.getId().intValue()))
+            .andExpect(jsonPath("$.[2].id").value(otherExercise.getId().intValue()))
+            .andExpect(jsonPath("$.[0].rank").value(greaterThan(1.0)))
+            .andExpect(jsonPath("$.[*].content").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void searchHighlightsEscapedSnippets() throws Exception {
+        restSearchMockMvc
+            .perform(get("/api/search?query={query}", WORD))
+            .andExpect(status().isOk())
+            .andExpect(
+                jsonPath("$.[1].snippet")
+                    .value("Montrer qu&#39;un &lt;b&gt;<mark>" + WORD.toLowerCase() + "</mark>&lt;/b&gt; n&#39;est pas périodique.")
+            )
+            .andExpect(jsonPath("$.[2].snippet").value("<mark>" + WORD.toUpperCase() + "</mark>"));
+    }
+
+    @Test
+    @Transactional
+    void searchIsASingleStatement() throws Exception {
+        Statistics statistics = TestUtil.resetStatementCount(em);
+
+        restSearchMockMvc.perform(get("/api/search?query={query}", WORD)).andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    void searchIsPaginated() throws Exception {
+        restSearchMockMvc
+            .perform(get("/api/search?query={query}&size=2", WORD))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("page=1")))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+
+        restSearchMockMvc
+            .perform(get("/api/search?query={query}&size=2&page=1", WORD))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].id").value(otherExercise.getId().intValue()))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    @Transactional
+    void searchTreatsWildcardsLiterally() throws Exception {
+        restSearchMockMvc
+            .perform(get("/api/search?query={query}", "%"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(course.getId().intValue()))));
+    }
+
+    @Test
+    @Transactional
+    void searchWithBlankQuery() throws Exception {
+        restSearchMockMvc.perform(get("/api/search?query= ")).andExpect(status().isBadRequest());
+    }
+}
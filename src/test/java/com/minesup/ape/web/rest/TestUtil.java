@@ -6,19 +6,24 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.minesup.ape.config.RecordingStatementInspector;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Locale;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
 import org.hamcrest.Description;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
 import org.hamcrest.TypeSafeMatcher;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
 import org.springframework.format.support.DefaultFormattingConversionService;
 import org.springframework.format.support.FormattingConversionService;
@@ -202,5 +207,48 @@ public final class TestUtil {
         return allQuery.getResultList();
     }
 
+    /**
+     * Runs a request and asserts that the page it serves is selected by the database, with a statement fetching the related
+     * table and limited to the page, rather than by fetching every row and paginating in memory (HHH000104).
+     * @param em The instance of the EntityManager
+     * @param request The request serving the page
+     * @param fetchedTable The table fetched along with the page
+     * @throws Throwable what the request threw
+     */
+    public static void assertPaginatedInDatabase(EntityManager em, ThrowingCallable request, String fetchedTable) throws Throwable {
+        em.flush();
+        em.clear();
+        RecordingStatementInspector.start();
+        List<String> statements;
+        try {
+            request.call();
+        } finally {
+            statements = RecordingStatementInspector.stop();
+        }
+        assertThat(statements)
+            .as("statements prepared by the request")
+            .anySatisfy(sql ->
+                assertThat(sql.toLowerCase(Locale.ROOT))
+                    .contains("join " + fetchedTable + " ")
+                    .containsPattern("\\blimit\\b")
+                    .containsPattern("\\boffset\\b")
+            );
+    }
+
+    /**
+     * Flushes and clears the persistence context, then resets the Hibernate statistics, so that the statements prepared by
+     * the next request can be counted with {@link Statistics#getPrepareStatementCount()}.
+     * @param em The instance of the EntityManager
+     * @return The reset statistics
+     */
+    public static Statistics resetStatementCount(EntityManager em) {
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        assertThat(statistics.isStatisticsEnabled()).as("hibernate.generate_statistics").isTrue();
+        statistics.clear();
+        return statistics;
+    }
+
     private TestUtil() {}
 }
@@ -1,28 +1,42 @@
 package com.minesup.ape.web.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.minesup.ape.IntegrationTest;
 import com.minesup.ape.domain.User;
+import com.minesup.ape.management.SecurityMetersService;
 import com.minesup.ape.repository.UserRepository;
+import com.minesup.ape.service.UserService;
 import com.minesup.ape.web.rest.vm.LoginVM;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.test.web.servlet.MvcResult;
 
 /**
  * Integration tests for the {@link UserJWTController} REST controller.
+ * <p>
+ * The passwords are checked on another thread, so these tests are not transactional and delete the users they created.
  */
 @AutoConfigureMockMvc
 @IntegrationTest
@@ -31,28 +45,37 @@ class UserJWTControllerIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserService userService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ThreadPoolTaskExecutor authenticationTaskExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Autowired
     private MockMvc mockMvc;
 
+    private final List<String> logins = new ArrayList<>();
+
+    @AfterEach
+    void deleteCreatedUsers() {
+        logins.forEach(userService::deleteUser);
+    }
+
     @Test
-    @Transactional
     void testAuthorize() throws Exception {
-        User user = new User();
-        user.setLogin("user-jwt-controller");
-        user.setEmail("user-jwt-controller@example.com");
-        user.setActivated(true);
-        user.setPassword(passwordEncoder.encode("test"));
-
-        userRepository.saveAndFlush(user);
+        createUser("user-jwt-controller");
 
         LoginVM login = new LoginVM();
         login.setUsername("user-jwt-controller");
         login.setPassword("test");
         mockMvc
-            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .perform(asyncDispatch(authenticate(login)))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.id_token").isString())
             .andExpect(jsonPath("$.id_token").isNotEmpty())
@@ -61,22 +84,15 @@ class UserJWTControllerIT {
     }
 
     @Test
-    @Transactional
     void testAuthorizeWithRememberMe() throws Exception {
-        User user = new User();
-        user.setLogin("user-jwt-controller-remember-me");
-        user.setEmail("user-jwt-controller-remember-me@example.com");
-        user.setActivated(true);
-        user.setPassword(passwordEncoder.encode("test"));
-
-        userRepository.saveAndFlush(user);
+        createUser("user-jwt-controller-remember-me");
 
         LoginVM login = new LoginVM();
         login.setUsername("user-jwt-controller-remember-me");
         login.setPassword("test");
         login.setRememberMe(true);
         mockMvc
-            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .perform(asyncDispatch(authenticate(login)))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.id_token").isString())
             .andExpect(jsonPath("$.id_token").isNotEmpty())
@@ -90,9 +106,77 @@ class UserJWTControllerIT {
         login.setUsername("wrong-user");
         login.setPassword("wrong password");
         mockMvc
-            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .perform(asyncDispatch(authenticate(login)))
             .andExpect(status().isUnauthorized())
             .andExpect(jsonPath("$.id_token").doesNotExist())
             .andExpect(header().doesNotExist("Authorization"));
     }
+
+    @Test
+    void testAuthorizeIsRefusedWhenTooManyLoginsWait() throws Exception {
+        double rejected = meterRegistry.get(SecurityMetersService.AUTHENTICATION_REJECTED_METER_NAME).counter().count();
+        LoginVM login = new LoginVM();
+        login.setUsername("wrong-user");
+        login.setPassword("wrong password");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Two threads and two queued tasks in the tests
+            for (int i = 0; i < 4; i++) {
+                authenticationTaskExecutor.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            mockMvc
+                .perform(
+                    post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login))
+                )
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(header().doesNotExist("Authorization"));
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(meterRegistry.get(SecurityMetersService.AUTHENTICATION_REJECTED_METER_NAME).counter().count())
+            .isEqualTo(rejected + 1);
+    }
+
+    @Test
+    void testAuthorizeIsMetered() throws Exception {
+        createUser("user-jwt-controller-metered");
+        long waits = meterRegistry.get(SecurityMetersService.AUTHENTICATION_WAIT_METER_NAME).timer().count();
+        long matches = meterRegistry.get(SecurityMetersService.PASSWORD_HASHING_METER_NAME).tag("operation", "matches").timer().count();
+
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-metered");
+        login.setPassword("test");
+        mockMvc.perform(asyncDispatch(authenticate(login))).andExpect(status().isOk());
+
+        assertThat(meterRegistry.get(SecurityMetersService.AUTHENTICATION_WAIT_METER_NAME).timer().count()).isEqualTo(waits + 1);
+        assertThat(meterRegistry.get(SecurityMetersService.PASSWORD_HASHING_METER_NAME).tag("operation", "matches").timer().count())
+            .isEqualTo(matches + 1);
+        assertThat(meterRegistry.find("executor.queued").tag("name", "authenticationTaskExecutor").gauge()).isNotNull();
+    }
+
+    private void createUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+        userRepository.saveAndFlush(user);
+        logins.add(login);
+    }
+
+    private MvcResult authenticate(LoginVM login) throws Exception {
+        return mockMvc
+            .perform(post("/api/authenticate").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    }
 }
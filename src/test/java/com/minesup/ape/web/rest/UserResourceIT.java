@@ -1,6 +1,7 @@
 package com.minesup.ape.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -8,7 +9,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.minesup.ape.IntegrationTest;
 import com.minesup.ape.domain.Authority;
+import com.minesup.ape.domain.OutboxMail;
 import com.minesup.ape.domain.User;
+import com.minesup.ape.repository.OutboxMailRepository;
 import com.minesup.ape.repository.UserRepository;
 import com.minesup.ape.security.AuthoritiesConstants;
 import com.minesup.ape.service.dto.AdminUserDTO;
@@ -66,6 +69,9 @@ class UserResourceIT {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private OutboxMailRepository outboxMailRepository;
+
     @Autowired
     private EntityManager em;
 
@@ -230,6 +236,64 @@ class UserResourceIT {
         assertPersistedUsers(users -> assertThat(users).hasSize(databaseSizeBeforeCreate));
     }
 
+    @Test
+    @Transactional
+    void createUsersInBulk() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        int databaseSizeBeforeCreate = userRepository.findAll().size();
+
+        List<AdminUserDTO> userDTOs = List.of(
+            bulkUser("bulk-a", "bulk-a@localhost"),
+            bulkUser(DEFAULT_LOGIN, "bulk-other@localhost"), // this login should already be used
+            bulkUser("Bulk-B", "bulk-b@localhost"),
+            bulkUser("bulk-c", "BULK-A@localhost"), // this email should be requested twice
+            bulkUser("bulk-d", null),
+            bulkUser("bulk-e", "bulk-e@localhost")
+        );
+
+        restUserMockMvc
+            .perform(
+                post("/api/admin/users/bulk").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(userDTOs))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-apeApp-alert", "userManagement.bulkCreated"))
+            .andExpect(jsonPath("$.createdLogins").value(contains("bulk-a", "bulk-b", "bulk-e")))
+            .andExpect(jsonPath("$.rejectedUsers[*].index").value(contains(1, 3, 4)))
+            .andExpect(jsonPath("$.rejectedUsers[0].login").value(DEFAULT_LOGIN))
+            .andExpect(jsonPath("$.rejectedUsers[0].errors").value(contains("login: '" + DEFAULT_LOGIN + "' is already used")))
+            .andExpect(jsonPath("$.rejectedUsers[1].errors").value(contains("email: 'BULK-A@localhost' is requested more than once")))
+            .andExpect(jsonPath("$.rejectedUsers[2].errors").value(contains("email: must not be null")));
+
+        // Validate the Users in the database
+        assertPersistedUsers(users -> assertThat(users).hasSize(databaseSizeBeforeCreate + 3));
+        User testUser = userRepository.findOneWithAuthoritiesByLogin("bulk-b").orElseThrow();
+        assertThat(testUser.getEmail()).isEqualTo("bulk-b@localhost");
+        assertThat(testUser.getFirstName()).isEqualTo(DEFAULT_FIRSTNAME);
+        assertThat(testUser.getLangKey()).isEqualTo(DEFAULT_LANGKEY);
+        assertThat(testUser.isActivated()).isTrue();
+        assertThat(testUser.getResetKey()).isNotNull();
+        assertThat(testUser.getCreatedBy()).isEqualTo("user");
+        assertThat(testUser.getAuthorities()).extracting(Authority::getName).containsExactly(AuthoritiesConstants.STUDENT);
+        assertThat(testUser.getPassword()).startsWith("$2a$").hasSize(60);
+        assertThat(userRepository.findOneWithAuthoritiesByLogin("bulk-e").orElseThrow().getPassword()).isNotEqualTo(testUser.getPassword());
+        assertThat(outboxMailRepository.findAll())
+            .extracting(OutboxMail::getRecipient)
+            .filteredOn(recipient -> recipient.startsWith("bulk-"))
+            .containsExactlyInAnyOrder("bulk-a@localhost", "bulk-b@localhost", "bulk-e@localhost");
+    }
+
+    private static AdminUserDTO bulkUser(String login, String email) {
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setLogin(login);
+        userDTO.setEmail(email);
+        userDTO.setFirstName(DEFAULT_FIRSTNAME);
+        userDTO.setLastName(DEFAULT_LASTNAME);
+        userDTO.setLangKey(DEFAULT_LANGKEY);
+        userDTO.setAuthorities(Set.of(AuthoritiesConstants.STUDENT, "ROLE_UNKNOWN"));
+        return userDTO;
+    }
+
     @Test
     @Transactional
     void getAllUsers() throws Exception {
@@ -249,6 +313,22 @@ class UserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    @Transactional
+    void getAllUsersAfter() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+
+        // Get the keyset page starting right before the user
+        restUserMockMvc
+            .perform(get("/api/admin/users?after=" + (user.getId() - 1) + "&size=1").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[0].login").value(DEFAULT_LOGIN))
+            .andExpect(jsonPath("$.[0].email").value(DEFAULT_EMAIL));
+    }
+
     @Test
     @Transactional
     void getUser() throws Exception {